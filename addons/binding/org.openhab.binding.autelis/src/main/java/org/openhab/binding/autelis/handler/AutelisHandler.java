@@ -9,21 +9,29 @@
 package org.openhab.binding.autelis.handler;
 
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.httpclient.Credentials;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
 import org.apache.commons.httpclient.methods.GetMethod;
@@ -44,7 +52,6 @@ import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.autelis.config.AutelisConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.InputSource;
 
 /**
  * 
@@ -112,12 +119,26 @@ public class AutelisHandler extends BaseThingHandler {
 	HttpClient client;
 
 	/**
-	 * Regex expression to match XML responses from the Autelis, this is used to
-	 * combine similar XML docs into a single document, {@link XPath} is still
-	 * used for XML querying
+	 * The connections of the http client, one per status document
 	 */
-	private Pattern responsePattern = Pattern.compile(
-			"<response>(.+?)</response>", Pattern.DOTALL);
+	private MultiThreadedHttpConnectionManager connectionManager;
+
+	/**
+	 * The status documents which are polled from the Autelis controller
+	 */
+	private static final String[] STATUS_DOCUMENTS = { "status", "chem",
+			"pumps" };
+
+	/**
+	 * Factory for the streaming parsers of the status documents
+	 */
+	private static final XMLInputFactory xmlInputFactory = XMLInputFactory
+			.newInstance();
+
+	/**
+	 * Fetches the status documents in parallel to the polling thread
+	 */
+	private ExecutorService fetchExecutor;
 
 	/**
 	 * is out config correct
@@ -143,6 +164,14 @@ public class AutelisHandler extends BaseThingHandler {
 	public void dispose() {
 		logger.debug("Handler disposed.");
 		stopPolling();
+		if (fetchExecutor != null) {
+			fetchExecutor.shutdownNow();
+			fetchExecutor = null;
+		}
+		if (connectionManager != null) {
+			connectionManager.shutdown();
+			connectionManager = null;
+		}
 	}
 
 	@Override
@@ -253,7 +282,17 @@ public class AutelisHandler extends BaseThingHandler {
 				port = _port.intValue();
 			}
 
-			client = new HttpClient();
+			// the status documents are fetched concurrently, so we need a
+			// connection for each of them
+			if (connectionManager != null) {
+				connectionManager.shutdown();
+			}
+			connectionManager = new MultiThreadedHttpConnectionManager();
+			connectionManager.getParams().setDefaultMaxConnectionsPerHost(
+					STATUS_DOCUMENTS.length);
+			connectionManager.getParams().setMaxTotalConnections(
+					STATUS_DOCUMENTS.length);
+			client = new HttpClient(connectionManager);
 
 			Credentials creds = new UsernamePasswordCredentials(username,
 					password);
@@ -280,6 +319,18 @@ public class AutelisHandler extends BaseThingHandler {
 	 */
 	private void initPolling() {
 		stopPolling();
+		if (fetchExecutor == null) {
+			final String threadName = "autelis-fetch-" + getThing().getUID().getId();
+			fetchExecutor = Executors.newFixedThreadPool(
+					STATUS_DOCUMENTS.length - 1, new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, threadName);
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
 		pollFuture = scheduler.scheduleAtFixedRate(new Runnable() {
 			@Override
 			public void run() {
@@ -309,62 +360,133 @@ public class AutelisHandler extends BaseThingHandler {
 	 * The polling future executes this every iteration
 	 */
 	protected void execute() {
-		logger.trace("Connecting to {}" + baseURL);
+		logger.trace("Connecting to {}", baseURL);
 
 		clearState();
 
-		// we will reconstruct the document with all the responses combined for
-		// XPATH
-		StringBuilder sb = new StringBuilder("<response>");
-
-		// pull down the three xml documents
-		String[] statuses = { "status", "chem", "pumps" };
-		for (String status : statuses) {
-			String response = getUrl(baseURL + "/" + status + ".xml", TIMEOUT);
-			logger.trace(baseURL + "/" + status + ".xml \n {}", response);
-			if (response == null) {
-				updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR);
+		// pull down the three xml documents in parallel, the first one is
+		// fetched on the polling thread itself
+		List<Future<String>> futures = new ArrayList<Future<String>>();
+		for (int i = 1; i < STATUS_DOCUMENTS.length; i++) {
+			final String url = baseURL + "/" + STATUS_DOCUMENTS[i] + ".xml";
+			futures.add(fetchExecutor.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return getUrl(url, TIMEOUT);
+				}
+			}));
+		}
+		String[] responses = new String[STATUS_DOCUMENTS.length];
+		responses[0] = getUrl(baseURL + "/" + STATUS_DOCUMENTS[0] + ".xml",
+				TIMEOUT);
+		for (int i = 1; i < STATUS_DOCUMENTS.length; i++) {
+			try {
+				responses[i] = futures.get(i - 1).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				logger.debug("Could not fetch {}", STATUS_DOCUMENTS[i],
+						e.getCause());
+			}
+		}
+
+		/*
+		 * Each document is parsed once into a map of element paths below the
+		 * response tag (e.g. "system/runstate") to their text values.
+		 */
+		Map<String, String> values = new HashMap<String, String>();
+		for (int i = 0; i < STATUS_DOCUMENTS.length; i++) {
+			logger.trace("{}/{}.xml \n {}", baseURL, STATUS_DOCUMENTS[i],
+					responses[i]);
+			if (responses[i] == null) {
+				updateStatus(ThingStatus.OFFLINE,
+						ThingStatusDetail.COMMUNICATION_ERROR);
 				return;
 			}
-			// get the xml data between the response tags and append to our main
-			// doc
-			Matcher m = responsePattern.matcher(response);
-			if (m.find()) {
-				sb.append(m.group(1));
+			try {
+				parseValues(responses[i], values);
+			} catch (XMLStreamException e) {
+				logger.error("could not parse xml", e);
 			}
 		}
-		// finish our "new" XML Document
-		sb.append("</response>");
 
 		updateStatus(ThingStatus.ONLINE);
 
-		/*
-		 * This xmlDoc will now contain the three XML documents we retrieved
-		 * wrapped in response tags for easier querying in XPath.
-		 */
-		String xmlDoc = sb.toString();
 		for (Channel channel : getThing().getChannels()) {
 			String key = channel.getUID().getId().replace('-', '/');
-			XPathFactory xpathFactory = XPathFactory.newInstance();
-			XPath xpath = xpathFactory.newXPath();
-			try {
-				InputSource is = new InputSource(new StringReader(xmlDoc));
-				String value = xpath.evaluate("response/" + key, is);
+			String value = values.get(key);
 
-				if (StringUtils.isEmpty((value)))
-					continue;
+			if (StringUtils.isEmpty((value)))
+				continue;
 
-				State state = toState(channel.getAcceptedItemType(), value);
-				State oldState = stateMap.put(channel.getUID().getAsString(),
+			State state = toState(channel.getAcceptedItemType(), value);
+			State oldState = stateMap.put(channel.getUID().getAsString(), state);
+			if (!state.equals(oldState)) {
+				logger.trace("updating channel {} with state {}", channel,
 						state);
-				if (!state.equals(oldState)) {
-					logger.trace("updating channel {} with state {}", channel,
-							state);
-					updateState(channel.getUID(), state);
+				updateState(channel.getUID(), state);
+			}
+		}
+	}
+
+	/**
+	 * Parses a response document of the Autelis controller in a single pass
+	 * and adds the text of all leaf elements below the root element to the
+	 * given map, using the slash separated element path as key. If a path
+	 * occurs several times, the first value is kept.
+	 * 
+	 * @param xml
+	 * @param values
+	 * @throws XMLStreamException
+	 */
+	private void parseValues(String xml, Map<String, String> values)
+			throws XMLStreamException {
+		XMLStreamReader reader = xmlInputFactory
+				.createXMLStreamReader(new StringReader(xml));
+		try {
+			// the path of the current element, excluding the root element
+			StringBuilder path = new StringBuilder();
+			StringBuilder text = new StringBuilder();
+			boolean leaf = false;
+			int depth = 0;
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					if (depth > 0) {
+						if (depth > 1) {
+							path.append('/');
+						}
+						path.append(reader.getLocalName());
+					}
+					depth++;
+					leaf = true;
+					text.setLength(0);
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+					if (leaf) {
+						text.append(reader.getText());
+					}
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					depth--;
+					if (depth > 0) {
+						String key = path.toString();
+						if (leaf && !values.containsKey(key)) {
+							values.put(key, text.toString().trim());
+						}
+						int separator = path.lastIndexOf("/");
+						path.setLength(separator < 0 ? 0 : separator);
+					}
+					leaf = false;
+					break;
+				default:
+					break;
 				}
-			} catch (XPathExpressionException e) {
-				logger.error("could not parse xml", e);
 			}
+		} finally {
+			reader.close();
 		}
 	}
 
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.avmfritz.internal.util;
+
+import java.io.StringReader;
+
+import javax.xml.bind.JAXBContext;
+
+import org.openhab.binding.avmfritz.internal.ahamodel.DevicelistModel;
+
+/**
+ * Parses the device list of {@link JAXBUtilsTest}, once with a new JAXB
+ * context for each poll as before, and once with the shared context of
+ * {@link JAXBUtils}, and prints the time per poll. It is not run with the
+ * tests, run its main method to compare both.
+ *
+ * @author agent - Initial contribution
+ */
+public class JAXBUtilsBenchmark {
+
+	private static final int ROUNDS = 50;
+
+	public static void main(String[] args) throws Exception {
+		String xml = JAXBUtilsTest.readDevicelist();
+
+		// warm up
+		runSharedContext(xml, ROUNDS);
+		runNewContext(xml, ROUNDS / 10);
+
+		long start = System.nanoTime();
+		runNewContext(xml, ROUNDS);
+		long newContextTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		runSharedContext(xml, ROUNDS);
+		long sharedContextTime = System.nanoTime() - start;
+
+		System.out.println(String.format(
+				"device list parsing: new context %.2f ms, shared context %.2f ms per poll",
+				newContextTime / 1e6 / ROUNDS, sharedContextTime / 1e6 / ROUNDS));
+	}
+
+	private static int runSharedContext(String xml, int rounds) throws Exception {
+		int devices = 0;
+		for (int i = 0; i < rounds; i++) {
+			devices += JAXBUtils.unmarshalDevicelist(xml).getDevicelist().size();
+		}
+		return devices;
+	}
+
+	/**
+	 * The way device lists have been parsed before, with a new context for
+	 * each poll
+	 */
+	private static int runNewContext(String xml, int rounds) throws Exception {
+		int devices = 0;
+		for (int i = 0; i < rounds; i++) {
+			JAXBContext jaxbContext = JAXBContext.newInstance(DevicelistModel.class);
+			DevicelistModel model = (DevicelistModel) jaxbContext.createUnmarshaller().unmarshal(
+					new StringReader(xml));
+			devices += model.getDevicelist().size();
+		}
+		return devices;
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.avmfritz.internal.util;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+
+import org.junit.Test;
+import org.openhab.binding.avmfritz.internal.ahamodel.DeviceModel;
+import org.openhab.binding.avmfritz.internal.ahamodel.DevicelistModel;
+
+/**
+ * Tests cases for {@link JAXBUtils} and the comparison of device models. The
+ * device list is from a FRITZ!Box with 20 FRITZ!DECT 200, 16 Comet DECT and 4
+ * repeaters.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class JAXBUtilsTest {
+
+	@Test
+	public void testUnmarshalDevicelist() throws Exception {
+		DevicelistModel model = JAXBUtils.unmarshalDevicelist(readDevicelist());
+
+		assertThat(model.getXmlApiVersion(), is("1"));
+		List<DeviceModel> devices = model.getDevicelist();
+		assertThat(devices.size(), is(40));
+
+		DeviceModel plug = devices.get(0);
+		assertThat(plug.getIdentifier(), is("087620100037"));
+		assertThat(plug.getName(), is("Steckdose 1"));
+		assertThat(plug.isSwitchableOutlet(), is(true));
+		assertThat(plug.isPowermeter(), is(true));
+		assertThat(plug.getSwitch().getState(), is(BigDecimal.ONE));
+		assertThat(plug.getPowermeter().getPower(),
+				is(new BigDecimal("52.750")));
+		assertThat(plug.getTemperature().getCelsius(),
+				is(new BigDecimal("18.6")));
+
+		DeviceModel thermostat = devices.get(20);
+		assertThat(thermostat.isTempSensor(), is(true));
+		assertThat(thermostat.isSwitchableOutlet(), is(false));
+		assertThat(thermostat.getSwitch(), is(nullValue()));
+	}
+
+	@Test
+	public void testUnchangedDevicesAreEqual() throws Exception {
+		String xml = readDevicelist();
+		List<DeviceModel> first = JAXBUtils.unmarshalDevicelist(xml)
+				.getDevicelist();
+		List<DeviceModel> second = JAXBUtils.unmarshalDevicelist(
+				xml.replace("<power>52750</power>", "<power>52800</power>")
+						.replace("<name>Heizung 3</name>",
+								"<name>Bad</name>")).getDevicelist();
+
+		int changed = 0;
+		for (int i = 0; i < first.size(); i++) {
+			if (!first.get(i).equals(second.get(i))) {
+				changed++;
+			} else {
+				assertThat(first.get(i).hashCode(),
+						is(second.get(i).hashCode()));
+			}
+		}
+		assertThat(changed, is(2));
+		assertThat(first.get(0).equals(second.get(0)), is(false));
+		assertThat(first.get(22).equals(second.get(22)), is(false));
+	}
+
+	@Test
+	public void testContextIsShared() throws Exception {
+		JAXBContext context = JAXBUtils.getContext();
+		JAXBUtils.unmarshalDevicelist(readDevicelist());
+
+		assertThat(context, is(notNullValue()));
+		assertThat(JAXBUtils.getContext(), is(sameInstance(context)));
+	}
+
+	static String readDevicelist() throws Exception {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				JAXBUtilsTest.class.getResourceAsStream("devicelist.xml"), "UTF-8"));
+		try {
+			StringBuilder xml = new StringBuilder();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				xml.append(line).append('\n');
+			}
+			return xml.toString();
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -10,6 +10,7 @@ package org.openhab.binding.avmfritz.handler;
 
 import static org.openhab.binding.avmfritz.BindingConstants.*;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ScheduledFuture;
@@ -28,6 +29,7 @@ import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.avmfritz.BindingConstants;
 import org.openhab.binding.avmfritz.config.AvmFritzConfiguration;
 import org.openhab.binding.avmfritz.internal.ahamodel.DeviceModel;
@@ -61,6 +63,11 @@ implements IFritzHandler {
 	 * Holder for last data received from the box.
 	 */
 	private Map<String, DeviceModel> deviceList;
+	/**
+	 * Last states sent to the channels of each thing, only changed states are
+	 * sent again.
+	 */
+	private Map<ThingUID, Map<String, State>> channelStates;
 	/**
 	 * Job which will do the FRITZ!Box polling
 	 */
@@ -79,6 +86,7 @@ implements IFritzHandler {
 	public BoxHandler(Bridge bridge) {
 		super(bridge);
 		this.deviceList = new TreeMap<String, DeviceModel>();
+		this.channelStates = new HashMap<ThingUID, Map<String, State>>();
 		this.pollingRunnable = new DeviceListPolling(this);
 	}
 
@@ -117,20 +125,32 @@ implements IFritzHandler {
 			pollingJob.cancel(true);
 			pollingJob = null;
 		}
+		if (connection != null) {
+			connection.dispose();
+		}
+		synchronized (this) {
+			this.channelStates.clear();
+		}
 	}
 
 	/**
 	 * {@inheritDoc} 
 	 */
-	public void addDeviceList(DeviceModel model) {
+	public synchronized void addDeviceList(DeviceModel model) {
 		try {
-			logger.debug("set device model: " + model.toString());
-			this.deviceList.put(model.getIdentifier(), model);
+			logger.debug("set device model: {}", model);
+			DeviceModel previous = this.deviceList.put(model.getIdentifier(), model);
 			ThingUID thingUID = this.getThingUID(model);
-			Thing thing = this.getThingByUID(thingUID);
-			if( thing != null ) {
-				logger.debug("update thing " + thingUID + " with device model: "
-						+ model.toString());
+			Thing thing = thingUID != null ? this.getThingByUID(thingUID) : null;
+			if( thing == null ) {
+				// all channels are updated as soon as the thing exists
+				this.channelStates.remove(thingUID);
+			} else if( model.equals(previous) 
+					&& this.channelStates.containsKey(thingUID) ) {
+				logger.trace("device model of {} unchanged", thingUID);
+			} else {
+				logger.debug("update thing {} with device model: {}", thingUID,
+						model);
 				this.updateThingFromDevice(thing, model);
 			}
 		} catch (Exception e) {
@@ -138,6 +158,17 @@ implements IFritzHandler {
 		}
 	}
 
+	/**
+	 * Forgets the states sent to a thing, so that all its channels are updated
+	 * with the next poll, e.g. after the thing handler has been initialized.
+	 * 
+	 * @param thingUID
+	 *            UID of the thing
+	 */
+	public synchronized void resetChannelStates(ThingUID thingUID) {
+		this.channelStates.remove(thingUID);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -157,27 +188,27 @@ implements IFritzHandler {
 		if (thing == null || device == null) {
 			throw new IllegalArgumentException("thing or device null, cannot perform update");
 		}
-		logger.debug("about to update " + thing.getUID() + " from "
-				+ device.toString());
+		Map<String, State> states = this.channelStates.get(thing.getUID());
+		if (states == null) {
+			states = new HashMap<String, State>();
+			this.channelStates.put(thing.getUID(), states);
+		}
 		if (device.isTempSensor()) {
-			Channel channel = thing.getChannel(CHANNEL_TEMP);
-			this.updateState(channel.getUID(), new DecimalType(device
-					.getTemperature().getCelsius()));
+			this.updateChannel(thing, states, CHANNEL_TEMP, new DecimalType(
+					device.getTemperature().getCelsius()));
 		}
 		if (device.isPowermeter()) {
-			Channel channelEnergy = thing.getChannel(CHANNEL_ENERGY);
-			this.updateState(channelEnergy.getUID(), new DecimalType(device
-					.getPowermeter().getEnergy()));
-			Channel channelPower = thing.getChannel(CHANNEL_POWER);
-			this.updateState(channelPower.getUID(), new DecimalType(device
-					.getPowermeter().getPower()));
+			this.updateChannel(thing, states, CHANNEL_ENERGY, new DecimalType(
+					device.getPowermeter().getEnergy()));
+			this.updateChannel(thing, states, CHANNEL_POWER, new DecimalType(
+					device.getPowermeter().getPower()));
 		}
 		if (device.isSwitchableOutlet()) {
 			Channel channel = thing.getChannel(CHANNEL_SWITCH);
 			if (device.getSwitch().getState().equals(SwitchModel.ON)) {
-				this.updateState(channel.getUID(), OnOffType.ON);
+				this.updateChannel(thing, states, CHANNEL_SWITCH, OnOffType.ON);
 			} else if (device.getSwitch().getState().equals(SwitchModel.OFF)) {
-				this.updateState(channel.getUID(), OnOffType.OFF);
+				this.updateChannel(thing, states, CHANNEL_SWITCH, OnOffType.OFF);
 			} else {
 				logger.warn("unknown state " + device.getSwitch().getState()
 						+ " for channel " + channel.getUID());
@@ -185,6 +216,30 @@ implements IFritzHandler {
 		}
 	}
 
+	/**
+	 * Updates a channel of a thing, if its state differs from the state sent
+	 * last time.
+	 * 
+	 * @param thing
+	 *            Thing to be updated.
+	 * @param states
+	 *            Last states sent to the thing's channels.
+	 * @param channelId
+	 *            Id of the channel
+	 * @param state
+	 *            New state of the channel
+	 */
+	private void updateChannel(Thing thing, Map<String, State> states,
+			String channelId, State state) {
+		if (!state.equals(states.get(channelId))) {
+			Channel channel = thing.getChannel(channelId);
+			this.updateState(channel.getUID(), state);
+			states.put(channelId, state);
+		} else {
+			logger.trace("{} of {} unchanged", channelId, thing.getUID());
+		}
+	}
+
 	/**
 	 * Builds a {@link ThingUID} from a device model. The UID is build from 
 	 * the {@link BindingConstants#BINDING_ID} and value of 
@@ -10,6 +10,8 @@ package org.openhab.binding.avmfritz.handler;
 
 import static org.openhab.binding.avmfritz.BindingConstants.*;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -26,6 +28,7 @@ import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.avmfritz.BindingConstants;
 import org.openhab.binding.avmfritz.config.AvmFritzConfiguration;
 import org.openhab.binding.avmfritz.internal.ahamodel.DeviceModel;
@@ -70,6 +73,15 @@ implements IFritzHandler {
 	 * Schedule for polling
 	 */
 	private ScheduledFuture<?> pollingJob;
+	/**
+	 * Last device model received in standalone mode
+	 */
+	private DeviceModel lastModel;
+	/**
+	 * Last states sent to the channels in standalone mode, only changed states
+	 * are sent again.
+	 */
+	private Map<String, State> channelStates = new HashMap<String, State>();
 	
 	public DeviceHandler(Thing thing) {
 		super(thing);
@@ -100,6 +112,13 @@ implements IFritzHandler {
 						ThingStatusDetail.CONFIGURATION_ERROR, 
 						"no password set"));
 			}
+		} else {
+			Bridge bridge = this.getBridge();
+			if (bridge != null && bridge.getHandler() instanceof BoxHandler) {
+				// the bridge sends all states with the next poll
+				((BoxHandler) bridge.getHandler()).resetChannelStates(this
+						.getThing().getUID());
+			}
 		}
 	}
 
@@ -114,6 +133,13 @@ implements IFritzHandler {
 				pollingJob.cancel(true);
 				pollingJob = null;
 			}
+			if (connection != null) {
+				connection.dispose();
+			}
+			synchronized (this) {
+				this.lastModel = null;
+				this.channelStates.clear();
+			}
 		}
 	}
 
@@ -181,34 +207,32 @@ implements IFritzHandler {
 	}
 
 	@Override
-	public void addDeviceList(DeviceModel model) {
+	public synchronized void addDeviceList(DeviceModel model) {
 		try {
-			logger.debug("set device model: " + model.toString());
+			logger.debug("set device model: {}", model);
 			Thing thing = this.getThing();
-			if( thing != null ) {
-				logger.debug("update thing " + thing.getUID() + " with device model: "
-						+ model.toString());
-				logger.debug("about to update " + thing.getUID() + " from "
-						+ model.toString());
+			if( thing != null && model.equals(this.lastModel) ) {
+				logger.trace("device model of {} unchanged", thing.getUID());
+			} else if( thing != null ) {
+				logger.debug("update thing {} with device model: {}",
+						thing.getUID(), model);
+				this.lastModel = model;
 				if (model.isTempSensor()) {
-					Channel channel = thing.getChannel(CHANNEL_TEMP);
-					this.updateState(channel.getUID(), new DecimalType(model
+					this.updateChannel(CHANNEL_TEMP, new DecimalType(model
 							.getTemperature().getCelsius()));
 				}
 				if (model.isPowermeter()) {
-					Channel channelEnergy = thing.getChannel(CHANNEL_ENERGY);
-					this.updateState(channelEnergy.getUID(), new DecimalType(model
+					this.updateChannel(CHANNEL_ENERGY, new DecimalType(model
 							.getPowermeter().getEnergy()));
-					Channel channelPower = thing.getChannel(CHANNEL_POWER);
-					this.updateState(channelPower.getUID(), new DecimalType(model
+					this.updateChannel(CHANNEL_POWER, new DecimalType(model
 							.getPowermeter().getPower()));
 				}
 				if (model.isSwitchableOutlet()) {
 					Channel channel = thing.getChannel(CHANNEL_SWITCH);
 					if (model.getSwitch().getState().equals(SwitchModel.ON)) {
-						this.updateState(channel.getUID(), OnOffType.ON);
+						this.updateChannel(CHANNEL_SWITCH, OnOffType.ON);
 					} else if (model.getSwitch().getState().equals(SwitchModel.OFF)) {
-						this.updateState(channel.getUID(), OnOffType.OFF);
+						this.updateChannel(CHANNEL_SWITCH, OnOffType.OFF);
 					} else {
 						logger.warn("unknown state " + model.getSwitch().getState()
 								+ " for channel " + channel.getUID());
@@ -225,6 +249,22 @@ implements IFritzHandler {
 		}
 	}
 
+	/**
+	 * Updates a channel, if its state differs from the state sent last time.
+	 * 
+	 * @param channelId
+	 *            Id of the channel
+	 * @param state
+	 *            New state of the channel
+	 */
+	private void updateChannel(String channelId, State state) {
+		if (!state.equals(this.channelStates.get(channelId))) {
+			Channel channel = this.getThing().getChannel(channelId);
+			this.updateState(channel.getUID(), state);
+			this.channelStates.put(channelId, state);
+		}
+	}
+
 	/**
 	 * Builds a {@link ThingUID} from a device model. The UID is build from 
 	 * the {@link BindingConstants#BINDING_ID} and value of 
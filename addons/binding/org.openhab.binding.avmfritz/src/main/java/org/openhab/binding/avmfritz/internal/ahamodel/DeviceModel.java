@@ -12,6 +12,8 @@ import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
 /**
@@ -150,4 +152,45 @@ public class DeviceModel {
 				.append(this.getTemperature())
 				.toString();
 	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof DeviceModel)) {
+			return false;
+		}
+		DeviceModel other = (DeviceModel) obj;
+		return new EqualsBuilder()
+				.append(this.ident, other.ident)
+				.append(this.deviceId, other.deviceId)
+				.append(this.bitmask, other.bitmask)
+				.append(this.firmwareVersion, other.firmwareVersion)
+				.append(this.deviceManufacturer, other.deviceManufacturer)
+				.append(this.productName, other.productName)
+				.append(this.present, other.present)
+				.append(this.name, other.name)
+				.append(this.switchModel, other.switchModel)
+				.append(this.powermeterModel, other.powermeterModel)
+				.append(this.temperatureModel, other.temperatureModel)
+				.isEquals();
+	}
+
+	@Override
+	public int hashCode() {
+		return new HashCodeBuilder()
+				.append(this.ident)
+				.append(this.deviceId)
+				.append(this.bitmask)
+				.append(this.firmwareVersion)
+				.append(this.deviceManufacturer)
+				.append(this.productName)
+				.append(this.present)
+				.append(this.name)
+				.append(this.switchModel)
+				.append(this.powermeterModel)
+				.append(this.temperatureModel)
+				.toHashCode();
+	}
 }
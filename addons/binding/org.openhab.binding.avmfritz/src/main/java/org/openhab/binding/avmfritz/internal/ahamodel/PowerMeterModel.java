@@ -13,6 +13,8 @@ import java.math.BigDecimal;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
 /**
@@ -50,4 +52,27 @@ public class PowerMeterModel {
 		.append("energy", this.getEnergy())
 		.toString();
 	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof PowerMeterModel)) {
+			return false;
+		}
+		PowerMeterModel other = (PowerMeterModel) obj;
+		return new EqualsBuilder()
+				.append(this.power, other.power)
+				.append(this.energy, other.energy)
+				.isEquals();
+	}
+
+	@Override
+	public int hashCode() {
+		return new HashCodeBuilder()
+				.append(this.power)
+				.append(this.energy)
+				.toHashCode();
+	}
 }
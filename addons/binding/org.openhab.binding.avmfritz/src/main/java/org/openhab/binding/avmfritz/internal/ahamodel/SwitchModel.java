@@ -13,6 +13,8 @@ import java.math.BigDecimal;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
 /**
@@ -64,4 +66,29 @@ public class SwitchModel {
 			.append("lock", this.getLock())
 			.toString();
 	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SwitchModel)) {
+			return false;
+		}
+		SwitchModel other = (SwitchModel) obj;
+		return new EqualsBuilder()
+				.append(this.state, other.state)
+				.append(this.mode, other.mode)
+				.append(this.lock, other.lock)
+				.isEquals();
+	}
+
+	@Override
+	public int hashCode() {
+		return new HashCodeBuilder()
+				.append(this.state)
+				.append(this.mode)
+				.append(this.lock)
+				.toHashCode();
+	}
 }
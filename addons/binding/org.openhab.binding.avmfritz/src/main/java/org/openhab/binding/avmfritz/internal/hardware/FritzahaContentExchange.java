@@ -35,13 +35,32 @@ public class FritzahaContentExchange extends BufferingResponseListener implement
 	 * Callback to execute on complete response
 	 */
 	private FritzAhaCallback callback;
+	/**
+	 * Web interface to report the request latency to, may be null
+	 */
+	private FritzahaWebInterface webIface;
+	/**
+	 * Time the request has been created
+	 */
+	private long startTime;
 	
 	/**
 	 * Constructor
 	 * @param callback Callback which execute method has to be called.
 	 */
 	public FritzahaContentExchange(FritzAhaCallback callback) {
+		this(callback, null);
+	}
+
+	/**
+	 * Constructor
+	 * @param callback Callback which execute method has to be called.
+	 * @param webIface Web interface which counts the completed requests.
+	 */
+	public FritzahaContentExchange(FritzAhaCallback callback, FritzahaWebInterface webIface) {
 		this.callback = callback;
+		this.webIface = webIface;
+		this.startTime = System.nanoTime();
 	}
 
 	/**
@@ -66,7 +85,11 @@ public class FritzahaContentExchange extends BufferingResponseListener implement
 	 */
 	@Override
 	public void onComplete(Result result) {
-		logger.debug("response complete: " + this.getContentAsString());
+		logger.debug("response complete: {}", this.getContentAsString());
+		if (this.webIface != null) {
+			this.webIface.requestCompleted(System.nanoTime() - this.startTime,
+					result.isSucceeded() && result.getResponse().getStatus() == 200);
+		}
 		this.callback.execute(result.getResponse().getStatus(), this.getContentAsString());
 	}
 }
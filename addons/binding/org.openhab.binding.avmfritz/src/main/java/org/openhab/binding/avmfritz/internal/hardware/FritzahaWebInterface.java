@@ -12,6 +12,7 @@ import java.io.UnsupportedEncodingException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,6 +26,7 @@ import org.eclipse.smarthome.io.net.http.HttpUtil;
 import org.openhab.binding.avmfritz.config.AvmFritzConfiguration;
 import org.openhab.binding.avmfritz.handler.IFritzHandler;
 import org.openhab.binding.avmfritz.internal.hardware.callbacks.FritzAhaCallback;
+import org.openhab.binding.avmfritz.internal.hardware.callbacks.FritzAhaReauthCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +34,12 @@ import org.slf4j.LoggerFactory;
  * This class handles requests to a Fritz!OS web interface for interfacing with
  * AVM home automation devices. It manages authentication and wraps commands.
  * 
+ * Only one login to the FRITZ!Box runs at a time. Requests that fail at the
+ * same time because of an invalid session wait for this login instead of
+ * starting their own. A session that has not been used for a while is
+ * renewed before the next request, and the number of parallel requests to
+ * the FRITZ!Box is limited.
+ * 
  * @author Robert Bausdorf, Christian Brauers 
  * 
  */
@@ -44,21 +52,49 @@ public class FritzahaWebInterface {
 	/**
 	 * Current session ID
 	 */
-	protected String sid;
+	protected volatile String sid;
+	/**
+	 * Time ({@link System#nanoTime()}) the last login attempt has finished
+	 */
+	protected long lastLoginTime;
+	/**
+	 * Time ({@link System#nanoTime()}) the session has been used last
+	 */
+	protected long lastSessionUse;
 	/**
 	 * HTTP client for asynchronous calls
 	 */
 	protected HttpClient asyncclient;
 	/**
-	 * Maximum number of simultaneous asynchronous connections
+	 * Maximum number of simultaneous asynchronous connections, further
+	 * requests are queued
+	 */
+	protected int asyncmaxconns = 4;
+	/**
+	 * Maximum number of queued asynchronous requests
+	 */
+	protected int asyncmaxqueued = 64;
+	/**
+	 * The session is renewed before a request, if it has not been used for
+	 * this time. The FRITZ!Box invalidates sessions after 10 minutes without
+	 * requests (60 minutes in newer Fritz!OS versions).
 	 */
-	protected int asyncmaxconns = 20;
+	protected static final long SESSION_REFRESH_TIME = TimeUnit.MINUTES
+			.toNanos(9);
 	/**
 	 * Bridge thing handler for updating thing status
 	 */
 	protected IFritzHandler fbHandler;
 
 	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong failedRequestCount = new AtomicLong();
+	private final AtomicLong requestTime = new AtomicLong();
+	private volatile long maxRequestTime = 0;
+	private final AtomicLong loginCount = new AtomicLong();
+	private final AtomicLong failedLoginCount = new AtomicLong();
+
 	// Uses RegEx to handle bad FritzBox XML
 	/**
 	 * RegEx Pattern to grab the session ID from a login XML response
@@ -83,7 +119,75 @@ public class FritzahaWebInterface {
 	 * 
 	 * @return New session ID
 	 */
-	public String authenticate() {
+	public synchronized String authenticate() {
+		loginCount.incrementAndGet();
+		String newSid = login();
+		if (newSid == null) {
+			failedLoginCount.incrementAndGet();
+			sid = null;
+		}
+		lastLoginTime = System.nanoTime();
+		lastSessionUse = lastLoginTime;
+		return newSid;
+	}
+
+	/**
+	 * Authenticates again after a request has been rejected because of an
+	 * invalid session. If a login has finished after the request had been
+	 * sent, e.g. because another request has been rejected at the same time,
+	 * its result is used instead of logging in once more.
+	 * 
+	 * @param requestTime
+	 *            Time ({@link System#nanoTime()}) the rejected request has
+	 *            been sent
+	 * @return New session ID
+	 */
+	public synchronized String reauthenticate(long requestTime) {
+		if (lastLoginTime - requestTime > 0) {
+			logger.debug("session has already been renewed to {}", sid);
+			return sid;
+		}
+		return authenticate();
+	}
+
+	/**
+	 * Logs in, if there is no session yet or it is about to expire. If a
+	 * login has failed while waiting for another one, it is not repeated for
+	 * this request.
+	 */
+	private void ensureSession() {
+		long requestTime = System.nanoTime();
+		synchronized (this) {
+			if (sid == null) {
+				if (lastLoginTime - requestTime < 0) {
+					authenticate();
+				}
+			} else if (requestTime - lastSessionUse > SESSION_REFRESH_TIME) {
+				logger.debug("renewing unused session {}", sid);
+				authenticate();
+			}
+			lastSessionUse = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Tells a retrying callback when its request is sent. Otherwise a login
+	 * done by {@link #ensureSession()} for the request itself would look like
+	 * a renewal after the request, and a rejected session would not be
+	 * renewed.
+	 */
+	private void requestSent(FritzAhaCallback callback) {
+		if (callback instanceof FritzAhaReauthCallback) {
+			((FritzAhaReauthCallback) callback).setRequestTime(System.nanoTime());
+		}
+	}
+
+	/**
+	 * Performs the challenge-response login.
+	 * 
+	 * @return New session ID or null, if the login failed
+	 */
+	private String login() {
 		if (this.config.getPassword() == null) {
 			this.fbHandler.setStatusInfo(
 					ThingStatus.OFFLINE, 
@@ -112,7 +216,7 @@ public class FritzahaWebInterface {
 		sid = sidmatch.group(1);
 		Matcher accmatch = ACCESS_PATTERN.matcher(loginXml);
 		if (accmatch.find()) {
-			if (accmatch.group(1) == "2") {
+			if ("2".equals(accmatch.group(1))) {
 				this.fbHandler.setStatusInfo(
 						ThingStatus.ONLINE, 
 						ThingStatusDetail.NONE, 
@@ -155,7 +259,7 @@ public class FritzahaWebInterface {
 		sid = sidmatch.group(1);
 		accmatch = ACCESS_PATTERN.matcher(loginXml);
 		if (accmatch.find()) {
-			if (accmatch.group(1) == "2") {
+			if ("2".equals(accmatch.group(1))) {
 				this.fbHandler.setStatusInfo(
 						ThingStatus.ONLINE, 
 						ThingStatusDetail.NONE, 
@@ -179,6 +283,77 @@ public class FritzahaWebInterface {
 		return !(sid == null);
 	}
 
+	/**
+	 * Called by {@link FritzahaContentExchange} when a request has completed.
+	 * 
+	 * @param duration
+	 *            Time in nanoseconds from sending the request until the
+	 *            response has been received
+	 * @param success
+	 *            Whether the request succeeded
+	 */
+	void requestCompleted(long duration, boolean success) {
+		requestCount.incrementAndGet();
+		if (!success) {
+			failedRequestCount.incrementAndGet();
+		}
+		requestTime.addAndGet(duration);
+		if (duration > maxRequestTime) {
+			maxRequestTime = duration;
+		}
+	}
+
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	public long getFailedRequestCount() {
+		return failedRequestCount.get();
+	}
+
+	/**
+	 * @return Average request latency in milliseconds
+	 */
+	public double getAverageRequestTime() {
+		long requests = requestCount.get();
+		return requests > 0 ? (double) TimeUnit.NANOSECONDS.toMicros(requestTime.get()) / requests / 1000 : 0;
+	}
+
+	/**
+	 * @return Maximum request latency in milliseconds
+	 */
+	public long getMaxRequestTime() {
+		return TimeUnit.NANOSECONDS.toMillis(maxRequestTime);
+	}
+
+	public long getLoginCount() {
+		return loginCount.get();
+	}
+
+	public long getFailedLoginCount() {
+		return failedLoginCount.get();
+	}
+
+	/**
+	 * Stops the HTTP client.
+	 */
+	public void dispose() {
+		logger.debug("FRITZ!Box {} statistics: {}", this.config.getIpAddress(), this);
+		try {
+			asyncclient.stop();
+		} catch (Exception e) {
+			logger.error("Could not stop HTTP Client for " + getURL(""), e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"requests %d (failed %d), latency %.1f ms (max %d ms), logins %d (failed %d)",
+				getRequestCount(), getFailedRequestCount(), getAverageRequestTime(), getMaxRequestTime(),
+				getLoginCount(), getFailedLoginCount());
+	}
+
 	public AvmFritzConfiguration getConfig() {
 		return config;
 	}
@@ -228,6 +403,7 @@ public class FritzahaWebInterface {
 		sid = null;
 		asyncclient = new HttpClient(new SslContextFactory(true));
 		asyncclient.setMaxConnectionsPerDestination(asyncmaxconns);
+		asyncclient.setMaxRequestsQueuedPerDestination(asyncmaxqueued);
 		try {
 			asyncclient.start();
 		} catch (Exception e) {
@@ -286,15 +462,15 @@ public class FritzahaWebInterface {
 	 */
 	public FritzahaContentExchange asyncGet(String path, String args,
 			FritzAhaCallback callback) {
-		if (!isAuthenticated())
-			authenticate();
+		ensureSession();
+		requestSent(callback);
 		FritzahaContentExchange getExchange = new FritzahaContentExchange(
-				callback);
+				callback, this);
 		asyncclient.newRequest(this.getURL(path, this.addSID(args)))
 				.method(HttpMethod.GET).onResponseSuccess(getExchange)
 				.onResponseFailure(getExchange) //.onComplete(getExchange)
 				.send(getExchange);
-		logger.debug("GETting URL " + getURL(path, addSID(args)));
+		logger.debug("GETting URL {}", getURL(path, addSID(args)));
 		return getExchange;
 	}
 
@@ -314,11 +490,11 @@ public class FritzahaWebInterface {
 	 */
 	public FritzahaContentExchange asyncPost(String path, String args,
 			FritzAhaCallback callback) {
-		if (!isAuthenticated())
-			authenticate();
+		ensureSession();
+		requestSent(callback);
 
 		FritzahaContentExchange postExchange = new FritzahaContentExchange(
-				callback);
+				callback, this);
 
 		this.asyncclient.newRequest(this.getURL(path))
 				.timeout(this.config.getAsyncTimeout(), TimeUnit.SECONDS)
@@ -55,6 +55,10 @@ public class FritzAhaReauthCallback implements FritzAhaCallback {
 	 * Callback to execute on next retry
 	 */
 	private FritzAhaCallback retryCallback;
+	/**
+	 * Time ({@link System#nanoTime()}) the last attempt has been sent
+	 */
+	private volatile long requestTime;
 
 	/**
 	 * Returns whether the request returned a valid response
@@ -99,14 +103,27 @@ public class FritzAhaReauthCallback implements FritzAhaCallback {
 		return webIface;
 	}
 
+	/**
+	 * Called by the web interface right before an attempt is sent, after a
+	 * login it may have needed for the attempt
+	 * 
+	 * @param requestTime
+	 *            Time ({@link System#nanoTime()}) the attempt is sent
+	 */
+	public void setRequestTime(long requestTime) {
+		this.requestTime = requestTime;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void execute(int status, String response) {
 		if (status != 200 || "".equals(response) || ".".equals(response)) {
 			validRequest = false;
-			if (retries >= 1) {
-				webIface.authenticate();
+			// only a rejected session is worth a new login, the box answers
+			// with 403 or an empty response then
+			if (retries >= 1 && (status == 403 || status == 200)) {
+				webIface.reauthenticate(requestTime);
 				retries--;
 				if (httpMethod == Method.GET) {
 					webIface.asyncGet(path, args, retryCallback);
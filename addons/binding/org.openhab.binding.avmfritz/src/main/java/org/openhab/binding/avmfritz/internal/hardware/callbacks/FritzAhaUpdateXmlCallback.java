@@ -8,11 +8,7 @@
  */
 package org.openhab.binding.avmfritz.internal.hardware.callbacks;
 
-import java.io.StringReader;
-
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
@@ -20,6 +16,7 @@ import org.openhab.binding.avmfritz.handler.IFritzHandler;
 import org.openhab.binding.avmfritz.internal.ahamodel.DeviceModel;
 import org.openhab.binding.avmfritz.internal.ahamodel.DevicelistModel;
 import org.openhab.binding.avmfritz.internal.hardware.FritzahaWebInterface;
+import org.openhab.binding.avmfritz.internal.util.JAXBUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,14 +54,9 @@ public class FritzAhaUpdateXmlCallback extends FritzAhaReauthCallback {
 	public void execute(int status, String response) {
 		super.execute(status, response);
 		if (this.isValidRequest()) {
-			logger.trace("Received State response " + response);
+			logger.trace("Received State response {}", response);
 			try {
-				JAXBContext jaxbContext = JAXBContext
-						.newInstance(DevicelistModel.class);
-				Unmarshaller jaxbUM = jaxbContext.createUnmarshaller();
-
-				DevicelistModel model = (DevicelistModel) jaxbUM
-						.unmarshal(new StringReader(response));
+				DevicelistModel model = JAXBUtils.unmarshalDevicelist(response);
 				if( model != null ) {
 					for( DeviceModel device : model.getDevicelist() ) {
 						handler.addDeviceList(device);
@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.avmfritz.internal.util;
+
+import java.io.StringReader;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+
+import org.openhab.binding.avmfritz.internal.ahamodel.DevicelistModel;
+
+/**
+ * Holds the JAXB context for the AHA device list. Creating the context
+ * introspects all model classes and is by far the most expensive part of
+ * parsing a response, so it is created only once and shared. The context is
+ * thread safe, unmarshallers are not, so a new one is created for each
+ * response.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class JAXBUtils {
+	/**
+	 * Shared context, created on first use
+	 */
+	private static JAXBContext jaxbContext;
+
+	/**
+	 * Provides the shared JAXB context for {@link DevicelistModel}.
+	 *
+	 * @return The JAXB context
+	 * @throws JAXBException
+	 *             if the context could not be created
+	 */
+	public static synchronized JAXBContext getContext() throws JAXBException {
+		if (jaxbContext == null) {
+			jaxbContext = JAXBContext.newInstance(DevicelistModel.class);
+		}
+		return jaxbContext;
+	}
+
+	/**
+	 * Unmarshals a response to a <b>getdevicelistinfos</b> command.
+	 *
+	 * @param xml
+	 *            The response of the FRITZ!Box
+	 * @return The device list model
+	 * @throws JAXBException
+	 *             if the response could not be unmarshalled
+	 */
+	public static DevicelistModel unmarshalDevicelist(String xml)
+			throws JAXBException {
+		Unmarshaller jaxbUM = getContext().createUnmarshaller();
+		return (DevicelistModel) jaxbUM.unmarshal(new StringReader(xml));
+	}
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.freebox.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.matmaul.freeboxos.FreeboxException;
+import org.openhab.binding.freebox.internal.FreeboxPoller.Endpoint;
+
+/**
+ * Tests cases for {@link FreeboxPoller}. The jobs are not run by the
+ * scheduler, the tests run them.
+ *
+ * @author agent - Initial contribution
+ */
+public class FreeboxPollerTest {
+
+	/**
+	 * Records the jobs instead of running them
+	 */
+	private static class RecordingScheduler extends ScheduledThreadPoolExecutor {
+		final List<Runnable> executed = Collections
+				.synchronizedList(new ArrayList<Runnable>());
+		final List<Runnable> scheduled = new ArrayList<Runnable>();
+		final List<Long> delays = new ArrayList<Long>();
+		final List<ScheduledFuture<?>> futures = new ArrayList<ScheduledFuture<?>>();
+
+		RecordingScheduler() {
+			super(1);
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			executed.add(command);
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+				long initialDelay, long delay, TimeUnit unit) {
+			ScheduledFuture<?> future = super.schedule(command, 1,
+					TimeUnit.DAYS);
+			scheduled.add(command);
+			delays.add(unit.toSeconds(delay));
+			futures.add(future);
+			return future;
+		}
+	}
+
+	private static class TestPoller extends FreeboxPoller {
+		final List<Endpoint> fetched = Collections
+				.synchronizedList(new ArrayList<Endpoint>());
+		final Set<Endpoint> failing = EnumSet.noneOf(Endpoint.class);
+		CountDownLatch fetching;
+		CountDownLatch released;
+
+		TestPoller(RecordingScheduler scheduler) {
+			super(null, scheduler);
+		}
+
+		@Override
+		protected Object fetch(Endpoint endpoint) throws FreeboxException {
+			fetched.add(endpoint);
+			if (fetching != null) {
+				CountDownLatch released = this.released;
+				fetching.countDown();
+				fetching = null;
+				try {
+					released.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (failing.contains(endpoint)) {
+				throw new FreeboxException("Failed to fetch " + endpoint);
+			}
+			return endpoint.name();
+		}
+	}
+
+	private static class RecordingListener implements FreeboxPoller.Listener {
+		final List<Endpoint> updated = new ArrayList<Endpoint>();
+		final List<Endpoint> failed = new ArrayList<Endpoint>();
+
+		@Override
+		public void endpointUpdated(Endpoint endpoint, Object result) {
+			assertThat(result, is((Object) endpoint.name()));
+			updated.add(endpoint);
+		}
+
+		@Override
+		public void endpointFailed(Endpoint endpoint, FreeboxException e) {
+			failed.add(endpoint);
+		}
+	}
+
+	private final RecordingScheduler scheduler = new RecordingScheduler();
+	private final TestPoller poller = new TestPoller(scheduler);
+
+	@After
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	private static Map<Endpoint, Long> intervals(Object... endpointsAndIntervals) {
+		Map<Endpoint, Long> intervals = new EnumMap<Endpoint, Long>(
+				Endpoint.class);
+		for (int i = 0; i < endpointsAndIntervals.length; i += 2) {
+			intervals.put((Endpoint) endpointsAndIntervals[i],
+					((Number) endpointsAndIntervals[i + 1]).longValue());
+		}
+		return intervals;
+	}
+
+	/**
+	 * Returns the interval of each polled endpoint, by running the jobs which
+	 * are not cancelled
+	 */
+	private Map<Endpoint, Long> polledIntervals() {
+		Map<Endpoint, Long> intervals = new EnumMap<Endpoint, Long>(
+				Endpoint.class);
+		for (int i = 0; i < scheduler.scheduled.size(); i++) {
+			if (!scheduler.futures.get(i).isCancelled()) {
+				poller.fetched.clear();
+				scheduler.scheduled.get(i).run();
+				assertThat(poller.fetched.size(), is(1));
+				intervals.put(poller.fetched.get(0), scheduler.delays.get(i));
+			}
+		}
+		return intervals;
+	}
+
+	private void runExecuted() {
+		List<Runnable> executed = new ArrayList<Runnable>(scheduler.executed);
+		scheduler.executed.clear();
+		for (Runnable job : executed) {
+			job.run();
+		}
+	}
+
+	@Test
+	public void testSensorsArePolledAtTheStatusInterval() {
+		Map<Endpoint, Long> intervals = FreeboxPoller.getIntervals(30, 2);
+		// the system configuration holds the temperatures and the fan speed
+		assertThat(intervals.get(Endpoint.SYSTEM), is(30L));
+		assertThat(intervals.get(Endpoint.CONNECTION), is(30L));
+		assertThat(intervals.get(Endpoint.XDSL), is(30L));
+		assertThat(intervals.get(Endpoint.CALLS), is(30L));
+		assertThat(intervals.get(Endpoint.LCD), is(300L));
+		assertThat(intervals.get(Endpoint.WIFI), is(300L));
+		assertThat(intervals.get(Endpoint.PHONE), is(2L));
+
+		poller.addListener(new RecordingListener(), intervals);
+		assertThat(polledIntervals(), is(intervals));
+	}
+
+	@Test
+	public void testShortestIntervalIsPolled() {
+		RecordingListener listener1 = new RecordingListener();
+		RecordingListener listener2 = new RecordingListener();
+		poller.addListener(listener1,
+				intervals(Endpoint.SYSTEM, 30, Endpoint.LCD, 300));
+		poller.addListener(listener2, intervals(Endpoint.SYSTEM, 10));
+		assertThat(polledIntervals(),
+				is(intervals(Endpoint.SYSTEM, 10, Endpoint.LCD, 300)));
+
+		assertFalse(poller.removeListener(listener2));
+		assertThat(polledIntervals(),
+				is(intervals(Endpoint.SYSTEM, 30, Endpoint.LCD, 300)));
+
+		assertTrue(poller.removeListener(listener1));
+		assertTrue(polledIntervals().isEmpty());
+	}
+
+	@Test
+	public void testUnchangedIntervalKeepsItsJob() {
+		poller.addListener(new RecordingListener(),
+				intervals(Endpoint.SYSTEM, 30));
+		poller.addListener(new RecordingListener(),
+				intervals(Endpoint.SYSTEM, 30));
+		assertThat(scheduler.scheduled.size(), is(1));
+	}
+
+	@Test
+	public void testAddedListenerIsUpdatedRightAway() {
+		RecordingListener listener1 = new RecordingListener();
+		RecordingListener listener2 = new RecordingListener();
+		poller.addListener(listener1, intervals(Endpoint.SYSTEM, 30));
+		poller.addListener(listener2, intervals(Endpoint.PHONE, 2));
+		assertThat(scheduler.executed.size(), is(2));
+
+		runExecuted();
+		assertThat(listener1.updated, is(Collections.singletonList(Endpoint.SYSTEM)));
+		assertThat(listener2.updated, is(Collections.singletonList(Endpoint.PHONE)));
+	}
+
+	@Test
+	public void testFailureIsPassedToListeners() {
+		RecordingListener listener = new RecordingListener();
+		poller.failing.add(Endpoint.XDSL);
+		poller.addListener(listener,
+				intervals(Endpoint.XDSL, 30, Endpoint.CONNECTION, 30));
+		runExecuted();
+		assertThat(listener.updated,
+				is(Collections.singletonList(Endpoint.CONNECTION)));
+		assertThat(listener.failed, is(Collections.singletonList(Endpoint.XDSL)));
+	}
+
+	@Test
+	public void testRefreshDuringFetchIsMerged() throws InterruptedException {
+		poller.addListener(new RecordingListener(),
+				intervals(Endpoint.SYSTEM, 30));
+		scheduler.executed.clear();
+		final Runnable job = scheduler.scheduled.get(0);
+
+		CountDownLatch fetching = new CountDownLatch(1);
+		poller.released = new CountDownLatch(1);
+		poller.fetching = fetching;
+		Thread thread = new Thread(job);
+		thread.start();
+		assertTrue(fetching.await(5, TimeUnit.SECONDS));
+
+		// the running fetch fetches once more for all refreshes
+		poller.refresh(Endpoint.SYSTEM);
+		poller.refresh(Endpoint.SYSTEM);
+		runExecuted();
+		assertThat(poller.fetched.size(), is(1));
+
+		poller.released.countDown();
+		thread.join(5000);
+		assertThat(poller.fetched.size(), is(2));
+	}
+
+	@Test
+	public void testStopCancelsJobs() {
+		poller.addListener(new RecordingListener(), FreeboxPoller.getIntervals(30, 2));
+		scheduler.executed.clear();
+		poller.stop();
+		for (ScheduledFuture<?> future : scheduler.futures) {
+			assertTrue(future.isCancelled());
+		}
+		poller.refresh(Endpoint.SYSTEM);
+		assertTrue(scheduler.executed.isEmpty());
+	}
+}
@@ -8,9 +8,10 @@
  */
 package org.openhab.binding.freebox.handler;
 
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.smarthome.core.library.types.DateTimeType;
 import org.eclipse.smarthome.core.library.types.DecimalType;
@@ -25,6 +26,7 @@ import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
 import org.matmaul.freeboxos.FreeboxException;
 import org.matmaul.freeboxos.FreeboxOsClient;
 import org.matmaul.freeboxos.call.CallEntry;
@@ -38,6 +40,8 @@ import org.matmaul.freeboxos.phone.PhoneStatus;
 import org.matmaul.freeboxos.system.SystemConfiguration;
 import org.matmaul.freeboxos.wifi.WifiGlobalConfig;
 import org.openhab.binding.freebox.config.FreeboxServerConfiguration;
+import org.openhab.binding.freebox.internal.FreeboxPoller;
+import org.openhab.binding.freebox.internal.FreeboxPoller.Endpoint;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
 import org.slf4j.Logger;
@@ -53,11 +57,18 @@ import static org.openhab.binding.freebox.FreeboxBindingConstants.*;
  */
 public class FreeboxHandler extends BaseThingHandler {
 
-    private Logger logger = LoggerFactory.getLogger(FreeboxHandler.class);
-    private ScheduledFuture<?> globalJob;
-    private ScheduledFuture<?> phoneJob;
-    
-    private static FreeboxOsClient fbClient = null;
+	private Logger logger = LoggerFactory.getLogger(FreeboxHandler.class);
+
+	/**
+	 * Pollers of the Freebox Servers by their address, shared by all things
+	 */
+	private static final Map<String, FreeboxPoller> pollers = new HashMap<String, FreeboxPoller>();
+
+	private FreeboxPoller poller;
+	private String pollerAddress;
+
+	// last state of each channel
+	private final Map<String, State> channelStates = new ConcurrentHashMap<String, State>();
 	private long uptime = -1;
 	
 	public FreeboxHandler(Thing thing) {
@@ -66,6 +77,10 @@ public class FreeboxHandler extends BaseThingHandler {
 
 	@Override
 	public void handleCommand(ChannelUID channelUID, Command command) {
+		if (poller == null) {
+			logger.debug("Freebox Server is not connected, ignoring command {}", command);
+			return;
+		}
 		try {
 			switch (channelUID.getId()) {
 				case LCDBRIGHTNESS : setBrightness(command);
@@ -86,15 +101,13 @@ public class FreeboxHandler extends BaseThingHandler {
 	/**
 	 * Handles connection to the Freebox, including validation of the Apptoken
 	 * if none is provided in configuration
-	 * @throws FreeboxException
+	 * @return the connected client, null if the connection failed
 	 */
-	private boolean authorize() {
-		
-		FreeboxServerConfiguration configuration = getConfigAs(FreeboxServerConfiguration.class);
+	private FreeboxOsClient authorize(FreeboxServerConfiguration configuration) {
 		
 		Bundle bundle = FrameworkUtil.getBundle(getClass());			
 		
-		fbClient = new FreeboxOsClient(
+		FreeboxOsClient fbClient = new FreeboxOsClient(
 					bundle.getSymbolicName(), /*  org.openhab.binding.freebox */
 					configuration.ipAddress);
 		
@@ -128,169 +141,187 @@ public class FreeboxHandler extends BaseThingHandler {
 		}
 		
 		if (authorizeStatus != TrackAuthorizeStatus.GRANTED)
-			return false;
+			return null;
 		
 		logger.debug("Apptoken valide : [" + configuration.appToken + "]");
 		loginManager.setAppToken(configuration.appToken);
 		loginManager.openSession();
-		return true;
+		return fbClient;
 		} catch (FreeboxException | InterruptedException e) {
 			logger.error(e.getMessage());
-			return false;
+			return null;
 		}
 	}
 	
 	@Override
 	public void initialize() {
-		if (authorize()) {
-			updateStatus(ThingStatus.ONLINE);
-		    	
-			if (globalJob == null || globalJob.isCancelled()) {
-				long polling_interval = getConfigAs(FreeboxServerConfiguration.class).refreshInterval;
-				globalJob = scheduler.scheduleAtFixedRate(globalRunnable, 1, polling_interval, TimeUnit.SECONDS);
+		FreeboxServerConfiguration configuration = getConfigAs(FreeboxServerConfiguration.class);
+		channelStates.clear();
+		uptime = -1;
+
+		// things of the same Freebox Server share the session and the polling
+		pollerAddress = String.valueOf(configuration.ipAddress);
+		poller = addPollerListener(configuration, null);
+		if (poller == null) {
+			// the authorization may wait for the user, so it does not block the other things
+			FreeboxOsClient fbClient = authorize(configuration);
+			if (fbClient != null) {
+				poller = addPollerListener(configuration, fbClient);
 			}
-				
-			if (phoneJob == null || phoneJob.isCancelled()) {
-				long polling_interval = getConfigAs(FreeboxServerConfiguration.class).refreshPhoneInterval;
-				phoneJob = scheduler.scheduleAtFixedRate(phoneRunnable, 1, polling_interval, TimeUnit.SECONDS);
-			} 
+		}
+
+		if (poller != null) {
+			updateStatus(ThingStatus.ONLINE);
 		} else {
 		    updateStatus(ThingStatus.OFFLINE);
 		}
 	}
 	
-	private Runnable phoneRunnable = new Runnable() {
+	/**
+	 * Adds the listener to the poller of the Freebox Server. The poller is created for the given client,
+	 * unless another thing has created it meanwhile; this client is dropped then.
+	 * 
+	 * @param fbClient the authorized client or null, if only an existing poller is used
+	 * @return the poller or null, if there is none
+	 */
+	private FreeboxPoller addPollerListener(FreeboxServerConfiguration configuration, FreeboxOsClient fbClient) {
+		synchronized (pollers) {
+			FreeboxPoller sharedPoller = pollers.get(pollerAddress);
+			if (sharedPoller == null && fbClient != null) {
+				sharedPoller = new FreeboxPoller(fbClient, scheduler);
+				pollers.put(pollerAddress, sharedPoller);
+			}
+			if (sharedPoller != null) {
+				// added under the lock, so that the last thing of the poller cannot stop it meanwhile
+				sharedPoller.addListener(pollerListener, FreeboxPoller.getIntervals(configuration.refreshInterval,
+						configuration.refreshPhoneInterval));
+			}
+			return sharedPoller;
+		}
+	}
+
+	private FreeboxPoller.Listener pollerListener = new FreeboxPoller.Listener() {
 			@Override
-			public void run() {
-				List<PhoneStatus> phoneStatus;
-				try {
-					phoneStatus = fbClient.getPhoneManager().getPhoneStatus();
-					updateState(new ChannelUID(getThing().getUID(), ONHOOK), 
-							phoneStatus.get(0).getOn_hook() ? OnOffType.ON : OnOffType.OFF);
-					updateState(new ChannelUID(getThing().getUID(), RINGING), 
-							phoneStatus.get(0).getIs_ringing() ? OnOffType.ON : OnOffType.OFF);
-				} catch (FreeboxException e) {
-					logger.error(e.getMessage());
-					updateStatus(ThingStatus.OFFLINE);
+			public void endpointUpdated(Endpoint endpoint, Object result) {
+				if (getThing().getStatus() != ThingStatus.ONLINE) {
+					updateStatus(ThingStatus.ONLINE);
+				}
+				switch (endpoint) {
+					case SYSTEM : updateSystemConfig((SystemConfiguration) result);
+						break;
+					case LCD : updateLCDConfig((LCDConfig) result);
+						break;
+					case WIFI : updateWifiConfig((WifiGlobalConfig) result);
+						break;
+					case XDSL : updatexDslStatus((xDslStatus) result);
+						break;
+					case CONNECTION : updateConnectionStatus((ConnectionStatus) result);
+						break;
+					case CALLS : updateNewCalls(result);
+						break;
+					case PHONE : updatePhoneStatus(result);
+						break;
 				}
-				
 			}
-	};
-	
-	private Runnable globalRunnable = new Runnable() {
+
 			@Override
-			public void run() {
-				
-				try {
-					fetchSystemConfig();
-					fetchLCDConfig();					
-					fetchWifiConfig();
-					fetchxDslStatus();
-					fetchConnectionStatus();
-					fetchNewCalls();
-					
-				} catch (FreeboxException e) {
-					logger.error(e.getMessage());
-					updateStatus(ThingStatus.OFFLINE);
-				}
-				
+			public void endpointFailed(Endpoint endpoint, FreeboxException e) {
+				logger.error(e.getMessage());
+				updateStatus(ThingStatus.OFFLINE);
 			}
 	};
 	
 	@Override
 	public void dispose() {
 		logger.debug("Disposing Freebox Server handler.");
-		if (globalJob != null && !globalJob.isCancelled()) {
-			globalJob.cancel(true);
-			globalJob = null;
-		}
-		if (phoneJob != null && !phoneJob.isCancelled()) {
-			phoneJob.cancel(true);
-			phoneJob = null;
+		if (poller != null) {
+			synchronized (pollers) {
+				if (poller.removeListener(pollerListener)) {
+					poller.stop();
+					pollers.remove(pollerAddress);
+				}
+			}
+			poller = null;
 		}
 		updateStatus(ThingStatus.OFFLINE);
 	}
+
+	@Override
+	public void channelLinked(ChannelUID channelUID) {
+		// the new item needs the state, even if it has not changed
+		channelStates.remove(channelUID.getId());
+	}
+
+	/**
+	 * Updates the state of a channel, if it has changed
+	 */
+	private void updateChannel(String channelId, State state) {
+		if (!state.equals(channelStates.put(channelId, state))) {
+			updateState(new ChannelUID(getThing().getUID(), channelId), state);
+		}
+	}
 	
-	private void fetchNewCalls() throws FreeboxException {
-		List<CallEntry> callEntries = fbClient.getCallManager().getCallEntries();
-		for (CallEntry call: callEntries) {
-			if (call.is_new_()) {
-				updateState(new ChannelUID(getThing().getUID(), CALLNUMBER), 
-						new StringType(call.getNumber()));
-				updateState(new ChannelUID(getThing().getUID(), CALLDURATION), 
-						new DecimalType(call.getDuration()));
-				updateState(new ChannelUID(getThing().getUID(), CALLTIMESTAMP), 
-						new DateTimeType(call.getTimeStamp()));
-				updateState(new ChannelUID(getThing().getUID(), CALLSTATUS), 
-						new StringType(call.getType()));
-				updateState(new ChannelUID(getThing().getUID(), CALLNAME), 
-						new StringType(call.getName()));
-									
-				call.setNew(false);
-				fbClient.getCallManager().setCallEntry(call);
-			}
+	@SuppressWarnings("unchecked")
+	private void updatePhoneStatus(Object result) {
+		List<PhoneStatus> phoneStatus = (List<PhoneStatus>) result;
+		if (!phoneStatus.isEmpty()) {
+			updateChannel(ONHOOK, phoneStatus.get(0).getOn_hook() ? OnOffType.ON : OnOffType.OFF);
+			updateChannel(RINGING, phoneStatus.get(0).getIs_ringing() ? OnOffType.ON : OnOffType.OFF);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void updateNewCalls(Object result) {
+		// each new call is an event, its channels are always updated
+		for (CallEntry call: (List<CallEntry>) result) {
+			updateState(new ChannelUID(getThing().getUID(), CALLNUMBER), 
+					new StringType(call.getNumber()));
+			updateState(new ChannelUID(getThing().getUID(), CALLDURATION), 
+					new DecimalType(call.getDuration()));
+			updateState(new ChannelUID(getThing().getUID(), CALLTIMESTAMP), 
+					new DateTimeType(call.getTimeStamp()));
+			updateState(new ChannelUID(getThing().getUID(), CALLSTATUS), 
+					new StringType(call.getType()));
+			updateState(new ChannelUID(getThing().getUID(), CALLNAME), 
+					new StringType(call.getName()));
 		}		
 	}
 	
-	private void fetchConnectionStatus() throws FreeboxException {
-		ConnectionStatus connectionStatus = fbClient.getConnectionManager().getStatus();
-		updateState(new ChannelUID(getThing().getUID(), LINESTATUS), 
-				new StringType(connectionStatus.getState()));
-		updateState(new ChannelUID(getThing().getUID(), IPV4), 
-				new StringType(connectionStatus.getIpv4()));
-		updateState(new ChannelUID(getThing().getUID(), RATEUP), 
-				new DecimalType(connectionStatus.getRate_up()));
-		updateState(new ChannelUID(getThing().getUID(), RATEDOWN), 
-				new DecimalType(connectionStatus.getRate_down()));
-		updateState(new ChannelUID(getThing().getUID(), BYTESUP), 
-				new DecimalType(connectionStatus.getBytes_up()));
-		updateState(new ChannelUID(getThing().getUID(), BYTESDOWN), 
-				new DecimalType(connectionStatus.getBytes_down()));
+	private void updateConnectionStatus(ConnectionStatus connectionStatus) {
+		updateChannel(LINESTATUS, new StringType(connectionStatus.getState()));
+		updateChannel(IPV4, new StringType(connectionStatus.getIpv4()));
+		updateChannel(RATEUP, new DecimalType(connectionStatus.getRate_up()));
+		updateChannel(RATEDOWN, new DecimalType(connectionStatus.getRate_down()));
+		updateChannel(BYTESUP, new DecimalType(connectionStatus.getBytes_up()));
+		updateChannel(BYTESDOWN, new DecimalType(connectionStatus.getBytes_down()));
 	}
 	
-	private void fetchxDslStatus() throws FreeboxException {
-		xDslStatus xdslStatus = fbClient.getConnectionManager().getxDslStatus();
-		updateState(new ChannelUID(getThing().getUID(), XDSLSTATUS), 
-				new StringType(xdslStatus.getStatus()));
+	private void updatexDslStatus(xDslStatus xdslStatus) {
+		updateChannel(XDSLSTATUS, new StringType(xdslStatus.getStatus()));
 	}
 	
-	private void fetchWifiConfig() throws FreeboxException {
-		WifiGlobalConfig wifiConfiguration = fbClient.getWifiManager().getGlobalConfig();
-		updateState(new ChannelUID(getThing().getUID(), WIFISTATUS), 
-				wifiConfiguration.getEnabled() ? OnOffType.ON : OnOffType.OFF);
+	private void updateWifiConfig(WifiGlobalConfig wifiConfiguration) {
+		updateChannel(WIFISTATUS, wifiConfiguration.getEnabled() ? OnOffType.ON : OnOffType.OFF);
 	}
 	
-	private void fetchLCDConfig() throws FreeboxException {
-		LCDConfig lcdConfiguration = fbClient.getLCDManager().getLCDConfig();
-		updateState(new ChannelUID(getThing().getUID(), LCDBRIGHTNESS), 
-				new DecimalType(lcdConfiguration.getBrightness()));
-		updateState(new ChannelUID(getThing().getUID(), LCDORIENTATION), 
-				new DecimalType(lcdConfiguration.getOrientation()));
-		updateState(new ChannelUID(getThing().getUID(), LCDFORCED), 
-				lcdConfiguration.getOrientationForced() ? OnOffType.ON : OnOffType.OFF);
+	private void updateLCDConfig(LCDConfig lcdConfiguration) {
+		updateChannel(LCDBRIGHTNESS, new DecimalType(lcdConfiguration.getBrightness()));
+		updateChannel(LCDORIENTATION, new DecimalType(lcdConfiguration.getOrientation()));
+		updateChannel(LCDFORCED, lcdConfiguration.getOrientationForced() ? OnOffType.ON : OnOffType.OFF);
 	}
 	
-	private void fetchSystemConfig() throws FreeboxException {
-		SystemConfiguration systemConfiguration = fbClient.getSystemManager().getConfiguration();
-		
-		updateState(new ChannelUID(getThing().getUID(), FWVERSION),
-				new StringType(systemConfiguration.getFirmware_version()));					
+	private void updateSystemConfig(SystemConfiguration systemConfiguration) {
+		updateChannel(FWVERSION, new StringType(systemConfiguration.getFirmware_version()));
 		
 		long newUptime = systemConfiguration.getUptimeVal();
-		updateState(new ChannelUID(getThing().getUID(), RESTARTED), 
-				newUptime < uptime ? OnOffType.ON : OnOffType.OFF );
+		updateChannel(RESTARTED, newUptime < uptime ? OnOffType.ON : OnOffType.OFF );
 		uptime = newUptime;
 
-		updateState(new ChannelUID(getThing().getUID(), UPTIME), 
-				new DecimalType(uptime));
-		updateState(new ChannelUID(getThing().getUID(), TEMPCPUM), 
-				new DecimalType(systemConfiguration.getTemp_cpum()));
-		updateState(new ChannelUID(getThing().getUID(), TEMPCPUB), 
-				new DecimalType(systemConfiguration.getTemp_cpub()));
-		updateState(new ChannelUID(getThing().getUID(), TEMPSWITCH), 
-				new DecimalType(systemConfiguration.getTemp_sw()));
-		updateState(new ChannelUID(getThing().getUID(), FANSPEED), 
-				new DecimalType(systemConfiguration.getFan_rpm()));
+		updateChannel(UPTIME, new DecimalType(uptime));
+		updateChannel(TEMPCPUM, new DecimalType(systemConfiguration.getTemp_cpum()));
+		updateChannel(TEMPCPUB, new DecimalType(systemConfiguration.getTemp_cpub()));
+		updateChannel(TEMPSWITCH, new DecimalType(systemConfiguration.getTemp_sw()));
+		updateChannel(FANSPEED, new DecimalType(systemConfiguration.getFan_rpm()));
 	}
 	
 	public void setBrightness(Command command) throws FreeboxException {
@@ -298,7 +329,7 @@ public class FreeboxHandler extends BaseThingHandler {
 				if (command instanceof OnOffType || command instanceof IncreaseDecreaseType || 
 					command instanceof DecimalType || command instanceof PercentType) {
 
-					LCDConfig lcd = fbClient.getLCDManager().getLCDConfig();
+					LCDConfig lcd = poller.getClient().getLCDManager().getLCDConfig();
 					int value = 0;
 					int newValue = 0;
 					
@@ -318,21 +349,20 @@ public class FreeboxHandler extends BaseThingHandler {
 						return;
 					}
 					lcd.setBrightness(newValue);
-					fbClient.getLCDManager().setLCDConfig(lcd);
-					fetchLCDConfig();
+					// the changed configuration is returned, no need to fetch it again
+					poller.publish(Endpoint.LCD, poller.getClient().getLCDManager().setLCDConfig(lcd));
 				}				
 		}
 	}
 	
 	private void setOrientation(Command command) throws FreeboxException {
 		if (command != null && command instanceof DecimalType) {
-			LCDConfig lcd = fbClient.getLCDManager().getLCDConfig();
+			LCDConfig lcd = poller.getClient().getLCDManager().getLCDConfig();
 			int newValue = Math.min(360, ((DecimalType) command).intValue());
 			newValue = Math.max(newValue, 0);
 			lcd.setOrientation(newValue);
 			lcd.setOrientationForced(true);
-			fbClient.getLCDManager().setLCDConfig(lcd);	
-			fetchLCDConfig();
+			poller.publish(Endpoint.LCD, poller.getClient().getLCDManager().setLCDConfig(lcd));
 		}	
 	}
 	
@@ -342,15 +372,14 @@ public class FreeboxHandler extends BaseThingHandler {
 					|| command instanceof OpenClosedType
 					|| command instanceof UpDownType) {
 
-				LCDConfig lcd = fbClient.getLCDManager().getLCDConfig();
+				LCDConfig lcd = poller.getClient().getLCDManager().getLCDConfig();
 				
 				lcd.setOrientationForced( 
 						command.equals(OnOffType.ON) || 
 						command.equals(UpDownType.UP) || 
 						command.equals(OpenClosedType.OPEN)
 						);
-				fbClient.getLCDManager().setLCDConfig(lcd);	
-				fetchLCDConfig();	
+				poller.publish(Endpoint.LCD, poller.getClient().getLCDManager().setLCDConfig(lcd));
 			}
 		}		
 	}
@@ -361,7 +390,7 @@ public class FreeboxHandler extends BaseThingHandler {
 					|| command instanceof OpenClosedType
 					|| command instanceof UpDownType) {
 
-				WifiGlobalConfig wifiConfiguration = fbClient.getWifiManager().getGlobalConfig();
+				WifiGlobalConfig wifiConfiguration = poller.getClient().getWifiManager().getGlobalConfig();
 				
 				wifiConfiguration.setEnabled( 
 						command.equals(OnOffType.ON) || 
@@ -369,8 +398,8 @@ public class FreeboxHandler extends BaseThingHandler {
 						command.equals(OpenClosedType.OPEN)
 						);
 				
-				fbClient.getWifiManager().setGlobalConfig(wifiConfiguration);
-				fetchWifiConfig();	
+				poller.publish(Endpoint.WIFI,
+						poller.getClient().getWifiManager().setGlobalConfig(wifiConfiguration));
 			}
 		}	
 	}
@@ -381,7 +410,7 @@ public class FreeboxHandler extends BaseThingHandler {
 				 command.equals(UpDownType.UP) || 
 				 command.equals(OpenClosedType.OPEN) ) {
 				
-				fbClient.getSystemManager().Reboot();
+				poller.getClient().getSystemManager().Reboot();
 			}	
 		}
 	}
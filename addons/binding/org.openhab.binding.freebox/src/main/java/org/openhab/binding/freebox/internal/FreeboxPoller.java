@@ -0,0 +1,301 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.freebox.internal;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.matmaul.freeboxos.FreeboxException;
+import org.matmaul.freeboxos.FreeboxOsClient;
+import org.matmaul.freeboxos.call.CallEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link FreeboxPoller} polls the FreeboxOS API of one Freebox Server for
+ * all things connected to it. Each endpoint of the API is polled by its own
+ * job, at the shortest refresh interval requested by a listener, and the
+ * result is passed to all listeners. The jobs run concurrently on the
+ * scheduler, but an endpoint is never fetched twice at the same time: a
+ * refresh requested while a fetch is running is merged into one more fetch.
+ *
+ * @author agent - Initial contribution
+ */
+public class FreeboxPoller {
+
+	/**
+	 * The polled endpoints of the FreeboxOS API
+	 */
+	public enum Endpoint {
+		SYSTEM,
+		LCD,
+		WIFI,
+		XDSL,
+		CONNECTION,
+		CALLS,
+		PHONE
+	}
+
+	/**
+	 * Receives the results of the endpoints
+	 */
+	public interface Listener {
+
+		/**
+		 * @param endpoint
+		 *            the polled endpoint
+		 * @param result
+		 *            the result, a list of the new {@link CallEntry}s for
+		 *            {@link Endpoint#CALLS}, the object returned by the
+		 *            FreeboxOS client otherwise
+		 */
+		void endpointUpdated(Endpoint endpoint, Object result);
+
+		void endpointFailed(Endpoint endpoint, FreeboxException e);
+	}
+
+	/**
+	 * The LCD and the wifi settings are polled this many times less often
+	 * than the connection status
+	 */
+	public static final int SLOW_REFRESH_FACTOR = 10;
+
+	private Logger logger = LoggerFactory.getLogger(FreeboxPoller.class);
+
+	private final FreeboxOsClient client;
+	private final ScheduledExecutorService scheduler;
+
+	// refresh intervals in seconds requested by each listener
+	private final Map<Listener, Map<Endpoint, Long>> listeners = new ConcurrentHashMap<Listener, Map<Endpoint, Long>>();
+	// guarded by this
+	private final Map<Endpoint, EndpointJob> jobs = new EnumMap<Endpoint, EndpointJob>(Endpoint.class);
+
+	public FreeboxPoller(FreeboxOsClient client,
+			ScheduledExecutorService scheduler) {
+		this.client = client;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Returns the refresh intervals of a thing. The system configuration
+	 * holds the temperatures and the fan speed next to the firmware version,
+	 * so it is polled as often as the connection status.
+	 *
+	 * @param refreshInterval
+	 *            the refresh interval of the status endpoints in seconds
+	 * @param refreshPhoneInterval
+	 *            the refresh interval of the phone status in seconds
+	 */
+	public static Map<Endpoint, Long> getIntervals(long refreshInterval,
+			long refreshPhoneInterval) {
+		Map<Endpoint, Long> intervals = new EnumMap<Endpoint, Long>(
+				Endpoint.class);
+		intervals.put(Endpoint.SYSTEM, refreshInterval);
+		intervals.put(Endpoint.CONNECTION, refreshInterval);
+		intervals.put(Endpoint.XDSL, refreshInterval);
+		intervals.put(Endpoint.CALLS, refreshInterval);
+		intervals.put(Endpoint.LCD, refreshInterval * SLOW_REFRESH_FACTOR);
+		intervals.put(Endpoint.WIFI, refreshInterval * SLOW_REFRESH_FACTOR);
+		intervals.put(Endpoint.PHONE, refreshPhoneInterval);
+		return intervals;
+	}
+
+	public FreeboxOsClient getClient() {
+		return client;
+	}
+
+	/**
+	 * Adds a listener and fetches its endpoints as soon as possible.
+	 *
+	 * @param listener
+	 *            the listener
+	 * @param intervals
+	 *            the refresh interval in seconds for each endpoint the
+	 *            listener is interested in
+	 */
+	public synchronized void addListener(Listener listener,
+			Map<Endpoint, Long> intervals) {
+		listeners.put(listener, new EnumMap<Endpoint, Long>(intervals));
+		updateJobs();
+		for (Endpoint endpoint : intervals.keySet()) {
+			refresh(endpoint);
+		}
+	}
+
+	/**
+	 * Removes a listener, endpoints no other listener is interested in are
+	 * not polled any more.
+	 *
+	 * @return true, if this has been the last listener
+	 */
+	public synchronized boolean removeListener(Listener listener) {
+		listeners.remove(listener);
+		updateJobs();
+		return listeners.isEmpty();
+	}
+
+	/**
+	 * Fetches an endpoint as soon as possible.
+	 */
+	public synchronized void refresh(Endpoint endpoint) {
+		EndpointJob job = jobs.get(endpoint);
+		if (job != null) {
+			scheduler.execute(job);
+		}
+	}
+
+	/**
+	 * Passes a result which has been received otherwise, e.g. as answer to a
+	 * change of the configuration, to the listeners.
+	 */
+	public void publish(Endpoint endpoint, Object result) {
+		for (Map.Entry<Listener, Map<Endpoint, Long>> entry : listeners
+				.entrySet()) {
+			if (entry.getValue().containsKey(endpoint)) {
+				entry.getKey().endpointUpdated(endpoint, result);
+			}
+		}
+	}
+
+	/**
+	 * Stops all jobs.
+	 */
+	public synchronized void stop() {
+		listeners.clear();
+		updateJobs();
+	}
+
+	/**
+	 * Starts, reschedules and stops the jobs according to the intervals the
+	 * listeners request.
+	 */
+	private void updateJobs() {
+		for (Endpoint endpoint : Endpoint.values()) {
+			long interval = 0;
+			for (Map<Endpoint, Long> intervals : listeners.values()) {
+				Long requested = intervals.get(endpoint);
+				if (requested != null && requested > 0
+						&& (interval == 0 || requested < interval)) {
+					interval = requested;
+				}
+			}
+			EndpointJob job = jobs.get(endpoint);
+			if (job != null && job.interval != interval) {
+				job.future.cancel(false);
+				jobs.remove(endpoint);
+				job = null;
+			}
+			if (job == null && interval > 0) {
+				logger.debug("Polling {} every {} s", endpoint, interval);
+				job = new EndpointJob(endpoint, interval);
+				job.future = scheduler.scheduleWithFixedDelay(job, interval,
+						interval, TimeUnit.SECONDS);
+				jobs.put(endpoint, job);
+			}
+		}
+	}
+
+	/**
+	 * Fetches an endpoint from the Freebox Server.
+	 */
+	protected Object fetch(Endpoint endpoint) throws FreeboxException {
+		switch (endpoint) {
+		case SYSTEM:
+			return client.getSystemManager().getConfiguration();
+		case LCD:
+			return client.getLCDManager().getLCDConfig();
+		case WIFI:
+			return client.getWifiManager().getGlobalConfig();
+		case XDSL:
+			return client.getConnectionManager().getxDslStatus();
+		case CONNECTION:
+			return client.getConnectionManager().getStatus();
+		case CALLS:
+			return fetchNewCalls();
+		case PHONE:
+			return client.getPhoneManager().getPhoneStatus();
+		default:
+			throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+		}
+	}
+
+	/**
+	 * Fetches the new calls and marks them as seen, so each call is reported
+	 * once, however many things are listening.
+	 */
+	private List<CallEntry> fetchNewCalls() throws FreeboxException {
+		List<CallEntry> newCalls = new ArrayList<CallEntry>();
+		for (CallEntry call : client.getCallManager().getCallEntries()) {
+			if (call.is_new_()) {
+				newCalls.add(call);
+				call.setNew(false);
+				client.getCallManager().setCallEntry(call);
+			}
+		}
+		return newCalls;
+	}
+
+	private void poll(Endpoint endpoint) {
+		Object result;
+		try {
+			result = fetch(endpoint);
+		} catch (FreeboxException e) {
+			for (Map.Entry<Listener, Map<Endpoint, Long>> entry : listeners
+					.entrySet()) {
+				if (entry.getValue().containsKey(endpoint)) {
+					entry.getKey().endpointFailed(endpoint, e);
+				}
+			}
+			return;
+		}
+		publish(endpoint, result);
+	}
+
+	/**
+	 * Polls one endpoint
+	 */
+	private class EndpointJob implements Runnable {
+		private final Endpoint endpoint;
+		private final long interval;
+		private ScheduledFuture<?> future;
+
+		private final AtomicBoolean running = new AtomicBoolean();
+		private volatile boolean pending;
+
+		EndpointJob(Endpoint endpoint, long interval) {
+			this.endpoint = endpoint;
+			this.interval = interval;
+		}
+
+		@Override
+		public void run() {
+			pending = true;
+			// the thread running a fetch fetches again for the callers which
+			// could not start it
+			while (pending && running.compareAndSet(false, true)) {
+				try {
+					pending = false;
+					poll(endpoint);
+				} catch (RuntimeException e) {
+					logger.error("An exception occurred while polling {}",
+							endpoint, e);
+				} finally {
+					running.set(false);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.hdanywhere.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.smarthome.io.net.http.HttpUtil;
+
+/**
+ * Polls a {@link HDanywhereMatrixStub} of an 8x8 matrix and switches four of
+ * its output ports, once like the handler did before, with a pattern per port
+ * and a channel update for every port on every poll and a request per command,
+ * and once with the {@link HDanywhereMatrix} like the handler does now. It
+ * prints the time, the number of requests and of channel updates of both. It
+ * is not run with the tests, run its main method to compare both.
+ *
+ * @author agent - Initial contribution
+ */
+public class HDanywhereMatrixBenchmark {
+
+    private static final int PORTS = 8;
+    private static final int POLLS = 2000;
+
+    private static int updates;
+
+    public static void main(String[] args) throws Exception {
+        HDanywhereMatrixStub stub = new HDanywhereMatrixStub(PORTS);
+        try {
+            // warm up
+            runBefore(stub, POLLS / 10);
+            runNow(stub, POLLS / 10);
+
+            int requests = stub.getRequests().size();
+            updates = 0;
+            long start = System.nanoTime();
+            runBefore(stub, POLLS);
+            System.out.printf("Before: %d requests, %d updates, %.1f ms%n", stub.getRequests().size() - requests,
+                    updates, (System.nanoTime() - start) / 1000000.0);
+
+            requests = stub.getRequests().size();
+            updates = 0;
+            start = System.nanoTime();
+            runNow(stub, POLLS);
+            System.out.printf("Now:    %d requests, %d updates, %.1f ms%n", stub.getRequests().size() - requests,
+                    updates, (System.nanoTime() - start) / 1000000.0);
+        } finally {
+            stub.close();
+        }
+    }
+
+    private static void runBefore(HDanywhereMatrixStub stub, int polls) {
+        for (int poll = 0; poll < polls; poll++) {
+            if (poll % 100 == 0) {
+                // a scene switches four outputs, each command is a request followed by the next poll
+                for (int output = 1; output <= 4; output++) {
+                    int input = (poll / 100 + output) % PORTS + 1;
+                    HttpUtil.executeUrl("GET", "http://" + stub.getHost() + "/switch.cgi?command=3&data0=" + output
+                            + "&data1=" + input + "&checksum=" + (3 + output + input), null, null, null, 5000);
+                }
+            }
+            String response = HttpUtil.executeUrl("GET", "http://" + stub.getHost() + "/status_show.shtml", null,
+                    null, null, 5000);
+            for (int i = 1; i <= PORTS; i++) {
+                Pattern p = Pattern.compile("var out" + i + "var = (.*);");
+                Matcher m = p.matcher(response);
+                while (m.find()) {
+                    Integer.parseInt(m.group(1));
+                    updates++;
+                }
+            }
+        }
+    }
+
+    private static void runNow(HDanywhereMatrixStub stub, int polls) {
+        HDanywhereMatrix matrix = new HDanywhereMatrix(stub.getHost(), PORTS, 5000);
+        int[] inputs = null;
+        for (int poll = 0; poll < polls; poll++) {
+            if (poll % 100 == 0) {
+                Map<Integer, Integer> routes = new LinkedHashMap<Integer, Integer>();
+                for (int output = 1; output <= 4; output++) {
+                    routes.put(output, (poll / 100 + output) % PORTS + 1);
+                }
+                matrix.route(routes);
+            }
+            int[] newInputs = matrix.getInputs();
+            for (int i = 0; i < newInputs.length; i++) {
+                if (inputs == null || inputs[i] != newInputs[i]) {
+                    updates++;
+                }
+            }
+            inputs = newInputs;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.hdanywhere.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local HTTP server which answers like the HDanywhere matrix: it serves the
+ * status page and switches its output ports on the requests of switch.cgi.
+ *
+ * @author agent - Initial contribution
+ */
+public class HDanywhereMatrixStub implements Runnable {
+
+    private static final Pattern SWITCH_PATTERN = Pattern
+            .compile("/switch\\.cgi\\?command=3&data0=(\\d+)&data1=(\\d+)&checksum=(\\d+)");
+
+    private final ServerSocket serverSocket;
+    private final int[] inputs;
+    private final List<String> requests = new ArrayList<String>();
+    private final Thread thread;
+
+    public HDanywhereMatrixStub(int numberOfPorts) throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        inputs = new int[numberOfPorts];
+        for (int i = 0; i < numberOfPorts; i++) {
+            inputs[i] = 1;
+        }
+        thread = new Thread(this, "hdanywhere-matrix-stub");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the network address of the stub, as configured for the matrix
+     */
+    public String getHost() {
+        return "127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    public synchronized int getInput(int outputPort) {
+        return inputs[outputPort - 1];
+    }
+
+    public synchronized void setInput(int outputPort, int inputPort) {
+        inputs[outputPort - 1] = inputPort;
+    }
+
+    /**
+     * Returns the paths of the requests received so far
+     */
+    public synchronized List<String> getRequests() {
+        return new ArrayList<String>(requests);
+    }
+
+    public synchronized String getStatusPage() {
+        StringBuilder page = new StringBuilder("<html><head><script type=\"text/javascript\">\n");
+        for (int i = 0; i < inputs.length; i++) {
+            page.append("var out").append(i + 1).append("var = ").append(inputs[i]).append(";\n");
+        }
+        page.append("</script></head><body></body></html>\n");
+        return page.toString();
+    }
+
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    @Override
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.US_ASCII));
+                String requestLine = reader.readLine();
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && !line.isEmpty());
+                String body = handle(requestLine != null ? requestLine.split(" ")[1] : "");
+                String status = body != null ? "200 OK" : "404 Not Found";
+                byte[] content = (body != null ? body : "").getBytes(StandardCharsets.US_ASCII);
+                OutputStream out = socket.getOutputStream();
+                out.write(("HTTP/1.0 " + status + "\r\nContent-Type: text/html\r\nContent-Length: " + content.length
+                        + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(content);
+                out.flush();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private synchronized String handle(String path) {
+        requests.add(path);
+        if (path.equals("/status_show.shtml")) {
+            return getStatusPage();
+        }
+        Matcher m = SWITCH_PATTERN.matcher(path);
+        if (m.matches()) {
+            int outputPort = Integer.parseInt(m.group(1));
+            int inputPort = Integer.parseInt(m.group(2));
+            if (Integer.parseInt(m.group(3)) == 3 + outputPort + inputPort && outputPort <= inputs.length) {
+                inputs[outputPort - 1] = inputPort;
+            }
+            return "";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.hdanywhere.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link HDanywhereMatrix}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HDanywhereMatrixTest {
+
+    private HDanywhereMatrixStub stub;
+    private HDanywhereMatrix matrix;
+
+    @Before
+    public void setUp() throws IOException {
+        stub = new HDanywhereMatrixStub(4);
+        matrix = new HDanywhereMatrix(stub.getHost(), 4, 5000);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        stub.close();
+    }
+
+    @Test
+    public void testParseStatus() {
+        int[] inputs = HDanywhereMatrix.parseStatus("var out1var = 3;\nvar out2var = 1;\nvar out4var = 2;\n"
+                + "var out5var = 4;\n", 4);
+
+        assertThat(Arrays.toString(inputs), is("[3, 1, 0, 2]"));
+    }
+
+    @Test
+    public void testInputsAreReadWithOneRequest() {
+        stub.setInput(2, 4);
+
+        assertThat(Arrays.toString(matrix.getInputs()), is("[1, 4, 1, 1]"));
+        assertThat(stub.getRequests(), is(Arrays.asList("/status_show.shtml")));
+    }
+
+    @Test
+    public void testRoutesAreSent() {
+        Map<Integer, Integer> routes = new LinkedHashMap<Integer, Integer>();
+        routes.put(3, 2);
+        routes.put(1, 4);
+
+        assertThat(matrix.route(routes), is(true));
+        assertThat(stub.getInput(3), is(2));
+        assertThat(stub.getInput(1), is(4));
+        assertThat(stub.getRequests(), is(Arrays.asList("/switch.cgi?command=3&data0=3&data1=2&checksum=8",
+                "/switch.cgi?command=3&data0=1&data1=4&checksum=8")));
+    }
+
+    @Test
+    public void testUnreachableMatrix() throws IOException {
+        stub.close();
+
+        assertThat(matrix.getInputs(), is(nullValue()));
+    }
+}
@@ -8,13 +8,11 @@
  */
 package org.openhab.binding.hdanywhere.handler;
 
-import static org.apache.commons.lang.StringUtils.isNotBlank;
-
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.thing.ChannelUID;
@@ -22,8 +20,8 @@ import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
-import org.eclipse.smarthome.io.net.http.HttpUtil;
 import org.openhab.binding.hdanywhere.HDanywhereBindingConstants.Port;
+import org.openhab.binding.hdanywhere.internal.HDanywhereMatrix;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +41,7 @@ public class HDanywhereHandler extends BaseThingHandler {
     private Logger logger = LoggerFactory.getLogger(HDanywhereHandler.class);
 
     private ScheduledFuture<?> pollingJob;
+    private ScheduledFuture<?> routingJob;
 
     /**
      * the timeout to use for connecting to a given host (defaults to 5000
@@ -50,46 +49,88 @@ public class HDanywhereHandler extends BaseThingHandler {
      */
     private static int timeout = 5000;
 
+    /**
+     * the time to wait for further commands before the routes are sent to the
+     * matrix, in milliseconds
+     */
+    private static int routingDelay = 100;
+
+    /**
+     * the input port of each output port as last read from the matrix, null
+     * if unknown
+     */
+    private int[] inputs;
+
+    /**
+     * the routes which are not sent yet, the input port by output port
+     */
+    private final Map<Integer, Integer> pendingRoutes = new LinkedHashMap<Integer, Integer>();
+
     public HDanywhereHandler(Thing thing) {
         super(thing);
     }
 
+    private HDanywhereMatrix getMatrix() {
+        String host = (String) getConfig().get(IP_ADDRESS);
+        int numberOfPorts = ((BigDecimal) getConfig().get(PORTS)).intValue();
+        return new HDanywhereMatrix(host, numberOfPorts, timeout);
+    }
+
     private Runnable pollingRunnable = new Runnable() {
 
         @Override
         public void run() {
             try {
-                String host = (String) getConfig().get(IP_ADDRESS);
-                int numberOfPorts = ((BigDecimal) getConfig().get(PORTS)).intValue();
-
-                String httpMethod = "GET";
-                String url = "http://" + host + "/status_show.shtml";
-
-                if (isNotBlank(httpMethod) && isNotBlank(url)) {
-                    String response = HttpUtil.executeUrl(httpMethod, url, null, null, null, timeout);
-
-                    if (response != null) {
-                        updateStatus(ThingStatus.ONLINE);
-
-                        for (int i = 1; i <= numberOfPorts; i++) {
-                            Pattern p = Pattern.compile("var out" + i + "var = (.*);");
-                            Matcher m = p.matcher(response);
-
-                            while (m.find()) {
-                                DecimalType decimalType = new DecimalType(m.group(1));
-                                updateState(new ChannelUID(getThing().getUID(), Port.get(i).channelID()), decimalType);
-                            }
-                        }
-                    } else {
-                        updateStatus(ThingStatus.OFFLINE);
-                    }
-                }
+                poll(getMatrix());
             } catch (Exception e) {
                 logger.warn("An exception occurred while polling the HDanwywhere matrix: '{}'", e.getMessage());
             }
         }
     };
 
+    private Runnable routingRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            try {
+                Map<Integer, Integer> routes;
+                synchronized (pendingRoutes) {
+                    routes = new LinkedHashMap<Integer, Integer>(pendingRoutes);
+                    pendingRoutes.clear();
+                    routingJob = null;
+                }
+                HDanywhereMatrix matrix = getMatrix();
+                matrix.route(routes);
+                // read back the routes which are actually set
+                poll(matrix);
+            } catch (Exception e) {
+                logger.warn("An exception occurred while switching the HDanwywhere matrix: '{}'", e.getMessage());
+            }
+        }
+    };
+
+    /**
+     * Reads the status of the matrix and updates the channels of the output
+     * ports whose input port has changed
+     */
+    private synchronized void poll(HDanywhereMatrix matrix) {
+        int[] newInputs = matrix.getInputs();
+        if (newInputs == null) {
+            updateStatus(ThingStatus.OFFLINE);
+            inputs = null;
+            return;
+        }
+
+        updateStatus(ThingStatus.ONLINE);
+        for (int i = 0; i < newInputs.length; i++) {
+            if (newInputs[i] != 0 && (inputs == null || i >= inputs.length || inputs[i] != newInputs[i])) {
+                updateState(new ChannelUID(getThing().getUID(), Port.get(i + 1).channelID()),
+                        new DecimalType(newInputs[i]));
+            }
+        }
+        inputs = newInputs;
+    }
+
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
 
@@ -109,17 +150,15 @@ public class HDanywhereHandler extends BaseThingHandler {
             logger.warn("Output port {} goes beyond the physical number of {} ports available on the matrix {}",
                     new Object[] { outputPort, numberOfPorts, host });
         } else {
-
-            String httpMethod = "GET";
-            String url = "http://" + host + "/switch.cgi?command=3&data0=";
-
-            url = url + String.valueOf(outputPort) + "&data1=";
-            url = url + command.toString() + "&checksum=";
-
-            int checksum = 3 + outputPort + sourcePort;
-            url = url + String.valueOf(checksum);
-
-            HttpUtil.executeUrl(httpMethod, url, null, null, null, timeout);
+            // collect the commands of a short time, e.g. of a scene, so the
+            // matrix is only read once for all of them, and only the last
+            // command of an output port is sent
+            synchronized (pendingRoutes) {
+                pendingRoutes.put(outputPort, sourcePort);
+                if (routingJob == null) {
+                    routingJob = scheduler.schedule(routingRunnable, routingDelay, TimeUnit.MILLISECONDS);
+                }
+            }
         }
 
     }
@@ -131,6 +170,14 @@ public class HDanywhereHandler extends BaseThingHandler {
             pollingJob.cancel(true);
             pollingJob = null;
         }
+        synchronized (pendingRoutes) {
+            if (routingJob != null) {
+                routingJob.cancel(false);
+                routingJob = null;
+            }
+            pendingRoutes.clear();
+        }
+        inputs = null;
     }
 
     @Override
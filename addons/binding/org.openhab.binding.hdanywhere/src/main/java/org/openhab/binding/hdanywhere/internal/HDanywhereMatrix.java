@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.hdanywhere.internal;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.smarthome.io.net.http.HttpUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HDanywhereMatrix} is responsible for the HTTP requests to the matrix. It reads the input port of
+ * every output port with a single request of the status page, and switches output ports to input ports.
+ *
+ * @author agent - Initial contribution
+ */
+public class HDanywhereMatrix {
+
+    private Logger logger = LoggerFactory.getLogger(HDanywhereMatrix.class);
+
+    // the status page holds a line "var out<output>var = <input>;" per output port
+    private static final Pattern OUTPUT_PATTERN = Pattern.compile("var out(\\d+)var = (\\d+);");
+
+    private final String host;
+    private final int numberOfPorts;
+    private final int timeout;
+
+    /**
+     * @param host the network address of the matrix, with an optional port
+     * @param numberOfPorts the number of input and output ports of the matrix
+     * @param timeout the timeout of the HTTP requests in milliseconds
+     */
+    public HDanywhereMatrix(String host, int numberOfPorts, int timeout) {
+        this.host = host;
+        this.numberOfPorts = numberOfPorts;
+        this.timeout = timeout;
+    }
+
+    public int getNumberOfPorts() {
+        return numberOfPorts;
+    }
+
+    /**
+     * Reads the status of the matrix
+     *
+     * @return the input port of every output port, at the index of the output port minus one, 0 if the status
+     *         page does not contain the output port, or null if the matrix could not be reached
+     */
+    public int[] getInputs() {
+        String response = HttpUtil.executeUrl("GET", "http://" + host + "/status_show.shtml", null, null, null,
+                timeout);
+        return response != null ? parseStatus(response, numberOfPorts) : null;
+    }
+
+    /**
+     * Parses the status page of the matrix
+     *
+     * @return the input port of every output port, at the index of the output port minus one, 0 if the status
+     *         page does not contain the output port
+     */
+    public static int[] parseStatus(String response, int numberOfPorts) {
+        int[] inputs = new int[numberOfPorts];
+        Matcher m = OUTPUT_PATTERN.matcher(response);
+        while (m.find()) {
+            int output = Integer.parseInt(m.group(1));
+            if (output >= 1 && output <= numberOfPorts) {
+                inputs[output - 1] = Integer.parseInt(m.group(2));
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Switches output ports to input ports. The matrix takes one route per request, the routes are sent one
+     * after the other.
+     *
+     * @param routes the input port by output port
+     * @return true if the matrix answered every request
+     */
+    public boolean route(Map<Integer, Integer> routes) {
+        boolean success = true;
+        for (Map.Entry<Integer, Integer> route : routes.entrySet()) {
+            int outputPort = route.getKey();
+            int sourcePort = route.getValue();
+            int checksum = 3 + outputPort + sourcePort;
+            String url = "http://" + host + "/switch.cgi?command=3&data0=" + outputPort + "&data1=" + sourcePort
+                    + "&checksum=" + checksum;
+            logger.debug("Switching output port {} of matrix {} to input port {}",
+                    new Object[] { outputPort, host, sourcePort });
+            success &= HttpUtil.executeUrl("GET", url, null, null, null, timeout) != null;
+        }
+        return success;
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ipp.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.openhab.binding.ipp.internal.IppJobQuery.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link IppJobCounter} against a local
+ * {@link IppPrinterStub}.
+ *
+ * @author agent - Initial contribution
+ */
+public class IppJobCounterTest {
+
+	private IppPrinterStub printer;
+
+	@After
+	public void tearDown() throws Exception {
+		printer.close();
+	}
+
+	private void assertCounters(IppJobCounter counter, int jobs, int waitingJobs, int doneJobs) {
+		assertThat(counter.getJobs(), is(jobs));
+		assertThat(counter.getWaitingJobs(), is(waitingJobs));
+		assertThat(counter.getDoneJobs(), is(doneJobs));
+	}
+
+	@Test
+	public void testFullCount() throws Exception {
+		printer = new IppPrinterStub(true);
+		printer.addJob(STATE_COMPLETED);
+		printer.addJob(STATE_CANCELED);
+		printer.addJob(STATE_PROCESSING);
+		printer.addJob(STATE_PENDING);
+		IppJobCounter counter = new IppJobCounter(false);
+		IppJobQuery query = new IppJobQuery(printer.getUrl());
+
+		counter.refresh(query);
+		assertCounters(counter, 4, 2, 2);
+
+		printer.purgeJob(1);
+		counter.refresh(query);
+		assertCounters(counter, 3, 2, 1);
+		assertThat(printer.getFirstJobIds(), is(Arrays.asList(0, 0)));
+	}
+
+	@Test
+	public void testIncrementalCount() throws Exception {
+		printer = new IppPrinterStub(true);
+		for (int i = 0; i < 100; i++) {
+			printer.addJob(STATE_COMPLETED);
+		}
+		int processing = printer.addJob(STATE_PROCESSING);
+		printer.addJob(STATE_COMPLETED);
+		IppJobCounter counter = new IppJobCounter(true);
+		IppJobQuery query = new IppJobQuery(printer.getUrl());
+
+		counter.refresh(query);
+		assertCounters(counter, 102, 1, 101);
+		assertThat(counter.getFetchedJobs(), is(102));
+		long fullBytes = printer.getResponseBytes();
+
+		printer.setJobState(processing, STATE_COMPLETED);
+		int pending = printer.addJob(STATE_PENDING);
+		counter.refresh(query);
+		// the processing job and the new one
+		assertCounters(counter, 103, 1, 102);
+		assertThat(counter.getFetchedJobs(), is(3));
+		assertThat(printer.getFirstJobIds().get(1), is(processing));
+		assertTrue("incremental response is not smaller",
+				printer.getResponseBytes() - fullBytes < fullBytes / 10);
+
+		printer.purgeJob(1);
+		printer.setJobState(pending, STATE_ABORTED);
+		counter.refresh(query);
+		assertCounters(counter, 103, 0, 103);
+		assertThat(printer.getFirstJobIds().get(2), is(pending));
+
+		counter.refresh(query);
+		assertCounters(counter, 103, 0, 103);
+		assertThat(counter.getFetchedJobs(), is(0));
+	}
+
+	@Test
+	public void testIncrementalCountWithoutFirstJobId() throws Exception {
+		printer = new IppPrinterStub(false);
+		printer.addJob(STATE_COMPLETED);
+		int pending = printer.addJob(STATE_PENDING);
+		IppJobCounter counter = new IppJobCounter(true);
+		IppJobQuery query = new IppJobQuery(printer.getUrl());
+
+		counter.refresh(query);
+		assertCounters(counter, 2, 1, 1);
+
+		printer.setJobState(pending, STATE_COMPLETED);
+		printer.addJob(STATE_PENDING);
+		counter.refresh(query);
+		// the printer returns all jobs, the old ones are not counted again
+		assertCounters(counter, 3, 1, 2);
+	}
+
+	@Test
+	public void testFailedRefreshKeepsCounters() throws Exception {
+		printer = new IppPrinterStub(true);
+		printer.addJob(STATE_PENDING);
+		IppJobCounter counter = new IppJobCounter(true);
+		IppJobQuery query = new IppJobQuery(printer.getUrl());
+		counter.refresh(query);
+
+		printer.setStatus(0x0500);
+		try {
+			counter.refresh(query);
+			fail("no exception");
+		} catch (IOException e) {
+		}
+		assertCounters(counter, 1, 1, 0);
+
+		printer.setStatus(0);
+		printer.addJob(STATE_PENDING);
+		counter.refresh(query);
+		assertCounters(counter, 2, 2, 0);
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ipp.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.openhab.binding.ipp.internal.IppJobQuery.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link IppJobQuery} against a local {@link IppPrinterStub}.
+ *
+ * @author agent - Initial contribution
+ */
+public class IppJobQueryTest {
+
+	private IppPrinterStub printer;
+	private IppJobQuery query;
+
+	@Before
+	public void setUp() throws Exception {
+		printer = new IppPrinterStub(true);
+		query = new IppJobQuery(printer.getUrl());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		printer.close();
+	}
+
+	@Test
+	public void testJobStates() throws Exception {
+		printer.addJob(STATE_COMPLETED);
+		printer.addJob(STATE_PROCESSING);
+		printer.addJob(STATE_PENDING);
+
+		Map<Integer, Integer> jobStates = query.getJobStates(0);
+
+		assertThat(jobStates.size(), is(3));
+		assertThat(jobStates.get(1), is(STATE_COMPLETED));
+		assertThat(jobStates.get(2), is(STATE_PROCESSING));
+		assertThat(jobStates.get(3), is(STATE_PENDING));
+	}
+
+	@Test
+	public void testNoJobs() throws Exception {
+		assertThat(query.getJobStates(0).isEmpty(), is(true));
+	}
+
+	@Test
+	public void testFirstJobId() throws Exception {
+		printer.addJob(STATE_COMPLETED);
+		printer.addJob(STATE_COMPLETED);
+		printer.addJob(STATE_PENDING);
+
+		assertThat(query.getJobStates(3).keySet().size(), is(1));
+		assertThat(query.getJobStates(0).keySet().size(), is(3));
+		assertThat(printer.getFirstJobIds(), is(Arrays.asList(3, 0)));
+	}
+
+	@Test
+	public void testErrorStatus() throws Exception {
+		// client-error-not-found
+		printer.setStatus(0x0406);
+		try {
+			query.getJobStates(0);
+			fail("no exception");
+		} catch (IOException e) {
+			assertThat(e.getMessage(), is("IPP status 0x0406"));
+		}
+	}
+
+	@Test
+	public void testStates() {
+		assertThat(isWaiting(STATE_PENDING_HELD), is(true));
+		assertThat(isWaiting(STATE_PROCESSING_STOPPED), is(true));
+		assertThat(isWaiting(STATE_CANCELED), is(false));
+		assertThat(isDone(STATE_ABORTED), is(true));
+		assertThat(isDone(STATE_PROCESSING), is(false));
+	}
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ipp.internal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A local IPP printer which answers Get-Jobs requests with the jobs it has
+ * been given. Each job is sent with a job name and an originating user name
+ * besides its id and state, like a print server sends more attributes than
+ * requested. The stub records the first-job-id of each request and the size
+ * of the responses.
+ *
+ * @author agent - Initial contribution
+ */
+public class IppPrinterStub {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final ServerSocket serverSocket;
+	private final Thread thread;
+
+	private final boolean supportsFirstJobId;
+	private final TreeMap<Integer, Integer> jobs = new TreeMap<Integer, Integer>();
+	private int nextJobId = 1;
+	private int status = 0;
+
+	private final List<Integer> firstJobIds = new ArrayList<Integer>();
+	private long responseBytes;
+
+	/**
+	 * Starts the printer on a free port of the loopback address.
+	 *
+	 * @param supportsFirstJobId
+	 *            false to ignore the first-job-id attribute like older
+	 *            printers do
+	 */
+	public IppPrinterStub(boolean supportsFirstJobId) throws IOException {
+		this.supportsFirstJobId = supportsFirstJobId;
+		serverSocket = new ServerSocket();
+		serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		thread = new Thread("IPP printer stub") {
+			@Override
+			public void run() {
+				accept();
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public URL getUrl() throws IOException {
+		return new URL("http", "127.0.0.1", serverSocket.getLocalPort(), "/printers/stub");
+	}
+
+	/**
+	 * @return the id of the new job
+	 */
+	public synchronized int addJob(int state) {
+		int id = nextJobId++;
+		jobs.put(id, state);
+		return id;
+	}
+
+	public synchronized void setJobState(int id, int state) {
+		jobs.put(id, state);
+	}
+
+	/**
+	 * Removes a job from the history.
+	 */
+	public synchronized void purgeJob(int id) {
+		jobs.remove(id);
+	}
+
+	/**
+	 * @param status
+	 *            the IPP status code of the following responses
+	 */
+	public synchronized void setStatus(int status) {
+		this.status = status;
+	}
+
+	/**
+	 * @return the first-job-id of each request, 0 if it has not been sent
+	 */
+	public synchronized List<Integer> getFirstJobIds() {
+		return new ArrayList<Integer>(firstJobIds);
+	}
+
+	public synchronized long getResponseBytes() {
+		return responseBytes;
+	}
+
+	public void close() throws IOException {
+		serverSocket.close();
+	}
+
+	private void accept() {
+		while (!serverSocket.isClosed()) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				return;
+			}
+			Thread connection = new Thread("IPP printer stub connection") {
+				@Override
+				public void run() {
+					serve(socket);
+				}
+			};
+			connection.setDaemon(true);
+			connection.start();
+		}
+	}
+
+	/**
+	 * Answers the requests of one keep-alive connection.
+	 */
+	private void serve(Socket socket) {
+		try {
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+			OutputStream out = socket.getOutputStream();
+			String line;
+			while ((line = readLine(in)) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				int contentLength = 0;
+				while (!(line = readLine(in)).isEmpty()) {
+					if (line.toLowerCase().startsWith("content-length:")) {
+						contentLength = Integer.parseInt(line.substring(15).trim());
+					}
+				}
+				byte[] request = new byte[contentLength];
+				new DataInputStream(in).readFully(request);
+				byte[] response = answer(request);
+				String header = "HTTP/1.1 200 OK\r\nContent-Type: application/ipp\r\nContent-Length: "
+						+ response.length + "\r\n\r\n";
+				out.write(header.getBytes(UTF8));
+				out.write(response);
+				out.flush();
+			}
+		} catch (IOException e) {
+			// the client closed the connection
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n') {
+			if (c == -1) {
+				return line.length() == 0 ? null : line.toString();
+			}
+			if (c != '\r') {
+				line.append((char) c);
+			}
+		}
+		return line.toString();
+	}
+
+	private synchronized byte[] answer(byte[] request) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+		in.readShort(); // version
+		in.readShort(); // operation
+		int requestId = in.readInt();
+		int firstJobId = 0;
+		int tag;
+		while ((tag = in.read()) != 0x03) {
+			if (tag < 0x10) {
+				continue;
+			}
+			byte[] name = new byte[in.readUnsignedShort()];
+			in.readFully(name);
+			byte[] value = new byte[in.readUnsignedShort()];
+			in.readFully(value);
+			if ("first-job-id".equals(new String(name, UTF8))) {
+				firstJobId = new DataInputStream(new ByteArrayInputStream(value)).readInt();
+			}
+		}
+		firstJobIds.add(firstJobId);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeShort(0x0101);
+		out.writeShort(status);
+		out.writeInt(requestId);
+		out.writeByte(0x01);
+		writeAttribute(out, 0x47, "attributes-charset", "utf-8".getBytes(UTF8));
+		writeAttribute(out, 0x48, "attributes-natural-language", "en".getBytes(UTF8));
+		if (status == 0) {
+			Map<Integer, Integer> answeredJobs = supportsFirstJobId ? jobs.tailMap(firstJobId) : jobs;
+			for (Map.Entry<Integer, Integer> job : answeredJobs.entrySet()) {
+				out.writeByte(0x02);
+				writeAttribute(out, 0x21, "job-id", toBytes(job.getKey()));
+				writeAttribute(out, 0x42, "job-name", ("document-" + job.getKey() + ".pdf").getBytes(UTF8));
+				writeAttribute(out, 0x23, "job-state", toBytes(job.getValue()));
+				writeAttribute(out, 0x44, "job-state-reasons", "none".getBytes(UTF8));
+				// an additional value of job-state-reasons
+				writeAttribute(out, 0x44, "", "job-printing".getBytes(UTF8));
+				writeAttribute(out, 0x42, "job-originating-user-name", "anonymous".getBytes(UTF8));
+			}
+		}
+		out.writeByte(0x03);
+		out.flush();
+		responseBytes += bytes.size();
+		return bytes.toByteArray();
+	}
+
+	private static void writeAttribute(DataOutputStream out, int tag, String name, byte[] value)
+			throws IOException {
+		byte[] nameBytes = name.getBytes(UTF8);
+		out.writeByte(tag);
+		out.writeShort(nameBytes.length);
+		out.write(nameBytes);
+		out.writeShort(value.length);
+		out.write(value);
+	}
+
+	private static byte[] toBytes(int value) {
+		return new byte[] { (byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value };
+	}
+}
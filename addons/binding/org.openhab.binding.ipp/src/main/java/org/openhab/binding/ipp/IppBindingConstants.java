@@ -36,6 +36,7 @@ public class IppBindingConstants {
     public final static String PRINTER_PARAMETER_URL = "url";
     public final static String PRINTER_PARAMETER_NAME = "name";
     public final static String PRINTER_PARAMETER_REFRESH_INTERVAL = "refresh";
+    public final static String PRINTER_PARAMETER_INCREMENTAL = "incremental";
     
     public final static Collection<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Lists.newArrayList(IppBindingConstants.PRINTER_THING_TYPE);
 }
@@ -8,6 +8,7 @@
  */
 package org.openhab.binding.ipp.handler;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -15,8 +16,6 @@ import java.util.Collection;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
-import org.cups4j.CupsPrinter;
-import org.cups4j.WhichJobsEnum;
 import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.config.discovery.DiscoveryListener;
 import org.eclipse.smarthome.config.discovery.DiscoveryResult;
@@ -32,6 +31,8 @@ import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
 import org.openhab.binding.ipp.IppBindingConstants;
+import org.openhab.binding.ipp.internal.IppJobCounter;
+import org.openhab.binding.ipp.internal.IppJobQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,9 +48,17 @@ public class IppPrinterHandler extends BaseThingHandler implements DiscoveryList
 
 	private URL url;
 	private String name;
-	private CupsPrinter printer;
+	private IppJobQuery query;
+	private IppJobCounter counter;
 	
 	private int refresh = 60; // refresh every minute as default
+	private boolean incremental = false;
+
+	// the last published counters, -1 if not published yet
+	private int jobs = -1;
+	private int waitingJobs = -1;
+	private int doneJobs = -1;
+
 	ScheduledFuture<?> refreshJob;
 	
 	private DiscoveryServiceRegistry discoveryServiceRegistry;
@@ -76,11 +85,18 @@ public class IppPrinterHandler extends BaseThingHandler implements DiscoveryList
 				BigDecimal ref = (BigDecimal) config.get(IppBindingConstants.PRINTER_PARAMETER_REFRESH_INTERVAL); 
 				refresh = ref.intValue();
 			}
+			if (config.get(IppBindingConstants.PRINTER_PARAMETER_INCREMENTAL) != null) {
+				incremental = (Boolean) config.get(IppBindingConstants.PRINTER_PARAMETER_INCREMENTAL);
+			}
 			if (obj instanceof URL)
 				url = (URL) obj;
 			else if (obj instanceof String)
 				url = new URL((String)obj);
-			printer = new CupsPrinter(url,name,false);
+			query = new IppJobQuery(url);
+			counter = new IppJobCounter(incremental);
+			jobs = -1;
+			waitingJobs = -1;
+			doneJobs = -1;
 		} catch (MalformedURLException e) {
 			logger.error("malformed url {}, printer thing creation failed",config.get(IppBindingConstants.PRINTER_PARAMETER_URL));
 		}
@@ -111,7 +127,7 @@ public class IppPrinterHandler extends BaseThingHandler implements DiscoveryList
 		Runnable runnable = new Runnable() {
 			public void run() {
 				try {
-					onDeviceStateChanged(printer);
+					refreshJobs(false);
 				} catch (Exception e) {
 					logger.debug("Exception occurred during execution: {}",
 							e.getMessage(), e);
@@ -126,37 +142,47 @@ public class IppPrinterHandler extends BaseThingHandler implements DiscoveryList
 	@Override
 	public void handleCommand(ChannelUID channelUID, Command command) {
 		if (command instanceof RefreshType) {
-			onDeviceStateChanged(printer);
+			refreshJobs(true);
 			return;
 		}
 	}
 
-	
-	public void onDeviceStateChanged(CupsPrinter device) {
-		if (device.getPrinterURL().equals(url)) {
-			boolean online = false;
-			try {
-				updateState(new ChannelUID(getThing().getUID(), IppBindingConstants.JOBS_CHANNEL), new DecimalType(device.getJobs(WhichJobsEnum.ALL, "", false).size()));
-				online = true;
-			} catch (Exception e) {
-				logger.debug("error updating jobs channel, reason: {}",e.getMessage());
-			}
-			try {
-				updateState(new ChannelUID(getThing().getUID(), IppBindingConstants.WAITING_JOBS_CHANNEL), new DecimalType(device.getJobs(WhichJobsEnum.NOT_COMPLETED, "", false).size()));
-				online = true;
-			} catch (Exception e) {
-				logger.debug("error updating waiting-jobs channel, reason: {}",e.getMessage());
-			}
-			try {
-				updateState(new ChannelUID(getThing().getUID(), IppBindingConstants.DONE_JOBS_CHANNEL), new DecimalType(device.getJobs(WhichJobsEnum.COMPLETED, "", false).size()));
-				online = true;
-			} catch (Exception e) {
-				logger.debug("error updating done-jobs channel, reason: {}",e.getMessage());
-			}
-			if (online) {
-				updateStatus(ThingStatus.ONLINE);
-			}
+	/**
+	 * Fetches the jobs of the printer with one query and updates the
+	 * channels whose counter has changed.
+	 * 
+	 * @param force
+	 *            updates all channels, even if unchanged
+	 */
+	private synchronized void refreshJobs(boolean force) {
+		if (query == null) {
+			return;
+		}
+		if (force) {
+			jobs = -1;
+			waitingJobs = -1;
+			doneJobs = -1;
+		}
+		try {
+			counter.refresh(query);
+		} catch (IOException e) {
+			logger.debug("error updating jobs of printer {}, reason: {}", url, e.getMessage());
+			return;
+		}
+		logger.trace("printer {} returned {} jobs", url, counter.getFetchedJobs());
+		if (counter.getJobs() != jobs) {
+			jobs = counter.getJobs();
+			updateState(new ChannelUID(getThing().getUID(), IppBindingConstants.JOBS_CHANNEL), new DecimalType(jobs));
+		}
+		if (counter.getWaitingJobs() != waitingJobs) {
+			waitingJobs = counter.getWaitingJobs();
+			updateState(new ChannelUID(getThing().getUID(), IppBindingConstants.WAITING_JOBS_CHANNEL), new DecimalType(waitingJobs));
+		}
+		if (counter.getDoneJobs() != doneJobs) {
+			doneJobs = counter.getDoneJobs();
+			updateState(new ChannelUID(getThing().getUID(), IppBindingConstants.DONE_JOBS_CHANNEL), new DecimalType(doneJobs));
 		}
+		updateStatus(ThingStatus.ONLINE);
 	}
 
 	@Override
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ipp.internal;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@link IppJobCounter} counts the total, waiting and done jobs of a
+ * printer with one {@link IppJobQuery} per refresh.
+ *
+ * In incremental mode only the first refresh fetches all jobs. Later
+ * refreshes ask for the jobs from the oldest job which was still waiting or
+ * the first new job on, and jobs which have been counted as done before are
+ * not counted again. The done and total counters then also contain jobs which
+ * the printer has purged from its history in the meantime.
+ *
+ * @author agent - Initial contribution
+ */
+public class IppJobCounter {
+
+	private final boolean incremental;
+
+	private int jobs;
+	private int waitingJobs;
+	private int doneJobs;
+
+	// the number of jobs in the last response
+	private int fetchedJobs;
+
+	// incremental mode: the waiting jobs and the highest job id of the last refresh
+	private boolean initialized;
+	private Set<Integer> waitingJobIds = new HashSet<Integer>();
+	private int maxJobId;
+
+	public IppJobCounter(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * Fetches the jobs and updates the counters.
+	 *
+	 * @throws IOException
+	 *             if the query failed, the counters are unchanged then
+	 */
+	public synchronized void refresh(IppJobQuery query) throws IOException {
+		if (!incremental || !initialized) {
+			count(query.getJobStates(0));
+			initialized = true;
+		} else {
+			countIncrementally(query);
+		}
+	}
+
+	private void count(Map<Integer, Integer> jobStates) {
+		int waiting = 0;
+		int done = 0;
+		Set<Integer> waitingIds = new HashSet<Integer>();
+		int max = 0;
+		for (Map.Entry<Integer, Integer> job : jobStates.entrySet()) {
+			if (IppJobQuery.isWaiting(job.getValue())) {
+				waiting++;
+				waitingIds.add(job.getKey());
+			} else if (IppJobQuery.isDone(job.getValue())) {
+				done++;
+			}
+			max = Math.max(max, job.getKey());
+		}
+		jobs = jobStates.size();
+		waitingJobs = waiting;
+		doneJobs = done;
+		fetchedJobs = jobStates.size();
+		waitingJobIds = waitingIds;
+		maxJobId = max;
+	}
+
+	private void countIncrementally(IppJobQuery query) throws IOException {
+		int firstJobId = maxJobId + 1;
+		for (int id : waitingJobIds) {
+			firstJobId = Math.min(firstJobId, id);
+		}
+		Map<Integer, Integer> jobStates = query.getJobStates(firstJobId);
+
+		int newJobs = 0;
+		int newDoneJobs = 0;
+		Set<Integer> waitingIds = new HashSet<Integer>();
+		int max = maxJobId;
+		for (Map.Entry<Integer, Integer> job : jobStates.entrySet()) {
+			int id = job.getKey();
+			if (id < firstJobId) {
+				// the printer does not support first-job-id
+				continue;
+			}
+			boolean isNew = id > maxJobId;
+			if (isNew) {
+				newJobs++;
+			}
+			if (IppJobQuery.isWaiting(job.getValue())) {
+				waitingIds.add(id);
+			} else if (IppJobQuery.isDone(job.getValue()) && (isNew || waitingJobIds.contains(id))) {
+				newDoneJobs++;
+			}
+			max = Math.max(max, id);
+		}
+		// waiting jobs which disappeared without being done are not counted
+		// as done, but they still count as jobs
+		jobs += newJobs;
+		waitingJobs = waitingIds.size();
+		doneJobs += newDoneJobs;
+		fetchedJobs = jobStates.size();
+		waitingJobIds = waitingIds;
+		maxJobId = max;
+	}
+
+	public synchronized int getJobs() {
+		return jobs;
+	}
+
+	public synchronized int getWaitingJobs() {
+		return waitingJobs;
+	}
+
+	public synchronized int getDoneJobs() {
+		return doneJobs;
+	}
+
+	/**
+	 * @return the number of jobs the printer returned in the last refresh
+	 */
+	public synchronized int getFetchedJobs() {
+		return fetchedJobs;
+	}
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ipp.internal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link IppJobQuery} sends a Get-Jobs request to a printer, which only
+ * asks for the id and the state of the jobs, and reads the response while it
+ * is received. All other attributes of the jobs are neither requested nor
+ * kept, so the query stays cheap on print servers which keep thousands of
+ * completed jobs.
+ *
+ * @author agent - Initial contribution
+ */
+public class IppJobQuery {
+
+	public static final int STATE_PENDING = 3;
+	public static final int STATE_PENDING_HELD = 4;
+	public static final int STATE_PROCESSING = 5;
+	public static final int STATE_PROCESSING_STOPPED = 6;
+	public static final int STATE_CANCELED = 7;
+	public static final int STATE_ABORTED = 8;
+	public static final int STATE_COMPLETED = 9;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int TIMEOUT = 10000;
+
+	private static final short OPERATION_GET_JOBS = 0x000a;
+
+	// delimiter tags
+	private static final int TAG_OPERATION_ATTRIBUTES = 0x01;
+	private static final int TAG_JOB_ATTRIBUTES = 0x02;
+	private static final int TAG_END_OF_ATTRIBUTES = 0x03;
+	// value tags
+	private static final int TAG_INTEGER = 0x21;
+	private static final int TAG_ENUM = 0x23;
+	private static final int TAG_URI = 0x45;
+	private static final int TAG_NAME_WITHOUT_LANGUAGE = 0x42;
+	private static final int TAG_KEYWORD = 0x44;
+	private static final int TAG_CHARSET = 0x47;
+	private static final int TAG_NATURAL_LANGUAGE = 0x48;
+
+	private static final AtomicInteger requestIds = new AtomicInteger();
+
+	private final URL url;
+
+	/**
+	 * @param url
+	 *            the URL of the printer
+	 */
+	public IppJobQuery(URL url) {
+		this.url = url;
+	}
+
+	/**
+	 * Fetches the id and the state of all jobs of the printer.
+	 *
+	 * @param firstJobId
+	 *            the lowest job id the printer should return, 0 for all jobs.
+	 *            Printers which do not support this return all jobs.
+	 * @return the state of each job by job id, in the order of the response
+	 * @throws IOException
+	 *             if the printer could not be reached or rejected the request
+	 */
+	public Map<Integer, Integer> getJobStates(int firstJobId) throws IOException {
+		byte[] request = createRequest(firstJobId);
+		HttpURLConnection connection = (HttpURLConnection) getHttpUrl().openConnection();
+		connection.setConnectTimeout(TIMEOUT);
+		connection.setReadTimeout(TIMEOUT);
+		connection.setDoOutput(true);
+		connection.setRequestMethod("POST");
+		connection.setRequestProperty("Content-Type", "application/ipp");
+		connection.setFixedLengthStreamingMode(request.length);
+		OutputStream out = connection.getOutputStream();
+		try {
+			out.write(request);
+		} finally {
+			out.close();
+		}
+		if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+			connection.disconnect();
+			throw new IOException("HTTP status " + connection.getResponseCode() + " from " + url);
+		}
+		InputStream in = connection.getInputStream();
+		try {
+			return parseResponse(new DataInputStream(new BufferedInputStream(in)));
+		} finally {
+			// closing the stream keeps the connection alive for the next query
+			in.close();
+		}
+	}
+
+	/**
+	 * The request is sent by http to the port of the URL, the printer-uri
+	 * attribute is the URL without the port.
+	 */
+	private URL getHttpUrl() throws IOException {
+		int port = url.getPort() == -1 ? 631 : url.getPort();
+		return new URL("http", url.getHost(), port, url.getFile());
+	}
+
+	private String getPrinterUri() {
+		String protocol = "ipp".equals(url.getProtocol()) ? "http" : url.getProtocol();
+		return protocol + "://" + url.getHost() + url.getPath();
+	}
+
+	byte[] createRequest(int firstJobId) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		// IPP version 1.1
+		out.writeByte(1);
+		out.writeByte(1);
+		out.writeShort(OPERATION_GET_JOBS);
+		out.writeInt(requestIds.incrementAndGet());
+		out.writeByte(TAG_OPERATION_ATTRIBUTES);
+		writeAttribute(out, TAG_CHARSET, "attributes-charset", "utf-8");
+		writeAttribute(out, TAG_NATURAL_LANGUAGE, "attributes-natural-language", "en");
+		writeAttribute(out, TAG_URI, "printer-uri", getPrinterUri());
+		writeAttribute(out, TAG_NAME_WITHOUT_LANGUAGE, "requesting-user-name", "anonymous");
+		writeAttribute(out, TAG_KEYWORD, "which-jobs", "all");
+		writeAttribute(out, TAG_KEYWORD, "requested-attributes", "job-id");
+		// additional value of the set
+		writeAttribute(out, TAG_KEYWORD, "", "job-state");
+		if (firstJobId > 0) {
+			out.writeByte(TAG_INTEGER);
+			writeString(out, "first-job-id");
+			out.writeShort(4);
+			out.writeInt(firstJobId);
+		}
+		out.writeByte(TAG_END_OF_ATTRIBUTES);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static void writeAttribute(DataOutputStream out, int tag, String name, String value)
+			throws IOException {
+		out.writeByte(tag);
+		writeString(out, name);
+		writeString(out, value);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(UTF8);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads the job-id and job-state attributes of the job groups, the values
+	 * of all other attributes are skipped.
+	 */
+	static Map<Integer, Integer> parseResponse(DataInputStream in) throws IOException {
+		in.readShort(); // version
+		int status = in.readUnsignedShort();
+		in.readInt(); // request id
+		// 0x0000-0x00ff are successful, the others are errors
+		if (status > 0x00ff) {
+			throw new IOException(String.format("IPP status 0x%04x", status));
+		}
+
+		Map<Integer, Integer> jobStates = new LinkedHashMap<Integer, Integer>();
+		boolean inJob = false;
+		int jobId = -1;
+		int jobState = -1;
+		String name = "";
+		while (true) {
+			int tag = in.read();
+			if (tag == -1) {
+				throw new EOFException("IPP response ends before end-of-attributes");
+			}
+			if (tag < 0x10) {
+				// a delimiter, the current group ends
+				if (inJob && jobId > 0) {
+					jobStates.put(jobId, jobState);
+				}
+				if (tag == TAG_END_OF_ATTRIBUTES) {
+					return jobStates;
+				}
+				inJob = tag == TAG_JOB_ATTRIBUTES;
+				jobId = -1;
+				jobState = -1;
+				continue;
+			}
+			int nameLength = in.readUnsignedShort();
+			if (nameLength > 0) {
+				byte[] nameBytes = new byte[nameLength];
+				in.readFully(nameBytes);
+				name = new String(nameBytes, UTF8);
+			}
+			int valueLength = in.readUnsignedShort();
+			if (inJob && nameLength > 0 && valueLength == 4 && (tag == TAG_INTEGER || tag == TAG_ENUM)) {
+				if ("job-id".equals(name)) {
+					jobId = in.readInt();
+					continue;
+				} else if ("job-state".equals(name)) {
+					jobState = in.readInt();
+					continue;
+				}
+			}
+			skip(in, valueLength);
+		}
+	}
+
+	private static void skip(DataInputStream in, int length) throws IOException {
+		while (length > 0) {
+			int skipped = in.skipBytes(length);
+			if (skipped <= 0) {
+				throw new EOFException("IPP response ends within an attribute");
+			}
+			length -= skipped;
+		}
+	}
+
+	public static boolean isWaiting(int jobState) {
+		return jobState >= STATE_PENDING && jobState <= STATE_PROCESSING_STOPPED;
+	}
+
+	public static boolean isDone(int jobState) {
+		return jobState >= STATE_CANCELED && jobState <= STATE_COMPLETED;
+	}
+
+	@Override
+	public String toString() {
+		return url.toString();
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2014 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.keba.internal;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A local UDP simulation of a KEBA KeContact wallbox. It answers the report
+ * commands like a P20 does and records all commands with the time they have
+ * been received.
+ *
+ * @author agent - Initial contribution
+ */
+public class KeContactSimulator {
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	private final String serial;
+	private final DatagramSocket socket;
+	private final Thread thread;
+
+	private final List<String> commands = new ArrayList<String>();
+	private final List<Long> commandTimes = new ArrayList<Long>();
+
+	/**
+	 * Starts the simulation on a free port of the given address. Wallboxes are
+	 * told apart by their address only, so each simulated wallbox needs an
+	 * address of its own, e.g. one of 127.0.0.0/8, which are all loopback
+	 * addresses on Linux.
+	 *
+	 * @param serial
+	 *            the serial number the wallbox reports
+	 * @param address
+	 *            the local address to receive the commands on
+	 */
+	public KeContactSimulator(String serial, InetAddress address)
+			throws SocketException {
+		this.serial = serial;
+		socket = new DatagramSocket(new InetSocketAddress(address, 0));
+		thread = new Thread("KEBA simulator " + serial) {
+			@Override
+			public void run() {
+				serve();
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * @return the address the wallbox sends its reports from
+	 */
+	public InetSocketAddress getAddress() {
+		return (InetSocketAddress) socket.getLocalSocketAddress();
+	}
+
+	/**
+	 * Sends a report without being asked, like a wallbox does when its state
+	 * changes.
+	 */
+	public void sendReport(String report, int port) throws IOException {
+		byte[] data = report.getBytes(ASCII);
+		socket.send(new DatagramPacket(data, data.length, InetAddress
+				.getLoopbackAddress(), port));
+	}
+
+	public synchronized List<String> getCommands() {
+		return new ArrayList<String>(commands);
+	}
+
+	/**
+	 * @return the times ({@link System#nanoTime()}) the commands have been
+	 *         received
+	 */
+	public synchronized List<Long> getCommandTimes() {
+		return new ArrayList<Long>(commandTimes);
+	}
+
+	/**
+	 * Waits until the given number of commands has been received.
+	 */
+	public synchronized boolean waitForCommands(int count, long timeout)
+			throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		while (commands.size() < count) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return false;
+			}
+			wait(remaining);
+		}
+		return true;
+	}
+
+	public void close() {
+		socket.close();
+	}
+
+	private void serve() {
+		byte[] buffer = new byte[512];
+		while (!socket.isClosed()) {
+			DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+			try {
+				socket.receive(packet);
+				String command = new String(packet.getData(), 0,
+						packet.getLength(), ASCII);
+				synchronized (this) {
+					commands.add(command);
+					commandTimes.add(System.nanoTime());
+					notifyAll();
+				}
+				String reply = reply(command);
+				if (reply != null) {
+					byte[] data = reply.getBytes(ASCII);
+					socket.send(new DatagramPacket(data, data.length, packet
+							.getSocketAddress()));
+				}
+			} catch (IOException e) {
+				// the socket has been closed
+			}
+		}
+	}
+
+	private String reply(String command) {
+		if (command.equals("report 1")) {
+			return "{\n\"ID\": \"1\",\n\"Product\": \"KC-P20-ES230030-000-DE\",\n\"Serial\": \""
+					+ serial
+					+ "\",\n\"Firmware\":\"P20 v 2.5 (130916-174900)\",\n\"COM-module\": 1,\n\"Sec\": 8374312\n}\n";
+		} else if (command.equals("report 2")) {
+			return "{\n\"ID\": \"2\",\n\"State\": 3,\n\"Error1\": 0,\n\"Error2\": 0,\n\"Plug\": 7,\n\"Enable sys\": 1,\n\"Enable user\": 1,\n\"Max curr\": 16000,\n\"Curr HW\": 32000,\n\"Curr user\": 16000,\n\"Curr FS\": 0,\n\"Tmo FS\": 0,\n\"Output\": 0,\n\"Input\": 0,\n\"Serial\": \""
+					+ serial + "\",\n\"Sec\": 8374313\n}\n";
+		} else if (command.equals("report 3")) {
+			return "{\n\"ID\": \"3\",\n\"U1\": 231,\n\"U2\": 230,\n\"U3\": 232,\n\"I1\": 15980,\n\"I2\": 15920,\n\"I3\": 15950,\n\"P\": 11022000,\n\"PF\": 998,\n\"E pres\": 43210,\n\"E total\": 17432100,\n\"Serial\": \""
+					+ serial + "\",\n\"Sec\": 8374314\n}\n";
+		} else {
+			return "TCH-OK :done\n";
+		}
+	}
+}
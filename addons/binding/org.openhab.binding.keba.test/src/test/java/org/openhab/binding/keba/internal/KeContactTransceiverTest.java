@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2014 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.keba.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link KeContactTransceiver} with simulated wallboxes.
+ *
+ * @author agent - Initial contribution
+ */
+public class KeContactTransceiverTest {
+
+	private static final int COMMAND_INTERVAL = 50;
+
+	private KeContactTransceiver transceiver;
+	private List<KeContactSimulator> wallboxes = new ArrayList<KeContactSimulator>();
+
+	private static class RecordingListener implements
+			KeContactTransceiver.ReportListener {
+		final List<String> reports = new ArrayList<String>();
+
+		@Override
+		public synchronized void onReport(String report) {
+			reports.add(report);
+			notifyAll();
+		}
+
+		synchronized boolean waitForReports(int count)
+				throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (reports.size() < count
+					&& System.currentTimeMillis() < deadline) {
+				wait(100);
+			}
+			return reports.size() >= count;
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		transceiver = new KeContactTransceiver(0, COMMAND_INTERVAL);
+		for (int i = 0; i < 6; i++) {
+			wallboxes.add(new KeContactSimulator("1501830" + i, InetAddress
+					.getByName("127.0.0." + (i + 1))));
+		}
+	}
+
+	@After
+	public void tearDown() {
+		for (KeContactSimulator wallbox : wallboxes) {
+			wallbox.close();
+		}
+	}
+
+	@Test
+	public void testReportsAreDispatchedBySource() throws Exception {
+		List<RecordingListener> listeners = new ArrayList<RecordingListener>();
+		for (KeContactSimulator wallbox : wallboxes) {
+			RecordingListener listener = new RecordingListener();
+			transceiver.register(wallbox.getAddress(), listener);
+			listeners.add(listener);
+		}
+
+		for (KeContactSimulator wallbox : wallboxes) {
+			assertThat(transceiver.send(wallbox.getAddress(), "report 1"),
+					is(true));
+			assertThat(transceiver.send(wallbox.getAddress(), "report 2"),
+					is(true));
+		}
+
+		for (int i = 0; i < wallboxes.size(); i++) {
+			RecordingListener listener = listeners.get(i);
+			assertThat(listener.waitForReports(2), is(true));
+			for (String report : listener.reports) {
+				assertThat(report.contains("\"Serial\": \"1501830" + i + "\""),
+						is(true));
+			}
+		}
+
+		for (int i = 0; i < wallboxes.size(); i++) {
+			transceiver.unregister(wallboxes.get(i).getAddress(),
+					listeners.get(i));
+		}
+		assertThat(transceiver.getLocalPort(), is(-1));
+	}
+
+	@Test
+	public void testUnknownSourceIsIgnored() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		transceiver.register(wallboxes.get(0).getAddress(), listener);
+
+		wallboxes.get(1).sendReport("{\"ID\": \"2\"}",
+				transceiver.getLocalPort());
+		wallboxes.get(0).sendReport("{\"ID\": \"3\"}",
+				transceiver.getLocalPort());
+
+		assertThat(listener.waitForReports(1), is(true));
+		assertThat(listener.reports, is(Arrays.asList("{\"ID\": \"3\"}")));
+		transceiver.unregister(wallboxes.get(0).getAddress(), listener);
+	}
+
+	@Test
+	public void testReportFromOtherPortIsDispatched() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		KeContactSimulator wallbox = wallboxes.get(0);
+		transceiver.register(wallbox.getAddress(), listener);
+
+		KeContactSimulator otherPort = new KeContactSimulator("15018300",
+				wallbox.getAddress().getAddress());
+		wallboxes.add(otherPort);
+		assertTrue(otherPort.getAddress().getPort() != wallbox.getAddress()
+				.getPort());
+		otherPort.sendReport("{\"ID\": \"3\"}", transceiver.getLocalPort());
+
+		assertThat(listener.waitForReports(1), is(true));
+		assertThat(listener.reports, is(Arrays.asList("{\"ID\": \"3\"}")));
+		transceiver.unregister(wallbox.getAddress(), listener);
+	}
+
+	@Test
+	public void testCommandInterval() throws Exception {
+		KeContactSimulator wallbox = wallboxes.get(0);
+		KeContactSimulator other = wallboxes.get(1);
+		RecordingListener listener = new RecordingListener();
+		RecordingListener otherListener = new RecordingListener();
+		transceiver.register(wallbox.getAddress(), listener);
+		transceiver.register(other.getAddress(), otherListener);
+
+		long start = System.nanoTime();
+		transceiver.send(wallbox.getAddress(), "report 1");
+		transceiver.send(wallbox.getAddress(), "report 2");
+		transceiver.send(wallbox.getAddress(), "report 3");
+		transceiver.send(wallbox.getAddress(), "curr 10000");
+		transceiver.send(other.getAddress(), "report 1");
+
+		assertThat(wallbox.waitForCommands(4, 5000), is(true));
+		assertThat(other.waitForCommands(1, 5000), is(true));
+		assertThat(wallbox.getCommands(), is(Arrays.asList("report 1",
+				"report 2", "report 3", "curr 10000")));
+		// a command is not sent before the interval after the previous one has
+		// passed, so the n-th command cannot arrive earlier than n intervals
+		// after the first one has been queued
+		List<Long> times = wallbox.getCommandTimes();
+		for (int i = 1; i < times.size(); i++) {
+			long delay = times.get(i) - start;
+			assertTrue("delay " + delay, delay >= TimeUnit.MILLISECONDS
+					.toNanos(i * COMMAND_INTERVAL));
+		}
+		// the other wallbox does not wait for the first one
+		assertTrue(other.getCommandTimes().get(0) < times.get(1));
+		// the confirmation of the curr command is dispatched as well
+		assertThat(listener.waitForReports(4), is(true));
+
+		transceiver.unregister(wallbox.getAddress(), listener);
+		transceiver.unregister(other.getAddress(), otherListener);
+	}
+
+	@Test
+	public void testSendWithoutListener() {
+		assertThat(transceiver.send(wallboxes.get(0).getAddress(), "report 1"),
+				is(false));
+	}
+}
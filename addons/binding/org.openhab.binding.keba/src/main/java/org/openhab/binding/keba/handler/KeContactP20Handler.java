@@ -10,27 +10,15 @@ package org.openhab.binding.keba.handler;
 import static org.openhab.binding.keba.KebaBindingConstants.*;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.PortUnreachableException;
-import java.nio.ByteBuffer;
-import java.nio.channels.ClosedChannelException;
-import java.nio.channels.DatagramChannel;
-import java.nio.channels.NotYetConnectedException;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.Map.Entry;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.smarthome.core.library.types.DateTimeType;
@@ -45,6 +33,7 @@ import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.State;
+import org.openhab.binding.keba.internal.KeContactTransceiver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,75 +46,76 @@ import com.google.gson.JsonParser;
  * The {@link KeContactP20Handler} is responsible for handling commands, which
  * are sent to one of the channels.
  * 
+ * The UDP communication with the charging station is done by a
+ * {@link KeContactTransceiver}, which is shared by all charging stations.
+ * 
  * @author Karel Goderis - Initial contribution
  */
-public class KeContactP20Handler extends BaseThingHandler {
+public class KeContactP20Handler extends BaseThingHandler implements
+		KeContactTransceiver.ReportListener {
 
 	public static final String IP_ADDRESS = "ipAddress";
 	public static final String POLLING_REFRESH_INTERVAL = "refreshInterval";
 
-	public static final int CONNECTION_REFRESH_INTERVAL = 100;
-	public static final int REPORT_INTERVAL = 2000;
-	public static final int PING_TIME_OUT = 3000;
-	public static final int BUFFER_SIZE = 1024;
 	public static final int REMOTE_PORT_NUMBER = 7090;
 	public static final int LISTENER_PORT_NUMBER = 7090;
+	// the minimum time in milliseconds between two commands to a wallbox
+	public static final int COMMAND_INTERVAL = 100;
+	// the number of missed polling cycles after which the wallbox is offline
+	public static final int MISSED_REPORTS_LIMIT = 3;
 
 	private Logger logger = LoggerFactory.getLogger(KeContactP20Handler.class);
 
-	private Selector selector;
-	private DatagramChannel datagramChannel = null;
-	protected SelectionKey datagramChannelKey = null;
-	protected DatagramChannel listenerChannel = null;
-	protected SelectionKey listenerKey = null;
-	private final Lock lock = new ReentrantLock();
+	private final KeContactTransceiver transceiver;
+	private InetSocketAddress wallboxAddress;
 	protected JsonParser parser = new JsonParser();
 
-	private ScheduledFuture<?> listeningJob;
 	private ScheduledFuture<?> pollingJob;
+	private int refreshInterval;
+	private volatile long lastReportTime;
 
 	private int maxPresetCurrent = 0;
 	private int maxSystemCurrent = 63000;
 
-	public KeContactP20Handler(Thing thing) {
+	public KeContactP20Handler(Thing thing, KeContactTransceiver transceiver) {
 		super(thing);
+		this.transceiver = transceiver;
 	}
 
 	@Override
 	public void initialize() {
 		logger.debug("Initializing KEBA KeContact P20 handler.");
 
-		try {
-			selector = Selector.open();
-		} catch (IOException e) {
-			logger.error(
-					"An exception occurred while registering the selector: '{}'",
-					e.getMessage());
-		}
-
-		configureListener(LISTENER_PORT_NUMBER);
-		
 		if (getConfig().get(IP_ADDRESS) != null && !getConfig().get(IP_ADDRESS).equals("")) {
 
-			establishConnection();
+			wallboxAddress = new InetSocketAddress(
+					(String) getConfig().get(IP_ADDRESS), REMOTE_PORT_NUMBER);
+			if (wallboxAddress.isUnresolved()) {
+				updateStatus(ThingStatus.OFFLINE,
+						ThingStatusDetail.CONFIGURATION_ERROR,
+						"The IP address can not be resolved");
+				return;
+			}
 
-			if (listeningJob == null || listeningJob.isCancelled()) {
-				try {
-					listeningJob = scheduler.scheduleWithFixedDelay(
-							listeningRunnable, 0, CONNECTION_REFRESH_INTERVAL,
-							TimeUnit.MILLISECONDS);
-				} catch (Exception e) {
-					updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.NONE,
-							"An exception occurred while scheduling the connection job");
-				}
+			try {
+				transceiver.register(wallboxAddress, this);
+			} catch (IOException e) {
+				logger.error(
+						"An exception occurred while creating the Listener Channel on port number {} ({})",
+						LISTENER_PORT_NUMBER, e.getMessage());
+				updateStatus(ThingStatus.OFFLINE,
+						ThingStatusDetail.COMMUNICATION_ERROR,
+						"The listener port can not be opened");
+				return;
 			}
+
+			lastReportTime = System.currentTimeMillis();
+			refreshInterval = ((BigDecimal) getConfig().get(
+					POLLING_REFRESH_INTERVAL)).intValue();
 			if (pollingJob == null || pollingJob.isCancelled()) {
 				try {
 					pollingJob = scheduler.scheduleWithFixedDelay(
-							pollingRunnable,
-							0,
-							((BigDecimal) getConfig().get(
-									POLLING_REFRESH_INTERVAL)).intValue(),
+							pollingRunnable, 0, refreshInterval,
 							TimeUnit.SECONDS);
 				} catch (Exception e) {
 					updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.NONE,
@@ -143,446 +133,40 @@ public class KeContactP20Handler extends BaseThingHandler {
 	@Override
 	public void dispose() {
 
-		try {
-			selector.close();
-		} catch (IOException e) {
-			logger.error(
-					"An exception occurred while closing the selector: '{}'",
-					e.getMessage());
-		}
-
-		try {
-			datagramChannel.close();
-		} catch (IOException e) {
-			logger.warn(
-					"An exception occurred while closing the channel '{}': {}",
-					datagramChannel, e.getMessage());
-		}
-
-		try {
-			listenerChannel.close();
-		} catch (IOException e) {
-			logger.error(
-					"An exception occurred while closing the listener channel on port number {} ({})",
-					LISTENER_PORT_NUMBER, e.getMessage());
-		}
-
-		if (listeningJob != null && !listeningJob.isCancelled()) {
-			listeningJob.cancel(true);
-			listeningJob = null;
-		}
-
 		if (pollingJob != null && !pollingJob.isCancelled()) {
 			pollingJob.cancel(true);
 			pollingJob = null;
 		}
 
-		logger.debug("Handler disposed.");
-	}
-
-	protected void configureListener(int listenerPort) {
-
-		// open the listener port
-		try {
-			listenerChannel = DatagramChannel.open();
-			listenerChannel.socket().bind(new InetSocketAddress(listenerPort));
-			listenerChannel.configureBlocking(false);
-
-			logger.info("Listening for incoming data on {}",
-					listenerChannel.getLocalAddress());
-
-			synchronized (selector) {
-				selector.wakeup();
-				try {
-					listenerKey = listenerChannel.register(selector,
-							listenerChannel.validOps());
-
-				} catch (ClosedChannelException e1) {
-					logger.error(
-							"An exception occurred while registering a selector: {}",
-							e1.getMessage());
-				}
-			}
-		} catch (Exception e2) {
-			logger.error(
-					"An exception occurred while creating the Listener Channel on port number {} ({})",
-					listenerPort, e2.getMessage());
-		}
-	}
-
-	protected ByteBuffer onReadable(DatagramChannel theChannel, int bufferSize,
-			InetAddress permittedClientAddress) {
-		lock.lock();
-		try {
-
-			SelectionKey theSelectionKey = theChannel.keyFor(selector);
-
-			if (theSelectionKey != null) {
-
-				synchronized (selector) {
-					try {
-						selector.selectNow();
-					} catch (IOException e) {
-						logger.error(
-								"An exception occurred while selecting: {}",
-								e.getMessage());
-					}
-				}
-
-				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
-				while (it.hasNext()) {
-					SelectionKey selKey = (SelectionKey) it.next();
-					it.remove();
-					if (selKey.isValid() && selKey.isReadable()
-							&& selKey == theSelectionKey) {
-
-						ByteBuffer readBuffer = ByteBuffer.allocate(bufferSize);
-						int numberBytesRead = 0;
-						boolean error = false;
-
-						if (selKey == listenerKey) {
-							try {
-								InetSocketAddress clientAddress = (InetSocketAddress) theChannel
-										.receive(readBuffer);
-								if (clientAddress.getAddress().equals(
-										permittedClientAddress)) {
-									logger.debug(
-											"Received {} on the listener port from {}",
-											new String(readBuffer.array()),
-											clientAddress);
-									numberBytesRead = readBuffer.position();
-								} else {
-									logger.warn(
-											"Received data from '{}' which is not the permitted remote address '{}'",
-											clientAddress,
-											permittedClientAddress);
-									return null;
-								}
-							} catch (Exception e) {
-								logger.error(
-										"An exception occurred while receiving data on the listener port: '{}'",
-										e.getMessage());
-								error = true;
-							}
-
-						} else {
-
-							try {
-								numberBytesRead = theChannel.read(readBuffer);
-							} catch (NotYetConnectedException e) {
-								updateStatus(ThingStatus.OFFLINE,
-										ThingStatusDetail.COMMUNICATION_ERROR,
-										"The remote host is not yet connected");
-								error = true;
-							} catch (PortUnreachableException e) {
-								updateStatus(ThingStatus.OFFLINE,
-										ThingStatusDetail.CONFIGURATION_ERROR,
-										"The remote host is probably not a KEBA EV Charging station");
-								error = true;
-							} catch (IOException e) {
-								updateStatus(ThingStatus.OFFLINE,
-										ThingStatusDetail.COMMUNICATION_ERROR,
-										"An IO exception occurred");
-								error = true;
-							}
-						}
-
-						if (numberBytesRead == -1) {
-							error = true;
-						}
-
-						if (error) {
-							logger.debug(
-									"Disconnecting '{}' because of a socket error",
-									getThing().getUID().toString());
-							try {
-								theChannel.close();
-							} catch (IOException e) {
-								logger.error(
-										"An exception occurred while closing the channel '{}': {}",
-										datagramChannel, e.getMessage());
-							}
-
-							onConnectionLost();
-
-						} else {
-							readBuffer.flip();
-							return readBuffer;
-						}
-					}
-				}
-			}
-
-			return null;
-		} finally {
-			lock.unlock();
-		}
-	}
-
-	protected void onWritable(ByteBuffer buffer, DatagramChannel theChannel) {
-		lock.lock();
-		try {
-
-			SelectionKey theSelectionKey = theChannel.keyFor(selector);
-
-			if (theSelectionKey != null) {
-
-				synchronized (selector) {
-					try {
-						selector.selectNow();
-					} catch (IOException e) {
-						logger.error(
-								"An exception occurred while selecting: {}",
-								e.getMessage());
-					}
-				}
-
-				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
-				while (it.hasNext()) {
-					SelectionKey selKey = (SelectionKey) it.next();
-					it.remove();
-					if (selKey.isValid() && selKey.isWritable()
-							&& selKey == theSelectionKey) {
-
-						boolean error = false;
-						buffer.rewind();
-
-						try {
-							logger.debug(
-									"Sending '{}' on the channel '{}'->'{}'",
-									new Object[] { new String(buffer.array()),
-											theChannel.getLocalAddress(),
-											theChannel.getRemoteAddress() });
-							theChannel.write(buffer);
-						} catch (NotYetConnectedException e) {
-							updateStatus(ThingStatus.OFFLINE,
-									ThingStatusDetail.COMMUNICATION_ERROR,
-									"The remote host is not yet connected");
-							error = true;
-						} catch (ClosedChannelException e) {
-							updateStatus(ThingStatus.OFFLINE,
-									ThingStatusDetail.COMMUNICATION_ERROR,
-									"The connection to the remote host is closed");
-							error = true;
-						} catch (IOException e) {
-							updateStatus(ThingStatus.OFFLINE,
-									ThingStatusDetail.COMMUNICATION_ERROR,
-									"An IO exception occurred");
-							error = true;
-						}
-
-						if (error) {
-							logger.debug(
-									"Disconnecting '{}' because of a socket error",
-									getThing().getUID().toString());
-							try {
-								theChannel.close();
-							} catch (IOException e) {
-								logger.warn(
-										"An exception occurred while closing the channel '{}': {}",
-										datagramChannel, e.getMessage());
-							}
-
-							onConnectionLost();
-
-						}
-					}
-				}
-			}
-		} finally {
-			lock.unlock();
+		if (wallboxAddress != null) {
+			transceiver.unregister(wallboxAddress, this);
+			wallboxAddress = null;
 		}
-	}
-
-	public void onConnectionLost() {
-		establishConnection();
-	}
-
-	public void onConnectionResumed() {
-		updateStatus(ThingStatus.ONLINE);
-	}
-
-	private void establishConnection() {
-		lock.lock();
-		try {
-			if (getThing().getStatusInfo().getStatusDetail() != ThingStatusDetail.CONFIGURATION_ERROR
-					&& getConfig().get(IP_ADDRESS) != null && !getConfig().get(IP_ADDRESS).equals("")) {
-
-				try {
-					datagramChannel = DatagramChannel.open();
-				} catch (Exception e2) {
-					updateStatus(ThingStatus.OFFLINE,
-							ThingStatusDetail.COMMUNICATION_ERROR,
-							"An exception occurred while opening a datagram channel");
-				}
-
-				try {
-					datagramChannel.configureBlocking(false);
-				} catch (IOException e2) {
-					updateStatus(ThingStatus.OFFLINE,
-							ThingStatusDetail.COMMUNICATION_ERROR,
-							"An exception occurred while configuring a datagram channel");
-				}
-
-				synchronized (selector) {
-					selector.wakeup();
-					int interestSet = SelectionKey.OP_READ
-							| SelectionKey.OP_WRITE;
-					try {
-						datagramChannelKey = datagramChannel.register(selector,
-								interestSet);
-					} catch (ClosedChannelException e1) {
-						updateStatus(ThingStatus.OFFLINE,
-								ThingStatusDetail.COMMUNICATION_ERROR,
-								"An exception occurred while registering a selector");
-					}
 
-					InetSocketAddress remoteAddress = new InetSocketAddress(
-							(String) getConfig().get(IP_ADDRESS),
-							REMOTE_PORT_NUMBER);
-
-					try {
-						logger.trace("Connecting the channel for {} ",
-								remoteAddress);
-						datagramChannel.connect(remoteAddress);
-
-						onConnectionResumed();
-
-					} catch (Exception e) {
-						logger.error(
-								"An exception occurred while connecting connecting to '{}:{}' : {}",
-								new Object[] {
-										(String) getConfig().get(IP_ADDRESS),
-										REMOTE_PORT_NUMBER, e.getMessage() });
-						updateStatus(ThingStatus.OFFLINE,
-								ThingStatusDetail.COMMUNICATION_ERROR,
-								"An exception occurred while connecting");
-					}
-				}
-			} else {
-				updateStatus(ThingStatus.OFFLINE,
-						ThingStatusDetail.CONFIGURATION_ERROR, getThing()
-								.getStatusInfo().getDescription());
-			}
-		} finally {
-			lock.unlock();
-		}
+		logger.debug("Handler disposed.");
 	}
 
-	private Runnable listeningRunnable = new Runnable() {
-
-		@Override
-		public void run() {
-			lock.lock();
-			try {
-				if (getThing().getStatusInfo().getStatusDetail() != ThingStatusDetail.CONFIGURATION_ERROR) {
-					if (datagramChannel == null
-							|| !datagramChannel.isConnected()) {
-						updateStatus(ThingStatus.OFFLINE,
-								ThingStatusDetail.COMMUNICATION_ERROR,
-								"The connection is not yet initialized");
-						onConnectionLost();
-					}
-
-					if (datagramChannel.isConnected()) {
-
-						long stamp = System.currentTimeMillis();
-						if (!InetAddress.getByName(
-								((String) getConfig().get(IP_ADDRESS)))
-								.isReachable(PING_TIME_OUT)) {
-							logger.debug(
-									"Ping timed out after '{}' milliseconds",
-									System.currentTimeMillis() - stamp);
-							logger.trace(
-									"Disconnecting the datagram channel '{}'",
-									datagramChannel);
-							try {
-								datagramChannel.close();
-							} catch (IOException e) {
-								updateStatus(ThingStatus.OFFLINE,
-										ThingStatusDetail.COMMUNICATION_ERROR,
-										"An exception occurred while closing the channel");
-							}
-
-							updateStatus(ThingStatus.OFFLINE,
-									ThingStatusDetail.COMMUNICATION_ERROR,
-									"A ping timeout occurred");
-							onConnectionLost();
-						} else {
-							ByteBuffer buffer = onReadable(datagramChannel,
-									BUFFER_SIZE, null);
-							if (buffer != null && buffer.remaining() > 0) {
-								onRead(buffer, datagramChannel);
-							}
-						}
-					}
-
-					ByteBuffer buffer = onReadable(
-							listenerChannel,
-							BUFFER_SIZE,
-							InetAddress.getByName((String) getConfig().get(
-									IP_ADDRESS)));
-					if (buffer != null && buffer.remaining() > 0) {
-						onRead(buffer, listenerChannel);
-					}
-				}
-			} catch (Exception e) {
-				updateStatus(ThingStatus.OFFLINE,
-						ThingStatusDetail.COMMUNICATION_ERROR,
-						"An exception occurred while receiving event data from the charging station");
-			} finally {
-				lock.unlock();
-			}
-		}
-	};
-
 	private Runnable pollingRunnable = new Runnable() {
 
 		@Override
 		public void run() {
 			try {
-
-				String command = "report 1";
-
-				ByteBuffer byteBuffer = ByteBuffer
-						.allocate(command.getBytes().length);
-				try {
-					byteBuffer.put(command.getBytes("ASCII"));
-					onWritable(byteBuffer, datagramChannel);
-				} catch (UnsupportedEncodingException | NumberFormatException e) {
-					logger.error(
-							"An exception occurred while polling the KEBA KeContact P20 for '{}': {}",
-							getThing().getUID(), e.getMessage());
-				}
-
-				Thread.sleep(REPORT_INTERVAL);
-
-				command = "report 2";
-
-				byteBuffer = ByteBuffer.allocate(command.getBytes().length);
-				try {
-					byteBuffer.put(command.getBytes("ASCII"));
-					onWritable(byteBuffer, datagramChannel);
-				} catch (UnsupportedEncodingException | NumberFormatException e) {
-					logger.error(
-							"An exception occurred while polling the KEBA KeContact P20 for '{}': {}",
-							getThing().getUID(), e.getMessage());
-				}
-
-				Thread.sleep(REPORT_INTERVAL);
-
-				command = "report 3";
-
-				byteBuffer = ByteBuffer.allocate(command.getBytes().length);
-				try {
-					byteBuffer.put(command.getBytes("ASCII"));
-					onWritable(byteBuffer, datagramChannel);
-				} catch (UnsupportedEncodingException | NumberFormatException e) {
-					logger.error(
-							"An exception occurred while polling the KEBA KeContact P20 for '{}': {}",
-							getThing().getUID(), e.getMessage());
+				long silence = System.currentTimeMillis() - lastReportTime;
+				if (silence > TimeUnit.SECONDS.toMillis(refreshInterval
+						* MISSED_REPORTS_LIMIT)
+						&& getThing().getStatus() != ThingStatus.OFFLINE) {
+					logger.debug(
+							"No report received from '{}' for {} milliseconds",
+							wallboxAddress, silence);
+					updateStatus(ThingStatus.OFFLINE,
+							ThingStatusDetail.COMMUNICATION_ERROR,
+							"The charging station does not respond");
 				}
 
+				// the transceiver keeps the required delay between the reports
+				sendCommand("report 1");
+				sendCommand("report 2");
+				sendCommand("report 3");
 			} catch (Exception e) {
 				updateStatus(ThingStatus.OFFLINE,
 						ThingStatusDetail.COMMUNICATION_ERROR, e.getMessage());
@@ -590,10 +174,15 @@ public class KeContactP20Handler extends BaseThingHandler {
 		}
 	};
 
-	protected void onRead(ByteBuffer byteBuffer, DatagramChannel datagramChannel) {
+	@Override
+	public void onReport(String report) {
 
-		String response = new String(byteBuffer.array(), 0, byteBuffer.limit());
-		response = StringUtils.chomp(response);
+		lastReportTime = System.currentTimeMillis();
+		if (getThing().getStatus() != ThingStatus.ONLINE) {
+			updateStatus(ThingStatus.ONLINE);
+		}
+
+		String response = StringUtils.chomp(report);
 
 		if (response.contains("TCH-OK")) {
 			// ignore confirmation messages which are not JSON
@@ -943,16 +532,12 @@ public class KeContactP20Handler extends BaseThingHandler {
 
 	private void sendCommand(String command) {
 
-		if (command != null) {
-			ByteBuffer byteBuffer = ByteBuffer
-					.allocate(command.getBytes().length);
-			try {
-				byteBuffer.put(command.getBytes("ASCII"));
-				onWritable(byteBuffer, datagramChannel);
-			} catch (UnsupportedEncodingException | NumberFormatException e) {
-				logger.error(
-						"An exception occurred while sending a command to the KeContact wallbox for '{}': {}",
-						getThing().getUID(), e.getMessage());
+		InetSocketAddress address = wallboxAddress;
+		if (command != null && address != null) {
+			if (!transceiver.send(address, command)) {
+				logger.debug(
+						"The command '{}' for '{}' has not been queued",
+						command, getThing().getUID());
 			}
 		}
 
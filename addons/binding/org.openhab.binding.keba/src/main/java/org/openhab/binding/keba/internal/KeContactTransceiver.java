@@ -0,0 +1,368 @@
+/**
+ * Copyright (c) 2014 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.keba.internal;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link KeContactTransceiver} shares one UDP port between all KEBA
+ * KeContact wallboxes. The wallboxes send their reports to a fixed port (7090)
+ * of the host, so only one datagram channel can be bound to it. Incoming
+ * reports are dispatched to the listener that has been registered for the
+ * address they come from.
+ *
+ * Commands are queued per wallbox and sent by the transceiver thread, which
+ * keeps the minimum interval between two commands to the same wallbox. The
+ * caller never waits for it. The channel is opened when the first listener
+ * registers and closed when the last one is unregistered.
+ *
+ * @author agent - Initial contribution
+ */
+public class KeContactTransceiver {
+
+	/**
+	 * Receives the reports of a wallbox
+	 */
+	public interface ReportListener {
+
+		/**
+		 * Called by the transceiver thread for each datagram received from
+		 * the wallbox
+		 *
+		 * @param report
+		 *            the content of the datagram
+		 */
+		void onReport(String report);
+	}
+
+	public static final int BUFFER_SIZE = 1024;
+	public static final int MAX_QUEUED_COMMANDS = 32;
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	private Logger logger = LoggerFactory.getLogger(KeContactTransceiver.class);
+
+	private final int localPort;
+	private final long commandInterval;
+
+	// keyed by the address only, as a wallbox may not send its reports from the port it receives on
+	private final Map<InetAddress, ReportListener> listeners = new ConcurrentHashMap<InetAddress, ReportListener>();
+	// guarded by sendQueues
+	private final Map<SocketAddress, SendQueue> sendQueues = new HashMap<SocketAddress, SendQueue>();
+
+	// buffers are only used by the transceiver thread
+	private final ByteBuffer receiveBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final ByteBuffer sendBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	private volatile Selector selector;
+	private DatagramChannel channel;
+	private Thread thread;
+	private volatile boolean running;
+
+	private final AtomicLong receivedCount = new AtomicLong();
+	private final AtomicLong unknownCount = new AtomicLong();
+	private final AtomicLong sentCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/**
+	 * The commands waiting to be sent to one wallbox
+	 */
+	private static class SendQueue {
+		final ArrayDeque<byte[]> commands = new ArrayDeque<byte[]>();
+		long nextSendTime;
+	}
+
+	/**
+	 * @param localPort
+	 *            the port to receive the reports on, 0 for any free port
+	 * @param commandInterval
+	 *            the minimum time in milliseconds between two commands to
+	 *            the same wallbox
+	 */
+	public KeContactTransceiver(int localPort, long commandInterval) {
+		this.localPort = localPort;
+		this.commandInterval = TimeUnit.MILLISECONDS.toNanos(commandInterval);
+	}
+
+	/**
+	 * Registers the listener for the reports of a wallbox and opens the
+	 * channel, if necessary.
+	 *
+	 * @param wallbox
+	 *            the address and port of the wallbox, its reports are
+	 *            accepted from any port
+	 * @param listener
+	 *            the listener
+	 * @throws IOException
+	 *             if the channel could not be opened
+	 */
+	public synchronized void register(InetSocketAddress wallbox,
+			ReportListener listener) throws IOException {
+		ReportListener previous = listeners.get(wallbox.getAddress());
+		if (previous != null && previous != listener) {
+			logger.warn(
+					"Another handler is already registered for the wallbox at '{}'",
+					wallbox);
+		}
+		if (channel == null) {
+			open();
+		}
+		listeners.put(wallbox.getAddress(), listener);
+	}
+
+	/**
+	 * Removes the listener for a wallbox, pending commands to the wallbox are
+	 * discarded. The channel is closed, if this has been the last listener.
+	 */
+	public synchronized void unregister(InetSocketAddress wallbox,
+			ReportListener listener) {
+		if (listeners.get(wallbox.getAddress()) == listener) {
+			listeners.remove(wallbox.getAddress());
+			synchronized (sendQueues) {
+				sendQueues.remove(wallbox);
+			}
+		}
+		if (listeners.isEmpty() && channel != null) {
+			close();
+		}
+	}
+
+	/**
+	 * Queues a command for a wallbox.
+	 *
+	 * @param wallbox
+	 *            the address and port of the wallbox
+	 * @param command
+	 *            the command
+	 * @return false, if the command has been dropped because the transceiver
+	 *         is not running or too many commands are waiting for the wallbox
+	 */
+	public boolean send(InetSocketAddress wallbox, String command) {
+		if (!running) {
+			return false;
+		}
+		byte[] bytes = command.getBytes(ASCII);
+		if (bytes.length > BUFFER_SIZE) {
+			throw new IllegalArgumentException("command too long: " + command);
+		}
+		synchronized (sendQueues) {
+			SendQueue queue = sendQueues.get(wallbox);
+			if (queue == null) {
+				queue = new SendQueue();
+				sendQueues.put(wallbox, queue);
+			}
+			if (queue.commands.size() >= MAX_QUEUED_COMMANDS) {
+				droppedCount.incrementAndGet();
+				logger.warn(
+						"Too many commands are waiting for the wallbox at '{}', dropping '{}'",
+						wallbox, command);
+				return false;
+			}
+			queue.commands.add(bytes);
+		}
+		Selector currentSelector = selector;
+		if (currentSelector != null) {
+			currentSelector.wakeup();
+		}
+		return true;
+	}
+
+	/**
+	 * @return the local port of the channel, or -1 if it is not open
+	 */
+	public synchronized int getLocalPort() {
+		return channel != null ? channel.socket().getLocalPort() : -1;
+	}
+
+	private void open() throws IOException {
+		DatagramChannel newChannel = DatagramChannel.open();
+		try {
+			newChannel.socket().bind(new InetSocketAddress(localPort));
+			newChannel.configureBlocking(false);
+			selector = Selector.open();
+			newChannel.register(selector, SelectionKey.OP_READ);
+		} catch (IOException e) {
+			newChannel.close();
+			if (selector != null) {
+				selector.close();
+				selector = null;
+			}
+			throw e;
+		}
+		channel = newChannel;
+		logger.info("Listening for incoming data on {}",
+				channel.socket().getLocalSocketAddress());
+
+		running = true;
+		final Selector threadSelector = selector;
+		final DatagramChannel threadChannel = channel;
+		thread = new Thread("KEBA transceiver " + localPort) {
+			@Override
+			public void run() {
+				process(threadSelector, threadChannel);
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void close() {
+		running = false;
+		selector.wakeup();
+		if (thread != Thread.currentThread()) {
+			try {
+				thread.join(TimeUnit.SECONDS.toMillis(5));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		try {
+			selector.close();
+			channel.close();
+		} catch (IOException e) {
+			logger.warn(
+					"An exception occurred while closing the channel on port number {} ({})",
+					localPort, e.getMessage());
+		}
+		logger.debug("Closed the channel on port number {}: {}", localPort,
+				this);
+		synchronized (sendQueues) {
+			sendQueues.clear();
+		}
+		thread = null;
+		selector = null;
+		channel = null;
+	}
+
+	private void process(Selector selector, DatagramChannel channel) {
+		while (running) {
+			try {
+				long timeout = sendDueCommands(channel);
+				if (timeout > 0) {
+					selector.select(Math.max(1,
+							TimeUnit.NANOSECONDS.toMillis(timeout)));
+				} else {
+					selector.select();
+				}
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					if (key.isValid() && key.isReadable()) {
+						receive(channel);
+					}
+				}
+			} catch (IOException e) {
+				if (running) {
+					logger.error(
+							"An exception occurred while receiving or sending data on port number {}: {}",
+							localPort, e.getMessage());
+				}
+			} catch (RuntimeException e) {
+				logger.error("An exception occurred while dispatching a report",
+						e);
+			}
+		}
+	}
+
+	private void receive(DatagramChannel channel) throws IOException {
+		while (true) {
+			receiveBuffer.clear();
+			SocketAddress source = channel.receive(receiveBuffer);
+			if (source == null) {
+				return;
+			}
+			receiveBuffer.flip();
+			ReportListener listener = listeners
+					.get(((InetSocketAddress) source).getAddress());
+			if (listener != null) {
+				receivedCount.incrementAndGet();
+				String report = new String(receiveBuffer.array(), 0,
+						receiveBuffer.limit(), ASCII);
+				logger.debug("Received {} from {}", report, source);
+				listener.onReport(report);
+			} else {
+				unknownCount.incrementAndGet();
+				logger.debug(
+						"Received data from '{}' which is not a configured wallbox",
+						source);
+			}
+		}
+	}
+
+	/**
+	 * Sends one command to each wallbox whose command interval has passed.
+	 *
+	 * @return the time in nanoseconds until the next command is due, or 0 if
+	 *         no commands are waiting
+	 */
+	private long sendDueCommands(DatagramChannel channel) throws IOException {
+		long now = System.nanoTime();
+		long timeout = 0;
+		synchronized (sendQueues) {
+			for (Map.Entry<SocketAddress, SendQueue> entry : sendQueues
+					.entrySet()) {
+				SendQueue queue = entry.getValue();
+				if (queue.commands.isEmpty()) {
+					continue;
+				}
+				long wait = queue.nextSendTime - now;
+				if (wait <= 0) {
+					byte[] command = queue.commands.peek();
+					sendBuffer.clear();
+					sendBuffer.put(command);
+					sendBuffer.flip();
+					if (channel.send(sendBuffer, entry.getKey()) == 0) {
+						// no room in the socket buffer, try again soon
+						wait = TimeUnit.MILLISECONDS.toNanos(1);
+					} else {
+						queue.commands.poll();
+						sentCount.incrementAndGet();
+						logger.debug("Sent '{}' to '{}'", new String(command,
+								ASCII), entry.getKey());
+						queue.nextSendTime = now + commandInterval;
+						if (queue.commands.isEmpty()) {
+							continue;
+						}
+						wait = commandInterval;
+					}
+				}
+				if (timeout == 0 || wait < timeout) {
+					timeout = wait;
+				}
+			}
+		}
+		return timeout;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"received %d reports (%d from unknown addresses), sent %d commands (%d dropped)",
+				receivedCount.get(), unknownCount.get(), sentCount.get(),
+				droppedCount.get());
+	}
+}
@@ -27,6 +27,11 @@ public class KebaHandlerFactory extends BaseThingHandlerFactory {
 	private final static Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Collections
 			.singleton(THING_TYPE_KECONTACTP20);
 
+	// all wallboxes report to the same port, so they share the transceiver
+	private final KeContactTransceiver transceiver = new KeContactTransceiver(
+			KeContactP20Handler.LISTENER_PORT_NUMBER,
+			KeContactP20Handler.COMMAND_INTERVAL);
+
 	@Override
 	public boolean supportsThingType(ThingTypeUID thingTypeUID) {
 		return SUPPORTED_THING_TYPES_UIDS.contains(thingTypeUID);
@@ -38,7 +43,7 @@ public class KebaHandlerFactory extends BaseThingHandlerFactory {
 		ThingTypeUID thingTypeUID = thing.getThingTypeUID();
 
 		if (thingTypeUID.equals(THING_TYPE_KECONTACTP20)) {
-			return new KeContactP20Handler(thing);
+			return new KeContactP20Handler(thing, transceiver);
 		}
 
 		return null;
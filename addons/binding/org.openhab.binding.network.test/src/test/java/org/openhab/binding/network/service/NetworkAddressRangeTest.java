@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link NetworkAddressRange}.
+ *
+ * @author agent - Initial contribution
+ */
+public class NetworkAddressRangeTest {
+
+    private static List<String> addresses(NetworkAddressRange range) {
+        List<String> addresses = new ArrayList<String>();
+        for (InetAddress address : range) {
+            addresses.add(address.getHostAddress());
+        }
+        return addresses;
+    }
+
+    @Test
+    public void testNetworkAndBroadcastAreExcluded() {
+        NetworkAddressRange range = NetworkAddressRange.fromNetworks(Arrays.asList("192.168.1.5/29"));
+
+        assertThat(range.size(), is(6L));
+        assertThat(addresses(range), is(Arrays.asList("192.168.1.1", "192.168.1.2", "192.168.1.3", "192.168.1.4",
+                "192.168.1.5", "192.168.1.6")));
+    }
+
+    @Test
+    public void testOverlappingNetworksAreMerged() {
+        NetworkAddressRange range = NetworkAddressRange
+                .fromNetworks(Arrays.asList("10.0.0.130/30", "10.0.0.1/24", "10.0.1.1/30"));
+
+        List<String> addresses = addresses(range);
+        assertThat(range.size(), is(256L));
+        assertThat(addresses.size(), is(256));
+        assertThat(addresses.get(0), is("10.0.0.1"));
+        assertThat(addresses.get(253), is("10.0.0.254"));
+        assertThat(addresses.get(254), is("10.0.1.1"));
+        assertThat(addresses.get(255), is("10.0.1.2"));
+    }
+
+    @Test
+    public void testLargeNetworksAreLimited() {
+        NetworkAddressRange range = NetworkAddressRange.fromNetworks(Arrays.asList("10.20.30.40/8"));
+
+        assertThat(range.size(), is(65534L));
+        assertThat(range.iterator().next().getHostAddress(), is("10.20.0.1"));
+    }
+
+    @Test
+    public void testOtherNetworksAreIgnored() {
+        NetworkAddressRange range = NetworkAddressRange
+                .fromNetworks(Arrays.asList("fe80:0:0:0:0:0:0:1/64", "invalid", "172.16.0.1/32"));
+
+        assertThat(addresses(range), is(Arrays.asList("172.16.0.1")));
+    }
+}
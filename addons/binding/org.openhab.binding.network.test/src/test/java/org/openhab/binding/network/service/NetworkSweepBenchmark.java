@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scans the loopback network 127.0.0.0/20 once like the discovery did before,
+ * with a thread pool of ten threads per core which checks every address with a
+ * blocking {@link InetAddress#isReachable(int)}, the Java ping, and once with a
+ * {@link NetworkSweep}, and prints the duration of both. It is not run with
+ * the tests, run its main method to compare both.
+ *
+ * @author agent - Initial contribution
+ */
+public class NetworkSweepBenchmark {
+
+    private static final String NETWORK = "127.0.0.1/20";
+    private static final int TIMEOUT = 500;
+
+    public static void main(String[] args) throws Exception {
+        NetworkAddressRange range = NetworkAddressRange.fromNetworks(Arrays.asList(NETWORK));
+
+        long start = System.currentTimeMillis();
+        int found = runThreadPool(range);
+        System.out.printf("Thread pool: %d of %d addresses found in %d ms%n", found, range.size(),
+                System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
+        found = runSweep(range);
+        System.out.printf("Sweep:       %d of %d addresses found in %d ms%n", found, range.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    private static int runThreadPool(NetworkAddressRange range) throws InterruptedException {
+        final AtomicInteger found = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 10);
+        for (final InetAddress address : range) {
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (address.isReachable(TIMEOUT)) {
+                            found.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.HOURS);
+        return found.get();
+    }
+
+    private static int runSweep(NetworkAddressRange range) throws IOException {
+        final AtomicInteger found = new AtomicInteger();
+        new NetworkSweep(NetworkSweep.DEFAULT_PORTS, NetworkSweep.DEFAULT_MAX_CONNECTIONS, TIMEOUT).sweep(range,
+                new DiscoveryCallback() {
+                    @Override
+                    public void newDevice(String ip) {
+                        found.incrementAndGet();
+                    }
+
+                    @Override
+                    public void scanProgress(int percent) {
+                    }
+                });
+        return found.get();
+    }
+}
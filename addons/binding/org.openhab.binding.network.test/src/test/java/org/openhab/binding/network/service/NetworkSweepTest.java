@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link NetworkSweep}. The loopback network is used as test
+ * network, every address of 127.0.0.0/8 answers on Linux.
+ *
+ * @author agent - Initial contribution
+ */
+public class NetworkSweepTest {
+
+    private final List<String> devices = new ArrayList<String>();
+    private final List<Integer> progress = new ArrayList<Integer>();
+
+    private final DiscoveryCallback callback = new DiscoveryCallback() {
+        @Override
+        public void newDevice(String ip) {
+            devices.add(ip);
+        }
+
+        @Override
+        public void scanProgress(int percent) {
+            progress.add(percent);
+        }
+    };
+
+    private static List<String> addresses(NetworkAddressRange range) {
+        List<String> addresses = new ArrayList<String>();
+        for (InetAddress address : range) {
+            addresses.add(address.getHostAddress());
+        }
+        return addresses;
+    }
+
+    @Test
+    public void testOpenAndRefusedPortsAreFoundInOrder() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            NetworkAddressRange range = NetworkAddressRange.fromNetworks(Arrays.asList("127.0.0.1/26"));
+            // few connections, so the answers have to be waited for
+            new NetworkSweep(new int[] { serverSocket.getLocalPort(), 1 }, 4, 2000).sweep(range, callback);
+
+            assertThat(devices, is(addresses(range)));
+            assertThat(progress.get(progress.size() - 1), is(100));
+            for (int i = 1; i < progress.size(); i++) {
+                assertThat(progress.get(i) > progress.get(i - 1), is(true));
+            }
+        }
+    }
+
+    @Test
+    public void testSingleConnectionChecksEveryHost() throws IOException {
+        NetworkAddressRange range = NetworkAddressRange.fromNetworks(Arrays.asList("127.0.0.1/29"));
+        // a device has one open connection at a time, however many ports there are
+        new NetworkSweep(new int[] { 1, 2, 3 }, 1, 2000).sweep(range, callback);
+
+        assertThat(devices, is(addresses(range)));
+        assertThat(progress.get(progress.size() - 1), is(100));
+    }
+
+    @Test
+    public void testCancelledSweepStops() throws IOException {
+        final NetworkSweep sweep = new NetworkSweep(new int[] { 1 }, 1, 2000);
+        sweep.sweep(NetworkAddressRange.fromNetworks(Arrays.asList("127.0.0.1/24")), new DiscoveryCallback() {
+            @Override
+            public void newDevice(String ip) {
+                devices.add(ip);
+                if (devices.size() == 10) {
+                    sweep.cancel();
+                }
+            }
+
+            @Override
+            public void scanProgress(int percent) {
+            }
+        });
+
+        assertThat(devices.size(), is(10));
+    }
+}
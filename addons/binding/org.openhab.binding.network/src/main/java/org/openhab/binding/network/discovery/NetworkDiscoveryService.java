@@ -21,6 +21,7 @@ import org.eclipse.smarthome.config.discovery.AbstractDiscoveryService;
 import org.eclipse.smarthome.config.discovery.DiscoveryResult;
 import org.eclipse.smarthome.config.discovery.DiscoveryResultBuilder;
 import org.openhab.binding.network.service.NetworkService;
+import org.openhab.binding.network.service.NetworkSweep;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +34,11 @@ import org.slf4j.LoggerFactory;
 public class NetworkDiscoveryService extends AbstractDiscoveryService {
 	private final Logger logger = LoggerFactory.getLogger(NetworkDiscoveryService.class);
 
+	private int[] ports = NetworkSweep.DEFAULT_PORTS;
+	private int maxConnections = NetworkSweep.DEFAULT_MAX_CONNECTIONS;
+	private int timeout = NetworkSweep.DEFAULT_TIMEOUT;
+	private NetworkSweep networkSweep;
+
 	public NetworkDiscoveryService() {
 		super(SUPPORTED_THING_TYPES_UIDS, 900, false);
 	}
@@ -42,14 +48,71 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService {
 	}
 
 	@Override
-	protected void startScan() {
+	protected void activate(Map<String, Object> config) {
+		super.activate(config);
+		readConfiguration(config);
+	}
+
+	@Override
+	protected void modified(Map<String, Object> config) {
+		super.modified(config);
+		readConfiguration(config);
+	}
+
+	/**
+	 * Reads the ports to connect to, the maximum number of open connections
+	 * and the timeout of the discovery
+	 */
+	private void readConfiguration(Map<String, Object> config) {
+		if (config == null) {
+			return;
+		}
+		try {
+			if (config.get("ports") != null) {
+				String[] values = String.valueOf(config.get("ports")).split(",");
+				int[] newPorts = new int[values.length];
+				for (int i = 0; i < values.length; i++) {
+					newPorts[i] = Integer.parseInt(values[i].trim());
+				}
+				ports = newPorts;
+			}
+			if (config.get("maxConnections") != null) {
+				maxConnections = Integer.parseInt(String.valueOf(config.get("maxConnections")).trim());
+			}
+			if (config.get("timeout") != null) {
+				timeout = Integer.parseInt(String.valueOf(config.get("timeout")).trim());
+			}
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid discovery configuration: {}", e.getMessage());
+		}
+	}
+
+	@Override
+	protected synchronized void startScan() {
 		logger.debug("Starting Discovery");
-		NetworkService.discoverNetwork(new DiscoveryCallback() {
+		if (networkSweep != null) {
+			networkSweep.cancel();
+		}
+		networkSweep = NetworkService.discoverNetwork(new DiscoveryCallback() {
 			@Override
 			public void newDevice(String ip) {
 				submitDiscoveryResults(ip);
 			}
-		}, scheduler);
+
+			@Override
+			public void scanProgress(int percent) {
+				logger.debug("Discovery progress: {}%", percent);
+			}
+		}, scheduler, new NetworkSweep(ports, maxConnections, timeout));
+	}
+
+	@Override
+	protected synchronized void stopScan() {
+		if (networkSweep != null) {
+			networkSweep.cancel();
+			networkSweep = null;
+		}
+		super.stopScan();
 	}
 
 	/**
@@ -14,4 +14,11 @@ package org.openhab.binding.network.service;
  */
 public interface DiscoveryCallback {
 	public void newDevice(String ip);
+
+	/**
+	 * Reports how much of the network has been scanned
+	 *
+	 * @param percent The percentage of the addresses which have been checked
+	 */
+	public void scanProgress(int percent);
 }
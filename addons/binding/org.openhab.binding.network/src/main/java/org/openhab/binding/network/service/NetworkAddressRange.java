@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.service;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link NetworkAddressRange} holds the IPv4 addresses which can be assigned on a set of networks. The
+ * addresses are not collected, they are created while iterating, in ascending order and each address once,
+ * even if the networks overlap.
+ *
+ * @author agent - Initial contribution
+ */
+public class NetworkAddressRange implements Iterable<InetAddress> {
+
+    private static Logger logger = LoggerFactory.getLogger(NetworkAddressRange.class);
+
+    /**
+     * Larger networks are only scanned in the part of this size which contains the interface address
+     */
+    public static final int MIN_PREFIX_LENGTH = 16;
+
+    // the first and last address of each range, ascending and without overlaps
+    private final long[] starts;
+    private final long[] ends;
+    private final long size;
+
+    private NetworkAddressRange(long[] starts, long[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+        long size = 0;
+        for (int i = 0; i < starts.length; i++) {
+            size += ends[i] - starts[i] + 1;
+        }
+        this.size = size;
+    }
+
+    /**
+     * Creates the range of the given networks
+     *
+     * @param networks The networks in the format ip/prefix length, other than IPv4 networks are ignored
+     */
+    public static NetworkAddressRange fromNetworks(Iterable<String> networks) {
+        List<long[]> ranges = new ArrayList<long[]>();
+        for (String network : networks) {
+            long[] range = parseNetwork(network);
+            if (range != null) {
+                ranges.add(range);
+            }
+        }
+
+        Collections.sort(ranges, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] range1, long[] range2) {
+                return Long.compare(range1[0], range2[0]);
+            }
+        });
+
+        // merge overlapping ranges
+        long[] starts = new long[ranges.size()];
+        long[] ends = new long[ranges.size()];
+        int count = 0;
+        for (long[] range : ranges) {
+            if (count > 0 && range[0] <= ends[count - 1] + 1) {
+                ends[count - 1] = Math.max(ends[count - 1], range[1]);
+            } else {
+                starts[count] = range[0];
+                ends[count] = range[1];
+                count++;
+            }
+        }
+        long[] mergedStarts = new long[count];
+        long[] mergedEnds = new long[count];
+        System.arraycopy(starts, 0, mergedStarts, 0, count);
+        System.arraycopy(ends, 0, mergedEnds, 0, count);
+        return new NetworkAddressRange(mergedStarts, mergedEnds);
+    }
+
+    /**
+     * Returns the first and the last address which can be assigned on the network, or null if it is not an
+     * IPv4 network
+     */
+    private static long[] parseNetwork(String network) {
+        try {
+            int slash = network.indexOf('/');
+            InetAddress address = InetAddress.getByName(network.substring(0, slash));
+            if (!(address instanceof Inet4Address)) {
+                return null;
+            }
+            int prefixLength = Integer.parseInt(network.substring(slash + 1));
+            if (prefixLength < MIN_PREFIX_LENGTH) {
+                logger.debug("Network {} is too large, only scanning /{}", network, MIN_PREFIX_LENGTH);
+                prefixLength = MIN_PREFIX_LENGTH;
+            }
+            long ip = toLong(address);
+            long mask = (0xFFFFFFFFL << (32 - prefixLength)) & 0xFFFFFFFFL;
+            long first = ip & mask;
+            long last = first | (~mask & 0xFFFFFFFFL);
+            if (prefixLength < 31) {
+                // exclude the network and the broadcast address
+                first++;
+                last--;
+            }
+            return new long[] { first, last };
+        } catch (UnknownHostException | RuntimeException e) {
+            logger.debug("Ignoring invalid network '{}'", network);
+            return null;
+        }
+    }
+
+    private static long toLong(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return ((bytes[0] & 0xFFL) << 24) | ((bytes[1] & 0xFFL) << 16) | ((bytes[2] & 0xFFL) << 8) | (bytes[3] & 0xFFL);
+    }
+
+    private static InetAddress toAddress(long ip) {
+        try {
+            return InetAddress.getByAddress(new byte[] { (byte) (ip >> 24), (byte) (ip >> 16), (byte) (ip >> 8),
+                    (byte) ip });
+        } catch (UnknownHostException e) {
+            // cannot happen, the address has the length of an IPv4 address
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the number of addresses in the range
+     */
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<InetAddress> iterator() {
+        return new Iterator<InetAddress>() {
+            private int range = 0;
+            private long next = starts.length > 0 ? starts[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                return range < starts.length;
+            }
+
+            @Override
+            public InetAddress next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                InetAddress address = toAddress(next);
+                if (next < ends[range]) {
+                    next++;
+                } else if (++range < starts.length) {
+                    next = starts[range];
+                }
+                return address;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -15,16 +15,12 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.TreeSet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.SystemUtils;
-import org.apache.commons.net.util.SubnetUtils;
 import org.eclipse.smarthome.model.script.actions.Ping;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -200,17 +196,38 @@ public class NetworkService {
     }
 
     /**
-     * Handles the whole Discovery
+     * Handles the whole Discovery with the default ports, connection limit and timeout
+     *
+     * @return The running sweep, to be able to cancel it
      */
-    public static void discoverNetwork(DiscoveryCallback discoveryCallback,
+    public static NetworkSweep discoverNetwork(DiscoveryCallback discoveryCallback,
             ScheduledExecutorService scheduledExecutorService) {
-        TreeSet<String> interfaceIPs;
-        LinkedHashSet<String> networkIPs;
+        return discoverNetwork(discoveryCallback, scheduledExecutorService, new NetworkSweep());
+    }
 
+    /**
+     * Handles the whole Discovery, the networks are scanned with the given sweep on the executor service
+     *
+     * @return The running sweep, to be able to cancel it
+     */
+    public static NetworkSweep discoverNetwork(final DiscoveryCallback discoveryCallback,
+            ScheduledExecutorService scheduledExecutorService, final NetworkSweep networkSweep) {
         logger.debug("Starting Device Discovery");
-        interfaceIPs = getInterfaceIPs();
-        networkIPs = getNetworkIPs(interfaceIPs);
-        startDiscovery(networkIPs, discoveryCallback, scheduledExecutorService);
+        final NetworkAddressRange networkIPs = NetworkAddressRange.fromNetworks(getInterfaceIPs());
+        logger.debug("Scanning {} addresses", networkIPs.size());
+        scheduledExecutorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long start = System.currentTimeMillis();
+                    networkSweep.sweep(networkIPs, discoveryCallback);
+                    logger.debug("Device Discovery took {} ms", System.currentTimeMillis() - start);
+                } catch (IOException e) {
+                    logger.warn("Device Discovery failed: {}", e.getMessage());
+                }
+            }
+        });
+        return networkSweep;
     }
 
     /**
@@ -245,64 +262,6 @@ public class NetworkService {
         return interfaceIPs;
     }
 
-    /**
-     * Takes the interfaceIPs and fetches every IP which can be assigned on their network
-     *
-     * @param networkIPs The IPs which are assigned to the Network Interfaces
-     * @return Every single IP which can be assigned on the Networks the computer is connected to
-     */
-    private static LinkedHashSet<String> getNetworkIPs(TreeSet<String> interfaceIPs) {
-        LinkedHashSet<String> networkIPs = new LinkedHashSet<String>();
-
-        for (Iterator<String> it = interfaceIPs.iterator(); it.hasNext();) {
-            try {
-                // gets every ip which can be assigned on the given network
-                SubnetUtils utils = new SubnetUtils(it.next());
-                String[] addresses = utils.getInfo().getAllAddresses();
-                for (int i = 0; i < addresses.length; i++) {
-                    networkIPs.add(addresses[i]);
-                }
-
-            } catch (Exception ex) {
-            }
-        }
-
-        return networkIPs;
-    }
-
-    /**
-     * Starts the DiscoveryThread for each IP on the Networks
-     *
-     * @param allNetworkIPs
-     */
-    private static void startDiscovery(final LinkedHashSet<String> networkIPs,
-            final DiscoveryCallback discoveryCallback, ScheduledExecutorService scheduledExecutorService) {
-        final int PING_TIMEOUT_IN_MS = 500;
-        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 10);
-
-        for (Iterator<String> it = networkIPs.iterator(); it.hasNext();) {
-            final String ip = it.next();
-            executorService.execute(new Runnable() {
-                @Override
-                public void run() {
-                    if (ip != null) {
-                        try {
-                            if (Ping.checkVitality(ip, 0, PING_TIMEOUT_IN_MS)) {
-                                discoveryCallback.newDevice(ip);
-                            }
-                        } catch (IOException e) {
-                        }
-                    }
-                }
-            });
-        }
-        try {
-            executorService.awaitTermination(PING_TIMEOUT_IN_MS * networkIPs.size(), TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-        }
-        executorService.shutdown();
-    }
-
     @Override
     public String toString() {
         return this.hostname + ";" + this.port + ";" + this.retry + ";" + this.refreshInterval + ";" + this.timeout
@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.service;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link NetworkSweep} searches a {@link NetworkAddressRange} for devices by opening TCP connections
+ * to a set of ports. A device is found when a connection is established or refused, as both need an answer of
+ * the device. The ports of a device are tried one after the other until one answers, so a device has one open
+ * connection at a time and most devices answer on the first port. All connections are handled by a single
+ * selector and the number of connections which are open at the same time is limited. Devices and progress are
+ * reported in the order of the addresses.
+ *
+ * @author agent - Initial contribution
+ */
+public class NetworkSweep {
+
+    private static Logger logger = LoggerFactory.getLogger(NetworkSweep.class);
+
+    /**
+     * The echo port, which the Java ping uses as well, and the ports of common services
+     */
+    public static final int[] DEFAULT_PORTS = { 7, 22, 80, 443, 445, 8080 };
+    public static final int DEFAULT_MAX_CONNECTIONS = 512;
+    public static final int DEFAULT_TIMEOUT = 500;
+
+    private final int[] ports;
+    private final int maxConnections;
+    private final int timeout;
+
+    private volatile boolean cancelled = false;
+    private volatile Selector selector;
+
+    /**
+     * A device which is checked
+     */
+    private static class Host {
+        final InetAddress address;
+        // the index of the next port to try
+        int nextPort;
+        // the open connection, if any
+        Attempt attempt;
+        boolean alive;
+        boolean unreachable;
+
+        Host(InetAddress address) {
+            this.address = address;
+        }
+
+        boolean isDone(int ports) {
+            return alive || (attempt == null && (unreachable || nextPort >= ports));
+        }
+    }
+
+    /**
+     * A connection to one port of a device
+     */
+    private static class Attempt {
+        final Host host;
+        final SocketChannel channel;
+        final long deadline;
+        // the channel is closed by a failed connection as well, so it is not used for counting
+        boolean open = true;
+
+        Attempt(Host host, SocketChannel channel, long deadline) {
+            this.host = host;
+            this.channel = channel;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * @param ports The ports to connect to
+     * @param maxConnections The maximum number of connections which are open at the same time, which is the
+     *            number of devices checked at the same time
+     * @param timeout How long to wait for an answer in milliseconds
+     */
+    public NetworkSweep(int[] ports, int maxConnections, int timeout) {
+        if (ports.length == 0) {
+            throw new IllegalArgumentException("At least one port is needed");
+        }
+        this.ports = ports.clone();
+        this.maxConnections = Math.max(maxConnections, 1);
+        this.timeout = timeout;
+    }
+
+    public NetworkSweep() {
+        this(DEFAULT_PORTS, DEFAULT_MAX_CONNECTIONS, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Stops a running sweep
+     */
+    public void cancel() {
+        cancelled = true;
+        Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Checks every address of the range and returns when all are done or the sweep is cancelled
+     *
+     * @param range The addresses to check
+     * @param discoveryCallback Receives the found devices and the progress
+     */
+    public void sweep(NetworkAddressRange range, DiscoveryCallback discoveryCallback) throws IOException {
+        Iterator<InetAddress> addresses = range.iterator();
+        // the hosts which are checked, in the order of their addresses
+        ArrayDeque<Host> hosts = new ArrayDeque<Host>();
+        // the open connections, in the order of their deadlines
+        ArrayDeque<Attempt> attempts = new ArrayDeque<Attempt>();
+        int openConnections = 0;
+        long checked = 0;
+        int progress = -1;
+
+        selector = Selector.open();
+        try {
+            while (!cancelled && (addresses.hasNext() || !hosts.isEmpty())) {
+                // start hosts until the limit is reached
+                while (addresses.hasNext() && openConnections < maxConnections) {
+                    Host host = new Host(addresses.next());
+                    hosts.add(host);
+                    openConnections += connectNext(host, attempts);
+                }
+
+                long wait = attempts.isEmpty() ? 1 : Math.max(1, attempts.peek().deadline - System.currentTimeMillis());
+                selector.select(wait);
+
+                for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Attempt attempt = (Attempt) key.attachment();
+                    if (!attempt.open) {
+                        continue;
+                    }
+                    try {
+                        attempt.channel.finishConnect();
+                        attempt.host.alive = true;
+                    } catch (ConnectException e) {
+                        // the connection was refused, so the device is there
+                        attempt.host.alive = true;
+                    } catch (NoRouteToHostException e) {
+                        attempt.host.unreachable = true;
+                    } catch (IOException e) {
+                    }
+                    openConnections -= closeAttempt(attempt);
+                    openConnections += connectNext(attempt.host, attempts);
+                }
+
+                // give up on connections without answer and try the next port
+                long now = System.currentTimeMillis();
+                while (!attempts.isEmpty()
+                        && (!attempts.peek().open || attempts.peek().deadline <= now)) {
+                    Attempt attempt = attempts.poll();
+                    if (attempt.open) {
+                        openConnections -= closeAttempt(attempt);
+                        openConnections += connectNext(attempt.host, attempts);
+                    }
+                }
+
+                // report the hosts which are done, in order
+                while (!cancelled && !hosts.isEmpty() && hosts.peek().isDone(ports.length)) {
+                    Host host = hosts.poll();
+                    checked++;
+                    if (host.alive) {
+                        discoveryCallback.newDevice(host.address.getHostAddress());
+                    }
+                    int newProgress = (int) (checked * 100 / range.size());
+                    if (newProgress != progress) {
+                        progress = newProgress;
+                        discoveryCallback.scanProgress(progress);
+                    }
+                }
+            }
+        } finally {
+            for (Attempt attempt : attempts) {
+                closeAttempt(attempt);
+            }
+            selector.close();
+            selector = null;
+        }
+        logger.debug("Checked {} of {} addresses", checked, range.size());
+    }
+
+    /**
+     * Connects to the next port of a host which has not answered yet, skipping the ports which fail right away.
+     * Returns the number of opened connections.
+     */
+    private int connectNext(Host host, ArrayDeque<Attempt> attempts) {
+        while (!host.alive && !host.unreachable && host.attempt == null && host.nextPort < ports.length) {
+            int port = ports[host.nextPort++];
+            Attempt attempt = connect(host, port, System.currentTimeMillis() + timeout);
+            if (attempt != null) {
+                host.attempt = attempt;
+                attempts.add(attempt);
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Starts a connection, returns null if it is already answered or failed
+     */
+    private Attempt connect(Host host, int port, long deadline) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            if (channel.connect(new InetSocketAddress(host.address, port))) {
+                host.alive = true;
+            } else {
+                Attempt attempt = new Attempt(host, channel, deadline);
+                channel.register(selector, SelectionKey.OP_CONNECT, attempt);
+                return attempt;
+            }
+        } catch (ConnectException e) {
+            host.alive = true;
+        } catch (NoRouteToHostException e) {
+            host.unreachable = true;
+        } catch (IOException e) {
+            logger.trace("Couldn't connect to {}:{}: {}", new Object[] { host.address, port, e.getMessage() });
+        }
+        closeChannel(channel);
+        return null;
+    }
+
+    /**
+     * Closes a connection, returns 1 if it was open
+     */
+    private int closeAttempt(Attempt attempt) {
+        if (!attempt.open) {
+            return 0;
+        }
+        attempt.open = false;
+        closeChannel(attempt.channel);
+        attempt.host.attempt = null;
+        return 1;
+    }
+
+    private void closeChannel(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pioneeravr.internal.handler;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.openhab.binding.pioneeravr.internal.protocol.Response.ResponseType;
+
+/**
+ * Tests cases for {@link AvrStatusPoller}.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class AvrStatusPollerTest {
+
+	private static final long PERIOD = 10000;
+
+	private AvrStatusPoller poller = new AvrStatusPoller(PERIOD, 8 * PERIOD);
+
+	@Test
+	public void testQuietAvrIsQueriedEveryPeriod() {
+		int queries = 0;
+		for (long now = 0; now < 10 * PERIOD; now += PERIOD) {
+			poller.nextPeriod();
+			if (poller.needsQuery(ResponseType.POWER_STATE, now)) {
+				queries++;
+				// the answer
+				poller.updateReceived(ResponseType.POWER_STATE, now + 100);
+			}
+		}
+		assertThat(queries, is(10));
+		assertThat(poller.getMaxAge(), is(PERIOD));
+	}
+
+	@Test
+	public void testUnsolicitedUpdatesBackOff() {
+		int queries = 0;
+		for (long now = 0; now < 20 * PERIOD; now += PERIOD) {
+			poller.nextPeriod();
+			if (poller.needsQuery(ResponseType.POWER_STATE, now)) {
+				queries++;
+				poller.updateReceived(ResponseType.POWER_STATE, now + 100);
+			}
+			// the display scrolls
+			poller.updateReceived(ResponseType.DISPLAY_INFORMATION, now + 5000);
+		}
+		assertThat(poller.getMaxAge(), is(8 * PERIOD));
+		assertTrue("queries " + queries, queries <= 6);
+
+		// the AVR becomes quiet
+		poller.nextPeriod();
+		poller.nextPeriod();
+		assertThat(poller.getMaxAge(), is(PERIOD));
+	}
+
+	@Test
+	public void testRecentValuesAreNotQueried() {
+		poller.updateReceived(ResponseType.VOLUME_LEVEL, 0);
+		assertThat(poller.needsQuery(ResponseType.VOLUME_LEVEL, 1000), is(false));
+		assertThat(poller.needsQuery(ResponseType.MUTE_STATE, 1000), is(true));
+		// the query is pending
+		assertThat(poller.needsQuery(ResponseType.MUTE_STATE, 1500), is(false));
+		assertThat(poller.needsQuery(ResponseType.VOLUME_LEVEL, PERIOD), is(true));
+	}
+
+	@Test
+	public void testReset() {
+		poller.updateReceived(ResponseType.VOLUME_LEVEL, 0);
+		poller.updateReceived(ResponseType.POWER_STATE, 0);
+		poller.reset(ResponseType.VOLUME_LEVEL);
+		assertThat(poller.needsQuery(ResponseType.VOLUME_LEVEL, 1000), is(true));
+		assertThat(poller.needsQuery(ResponseType.POWER_STATE, 1000), is(false));
+		poller.reset();
+		assertThat(poller.needsQuery(ResponseType.POWER_STATE, 1000), is(true));
+	}
+}
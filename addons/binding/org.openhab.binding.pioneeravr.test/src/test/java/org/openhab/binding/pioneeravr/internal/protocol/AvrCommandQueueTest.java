@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pioneeravr.internal.protocol;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.pioneeravr.internal.protocol.ParameterizedCommand.ParameterizedCommandType;
+import org.openhab.binding.pioneeravr.internal.protocol.SimpleCommand.SimpleCommandType;
+import org.openhab.binding.pioneeravr.protocol.AvrCommand;
+
+/**
+ * Tests cases for {@link AvrCommandQueue}.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class AvrCommandQueueTest {
+
+	private static final long MIN_INTERVAL = 50;
+
+	private RecordingWriter writer;
+	private AvrCommandQueue queue;
+
+	/**
+	 * Records the written commands. The first write blocks until it is released, so the test can fill the queue
+	 * while the sender waits.
+	 */
+	private static class RecordingWriter implements AvrCommandQueue.CommandWriter {
+		final List<String> commands = new ArrayList<>();
+		final List<Long> times = new ArrayList<>();
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch failed = new CountDownLatch(1);
+		volatile boolean failing;
+
+		@Override
+		public void write(AvrCommand command) throws IOException {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (failing) {
+				throw new IOException("Broken pipe");
+			}
+			synchronized (this) {
+				commands.add(command.getCommand().trim());
+				times.add(System.nanoTime());
+				notifyAll();
+			}
+		}
+
+		@Override
+		public void writeFailed(IOException exception) {
+			failed.countDown();
+		}
+
+		synchronized List<String> waitFor(int count) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (commands.size() < count && System.currentTimeMillis() < deadline) {
+				wait(100);
+			}
+			return new ArrayList<>(commands);
+		}
+	}
+
+	@Before
+	public void setUp() {
+		writer = new RecordingWriter();
+		queue = new AvrCommandQueue(writer, MIN_INTERVAL);
+		queue.start("test");
+	}
+
+	@After
+	public void tearDown() {
+		queue.stop();
+	}
+
+	private static AvrCommand volume(String level) {
+		return new ParameterizedCommand(ParameterizedCommandType.VOLUME_SET).setParameter(level);
+	}
+
+	private static AvrCommand command(SimpleCommandType commandType) {
+		return new SimpleCommand(commandType);
+	}
+
+	@Test
+	public void testVolumeRampIsCoalesced() throws Exception {
+		// the first command is taken by the sender, which blocks on it
+		queue.offer(command(SimpleCommandType.POWER_QUERY));
+		Thread.sleep(MIN_INTERVAL);
+		for (int level = 100; level <= 120; level += 2) {
+			queue.offer(volume(String.valueOf(level)));
+		}
+		queue.offer(command(SimpleCommandType.MUTE_ON));
+		queue.offer(command(SimpleCommandType.MUTE_OFF));
+		writer.release.countDown();
+
+		assertThat(writer.waitFor(3), is(Arrays.asList("?P", "120VL", "MF")));
+		assertThat(queue.getCoalescedCommands(), is(11L));
+		Thread.sleep(MIN_INTERVAL);
+		assertThat(queue.getSentCommands(), is(3L));
+	}
+
+	@Test
+	public void testVolumeSetReplacesSteps() throws Exception {
+		queue.offer(command(SimpleCommandType.POWER_QUERY));
+		Thread.sleep(MIN_INTERVAL);
+		queue.offer(command(SimpleCommandType.VOLUME_UP));
+		queue.offer(command(SimpleCommandType.VOLUME_UP));
+		queue.offer(volume("081"));
+		queue.offer(command(SimpleCommandType.VOLUME_DOWN));
+		writer.release.countDown();
+
+		assertThat(writer.waitFor(3), is(Arrays.asList("?P", "081VL", "VD")));
+	}
+
+	@Test
+	public void testQueriesAreNotQueuedTwice() throws Exception {
+		queue.offer(command(SimpleCommandType.POWER_QUERY));
+		Thread.sleep(MIN_INTERVAL);
+		queue.offer(command(SimpleCommandType.VOLUME_QUERY));
+		queue.offer(command(SimpleCommandType.MUTE_QUERY));
+		queue.offer(command(SimpleCommandType.VOLUME_QUERY));
+		writer.release.countDown();
+
+		assertThat(writer.waitFor(3), is(Arrays.asList("?P", "?V", "?M")));
+		assertThat(queue.getCoalescedCommands(), is(1L));
+	}
+
+	@Test
+	public void testRateLimit() throws Exception {
+		writer.release.countDown();
+		queue.offer(command(SimpleCommandType.VOLUME_UP));
+		queue.offer(command(SimpleCommandType.VOLUME_UP));
+		queue.offer(command(SimpleCommandType.VOLUME_UP));
+
+		assertThat(writer.waitFor(3).size(), is(3));
+		for (int i = 1; i < 3; i++) {
+			long interval = TimeUnit.NANOSECONDS.toMillis(writer.times.get(i) - writer.times.get(i - 1));
+			assertTrue("interval " + interval, interval >= MIN_INTERVAL - 1);
+		}
+	}
+
+	@Test
+	public void testPowerOnIsSentTwice() throws Exception {
+		writer.release.countDown();
+		queue.offer(command(SimpleCommandType.POWER_ON));
+
+		assertThat(writer.waitFor(2), is(Arrays.asList("PO", "PO")));
+		long interval = TimeUnit.NANOSECONDS.toMillis(writer.times.get(1) - writer.times.get(0));
+		assertTrue("interval " + interval, interval >= 99);
+	}
+
+	@Test
+	public void testStoppedQueue() {
+		queue.stop();
+		assertThat(queue.offer(command(SimpleCommandType.POWER_QUERY)), is(false));
+		queue.start("test");
+		assertThat(queue.offer(command(SimpleCommandType.POWER_QUERY)), is(true));
+	}
+
+	@Test
+	public void testWriteFailureStopsTheQueue() throws Exception {
+		writer.failing = true;
+		queue.offer(command(SimpleCommandType.POWER_QUERY));
+		Thread.sleep(MIN_INTERVAL);
+		queue.offer(command(SimpleCommandType.VOLUME_QUERY));
+		writer.release.countDown();
+
+		assertTrue(writer.failed.await(5, TimeUnit.SECONDS));
+		assertThat(queue.getPendingCommands(), is(0));
+		assertThat(queue.offer(command(SimpleCommandType.POWER_QUERY)), is(false));
+		assertThat(queue.getSentCommands(), is(0L));
+
+		// the connection starts the queue again when it is opened again
+		writer.failing = false;
+		queue.start("test");
+		queue.offer(command(SimpleCommandType.POWER_QUERY));
+		assertThat(writer.waitFor(1), is(Arrays.asList("?P")));
+	}
+
+	@Test
+	public void testQueueIsBounded() throws Exception {
+		queue.offer(command(SimpleCommandType.POWER_QUERY));
+		Thread.sleep(MIN_INTERVAL);
+		queue.offer(command(SimpleCommandType.VOLUME_DOWN));
+		for (int i = 0; i < AvrCommandQueue.MAX_PENDING_COMMANDS; i++) {
+			queue.offer(command(SimpleCommandType.VOLUME_UP));
+		}
+		assertThat(queue.getPendingCommands(), is(AvrCommandQueue.MAX_PENDING_COMMANDS));
+		assertThat(queue.getDroppedCommands(), is(1L));
+
+		// the oldest command has been dropped
+		writer.release.countDown();
+		assertThat(writer.waitFor(2), is(Arrays.asList("?P", "VU")));
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pioneeravr.internal.protocol;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openhab.binding.pioneeravr.internal.protocol.Response.ResponseType;
+
+/**
+ * IpControl traffic recorded from a receiver while it has been switched on,
+ * its volume has been changed and the display scrolled the title of a web
+ * radio station. It contains responses the binding does not support, like
+ * the ones of zone 2 and the listening mode.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class IpControlTraffic {
+
+	public static final String[] LINES = { "R", "PWR2", "PWR0", "FN45", "VOL081", "MUT1", "SR0006", "LM0401",
+			"FL0248444D4920312020202020202020", "AST030100000000000000001001", "VOL083", "VOL085", "VOL087",
+			"FL002020564F4C202D34302E35644220", "VOL089", "FL002020564F4C202D34302E35644220", "APR1", "ZV050",
+			"Z2F38", "FN38", "E04", "FL022020204E4F5720504C4159494E47", "FL0220204E4F5720504C4159494E4720",
+			"FL02204E4F5720504C4159494E472020", "FL024E4F5720504C4159494E47202052",
+			"FL024F5720504C4159494E4720205241", "FL025720504C4159494E472020524144", "MUT0", "B00",
+			"GEH01020\"Radio Paradise\"", "FL022020204E4F5720504C4159494E47", "VOL121", "PWR1" };
+
+	private static final Pattern[] PATTERNS = new Pattern[ResponseType.values().length];
+
+	static {
+		for (ResponseType responseType : ResponseType.values()) {
+			PATTERNS[responseType.ordinal()] = Pattern.compile(responseType.getResponsePrefix() + "("
+					+ responseType.getParameterPattern() + ")");
+		}
+	}
+
+	/**
+	 * Return the responseType of the responseData like it has been found
+	 * before the responses were looked up by prefix: by matching the RegEx of
+	 * every responseType.
+	 *
+	 * @param responseData
+	 * @return
+	 */
+	public static ResponseType parseResponseTypeWithRegex(String responseData) {
+		ResponseType result = null;
+		for (ResponseType responseType : ResponseType.values()) {
+			if (PATTERNS[responseType.ordinal()].matcher(responseData).matches()) {
+				result = responseType;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the parameter of the responseData like it has been extracted
+	 * before: with the RegEx of the responseType.
+	 *
+	 * @param responseType
+	 * @param responseData
+	 * @return
+	 */
+	public static String parseParameterWithRegex(ResponseType responseType, String responseData) {
+		Matcher matcher = PATTERNS[responseType.ordinal()].matcher(responseData);
+		matcher.find();
+		return matcher.group(1);
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pioneeravr.internal.protocol;
+
+import org.openhab.binding.pioneeravr.internal.protocol.Response.ResponseType;
+import org.openhab.binding.pioneeravr.protocol.AvrConnectionException;
+import org.openhab.binding.pioneeravr.protocol.utils.DisplayInformationConverter;
+
+/**
+ * Decodes the {@link IpControlTraffic} like the handler does, once with the
+ * RegEx of every response type and once with the lookup by prefix, and
+ * prints the time per response. It is not run with the tests, run its main
+ * method to compare both.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class ResponseBenchmark {
+
+	private static final int ROUNDS = 200000;
+
+	public static void main(String[] args) {
+		// warm up
+		runRegex(ROUNDS / 10);
+		runPrefix(ROUNDS / 10);
+
+		long start = System.nanoTime();
+		int regexCount = runRegex(ROUNDS);
+		long regexTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		int prefixCount = runPrefix(ROUNDS);
+		long prefixTime = System.nanoTime() - start;
+
+		int responses = ROUNDS * IpControlTraffic.LINES.length;
+		System.out.printf("RegEx:  %d supported responses, %.1f ns per response%n", regexCount,
+				(double) regexTime / responses);
+		System.out.printf("Prefix: %d supported responses, %.1f ns per response%n", prefixCount,
+				(double) prefixTime / responses);
+	}
+
+	private static int runRegex(int rounds) {
+		int count = 0;
+		for (int round = 0; round < rounds; round++) {
+			for (String responseData : IpControlTraffic.LINES) {
+				try {
+					ResponseType responseType = IpControlTraffic.parseResponseTypeWithRegex(responseData);
+					if (responseType == null) {
+						// like the Response constructor did
+						throw new AvrConnectionException("Cannot find the responseType of the responseData "
+								+ responseData);
+					}
+					String parameter = IpControlTraffic.parseParameterWithRegex(responseType, responseData);
+					if (responseType == ResponseType.DISPLAY_INFORMATION) {
+						decodeWithParseInt(parameter);
+					}
+					count++;
+				} catch (AvrConnectionException e) {
+				}
+			}
+		}
+		return count;
+	}
+
+	private static int runPrefix(int rounds) {
+		int count = 0;
+		for (int round = 0; round < rounds; round++) {
+			for (String responseData : IpControlTraffic.LINES) {
+				try {
+					Response response = new Response(responseData);
+					if (response.getResponseType() == ResponseType.DISPLAY_INFORMATION) {
+						DisplayInformationConverter.convertMessageFromIpControl(response.getParameterValue());
+					}
+					count++;
+				} catch (AvrConnectionException e) {
+				}
+			}
+		}
+		return count;
+	}
+
+	private static String decodeWithParseInt(String responsePayload) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 2; i < responsePayload.length() - 1; i += 2) {
+			sb.append((char) Integer.parseInt(responsePayload.substring(i, i + 2), 16));
+		}
+		return sb.toString();
+	}
+}
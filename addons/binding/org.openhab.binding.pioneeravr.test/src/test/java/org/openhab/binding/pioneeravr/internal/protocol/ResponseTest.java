@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pioneeravr.internal.protocol;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.openhab.binding.pioneeravr.internal.protocol.Response.ResponseType;
+import org.openhab.binding.pioneeravr.protocol.AvrConnectionException;
+
+/**
+ * Tests cases for {@link Response}.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class ResponseTest {
+
+	@Test
+	public void testResponses() {
+		Response response = new Response("VOL121");
+		assertThat(response.getResponseType(), is(ResponseType.VOLUME_LEVEL));
+		assertThat(response.getParameterValue(), is("121"));
+
+		response = new Response("PWR0");
+		assertThat(response.getResponseType(), is(ResponseType.POWER_STATE));
+		assertThat(response.getParameterValue(), is("0"));
+
+		response = new Response("FN38");
+		assertThat(response.getResponseType(), is(ResponseType.INPUT_SOURCE_CHANNEL));
+		assertThat(response.getParameterValue(), is("38"));
+
+		response = new Response("FL002020564F4C202D34302E35644220");
+		assertThat(response.getResponseType(), is(ResponseType.DISPLAY_INFORMATION));
+		assertThat(response.getParameterValue(), is("002020564F4C202D34302E35644220"));
+	}
+
+	@Test
+	public void testInvalidParameters() {
+		// out of range, too long, too short and not hex
+		String[] responses = { "PWR3", "MUT2", "VOL1210", "VOL12", "FN3", "FL002020564F4C202D34302E356442",
+				"FL002020564F4C202D34302E3564422G", "VOL", "" };
+		for (String responseData : responses) {
+			try {
+				new Response(responseData);
+				fail("no exception for " + responseData);
+			} catch (AvrConnectionException e) {
+			}
+		}
+	}
+
+	@Test
+	public void testSameTypesAsRegex() {
+		for (String responseData : IpControlTraffic.LINES) {
+			assertThat(responseData, Response.parseResponseType(responseData),
+					is(IpControlTraffic.parseResponseTypeWithRegex(responseData)));
+		}
+	}
+
+	@Test
+	public void testMatch() {
+		assertThat(ResponseType.MUTE_STATE.match("MUT1"), is(true));
+		assertThat(ResponseType.MUTE_STATE.match("PWR1"), is(false));
+		assertThat(ResponseType.VOLUME_LEVEL.match("VOL1\u00e42"), is(false));
+		assertThat(ResponseType.VOLUME_LEVEL.parseParameter("VOL085"), is("085"));
+	}
+}
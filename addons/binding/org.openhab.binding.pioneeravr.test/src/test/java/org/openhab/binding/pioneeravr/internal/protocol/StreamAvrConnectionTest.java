@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pioneeravr.internal.protocol;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openhab.binding.pioneeravr.protocol.event.AvrDisconnectionEvent;
+import org.openhab.binding.pioneeravr.protocol.event.AvrDisconnectionListener;
+
+/**
+ * Tests cases for {@link StreamAvrConnection}.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class StreamAvrConnectionTest {
+
+	/**
+	 * A connection to an AVR which never answers. Its output stream breaks when told to.
+	 */
+	private static class TestConnection extends StreamAvrConnection {
+		volatile boolean open;
+		volatile boolean broken;
+		int openings;
+		final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+		@Override
+		protected void openConnection() throws IOException {
+			open = true;
+			openings++;
+		}
+
+		@Override
+		protected InputStream getInputStream() throws IOException {
+			return new InputStream() {
+				@Override
+				public int read() throws IOException {
+					try {
+						Thread.sleep(10);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					throw new SocketTimeoutException();
+				}
+			};
+		}
+
+		@Override
+		protected OutputStream getOutputStream() throws IOException {
+			return new OutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					if (broken) {
+						throw new IOException("Broken pipe");
+					}
+					synchronized (written) {
+						written.write(b);
+					}
+				}
+			};
+		}
+
+		@Override
+		public boolean isConnected() {
+			return open;
+		}
+
+		@Override
+		public void close() {
+			super.close();
+			open = false;
+		}
+
+		@Override
+		public String getConnectionName() {
+			return "test";
+		}
+	}
+
+	private final TestConnection connection = new TestConnection();
+
+	@After
+	public void tearDown() {
+		connection.close();
+	}
+
+	@Test
+	public void testWriteFailureClosesTheConnection() throws Exception {
+		final CountDownLatch disconnected = new CountDownLatch(1);
+		connection.addDisconnectionListener(new AvrDisconnectionListener() {
+			@Override
+			public void onDisconnection(AvrDisconnectionEvent event) {
+				assertThat(event.getCause().getMessage(), is("Broken pipe"));
+				disconnected.countDown();
+			}
+		});
+		connection.broken = true;
+		assertThat(connection.sendPowerQuery(), is(true));
+
+		assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+		assertThat(connection.isConnected(), is(false));
+
+		// the next command opens the connection again
+		connection.broken = false;
+		assertThat(connection.sendPowerQuery(), is(true));
+		assertThat(connection.openings, is(2));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (connection.getSentCommands() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(connection.getSentCommands(), is(1L));
+		synchronized (connection.written) {
+			assertThat(connection.written.toString().trim(), is("?P"));
+		}
+	}
+}
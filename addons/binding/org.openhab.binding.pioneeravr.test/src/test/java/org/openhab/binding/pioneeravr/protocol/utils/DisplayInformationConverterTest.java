@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pioneeravr.protocol.utils;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.openhab.binding.pioneeravr.protocol.AvrConnectionException;
+
+/**
+ * Tests cases for {@link DisplayInformationConverter}.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class DisplayInformationConverterTest {
+
+	@Test
+	public void testConvert() {
+		// the example of the Pioneer docs
+		assertThat(DisplayInformationConverter.convertMessageFromIpControl("000005064449474954414C00455800"),
+				is("\u0000\u0005\u0006DIGITAL\u0000EX\u0000"));
+		assertThat(DisplayInformationConverter.convertMessageFromIpControl("002020564f4c202d34302e35644220"),
+				is("  VOL -40.5dB "));
+	}
+
+	@Test
+	public void testShortPayloads() {
+		assertThat(DisplayInformationConverter.convertMessageFromIpControl(""), is(""));
+		assertThat(DisplayInformationConverter.convertMessageFromIpControl("02"), is(""));
+		// an odd number of digits, the last one is ignored
+		assertThat(DisplayInformationConverter.convertMessageFromIpControl("024142C"), is("AB"));
+	}
+
+	@Test
+	public void testInvalidPayload() {
+		try {
+			DisplayInformationConverter.convertMessageFromIpControl("02414X");
+			fail("no exception");
+		} catch (AvrConnectionException e) {
+		}
+	}
+
+	@Test
+	public void testHexValue() {
+		assertThat(DisplayInformationConverter.getHexValue('0'), is(0));
+		assertThat(DisplayInformationConverter.getHexValue('a'), is(10));
+		assertThat(DisplayInformationConverter.getHexValue('F'), is(15));
+		assertThat(DisplayInformationConverter.getHexValue('g'), is(-1));
+		assertThat(DisplayInformationConverter.getHexValue('\u0660'), is(-1));
+	}
+}
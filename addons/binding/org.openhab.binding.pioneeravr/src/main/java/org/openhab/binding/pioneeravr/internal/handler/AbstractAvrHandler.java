@@ -24,6 +24,7 @@ import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.UnDefType;
 import org.openhab.binding.pioneeravr.PioneerAvrBindingConstants;
 import org.openhab.binding.pioneeravr.internal.protocol.RequestResponseFactory;
+import org.openhab.binding.pioneeravr.internal.protocol.Response.ResponseType;
 import org.openhab.binding.pioneeravr.protocol.AvrConnection;
 import org.openhab.binding.pioneeravr.protocol.AvrConnectionException;
 import org.openhab.binding.pioneeravr.protocol.AvrResponse;
@@ -49,9 +50,17 @@ public abstract class AbstractAvrHandler extends BaseThingHandler implements Avr
 
 	private Logger logger = LoggerFactory.getLogger(AbstractAvrHandler.class);
 
+	// The status is checked every 10 seconds. While the AVR sends updates on its own, the values are queried less
+	// often, at least every 2 minutes.
+	private static final long STATUS_CHECK_INTERVAL = 10000;
+	private static final long MAX_STATUS_AGE = 120000;
+
 	private AvrConnection connection;
 	private ScheduledFuture<?> statusCheckerFuture;
 
+	private AvrStatusPoller statusPoller = new AvrStatusPoller(STATUS_CHECK_INTERVAL, MAX_STATUS_AGE);
+	private volatile boolean powerOn;
+
 	public AbstractAvrHandler(Thing thing) {
 		super(thing);
 		this.connection = createConnection();
@@ -93,7 +102,8 @@ public abstract class AbstractAvrHandler extends BaseThingHandler implements Avr
 				}
 			}
 		};
-		statusCheckerFuture = scheduler.scheduleWithFixedDelay(statusChecker, 1, 10, TimeUnit.SECONDS);
+		statusCheckerFuture = scheduler.scheduleWithFixedDelay(statusChecker, 1000, STATUS_CHECK_INTERVAL,
+				TimeUnit.MILLISECONDS);
 	}
 
 	/**
@@ -114,16 +124,38 @@ public abstract class AbstractAvrHandler extends BaseThingHandler implements Avr
 	 * Called when a Power ON state update is received from the AVR.
 	 */
 	public void onPowerOn() {
-		// When the AVR is Powered ON, query the volume, the mute state and the source input
-		connection.sendVolumeQuery();
-		connection.sendMuteQuery();
-		connection.sendSourceInputQuery();
+		powerOn = true;
+		// When the AVR is Powered ON, query the volume, the mute state and the source input, if they are not known
+		// or have not been updated for a while
+		queryStaleValues();
+	}
+
+	/**
+	 * Query the volume, the mute state and the source input, if they have not been updated for a while.
+	 */
+	private void queryStaleValues() {
+		long now = System.currentTimeMillis();
+		if (statusPoller.needsQuery(ResponseType.VOLUME_LEVEL, now)) {
+			connection.sendVolumeQuery();
+		}
+		if (statusPoller.needsQuery(ResponseType.MUTE_STATE, now)) {
+			connection.sendMuteQuery();
+		}
+		if (statusPoller.needsQuery(ResponseType.INPUT_SOURCE_CHANNEL, now)) {
+			connection.sendSourceInputQuery();
+		}
 	}
 
 	/**
 	 * Called when a Power OFF state update is received from the AVR.
 	 */
 	public void onPowerOff() {
+		powerOn = false;
+		// The values are queried again when the AVR is Powered ON
+		statusPoller.reset(ResponseType.VOLUME_LEVEL);
+		statusPoller.reset(ResponseType.MUTE_STATE);
+		statusPoller.reset(ResponseType.INPUT_SOURCE_CHANNEL);
+
 		// When the AVR is Powered OFF, update the status of channels to Undefined
 		updateState(PioneerAvrBindingConstants.MUTE_CHANNEL, UnDefType.UNDEF);
 		updateState(PioneerAvrBindingConstants.VOLUME_DB_CHANNEL, UnDefType.UNDEF);
@@ -138,14 +170,24 @@ public abstract class AbstractAvrHandler extends BaseThingHandler implements Avr
 	 * @return
 	 */
 	private void checkStatus() {
-		// If the power query request has not been sent, the connection to the
-		// AVR has failed. So update its status to OFFLINE.
-		if (!connection.sendPowerQuery()) {
+		statusPoller.nextPeriod();
+
+		// If the connection to the AVR has failed, update its status to OFFLINE.
+		if (!connection.connect()) {
+			statusPoller.reset();
 			updateStatus(ThingStatus.OFFLINE);
-		} else {
-			// IF the power query has succeeded, the AVR status is ONLINE.
-			updateStatus(ThingStatus.ONLINE);
+			return;
+		}
+		updateStatus(ThingStatus.ONLINE);
+
+		// Only query the values which have not been updated by the AVR for a while.
+		if (statusPoller.needsQuery(ResponseType.POWER_STATE, System.currentTimeMillis())) {
+			connection.sendPowerQuery();
+		}
+		if (powerOn) {
+			queryStaleValues();
 		}
+		logger.trace("Status of AVR @{}: {}, {}", connection.getConnectionName(), statusPoller, connection);
 	}
 
 	/**
@@ -187,6 +229,7 @@ public abstract class AbstractAvrHandler extends BaseThingHandler implements Avr
 	public void statusUpdateReceived(AvrStatusUpdateEvent event) {
 		try {
 			AvrResponse response = RequestResponseFactory.getIpControlResponse(event.getData());
+			statusPoller.updateReceived(response.getResponseType(), System.currentTimeMillis());
 
 			switch (response.getResponseType()) {
 			case POWER_STATE:
@@ -230,6 +273,7 @@ public abstract class AbstractAvrHandler extends BaseThingHandler implements Avr
 	 * Process the AVR disconnection.
 	 */
 	private void onDisconnection() {
+		statusPoller.reset();
 		updateStatus(ThingStatus.OFFLINE);
 	}
 
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pioneeravr.internal.handler;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.openhab.binding.pioneeravr.internal.protocol.Response.ResponseType;
+
+/**
+ * Decides which status values of the AVR have to be queried. A value is
+ * queried when no update has been received for it for a while. The AVR sends
+ * updates on its own when a value changes, as long as these unsolicited
+ * updates arrive, the time after which a value is queried again grows up to a
+ * maximum. When the AVR becomes quiet, it is reset to the base interval.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class AvrStatusPoller {
+
+	// An update received within this time after a query of its type is the answer to the query.
+	private static final long ANSWER_TIMEOUT = 2000;
+
+	private final long baseMaxAge;
+	private final long maxMaxAge;
+
+	private long maxAge;
+
+	// Time of the last update of each type
+	private final Map<ResponseType, Long> lastUpdates = new EnumMap<>(ResponseType.class);
+	// Time of the pending query of each type
+	private final Map<ResponseType, Long> pendingQueries = new EnumMap<>(ResponseType.class);
+
+	private boolean unsolicitedUpdates;
+
+	private long queries;
+	private long skippedQueries;
+
+	/**
+	 * @param baseMaxAge
+	 *            the age in milliseconds after which a value is queried while the AVR is quiet
+	 * @param maxMaxAge
+	 *            the age in milliseconds after which a value is queried at the latest
+	 */
+	public AvrStatusPoller(long baseMaxAge, long maxMaxAge) {
+		this.baseMaxAge = baseMaxAge;
+		this.maxMaxAge = maxMaxAge;
+		this.maxAge = baseMaxAge;
+	}
+
+	/**
+	 * Called when an update has been received from the AVR.
+	 *
+	 * @param responseType
+	 * @param now
+	 *            the current time in milliseconds
+	 */
+	public synchronized void updateReceived(ResponseType responseType, long now) {
+		lastUpdates.put(responseType, now);
+		Long queryTime = pendingQueries.remove(responseType);
+		if (queryTime == null || now - queryTime > ANSWER_TIMEOUT) {
+			unsolicitedUpdates = true;
+		}
+	}
+
+	/**
+	 * Called periodically, adapts the age after which values are queried.
+	 */
+	public synchronized void nextPeriod() {
+		if (unsolicitedUpdates) {
+			maxAge = Math.min(maxAge * 2, maxMaxAge);
+		} else {
+			maxAge = baseMaxAge;
+		}
+		unsolicitedUpdates = false;
+	}
+
+	/**
+	 * Return true if the value of the given type has to be queried. If so, the query is expected to be sent.
+	 *
+	 * @param responseType
+	 * @param now
+	 *            the current time in milliseconds
+	 * @return
+	 */
+	public synchronized boolean needsQuery(ResponseType responseType, long now) {
+		Long lastUpdate = lastUpdates.get(responseType);
+		Long queryTime = pendingQueries.get(responseType);
+		// The answer to the last query arrives a bit after the period has started, so it is not waited for another
+		// period when the value is nearly due.
+		boolean stale = lastUpdate == null || now - lastUpdate >= maxAge - ANSWER_TIMEOUT;
+		if (stale && (queryTime == null || now - queryTime > ANSWER_TIMEOUT)) {
+			pendingQueries.put(responseType, now);
+			queries++;
+			return true;
+		}
+		skippedQueries++;
+		return false;
+	}
+
+	/**
+	 * Forget all values, e.g. when the AVR is powered off or disconnected. They are queried the next time.
+	 */
+	public synchronized void reset() {
+		lastUpdates.clear();
+		pendingQueries.clear();
+	}
+
+	/**
+	 * Forget the value of the given type.
+	 *
+	 * @param responseType
+	 */
+	public synchronized void reset(ResponseType responseType) {
+		lastUpdates.remove(responseType);
+		pendingQueries.remove(responseType);
+	}
+
+	public synchronized long getMaxAge() {
+		return maxAge;
+	}
+
+	public synchronized long getQueries() {
+		return queries;
+	}
+
+	public synchronized long getSkippedQueries() {
+		return skippedQueries;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%d queries, %d skipped, max age %d ms", queries, skippedQueries, maxAge);
+	}
+
+}
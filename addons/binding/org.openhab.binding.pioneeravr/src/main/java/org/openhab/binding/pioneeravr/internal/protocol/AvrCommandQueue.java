@@ -0,0 +1,307 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pioneeravr.internal.protocol;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openhab.binding.pioneeravr.internal.protocol.ParameterizedCommand.ParameterizedCommandType;
+import org.openhab.binding.pioneeravr.internal.protocol.SimpleCommand.SimpleCommandType;
+import org.openhab.binding.pioneeravr.protocol.AvrCommand;
+import org.openhab.binding.pioneeravr.protocol.AvrCommand.CommandType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The outbound queue of an AVR connection. Commands are queued by the caller
+ * and written by a sender thread, with a minimum interval between two
+ * commands.
+ *
+ * While a command is waiting, a newer command for the same setting replaces
+ * it: a new volume level, mute state, power state or input source is sent
+ * instead of the pending one, and a query is not queued twice. So a volume
+ * ramp from a slider ends up as a few commands with the latest levels.
+ *
+ * The queue holds at most {@link #MAX_PENDING_COMMANDS} commands, the oldest
+ * ones are dropped when more are queued. When a command cannot be written,
+ * the queue stops and the writer is told, so the connection can be closed.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class AvrCommandQueue {
+
+	private static final Logger logger = LoggerFactory.getLogger(AvrCommandQueue.class);
+
+	// According to the Pioneer Specs, the first Power ON request only wakeup the AVR CPU, the second one Power ON
+	// the AVR. The second request has to be delayed of 100 ms.
+	private static final long POWER_ON_DELAY = 100;
+
+	// The maximum number of commands waiting to be sent, the AVR takes about ten per second.
+	public static final int MAX_PENDING_COMMANDS = 50;
+
+	/**
+	 * Writes the commands to the AVR.
+	 *
+	 * @author agent - Initial contribution
+	 *
+	 */
+	public interface CommandWriter {
+
+		public void write(AvrCommand command) throws IOException;
+
+		/**
+		 * Called by the sender thread when a command could not be written. The queue is stopped already.
+		 */
+		public void writeFailed(IOException exception);
+	}
+
+	private final CommandWriter writer;
+	private final long minInterval;
+
+	// guarded by this
+	private final LinkedList<AvrCommand> pendingCommands = new LinkedList<>();
+	private boolean stopped;
+	private long lastSent;
+
+	private final AtomicLong sentCommands = new AtomicLong();
+	private final AtomicLong coalescedCommands = new AtomicLong();
+	private final AtomicLong droppedCommands = new AtomicLong();
+
+	private CommandSender sender;
+
+	/**
+	 * @param writer
+	 *            writes the commands
+	 * @param minInterval
+	 *            the minimum time between two commands in milliseconds
+	 */
+	public AvrCommandQueue(CommandWriter writer, long minInterval) {
+		this.writer = writer;
+		this.minInterval = minInterval;
+	}
+
+	/**
+	 * Start the sender thread.
+	 *
+	 * @param name
+	 *            the name of the connection
+	 */
+	public synchronized void start(String name) {
+		if (sender == null) {
+			stopped = false;
+			sender = new CommandSender(name);
+			sender.start();
+		}
+	}
+
+	/**
+	 * Stop the sender thread and drop the pending commands.
+	 */
+	public synchronized void stop() {
+		stopped = true;
+		pendingCommands.clear();
+		sender = null;
+		notifyAll();
+	}
+
+	/**
+	 * Queue a command. A pending command for the same setting is replaced, the oldest pending command is dropped
+	 * if the queue is full.
+	 *
+	 * @param command
+	 * @return false if the queue is stopped
+	 */
+	public synchronized boolean offer(AvrCommand command) {
+		if (stopped) {
+			return false;
+		}
+		CommandType commandType = command.getCommandType();
+		if (isQuery(commandType)) {
+			for (AvrCommand pendingCommand : pendingCommands) {
+				if (pendingCommand.getCommandType() == commandType) {
+					coalescedCommands.incrementAndGet();
+					return true;
+				}
+			}
+		} else {
+			String group = getGroup(commandType);
+			if (group != null) {
+				// The new command replaces the pending commands of its group. A new volume level or input source also
+				// replaces the pending relative changes, they do not matter any more.
+				for (Iterator<AvrCommand> it = pendingCommands.iterator(); it.hasNext();) {
+					CommandType pendingType = it.next().getCommandType();
+					if (group.equals(getGroup(pendingType)) || supersedes(commandType, pendingType)) {
+						it.remove();
+						coalescedCommands.incrementAndGet();
+					}
+				}
+			}
+		}
+		if (pendingCommands.size() >= MAX_PENDING_COMMANDS) {
+			logger.debug("Too many commands waiting, dropping command {}", pendingCommands.removeFirst().getCommand());
+			droppedCommands.incrementAndGet();
+		}
+		pendingCommands.add(command);
+		notifyAll();
+		return true;
+	}
+
+	public synchronized int getPendingCommands() {
+		return pendingCommands.size();
+	}
+
+	/**
+	 * Return the number of commands written to the AVR.
+	 *
+	 * @return
+	 */
+	public long getSentCommands() {
+		return sentCommands.get();
+	}
+
+	/**
+	 * Return the number of commands which have been replaced by a newer one.
+	 *
+	 * @return
+	 */
+	public long getCoalescedCommands() {
+		return coalescedCommands.get();
+	}
+
+	/**
+	 * Return the number of commands which have been dropped because the queue was full.
+	 *
+	 * @return
+	 */
+	public long getDroppedCommands() {
+		return droppedCommands.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d commands sent, %d coalesced, %d dropped, %d pending", getSentCommands(),
+				getCoalescedCommands(), getDroppedCommands(), getPendingCommands());
+	}
+
+	private static boolean isQuery(CommandType commandType) {
+		return commandType == SimpleCommandType.POWER_QUERY || commandType == SimpleCommandType.VOLUME_QUERY
+				|| commandType == SimpleCommandType.MUTE_QUERY || commandType == SimpleCommandType.INPUT_QUERY;
+	}
+
+	/**
+	 * Return the group of the commands which set the same value, null if the command does not set a value.
+	 */
+	private static String getGroup(CommandType commandType) {
+		if (commandType == SimpleCommandType.POWER_ON || commandType == SimpleCommandType.POWER_OFF) {
+			return "power";
+		} else if (commandType == SimpleCommandType.MUTE_ON || commandType == SimpleCommandType.MUTE_OFF) {
+			return "mute";
+		} else if (commandType == ParameterizedCommandType.VOLUME_SET) {
+			return "volume";
+		} else if (commandType == ParameterizedCommandType.INPUT_CHANNEL_SET) {
+			return "input";
+		}
+		return null;
+	}
+
+	private static boolean supersedes(CommandType commandType, CommandType pendingType) {
+		if (commandType == ParameterizedCommandType.VOLUME_SET) {
+			return pendingType == SimpleCommandType.VOLUME_UP || pendingType == SimpleCommandType.VOLUME_DOWN;
+		} else if (commandType == ParameterizedCommandType.INPUT_CHANNEL_SET) {
+			return pendingType == SimpleCommandType.INPUT_CHANGE_CYCLIC
+					|| pendingType == SimpleCommandType.INPUT_CHANGE_REVERSE;
+		}
+		return false;
+	}
+
+	/**
+	 * Wait for the next command which may be sent. Return null if the queue is stopped.
+	 */
+	private synchronized AvrCommand takeCommand(CommandSender caller) throws InterruptedException {
+		while (!stopped && sender == caller) {
+			if (pendingCommands.isEmpty()) {
+				wait();
+			} else {
+				// The command stays in the queue while waiting, so it can still be replaced.
+				long delay = lastSent + minInterval - System.currentTimeMillis();
+				if (delay > 0) {
+					wait(delay);
+				} else {
+					return pendingCommands.removeFirst();
+				}
+			}
+		}
+		return null;
+	}
+
+	private synchronized void commandSent() {
+		lastSent = System.currentTimeMillis();
+	}
+
+	/**
+	 * Stop the queue after a failed write, unless it has been restarted meanwhile. Return true if it is stopped.
+	 */
+	private synchronized boolean stopAfterFailure(CommandSender caller) {
+		if (sender != caller) {
+			return false;
+		}
+		stop();
+		return true;
+	}
+
+	/**
+	 * Write the queued commands.
+	 *
+	 * @author agent - Initial contribution
+	 *
+	 */
+	private class CommandSender extends Thread {
+
+		private final String name;
+
+		public CommandSender(String name) {
+			this.name = name;
+			this.setDaemon(true);
+			this.setName("IpControlCommandSender-" + name);
+		}
+
+		@Override
+		public void run() {
+			try {
+				AvrCommand command;
+				while ((command = takeCommand(this)) != null) {
+					try {
+						writer.write(command);
+						if (command.getCommandType() == SimpleCommandType.POWER_ON) {
+							Thread.sleep(POWER_ON_DELAY);
+							writer.write(command);
+						}
+						sentCommands.incrementAndGet();
+					} catch (IOException ioException) {
+						logger.warn("Failed to send command to AVR @{}: {}", name, ioException.getMessage());
+						// The connection is broken, the pending commands are dropped with it.
+						if (stopAfterFailure(this)) {
+							writer.writeFailed(ioException);
+						}
+						return;
+					} catch (RuntimeException e) {
+						logger.error("Failed to send command to AVR @{}", name, e);
+					}
+					commandSent();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
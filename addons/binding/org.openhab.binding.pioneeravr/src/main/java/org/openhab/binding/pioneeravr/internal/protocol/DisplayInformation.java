@@ -10,6 +10,8 @@
 
 package org.openhab.binding.pioneeravr.internal.protocol;
 
+import org.openhab.binding.pioneeravr.protocol.AvrConnectionException;
+import org.openhab.binding.pioneeravr.protocol.utils.DisplayInformationConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,7 +49,7 @@ public class DisplayInformation {
 		// FL000005064449474954414C00455800<CR+LF>
 		
 		// first byte holds the two special flags
-		byte firstByte =  (byte)Integer.parseInt( responsePayload.substring(0, 1) , 16);
+		int firstByte = Math.max( 0, DisplayInformationConverter.getHexValue( responsePayload.charAt(0) ) );
 		
 		if( (firstByte & (1<<0)) == (1<<0) ) // 
 			guidIcon = true;
@@ -55,18 +57,12 @@ public class DisplayInformation {
 			volumeDisplay = true;
 		
 		// convert the ascii values back to string
-		StringBuilder sb = new StringBuilder();
-		for( int i=2; i<responsePayload.length()-1; i+=2 )
-		{
-			String hexAsciiValue = responsePayload.substring(i, i+2);
-			try {
-				sb.append( (char)Integer.parseInt(hexAsciiValue, 16) );
-			}
-			catch( Exception e) {
-				logger.error("parsing string failed" + responsePayload + "'", e);
-			}
-		}	
-		infoText = sb.toString();
+		try {
+			infoText = DisplayInformationConverter.convertMessageFromIpControl( responsePayload );
+		}
+		catch( AvrConnectionException e) {
+			logger.error("parsing string failed" + responsePayload + "'", e);
+		}
 	}
 	
 	public String getInfoText() {
@@ -8,8 +8,9 @@
  */
 package org.openhab.binding.pioneeravr.internal.protocol;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.pioneeravr.protocol.AvrConnectionException;
@@ -23,31 +24,41 @@ import org.openhab.binding.pioneeravr.protocol.AvrResponse;
  */
 public class Response implements AvrResponse {
 
+	private static final String DIGITS = "0123456789";
+	private static final String HEX_DIGITS = "0123456789abcdefABCDEF";
+
 	/**
 	 * List of all supported responses coming from AVR.
 	 * 
+	 * The parameter pattern (RegEx) of each type is also given as the length
+	 * and the allowed characters of the parameter, a response is matched with
+	 * these instead of the RegEx.
+	 * 
 	 * @author Antoine Besnard
 	 *
 	 */
 	public enum ResponseType implements AvrResponse.RepsonseType {
-		POWER_STATE("PWR", "[0-2]"), VOLUME_LEVEL("VOL", "[0-9]{3}"), MUTE_STATE("MUT", "[0-1]"), INPUT_SOURCE_CHANNEL(
-				"FN", "[0-9]{2}"), DISPLAY_INFORMATION("FL", "[0-9a-fA-F]{30}");
+		POWER_STATE("PWR", "[0-2]", 1, "012"), VOLUME_LEVEL("VOL", "[0-9]{3}", 3, DIGITS), MUTE_STATE("MUT", "[0-1]",
+				1, "01"), INPUT_SOURCE_CHANNEL("FN", "[0-9]{2}", 2, DIGITS), DISPLAY_INFORMATION("FL",
+				"[0-9a-fA-F]{30}", 30, HEX_DIGITS);
 
 		private String responsePrefix;
 
 		private String parameterPattern;
 
-		private Pattern matchPattern;
+		private int parameterLength;
+
+		// the allowed characters of the parameter, indexed by character
+		private boolean[] parameterChars = new boolean[128];
 
 		private ResponseType(String responsePrefix,
-				String parameterPattern) {
+				String parameterPattern, int parameterLength, String parameterChars) {
 			this.responsePrefix = responsePrefix;
 			this.parameterPattern = parameterPattern;
-			this.matchPattern = Pattern
-					.compile(responsePrefix
-							+ "("
-							+ (StringUtils.isNotEmpty(parameterPattern) ? parameterPattern
-									: "") + ")");
+			this.parameterLength = parameterLength;
+			for (int i = 0; i < parameterChars.length(); i++) {
+				this.parameterChars[parameterChars.charAt(i)] = true;
+			}
 		}
 
 		public String getResponsePrefix() {
@@ -69,7 +80,17 @@ public class Response implements AvrResponse {
 		 * @return
 		 */
 		public boolean match(String responseData) {
-			return matchPattern.matcher(responseData).matches();
+			if (responseData.length() != responsePrefix.length() + parameterLength
+					|| !responseData.startsWith(responsePrefix)) {
+				return false;
+			}
+			for (int i = responsePrefix.length(); i < responseData.length(); i++) {
+				char c = responseData.charAt(i);
+				if (c >= parameterChars.length || !parameterChars[c]) {
+					return false;
+				}
+			}
+			return true;
 		}
 
 		/**
@@ -79,9 +100,26 @@ public class Response implements AvrResponse {
 		 * @return
 		 */
 		public String parseParameter(String responseData) {
-			Matcher matcher = matchPattern.matcher(responseData);
-			matcher.find();
-			return matcher.group(1);
+			return responseData.substring(responsePrefix.length());
+		}
+	}
+
+	// the response types by prefix
+	private static final Map<String, ResponseType> RESPONSE_TYPES = new HashMap<String, ResponseType>();
+
+	// the distinct lengths of the prefixes, longest first
+	private static final int[] PREFIX_LENGTHS;
+
+	static {
+		TreeSet<Integer> prefixLengths = new TreeSet<Integer>();
+		for (ResponseType responseType : ResponseType.values()) {
+			RESPONSE_TYPES.put(responseType.getResponsePrefix(), responseType);
+			prefixLengths.add(responseType.getResponsePrefix().length());
+		}
+		PREFIX_LENGTHS = new int[prefixLengths.size()];
+		int i = 0;
+		for (Integer length : prefixLengths.descendingSet()) {
+			PREFIX_LENGTHS[i++] = length;
 		}
 	}
 
@@ -112,18 +150,22 @@ public class Response implements AvrResponse {
 	 * Return the responseType corresponding to the given responseData. Return
 	 * null if no ResponseType can be matched.
 	 * 
+	 * The responseType is looked up by the prefix of the responseData, so
+	 * only one responseType has to be matched.
+	 * 
 	 * @param responseData
 	 * @return
 	 */
-	private ResponseType parseResponseType(String responseData) {
-		ResponseType result = null;
-		for (ResponseType responseType : ResponseType
-				.values()) {
-			if (responseType.match(responseData)) {
-				result = responseType;
+	static ResponseType parseResponseType(String responseData) {
+		for (int prefixLength : PREFIX_LENGTHS) {
+			if (responseData.length() >= prefixLength) {
+				ResponseType responseType = RESPONSE_TYPES.get(responseData.substring(0, prefixLength));
+				if (responseType != null && responseType.match(responseData)) {
+					return responseType;
+				}
 			}
 		}
-		return result;
+		return null;
 	}
 
 	public ResponseType getResponseType() {
@@ -59,15 +59,33 @@ public abstract class StreamAvrConnection implements AvrConnection {
 	// The maximum time to wait incoming messages.
 	private static final Integer READ_TIMEOUT = 1000;
 
+	// The minimum time between two commands in milliseconds.
+	private static final long MIN_COMMAND_INTERVAL = 100;
+
 	private List<AvrUpdateListener> updateListeners;
 	private List<AvrDisconnectionListener> disconnectionListeners;
 
 	private IpControlInputStreamReader inputStreamReader;
 	private DataOutputStream outputStream;
 
+	private AvrCommandQueue commandQueue;
+
 	public StreamAvrConnection() {
 		this.updateListeners = new ArrayList<>();
 		this.disconnectionListeners = new ArrayList<>();
+		this.commandQueue = new AvrCommandQueue(new AvrCommandQueue.CommandWriter() {
+			@Override
+			public void write(AvrCommand command) throws IOException {
+				writeCommand(command);
+			}
+
+			@Override
+			public void writeFailed(IOException exception) {
+				// Close the broken connection, it is opened again by the next command or status check.
+				close();
+				notifyDisconnection(exception);
+			}
+		}, MIN_COMMAND_INTERVAL);
 	}
 
 	@Override
@@ -98,6 +116,9 @@ public abstract class StreamAvrConnection implements AvrConnection {
 				// Get Output stream
 				outputStream = new DataOutputStream(getOutputStream());
 
+				// Start to send the queued commands.
+				commandQueue.start(getConnectionName());
+
 			} catch (IOException ioException) {
 				logger.debug("Can't connect to {}. Cause: {}", getConnectionName(), ioException.getMessage());
 			}
@@ -131,6 +152,7 @@ public abstract class StreamAvrConnection implements AvrConnection {
 
 	@Override
 	public void close() {
+		commandQueue.stop();
 		if (inputStreamReader != null) {
 			// This method block until the reader is really stopped.
 			inputStreamReader.stopReader();
@@ -140,31 +162,71 @@ public abstract class StreamAvrConnection implements AvrConnection {
 	}
 
 	/**
-	 * Sends to command to the receiver. It does not wait for a reply.
+	 * Queues a command to the receiver. It does not wait until the command is sent or for a reply.
 	 * 
 	 * @param ipControlCommand
 	 *            the command to send.
+	 * @return true if the connection is open and the command has been queued. If the command cannot be written
+	 *         later, the connection is closed and the disconnection listeners are notified.
 	 **/
 	protected boolean sendCommand(AvrCommand ipControlCommand) {
-		boolean isSent = false;
+		boolean isQueued = false;
 		if (connect()) {
-			String command = ipControlCommand.getCommand();
-			try {
-				if (logger.isTraceEnabled()) {
-					logger.trace("Sending {} bytes: {}", command.length(), DatatypeConverter.printHexBinary(command.getBytes()));
-				}
-				outputStream.writeBytes(command);
-				outputStream.flush();
-				isSent = true;
+			// Check the parameter of the command before it is queued.
+			ipControlCommand.getCommand();
+			isQueued = commandQueue.offer(ipControlCommand);
+		}
 
-			} catch (IOException ioException) {
-				logger.error("Error occured when sending command", ioException);
-			}
+		return isQueued;
+	}
 
-			logger.debug("Command sent to AVR @{}: {}", getConnectionName(), command);
+	/**
+	 * Writes a command to the receiver. Called by the sender thread of the command queue.
+	 * 
+	 * @param ipControlCommand
+	 * @throws IOException
+	 */
+	private void writeCommand(AvrCommand ipControlCommand) throws IOException {
+		String command = ipControlCommand.getCommand();
+		if (logger.isTraceEnabled()) {
+			logger.trace("Sending {} bytes: {}", command.length(), DatatypeConverter.printHexBinary(command.getBytes()));
 		}
+		outputStream.writeBytes(command);
+		outputStream.flush();
 
-		return isSent;
+		logger.debug("Command sent to AVR @{}: {}", getConnectionName(), command);
+	}
+
+	/**
+	 * Notify the disconnection listeners that the connection is broken.
+	 * 
+	 * @param exception
+	 */
+	private void notifyDisconnection(IOException exception) {
+		AvrDisconnectionEvent event = new AvrDisconnectionEvent(this, exception);
+		synchronized (disconnectionListeners) {
+			for (AvrDisconnectionListener pioneerAvrDisconnectionListener : disconnectionListeners) {
+				pioneerAvrDisconnectionListener.onDisconnection(event);
+			}
+		}
+	}
+
+	/**
+	 * Return the number of commands sent to the AVR.
+	 * 
+	 * @return
+	 */
+	public long getSentCommands() {
+		return commandQueue.getSentCommands();
+	}
+
+	/**
+	 * Return the number of commands which have been replaced by a newer one before they have been sent.
+	 * 
+	 * @return
+	 */
+	public long getCoalescedCommands() {
+		return commandQueue.getCoalescedCommands();
 	}
 
 	@Override
@@ -192,19 +254,8 @@ public abstract class StreamAvrConnection implements AvrConnection {
 		AvrCommand commandToSend = null;
 
 		if (command == OnOffType.ON) {
+			// The command queue sends the Power ON command twice, the first request only wakeup the AVR CPU.
 			commandToSend = RequestResponseFactory.getIpControlCommand(SimpleCommandType.POWER_ON);
-			// Send the first Power ON command.
-			sendCommand(commandToSend);
-
-			// According to the Pioneer Specs, the first request only wakeup the
-			// AVR CPU, the second one Power ON the AVR. Still according to the Pioneer Specs, the second
-			// request has to be delayed of 100 ms.
-			try {
-				TimeUnit.MILLISECONDS.sleep(100);
-			} catch (InterruptedException ex) {
-				Thread.currentThread().interrupt();
-			}
-
 		} else if (command == OnOffType.OFF) {
 			commandToSend = RequestResponseFactory.getIpControlCommand(SimpleCommandType.POWER_OFF);
 		} else {
@@ -279,6 +330,11 @@ public abstract class StreamAvrConnection implements AvrConnection {
 		return sendCommand(commandToSend);
 	}
 
+	@Override
+	public String toString() {
+		return getConnectionName() + " (" + commandQueue + ")";
+	}
+
 	/**
 	 * Read incoming data from the AVR and notify listeners for dataReceived and disconnection.
 	 * 
@@ -334,10 +390,7 @@ public abstract class StreamAvrConnection implements AvrConnection {
 
 			} catch (IOException e) {
 				logger.warn("The AVR @{} is disconnected.", getConnectionName(), e);
-				AvrDisconnectionEvent event = new AvrDisconnectionEvent(StreamAvrConnection.this, e);
-				for (AvrDisconnectionListener pioneerAvrDisconnectionListener : disconnectionListeners) {
-					pioneerAvrDisconnectionListener.onDisconnection(event);
-				}
+				notifyDisconnection(e);
 			}
 
 			// Notify the stopReader method caller that the reader is stopped.
@@ -12,6 +12,15 @@ import org.openhab.binding.pioneeravr.protocol.AvrConnectionException;
 
 public class DisplayInformationConverter {
 
+	// the value of each hex digit, -1 for other characters
+	private static final byte[] HEX_VALUES = new byte[128];
+
+	static {
+		for (int i = 0; i < HEX_VALUES.length; i++) {
+			HEX_VALUES[i] = (byte) Character.digit(i, 16);
+		}
+	}
+
 	/**
 	 * Convert an IpControl information message payload to a readable String.
 	 * 
@@ -28,18 +37,29 @@ public class DisplayInformationConverter {
 		// First byte holds the two special flags. Do not use it to parse the
 		// message.
 		// Convert the ASCII values back to string
-		StringBuilder sb = new StringBuilder();
-		for (int i = 2; i < responsePayload.length() - 1; i += 2) {
-			String hexAsciiValue = responsePayload.substring(i, i + 2);
-			try {
-				sb.append((char) Integer.parseInt(hexAsciiValue, 16));
-			} catch (Exception e) {
+		int length = Math.max(0, (responsePayload.length() - 2) / 2);
+		char[] text = new char[length];
+		for (int i = 0; i < length; i++) {
+			int high = getHexValue(responsePayload.charAt(2 + 2 * i));
+			int low = getHexValue(responsePayload.charAt(3 + 2 * i));
+			if (high < 0 || low < 0) {
 				throw new AvrConnectionException(
-						"Failed to parse the reponsePayload as an IpControl information message.",
-						e);
+						"Failed to parse the reponsePayload as an IpControl information message.");
 			}
+			text[i] = (char) (high << 4 | low);
 		}
-		return sb.toString();
+		return new String(text);
+	}
+
+	/**
+	 * Return the value of a hex digit, or -1 if the character is not a hex
+	 * digit.
+	 * 
+	 * @param c
+	 * @return
+	 */
+	public static int getHexValue(char c) {
+		return c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
 	}
 
 }
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pulseaudio.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.pulseaudio.internal.cli.FakePulseaudioServer;
+import org.openhab.binding.pulseaudio.internal.items.AbstractAudioDeviceConfig;
+import org.openhab.binding.pulseaudio.internal.items.Sink;
+import org.openhab.binding.pulseaudio.internal.items.SinkInput;
+
+/**
+ * Tests cases for the device indexes and change detection of {@link PulseaudioClient}.
+ *
+ * @author agent - Initial contribution
+ */
+public class PulseaudioClientTest {
+
+	private static final String MODULES = "2 module(s) loaded.\n" + "    index: 4\n"
+			+ "\tname: <module-alsa-card>\n" + "    index: 9\n" + "\tname: <module-native-protocol-unix>\n";
+
+	private static final String SINKS = "1 sink(s) available.\n" + "  * index: 0\n"
+			+ "\tname: <alsa_output.pci-0000_00_1b.0.analog-stereo>\n" + "\tstate: RUNNING\n"
+			+ "\tvolume: 0:  80% 1:  80%\n" + "\tmuted: no\n" + "\tmodule: 4\n";
+
+	private static final String SINK_INPUT = "1 sink input(s) available.\n" + "    index: 3\n"
+			+ "\tstate: RUNNING\n" + "\tsink: 0 <alsa_output.pci-0000_00_1b.0.analog-stereo>\n"
+			+ "\tvolume: 0:  %d%% 1:  %d%%\n" + "\tmuted: no\n" + "\tmodule: 9\n" + "\t\tmedia.name = \"Playback\"\n";
+
+	private FakePulseaudioServer server;
+	private PulseaudioClient client;
+	private List<AbstractAudioDeviceConfig> added = new ArrayList<AbstractAudioDeviceConfig>();
+	private List<AbstractAudioDeviceConfig> changed = new ArrayList<AbstractAudioDeviceConfig>();
+	private List<AbstractAudioDeviceConfig> removed = new ArrayList<AbstractAudioDeviceConfig>();
+
+	@Before
+	public void setUp() throws Exception {
+		server = new FakePulseaudioServer();
+		server.setReply("list-modules", MODULES);
+		server.setReply("list-sinks", SINKS);
+		server.setReply("list-sources", "0 source(s) available.\n");
+		server.setReply("list-sink-inputs", String.format(SINK_INPUT, 60, 60));
+		server.setReply("list-source-outputs", "0 source output(s) available.\n");
+		client = new PulseaudioClient("localhost", server.getPort());
+		client.setItemChangeListener(new PulseaudioClient.ItemChangeListener() {
+			@Override
+			public void onItemsChanged(List<AbstractAudioDeviceConfig> newItems,
+					List<AbstractAudioDeviceConfig> changedItems, List<AbstractAudioDeviceConfig> removedItems) {
+				added.addAll(newItems);
+				changed.addAll(changedItems);
+				removed.addAll(removedItems);
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		client.disconnect();
+		server.close();
+	}
+
+	@Test
+	public void testLookupByNameAndId() {
+		Sink sink = client.getSink("ALSA_OUTPUT.pci-0000_00_1b.0.analog-stereo");
+		assertThat(sink, is(notNullValue()));
+		assertThat(client.getSink(0), is(sameInstance(sink)));
+		assertThat(sink.getModule().getPaName(), is("module-alsa-card"));
+		assertThat(sink.getVolume(), is(80));
+
+		SinkInput sinkInput = client.getSinkInput(3);
+		assertThat(client.getSinkInput("playback"), is(sameInstance(sinkInput)));
+		assertThat(client.getGenericAudioItem("Playback"), is(sameInstance((AbstractAudioDeviceConfig) sinkInput)));
+		assertThat(sinkInput.getSink(), is(sameInstance(sink)));
+		assertThat(client.getItems().size(), is(2));
+	}
+
+	@Test
+	public void testUnchangedDevicesAreNotReported() throws Exception {
+		client.update();
+
+		assertThat(added.isEmpty(), is(true));
+		assertThat(changed.isEmpty(), is(true));
+		assertThat(removed.isEmpty(), is(true));
+	}
+
+	@Test
+	public void testOnlyChangedDevicesAreReported() throws Exception {
+		SinkInput sinkInput = client.getSinkInput(3);
+		server.setReply("list-sink-inputs", String.format(SINK_INPUT, 40, 40));
+
+		client.update();
+
+		assertThat(changed.size(), is(1));
+		assertThat(changed.get(0), is(sameInstance((AbstractAudioDeviceConfig) sinkInput)));
+		assertThat(sinkInput.getVolume(), is(40));
+		assertThat(added.isEmpty(), is(true));
+	}
+
+	@Test
+	public void testRefreshReadsOnlyTheKindOfTheDevice() {
+		int commands = server.getCommands().size();
+
+		client.refresh(client.getSinkInput(3));
+
+		assertThat(server.getCommands().size(), is(commands + 1));
+		assertThat(server.getCommands().get(commands), is("list-sink-inputs"));
+	}
+
+	@Test
+	public void testRemovedDevicesAreReported() throws Exception {
+		SinkInput sinkInput = client.getSinkInput(3);
+		server.setReply("list-sink-inputs", "0 sink input(s) available.\n");
+
+		client.update();
+
+		assertThat(removed.size(), is(1));
+		assertThat(removed.get(0), is(sameInstance((AbstractAudioDeviceConfig) sinkInput)));
+		assertThat(client.getSinkInput(3), is(nullValue()));
+		assertThat(client.getGenericAudioItem("Playback"), is(nullValue()));
+	}
+
+	@Test
+	public void testUpdateFailureIsThrown() throws Exception {
+		server.close();
+
+		try {
+			client.update();
+			fail("the update should fail without a pulseaudio server");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pulseaudio.internal.cli;
+
+/**
+ * Runs the list commands of an update cycle against the {@link FakePulseaudioServer} over one
+ * {@link CliConnection} and prints the time per cycle. It is not run with the tests, run its main
+ * method to measure the connection.
+ *
+ * @author agent - Initial contribution
+ */
+public class CliConnectionBenchmark {
+
+	private static final int CYCLES = 2000;
+
+	public static void main(String[] args) throws Exception {
+		FakePulseaudioServer server = new FakePulseaudioServer();
+		CliConnection connection = new CliConnection("localhost", server.getPort(), 2000);
+		try {
+			// warm up
+			for (int i = 0; i < CYCLES / 10; i++) {
+				connection.sendRequests(CliConnectionTest.UPDATE_COMMANDS);
+			}
+
+			long start = System.nanoTime();
+			for (int i = 0; i < CYCLES; i++) {
+				connection.sendRequests(CliConnectionTest.UPDATE_COMMANDS);
+			}
+			long duration = System.nanoTime() - start;
+			System.out.println(String.format("CliConnection: %d update cycles in %d ms (%d us per cycle), %d connection(s)",
+					CYCLES, duration / 1000000, duration / CYCLES / 1000, server.getConnectionCount()));
+		} finally {
+			connection.close();
+			server.close();
+		}
+	}
+}
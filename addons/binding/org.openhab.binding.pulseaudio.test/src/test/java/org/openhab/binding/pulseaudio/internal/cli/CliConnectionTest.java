@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pulseaudio.internal.cli;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link CliConnection}.
+ *
+ * @author agent - Initial contribution
+ */
+public class CliConnectionTest {
+
+	static final List<String> UPDATE_COMMANDS = Arrays.asList("list-modules", "list-sinks", "list-sources",
+			"list-sink-inputs", "list-source-outputs");
+
+	private FakePulseaudioServer server;
+	private CliConnection connection;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new FakePulseaudioServer();
+		connection = new CliConnection("localhost", server.getPort(), 2000);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connection.close();
+		server.close();
+	}
+
+	@Test
+	public void testPipelinedRepliesKeepTheirOrder() throws Exception {
+		List<String> replies = connection.sendRequests(UPDATE_COMMANDS);
+
+		assertThat(replies.size(), is(5));
+		assertThat(replies.get(0), containsString("<module-0>"));
+		assertThat(replies.get(1), containsString("<sink-0>"));
+		assertThat(replies.get(4), containsString("<source-output-0>"));
+		assertThat(server.getCommands(), is(UPDATE_COMMANDS));
+	}
+
+	@Test
+	public void testConnectionIsReused() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			connection.sendRequests(UPDATE_COMMANDS);
+			assertThat(connection.sendRequest("set-sink-mute 0 1"), is(""));
+		}
+		assertThat(server.getConnectionCount(), is(1));
+	}
+
+	@Test
+	public void testReconnectAfterServerClosedConnection() throws Exception {
+		connection.sendRequest("list-sinks");
+		server.dropConnection();
+
+		List<String> replies = connection.sendRequests(UPDATE_COMMANDS);
+
+		assertThat(replies.get(1), containsString("<sink-0>"));
+		assertThat(server.getConnectionCount(), is(2));
+	}
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pulseaudio.internal.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal stand-in for the cli module of a pulseaudio server, which answers every command
+ * line with a canned output followed by the prompt.
+ *
+ * @author agent - Initial contribution
+ */
+public class FakePulseaudioServer {
+
+	private static final String PROMPT = ">>> ";
+
+	private final ServerSocket serverSocket;
+	private final List<String> commands = new CopyOnWriteArrayList<String>();
+	private final Map<String, String> replies = new ConcurrentHashMap<String, String>();
+	private final AtomicInteger connections = new AtomicInteger();
+	private volatile Socket client;
+
+	public FakePulseaudioServer() throws IOException {
+		serverSocket = new ServerSocket(0);
+		Thread thread = new Thread("fake-pulseaudio-server") {
+			@Override
+			public void run() {
+				acceptConnections();
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Sets the output of the given command instead of the generated default.
+	 */
+	public void setReply(String command, String reply) {
+		replies.put(command, reply);
+	}
+
+	public List<String> getCommands() {
+		return commands;
+	}
+
+	public int getConnectionCount() {
+		return connections.get();
+	}
+
+	/**
+	 * Lets the server close the current connection without answering, as a server
+	 * does with an idle connection.
+	 */
+	public void dropConnection() throws IOException {
+		Socket socket = client;
+		if (socket != null) {
+			socket.close();
+		}
+	}
+
+	public void close() throws IOException {
+		serverSocket.close();
+		dropConnection();
+	}
+
+	private void acceptConnections() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				client = socket;
+				connections.incrementAndGet();
+				handle(socket);
+			} catch (IOException e) {
+				// the server or the connection has been closed
+			}
+		}
+	}
+
+	private void handle(Socket socket) throws IOException {
+		try {
+			socket.setTcpNoDelay(true);
+			OutputStream out = socket.getOutputStream();
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+			out.write(("Welcome to PulseAudio! Use \"help\" for usage information.\n" + PROMPT).getBytes("UTF-8"));
+			out.flush();
+			String line;
+			while ((line = in.readLine()) != null) {
+				commands.add(line);
+				out.write((reply(line) + PROMPT).getBytes("UTF-8"));
+				out.flush();
+			}
+		} finally {
+			socket.close();
+		}
+	}
+
+	private String reply(String command) {
+		String reply = replies.get(command);
+		if (reply != null) {
+			return reply;
+		}
+		if (command.startsWith("list-")) {
+			String type = command.substring(5, command.length() - 1);
+			return "1 " + type + "(s) available.\n    index: 0\n\tname: <" + type + "-0>\n";
+		}
+		return "";
+	}
+}
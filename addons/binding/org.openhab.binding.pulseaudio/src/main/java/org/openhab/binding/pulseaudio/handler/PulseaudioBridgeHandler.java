@@ -15,7 +15,6 @@ import static org.openhab.binding.pulseaudio.PulseaudioBindingConstants.BRIDGE_P
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -26,6 +25,7 @@ import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
@@ -57,46 +57,52 @@ public class PulseaudioBridgeHandler extends BaseBridgeHandler {
 
 	private PulseaudioClient client;
 
-	private HashSet<String> lastActiveDevices = new HashSet<String>();
-
 	private ScheduledFuture<?> pollingJob;
 	private Runnable pollingRunnable = new Runnable() {
 		@Override
 		public void run() {
-			client.update();
-			for (AbstractAudioDeviceConfig device : client.getItems()) {
-				if (lastActiveDevices != null
-						&& lastActiveDevices.contains(device.getPaName())) {
-					for (DeviceStatusListener deviceStatusListener : deviceStatusListeners) {
-						try {
-							deviceStatusListener.onDeviceStateChanged(
-									getThing().getUID(), device);
-						} catch (Exception e) {
-							logger.error(
-									"An exception occurred while calling the DeviceStatusListener",
-									e);
-						}
+			// changes are reported to the itemChangeListener
+			update();
+		}
+	};
+
+	private PulseaudioClient.ItemChangeListener itemChangeListener = new PulseaudioClient.ItemChangeListener() {
+		@Override
+		public void onItemsChanged(List<AbstractAudioDeviceConfig> added,
+				List<AbstractAudioDeviceConfig> changed,
+				List<AbstractAudioDeviceConfig> removed) {
+			for (AbstractAudioDeviceConfig device : removed) {
+				for (DeviceStatusListener deviceStatusListener : deviceStatusListeners) {
+					try {
+						deviceStatusListener.onDeviceRemoved(
+								PulseaudioBridgeHandler.this, device);
+					} catch (Exception e) {
+						logger.error(
+								"An exception occurred while calling the DeviceStatusListener",
+								e);
 					}
-				} else {
-					for (DeviceStatusListener deviceStatusListener : deviceStatusListeners) {
-						try {
-							deviceStatusListener.onDeviceAdded(getThing(),
-									device);
-							deviceStatusListener.onDeviceStateChanged(
-									getThing().getUID(), device);
-						} catch (Exception e) {
-							logger.error(
-									"An exception occurred while calling the DeviceStatusListener",
-									e);
-						}
-						lastActiveDevices.add(device.getPaName());
+				}
+			}
+			for (AbstractAudioDeviceConfig device : added) {
+				for (DeviceStatusListener deviceStatusListener : deviceStatusListeners) {
+					try {
+						deviceStatusListener.onDeviceAdded(getThing(), device);
+						deviceStatusListener.onDeviceStateChanged(getThing()
+								.getUID(), device);
+					} catch (Exception e) {
+						logger.error(
+								"An exception occurred while calling the DeviceStatusListener",
+								e);
 					}
 				}
 			}
+			for (AbstractAudioDeviceConfig device : changed) {
+				notifyStateChanged(device, deviceStatusListeners);
+			}
 		}
 	};
 
-	private List<DeviceStatusListener> deviceStatusListeners = new CopyOnWriteArrayList<>();
+	private CopyOnWriteArrayList<DeviceStatusListener> deviceStatusListeners = new CopyOnWriteArrayList<>();
 
 	public PulseaudioBridgeHandler(Bridge bridge) {
 		super(bridge);
@@ -105,13 +111,59 @@ public class PulseaudioBridgeHandler extends BaseBridgeHandler {
 	@Override
 	public void handleCommand(ChannelUID channelUID, Command command) {
 		if (command instanceof RefreshType) {
-			client.update();
+			if (!update()) {
+				return;
+			}
+			// a refresh is expected to update all states, not only the changed ones
+			for (AbstractAudioDeviceConfig device : client.getItems()) {
+				notifyStateChanged(device, deviceStatusListeners);
+			}
 		} else {
 			logger.warn("received invalid command for pulseaudio bridge '{}'.",
 					host);
 		}
 	}
 
+	/**
+	 * Updates the devices from the pulseaudio server. The bridge goes offline, if the server cannot
+	 * be reached, and online again with the first successful update, as the client reconnects on
+	 * its own.
+	 * 
+	 * @return true if the devices have been updated
+	 */
+	private boolean update() {
+		try {
+			client.update();
+		} catch (IOException e) {
+			if (getThing().getStatus() != ThingStatus.OFFLINE) {
+				logger.error("Lost connection to Pulseaudio server [Host '{}':'{}']: {}", host, port,
+						e.getLocalizedMessage());
+				updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+						e.getLocalizedMessage());
+			}
+			return false;
+		}
+		if (getThing().getStatus() != ThingStatus.ONLINE) {
+			logger.info("Reestablished connection to Pulseaudio server on Host '{}':'{}'.", host, port);
+			updateStatus(ThingStatus.ONLINE);
+		}
+		return true;
+	}
+
+	private void notifyStateChanged(AbstractAudioDeviceConfig device,
+			List<DeviceStatusListener> listeners) {
+		for (DeviceStatusListener deviceStatusListener : listeners) {
+			try {
+				deviceStatusListener.onDeviceStateChanged(getThing().getUID(),
+						device);
+			} catch (Exception e) {
+				logger.error(
+						"An exception occurred while calling the DeviceStatusListener",
+						e);
+			}
+		}
+	}
+
 	private synchronized void startAutomaticRefresh() {
 		if (pollingJob == null || pollingJob.isCancelled()) {
 			pollingJob = scheduler.scheduleAtFixedRate(pollingRunnable, 0,
@@ -151,11 +203,17 @@ public class PulseaudioBridgeHandler extends BaseBridgeHandler {
 				public void run() {
 					try {
 						client = new PulseaudioClient(host, port);
+						client.setItemChangeListener(itemChangeListener);
 						if (client.isConnected()) {
 							updateStatus(ThingStatus.ONLINE);
 							logger.info(
 									"Established connection to Pulseaudio server on Host '{}':'{}'.",
 									host, port);
+							// the initial update of the client has not been
+							// reported, so all devices are new for the listeners
+							itemChangeListener.onItemsChanged(client.getItems(),
+									Collections.<AbstractAudioDeviceConfig> emptyList(),
+									Collections.<AbstractAudioDeviceConfig> emptyList());
 							startAutomaticRefresh();
 						}
 					} catch (IOException e) {
@@ -191,7 +249,18 @@ public class PulseaudioBridgeHandler extends BaseBridgeHandler {
 			throw new IllegalArgumentException(
 					"It's not allowed to pass a null deviceStatusListener.");
 		}
-		return deviceStatusListeners.add(deviceStatusListener);
+		// the handlers register again after they have lost their device
+		boolean result = deviceStatusListeners.addIfAbsent(deviceStatusListener);
+		PulseaudioClient client = this.client;
+		if (result && client != null) {
+			// the listener would otherwise not get a state until a device changes
+			List<DeviceStatusListener> listeners = Collections
+					.singletonList(deviceStatusListener);
+			for (AbstractAudioDeviceConfig device : client.getItems()) {
+				notifyStateChanged(device, listeners);
+			}
+		}
+		return result;
 	}
 
 	public boolean unregisterDeviceStatusListener(
@@ -184,7 +184,7 @@ public class PulseaudioHandler extends BaseThingHandler implements
 					PulseaudioBindingConstants.VOLUME_CHANNEL)) {
 				if (command instanceof IncreaseDecreaseType) {
 					// refresh to get the current volume level
-					bridge.getClient().update();
+					bridge.getClient().refresh(device);
 					device = bridge.getDevice(name);
 					int volume = device.getVolume();
 					if (command.equals(IncreaseDecreaseType.INCREASE))
@@ -281,8 +281,7 @@ public class PulseaudioHandler extends BaseThingHandler implements
 	public void onDeviceRemoved(PulseaudioBridgeHandler bridge,
 			AbstractAudioDeviceConfig device) {
 		if (device.getPaName().equals(name)) {
-			bridgeHandler.unregisterDeviceStatusListener(this);
-			bridgeHandler = null;
+			// we stay registered, so that we notice when the device is back
 			updateStatus(ThingStatus.OFFLINE);
 		}
 	}
@@ -290,5 +289,11 @@ public class PulseaudioHandler extends BaseThingHandler implements
 	@Override
 	public void onDeviceAdded(Bridge bridge, AbstractAudioDeviceConfig device) {
 		logger.trace("new device discovered "+device+" by "+bridge);
+		if (device.getPaName().equals(name)) {
+			// registers with the bridge again, if the watchdog has dropped it meanwhile
+			if (getPulseaudioBridgeHandler() != null) {
+				updateStatus(ThingStatus.ONLINE);
+			}
+		}
 	}
 }
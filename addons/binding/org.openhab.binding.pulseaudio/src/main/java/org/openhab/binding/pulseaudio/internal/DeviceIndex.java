@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pulseaudio.internal;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.openhab.binding.pulseaudio.internal.items.AbstractAudioDeviceConfig;
+
+/**
+ * Holds all devices of one kind (e.g. all sinks) of a pulseaudio server, indexed
+ * by their id and their name.
+ *
+ * When the devices are read again from the server, the existing objects are kept
+ * and only their values are updated, so that references between the devices stay
+ * valid and only real changes are reported.
+ *
+ * @author agent - Initial contribution
+ */
+class DeviceIndex<T extends AbstractAudioDeviceConfig> {
+
+	private final Map<Integer, T> byId = new LinkedHashMap<Integer, T>();
+	private final Map<String, T> byName = new HashMap<String, T>();
+
+	public T get(int id) {
+		return byId.get(id);
+	}
+
+	/**
+	 * @param name the name of the device, the case is ignored
+	 * @return the first device with the given name
+	 */
+	public T get(String name) {
+		return name != null ? byName.get(key(name)) : null;
+	}
+
+	public Collection<T> values() {
+		return byId.values();
+	}
+
+	/**
+	 * Merges the devices which have just been read from the server into the
+	 * index.
+	 *
+	 * @param devices all devices of this kind currently known to the server
+	 * @param added receives the devices which are new
+	 * @param changed receives the existing devices whose values have changed
+	 * @param removed receives the devices which do not exist anymore
+	 */
+	public void merge(Collection<T> devices, List<AbstractAudioDeviceConfig> added,
+			List<AbstractAudioDeviceConfig> changed, List<AbstractAudioDeviceConfig> removed) {
+		Map<Integer, T> current = new HashMap<Integer, T>(byId);
+		byId.clear();
+		for (T device : devices) {
+			T existing = current.remove(device.getId());
+			if (existing != null && existing.getPaName().equals(device.getPaName())) {
+				if (existing.update(device)) {
+					changed.add(existing);
+				}
+				byId.put(existing.getId(), existing);
+			} else {
+				if (existing != null) {
+					// the id has been reused for another device
+					removed.add(existing);
+				}
+				added.add(device);
+				byId.put(device.getId(), device);
+			}
+		}
+		removed.addAll(current.values());
+		byName.clear();
+		for (T device : byId.values()) {
+			String key = key(device.getPaName());
+			if (!byName.containsKey(key)) {
+				byName.put(key, device);
+			}
+		}
+	}
+
+	/**
+	 * Adds the devices to the given name map, unless the name is already taken.
+	 */
+	void addNamesTo(Map<String, AbstractAudioDeviceConfig> names) {
+		for (T device : byId.values()) {
+			String key = key(device.getPaName());
+			if (!names.containsKey(key)) {
+				names.put(key, device);
+			}
+		}
+	}
+
+	static String key(String name) {
+		return name.toLowerCase(Locale.ENGLISH);
+	}
+}
@@ -9,16 +9,15 @@
 package org.openhab.binding.pulseaudio.internal;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.PrintStream;
-import java.net.Socket;
-import java.net.SocketException;
-import java.net.SocketTimeoutException;
-import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
+import org.openhab.binding.pulseaudio.internal.cli.CliConnection;
 import org.openhab.binding.pulseaudio.internal.cli.Parser;
 import org.openhab.binding.pulseaudio.internal.items.*;
 import org.openhab.binding.pulseaudio.internal.items.AbstractAudioDeviceConfig.State;
@@ -32,19 +31,50 @@ import org.slf4j.LoggerFactory;
  * 
  * On the pulseaudio server the module-cli-protocol-tcp has to be loaded.
  * 
+ * The client keeps a single connection to the server open and pipelines the
+ * list commands of an update. The devices are indexed by id and name and kept
+ * between updates, so that only devices which have really changed are reported
+ * to the {@link ItemChangeListener}.
+ * 
  * @author Tobias Bräutigam
  * @since 1.2.0
  */
 public class PulseaudioClient {
 	
+	/**
+	 * Is notified after an update about the devices that have been added,
+	 * changed or removed on the pulseaudio server.
+	 */
+	public interface ItemChangeListener {
+		void onItemsChanged(List<AbstractAudioDeviceConfig> added,
+				List<AbstractAudioDeviceConfig> changed,
+				List<AbstractAudioDeviceConfig> removed);
+	}
+	
 	private static final Logger logger = LoggerFactory.getLogger(PulseaudioClient.class);
 
+	/**
+	 * connect and read timeout in milliseconds
+	 */
+	private static final int TIMEOUT = 2000;
+
 	private String host;
 	private int port;
-	private Socket client;
+	private CliConnection connection;
 
-	private List<AbstractAudioDeviceConfig> items;
-	private List<Module> modules;
+	private final DeviceIndex<Sink> sinks = new DeviceIndex<Sink>();
+	private final DeviceIndex<Source> sources = new DeviceIndex<Source>();
+	private final DeviceIndex<SinkInput> sinkInputs = new DeviceIndex<SinkInput>();
+	private final DeviceIndex<SourceOutput> sourceOutputs = new DeviceIndex<SourceOutput>();
+	private Map<String, AbstractAudioDeviceConfig> itemsByName = new HashMap<String, AbstractAudioDeviceConfig>();
+	private Map<Integer, Module> modules = new LinkedHashMap<Integer, Module>();
+	
+	/**
+	 * serializes the updates, so that the replies are applied in the order they were requested
+	 */
+	private final Object updateLock = new Object();
+	
+	private ItemChangeListener itemChangeListener;
 	
 	/**
 	 * corresponding name to execute actions on sink items 
@@ -115,52 +145,127 @@ public class PulseaudioClient {
 		this.host = host;
 		this.port = port;
 		
-		items = new ArrayList<AbstractAudioDeviceConfig>();
-		modules = new ArrayList<Module>();
+		connection = new CliConnection(host, port, TIMEOUT);
 		
 		connect();
 		update();
 	}
 	
 	public boolean isConnected() {
-		return client.isConnected();
+		return connection.isConnected();
+	}
+
+	public void setItemChangeListener(ItemChangeListener itemChangeListener) {
+		this.itemChangeListener = itemChangeListener;
 	}
 
 	/**
 	 * updates the item states and their relationships
+	 * 
+	 * @throws IOException if the pulseaudio server cannot be reached
 	 */
-	public void update() {
-		modules.clear();
-		modules.addAll(Parser.parseModules(listModules()));
-		
-		items.clear();
-		items.addAll(Parser.parseSinks(listSinks(),this));
-		items.addAll(Parser.parseSources(listSources(),this));
-		items.addAll(Parser.parseSinkInputs(listSinkInputs(),this));
-		items.addAll(Parser.parseSourceOutputs(listSourceOutputs(),this));
-		
-		logger.debug("Pulseaudio server "+host+": "+modules.size()+" modules and "+items.size()+" items updated");
-	}
-	
-	
-	private String listModules() {
-		return this._sendRawRequest(CMD_LIST_MODULES);
+	public void update() throws IOException {
+		refresh(CMD_LIST_MODULES, CMD_LIST_SINKS, CMD_LIST_SOURCES,
+				CMD_LIST_SINK_INPUTS, CMD_LIST_SOURCE_OUTPUTS);
 	}
 
-	private String listSinks() {
-		return this._sendRawRequest(CMD_LIST_SINKS);
+	/**
+	 * updates the item states after a command has changed them, failures are only logged
+	 * like the failures of the commands
+	 */
+	private void updateAfterCommand() {
+		try {
+			update();
+		} catch (IOException e) {
+			logger.error("Failed to update the state of pa-server {}: {}", host, e.getLocalizedMessage());
+		}
 	}
 	
-	private String listSources() {
-		return this._sendRawRequest(CMD_LIST_SOURCES);
-	}
-
-	private String listSinkInputs() {
-		return this._sendRawRequest(CMD_LIST_SINK_INPUTS);
+	/**
+	 * reads only the devices of the same kind as the given item again, e.g. all sinks
+	 * 
+	 * @param item the item whose current state is needed
+	 */
+	public void refresh(AbstractAudioDeviceConfig item) {
+		try {
+			if (item instanceof Sink) {
+				refresh(CMD_LIST_SINKS);
+			} else if (item instanceof Source) {
+				refresh(CMD_LIST_SOURCES);
+			} else if (item instanceof SinkInput) {
+				refresh(CMD_LIST_SINK_INPUTS);
+			} else if (item instanceof SourceOutput) {
+				refresh(CMD_LIST_SOURCE_OUTPUTS);
+			}
+		} catch (IOException e) {
+			logger.error("Failed to refresh {} of pa-server {}: {}", item.getPaName(), host,
+					e.getLocalizedMessage());
+		}
 	}
 	
-	private String listSourceOutputs() {
-		return this._sendRawRequest(CMD_LIST_SOURCE_OUTPUTS);
+	/**
+	 * sends the given list commands and merges their results into the indexes.
+	 * The commands have to be given in the order modules, sinks, sources, sink-inputs,
+	 * source-outputs, because the parsers resolve references to the preceding ones.
+	 */
+	private void refresh(String... commands) throws IOException {
+		List<AbstractAudioDeviceConfig> added = new ArrayList<AbstractAudioDeviceConfig>();
+		List<AbstractAudioDeviceConfig> changed = new ArrayList<AbstractAudioDeviceConfig>();
+		List<AbstractAudioDeviceConfig> removed = new ArrayList<AbstractAudioDeviceConfig>();
+		int moduleCount;
+		synchronized (updateLock) {
+			// all list commands are sent at once and answered in the same order
+			logger.trace("sending requests {} to pa-server {}", Arrays.toString(commands), host);
+			List<String> replies = connection.sendRequests(Arrays.asList(commands));
+			synchronized (this) {
+				for (int i = 0; i < commands.length; i++) {
+					String command = commands[i];
+					String reply = replies.get(i);
+					if (command.equals(CMD_LIST_MODULES)) {
+						Map<Integer, Module> newModules = new LinkedHashMap<Integer, Module>();
+						for (Module module : Parser.parseModules(reply)) {
+							newModules.put(module.getId(), module);
+						}
+						modules = newModules;
+					} else if (command.equals(CMD_LIST_SINKS)) {
+						sinks.merge(Parser.parseSinks(reply, this), added, changed, removed);
+						for (Sink sink : sinks.values()) {
+							if (sink.isCombinedSink()) {
+								// point to the indexed sinks instead of the freshly parsed ones
+								List<Sink> combinedSinks = new ArrayList<Sink>();
+								for (String name : sink.getCombinedSinkNames()) {
+									Sink combinedSink = sinks.get(name);
+									if (combinedSink != null) {
+										combinedSinks.add(combinedSink);
+									}
+								}
+								sink.setCombinedSinks(combinedSinks);
+							}
+						}
+					} else if (command.equals(CMD_LIST_SOURCES)) {
+						sources.merge(Parser.parseSources(reply, this), added, changed, removed);
+					} else if (command.equals(CMD_LIST_SINK_INPUTS)) {
+						sinkInputs.merge(Parser.parseSinkInputs(reply, this), added, changed, removed);
+					} else if (command.equals(CMD_LIST_SOURCE_OUTPUTS)) {
+						sourceOutputs.merge(Parser.parseSourceOutputs(reply, this), added, changed, removed);
+					}
+				}
+				Map<String, AbstractAudioDeviceConfig> names = new HashMap<String, AbstractAudioDeviceConfig>();
+				sinks.addNamesTo(names);
+				sources.addNamesTo(names);
+				sinkInputs.addNamesTo(names);
+				sourceOutputs.addNamesTo(names);
+				itemsByName = names;
+				moduleCount = modules.size();
+			}
+		}
+		logger.debug("Pulseaudio server {}: {} modules, {} items added, {} changed, {} removed",
+				new Object[] { host, moduleCount, added.size(), changed.size(), removed.size() });
+		
+		ItemChangeListener listener = itemChangeListener;
+		if (listener != null && (!added.isEmpty() || !changed.isEmpty() || !removed.isEmpty())) {
+			listener.onItemsChanged(added, changed, removed);
+		}
 	}
 	
 	/**
@@ -168,11 +273,8 @@ public class PulseaudioClient {
 	 * @param id
 	 * @return the corresponding {@link Module} to the given <code>id</code>
 	 */
-	public Module getModule(int id) {
-		for (Module module : modules) {
-			if (module.getId()==id) return module;
-		}
-		return null;
+	public synchronized Module getModule(int id) {
+		return modules.get(id);
 	}
 	
 	/**
@@ -187,106 +289,77 @@ public class PulseaudioClient {
 	
 	/**
 	 * retrieves a {@link Sink} by its name
-	 * 
 	 * @return the corresponding {@link Sink} to the given <code>name</code>
 	 */
-	public Sink getSink(String name) {
-		for(AbstractAudioDeviceConfig item : items) {
-			if (item.getPaName().equalsIgnoreCase(name) && item instanceof Sink)
-				return (Sink)item;
-		}
-		return null;
+	public synchronized Sink getSink(String name) {
+		return sinks.get(name);
 	}
 	/**
 	 * retrieves a {@link Sink} by its id
 	 * @return the corresponding {@link Sink} to the given <code>id</code>
 	 */
-	public Sink getSink(int id) {
-		for(AbstractAudioDeviceConfig item : items) {
-			if (item.getId()==id && item instanceof Sink)
-				return (Sink)item;
-		}
-		return null;
+	public synchronized Sink getSink(int id) {
+		return sinks.get(id);
 	}
 	/**
 	 * retrieves a {@link SinkInput} by its name
 	 * @return the corresponding {@link SinkInput} to the given <code>name</code>
 	 */
-	public SinkInput getSinkInput(String name) {
-		for(AbstractAudioDeviceConfig item : items) {
-			if (item.getPaName().equalsIgnoreCase(name) && item instanceof SinkInput)
-				return (SinkInput) item;
-		}
-		return null;
+	public synchronized SinkInput getSinkInput(String name) {
+		return sinkInputs.get(name);
 	}
 	/**
 	 * retrieves a {@link SinkInput} by its id
 	 * @return the corresponding {@link SinkInput} to the given <code>id</code>
 	 */
-	public SinkInput getSinkInput(int id) {
-		for(AbstractAudioDeviceConfig item : items) {
-			if (item.getId()==id && item instanceof SinkInput)
-				return (SinkInput) item;
-		}
-		return null;
+	public synchronized SinkInput getSinkInput(int id) {
+		return sinkInputs.get(id);
 	}
 	/**
 	 * retrieves a {@link Source} by its name
 	 * @return the corresponding {@link Source} to the given <code>name</code>
 	 */
-	public Source getSource(String name) {
-		for(AbstractAudioDeviceConfig item : items) {
-			if (item.getPaName().equalsIgnoreCase(name) && item instanceof Source)
-				return (Source) item;
-		}
-		return null;
+	public synchronized Source getSource(String name) {
+		return sources.get(name);
 	}
 	/**
 	 * retrieves a {@link Source} by its id
 	 * @return the corresponding {@link Source} to the given <code>id</code>
 	 */
-	public Source getSource(int id) {
-		for(AbstractAudioDeviceConfig item : items) {
-			if (item.getId()==id && item instanceof Source)
-				return (Source) item;
-		}
-		return null;
+	public synchronized Source getSource(int id) {
+		return sources.get(id);
 	}
 	/**
 	 * retrieves a {@link SourceOutput} by its name
 	 * @return the corresponding {@link SourceOutput} to the given <code>name</code>
 	 */
-	public SourceOutput getSourceOutput(String name) {
-		for(AbstractAudioDeviceConfig item : items) {
-			if (item.getPaName().equalsIgnoreCase(name) && item instanceof SourceOutput)
-				return (SourceOutput) item;
-		}
-		return null;
+	public synchronized SourceOutput getSourceOutput(String name) {
+		return sourceOutputs.get(name);
 	}
 	/**
 	 * retrieves a {@link SourceOutput} by its id
 	 * @return the corresponding {@link SourceOutput} to the given <code>id</code>
 	 */
-	public SourceOutput getSourceOutput(int id) {
-		for(AbstractAudioDeviceConfig item : items) {
-			if (item.getId()==id && item instanceof SourceOutput)
-				return (SourceOutput) item;
-		}
-		return null;
+	public synchronized SourceOutput getSourceOutput(int id) {
+		return sourceOutputs.get(id);
 	}
 	/**
 	 * retrieves a {@link AbstractAudioDeviceConfig} by its name
 	 * @return the corresponding {@link AbstractAudioDeviceConfig} to the given <code>name</code>
 	 */
-	public AbstractAudioDeviceConfig getGenericAudioItem(String name) {
-		for(AbstractAudioDeviceConfig item : items) {
-			if (item.getPaName().equalsIgnoreCase(name))
-				return item;
-		}
-		return null;
+	public synchronized AbstractAudioDeviceConfig getGenericAudioItem(String name) {
+		return name != null ? itemsByName.get(DeviceIndex.key(name)) : null;
 	}
 	
-	public List<AbstractAudioDeviceConfig> getItems() {
+	/**
+	 * @return all sinks, sources, sink-inputs and source-outputs
+	 */
+	public synchronized List<AbstractAudioDeviceConfig> getItems() {
+		List<AbstractAudioDeviceConfig> items = new ArrayList<AbstractAudioDeviceConfig>();
+		items.addAll(sinks.values());
+		items.addAll(sources.values());
+		items.addAll(sinkInputs.values());
+		items.addAll(sourceOutputs.values());
 		return items;
 	}
 	
@@ -381,7 +454,7 @@ public class PulseaudioClient {
 		// 2. add new combined-sink with same name and all slaves
 		_sendRawCommand(CMD_LOAD_MODULE+" "+MODULE_COMBINE_SINK+" sink_name="+combinedSink.getPaName()+" slaves="+StringUtils.join(slaves,","));
 		// 3. update internal data structure because the combined sink has a new number + other slaves
-		update();
+		updateAfterCommand();
 	}
 	
 	/**
@@ -421,8 +494,8 @@ public class PulseaudioClient {
 		} else {
 			_sendRawCommand("suspend-source "+source.getId()+" 0");
 			// unsuspending the source could result in different states (RUNNING,IDLE,...)
-			// update to get the new state
-			update();
+			// refresh the sources to get the new state
+			refresh(source);
 		}
 	}
 	
@@ -439,8 +512,8 @@ public class PulseaudioClient {
 		} else {
 			_sendRawCommand("suspend-sink "+sink.getId()+" 0");
 			// unsuspending the sink could result in different states (RUNNING,IDLE,...)
-			// update to get the new state
-			update();
+			// refresh the sinks to get the new state
+			refresh(sink);
 		}
 	}
 	
@@ -459,101 +532,33 @@ public class PulseaudioClient {
 		// add new combined-sink with same name and all slaves
 		_sendRawCommand(CMD_LOAD_MODULE+" "+MODULE_COMBINE_SINK+" sink_name="+combinedSinkName+" slaves="+StringUtils.join(slaves,","));
 		// update internal data structure because the combined sink is new
-		update();
+		updateAfterCommand();
 	}
 	
 	private void _sendRawCommand(String command) {
-		checkConnection();
+		logger.trace("sending command {} to pa-server {}",command,host);
 		try {
-			PrintStream out = new PrintStream(client.getOutputStream(), true);
-			logger.trace("sending command {} to pa-server {}",command,host);
-			out.print(command + "\r\n");
-			out.close();
-			client.close();
-		} catch (IOException e) {
-			logger.error(e.getLocalizedMessage(), e);
-		}
-	}
-
-	private String _sendRawRequest(String command) {
-		logger.trace("_sendRawRequest("+command+")");
-		checkConnection();
-		String result = "";
-		try {
-			PrintStream out = new PrintStream(client.getOutputStream(), true);
-			out.print(command + "\r\n");
-
-			InputStream instr = client.getInputStream();
-
-			try {
-				byte[] buff = new byte[1024];
-				int ret_read = 0;
-				int lc = 0;
-				do {
-					ret_read = instr.read(buff);
-					lc++;
-					if (ret_read > 0) {
-						String line = new String(buff, 0, ret_read);
-						//System.out.println("'"+line+"'");
-						if (line.endsWith(">>> ") && lc>1) {
-							result += line.substring(0,line.length()-4);
-							break;
-						}
-						result += line.trim();
-					}
-				} while (ret_read > 0);
-			} catch (SocketTimeoutException e) {
-				// Timeout -> no response
-				return "";
-			} catch (IOException e) {
-				System.err.println("Exception while reading socket:"
-						+ e.getMessage());
+			String reply = connection.sendRequest(command);
+			if (!reply.trim().isEmpty()) {
+				logger.debug("pa-server {} answered to command '{}': {}", host, command, reply.trim());
 			}
-			instr.close();
-			out.close();
-			client.close();
-			return result;
 		} catch (IOException e) {
-			logger.error(e.getLocalizedMessage(), e);
-		}
-		return result;
-	}
-
-	private void checkConnection() {
-		if (client == null || client.isClosed() || !client.isConnected()) {
-			try {
-				connect();
-			} catch (IOException e) {
-				logger.error(e.getLocalizedMessage(),e);
-			}
+			logger.error("Failed to send command '{}' to pa-server {}: {}", command, host, e.getLocalizedMessage());
 		}
 	}
 
 	/**
-	 * Connects to the pulseaudio server (timeout 500ms)
+	 * Connects to the pulseaudio server
 	 */
 	private void connect() throws IOException {
-		try{
-			client = new Socket(host, port);
-			client.setSoTimeout(500);
-		} catch (UnknownHostException e) {
-			logger.error("unknown socket host "+host);
-		} catch (SocketException e) {
-			logger.error(e.getLocalizedMessage(),e);
-		}
+		connection.connect();
 	}
 	
 	/**
 	 * Disconnects from the pulseaudio server
 	 */
 	public void disconnect() {
-		if (client != null) {
-			try {
-				client.close();
-			} catch (IOException e) {
-				logger.error(e.getLocalizedMessage(), e);
-			}
-		}
+		connection.close();
 	}
 	
 }
@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.pulseaudio.internal.cli;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A long-lived connection to the CLI of a pulseaudio server (module-cli-protocol-tcp).
+ *
+ * The server answers every command line with the command output followed by the
+ * prompt <code>"&gt;&gt;&gt; "</code> at the beginning of a line, which is used to
+ * frame the replies. This allows to send several commands at once (pipelining) and
+ * to read their replies afterwards in the same order.
+ *
+ * @author agent - Initial contribution
+ */
+public class CliConnection {
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(CliConnection.class);
+
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+
+	private static final byte[] PROMPT = ">>> ".getBytes(CHARSET);
+
+	private final String host;
+	private final int port;
+	private final int timeout;
+
+	private Socket socket;
+	private InputStream in;
+	private OutputStream out;
+
+	private final byte[] readBuffer = new byte[8192];
+
+	/** received bytes which have not been returned as a reply yet */
+	private byte[] buffer = new byte[8192];
+	private int length = 0;
+	/** position up to which the buffer has already been searched for a prompt */
+	private int scanned = 0;
+	/** number of replies received for the current pipeline */
+	private int receivedReplies = 0;
+
+	/**
+	 * @param host the host of the pulseaudio server
+	 * @param port the port of the cli module
+	 * @param timeout the connect and read timeout in milliseconds
+	 */
+	public CliConnection(String host, int port, int timeout) {
+		this.host = host;
+		this.port = port;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Connects to the server and consumes its welcome message.
+	 *
+	 * @throws IOException if the connection cannot be established
+	 */
+	public synchronized void connect() throws IOException {
+		close();
+		Socket newSocket = new Socket();
+		try {
+			newSocket.connect(new InetSocketAddress(host, port), timeout);
+			newSocket.setSoTimeout(timeout);
+			newSocket.setTcpNoDelay(true);
+			socket = newSocket;
+			in = newSocket.getInputStream();
+			out = newSocket.getOutputStream();
+			readReply();
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+		logger.debug("connected to pulseaudio cli on {}:{}", host, port);
+	}
+
+	public synchronized boolean isConnected() {
+		return socket != null && socket.isConnected() && !socket.isClosed();
+	}
+
+	/**
+	 * Closes the connection to the server.
+	 */
+	public synchronized void close() {
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				logger.debug("error while closing the pulseaudio cli connection: {}", e.getMessage());
+			}
+		}
+		socket = null;
+		in = null;
+		out = null;
+		length = 0;
+		scanned = 0;
+	}
+
+	/**
+	 * Sends a single command and waits for its reply.
+	 *
+	 * @param command the command line
+	 * @return the output of the command without the trailing prompt
+	 * @throws IOException if the command could not be sent or the reply not be read
+	 */
+	public String sendRequest(String command) throws IOException {
+		return sendRequests(Collections.singletonList(command)).get(0);
+	}
+
+	/**
+	 * Sends all commands at once and reads their replies afterwards. If the connection
+	 * has been closed by the server before the first reply arrives, the connection is
+	 * re-established and the commands are sent again.
+	 *
+	 * @param commands the command lines
+	 * @return the outputs of the commands in the same order
+	 * @throws IOException if the commands could not be sent or the replies not be read
+	 */
+	public synchronized List<String> sendRequests(List<String> commands) throws IOException {
+		if (!isConnected()) {
+			connect();
+		}
+		try {
+			return pipeline(commands);
+		} catch (SocketTimeoutException e) {
+			close();
+			throw e;
+		} catch (IOException e) {
+			if (length > 0 || receivedReplies > 0) {
+				close();
+				throw e;
+			}
+			// the server has closed the idle connection, so nothing has been processed
+			logger.debug("pulseaudio cli connection has been closed by the server ({}), reconnecting",
+					e.getMessage());
+			connect();
+			try {
+				return pipeline(commands);
+			} catch (IOException e2) {
+				close();
+				throw e2;
+			}
+		}
+	}
+
+	private List<String> pipeline(List<String> commands) throws IOException {
+		StringBuilder request = new StringBuilder();
+		for (String command : commands) {
+			request.append(command).append('\n');
+		}
+		receivedReplies = 0;
+		out.write(request.toString().getBytes(CHARSET));
+		out.flush();
+		List<String> replies = new ArrayList<String>(commands.size());
+		for (int i = 0; i < commands.size(); i++) {
+			replies.add(readReply());
+			receivedReplies++;
+		}
+		return replies;
+	}
+
+	/**
+	 * Reads from the socket until a complete reply has been received.
+	 *
+	 * @return the reply without the prompt
+	 */
+	private String readReply() throws IOException {
+		while (true) {
+			int prompt = findPrompt();
+			if (prompt >= 0) {
+				String reply = new String(buffer, 0, prompt, CHARSET);
+				int consumed = prompt + PROMPT.length;
+				System.arraycopy(buffer, consumed, buffer, 0, length - consumed);
+				length -= consumed;
+				scanned = 0;
+				return reply;
+			}
+			int read = in.read(readBuffer);
+			if (read < 0) {
+				throw new EOFException("connection closed by pulseaudio server " + host);
+			}
+			if (length + read > buffer.length) {
+				byte[] newBuffer = new byte[Math.max(buffer.length * 2, length + read)];
+				System.arraycopy(buffer, 0, newBuffer, 0, length);
+				buffer = newBuffer;
+			}
+			System.arraycopy(readBuffer, 0, buffer, length, read);
+			length += read;
+		}
+	}
+
+	/**
+	 * Searches the received bytes for a prompt at the beginning of a line.
+	 *
+	 * @return the position of the prompt or -1, if no complete prompt has been received
+	 */
+	private int findPrompt() {
+		int last = length - PROMPT.length;
+		for (int i = scanned; i <= last; i++) {
+			if ((i == 0 || buffer[i - 1] == '\n') && buffer[i] == PROMPT[0] && buffer[i + 1] == PROMPT[1]
+					&& buffer[i + 2] == PROMPT[2] && buffer[i + 3] == PROMPT[3]) {
+				return i;
+			}
+		}
+		scanned = Math.max(0, last + 1);
+		return -1;
+	}
+}
@@ -302,7 +302,6 @@ public class Parser {
 	public static List<SourceOutput> parseSourceOutputs(String raw,
 			PulseaudioClient client) {
 		List<SourceOutput> items = new ArrayList<SourceOutput>();
-		System.out.println(raw);
 		String[] parts = raw.split("index: ");
 		if (parts.length <= 1)
 			return items;
@@ -63,6 +63,23 @@ public abstract class AbstractAudioDeviceConfig extends AbstractDeviceConfig {
 		this.volume = volume;
 	}
 
+	/**
+	 * takes over the current values of the given item, which has been read
+	 * from the server for the same device
+	 * 
+	 * @param item the current data of this device
+	 * @return true if the volume, the mute state or the state has changed
+	 */
+	public boolean update(AbstractAudioDeviceConfig item) {
+		boolean changed = state != item.state || muted != item.muted
+				|| volume != item.volume;
+		state = item.state;
+		muted = item.muted;
+		volume = item.volume;
+		module = item.module;
+		return changed;
+	}
+
 	public String toString() {
 		return this.getClass().getSimpleName() + " #" + id + " (Module: "
 				+ module + ") " + name + ", muted: " + muted + ", state: "
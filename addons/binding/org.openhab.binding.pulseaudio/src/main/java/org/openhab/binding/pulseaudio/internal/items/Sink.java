@@ -55,4 +55,16 @@ public class Sink extends AbstractAudioDeviceConfig {
 			this.combinedSinks.add(sink);
 	}
 	
+	@Override
+	public boolean update(AbstractAudioDeviceConfig item) {
+		boolean changed = super.update(item);
+		Sink sink = (Sink) item;
+		if (!combinedSinkNames.equals(sink.combinedSinkNames)) {
+			combinedSinkNames = sink.combinedSinkNames;
+			changed = true;
+		}
+		combinedSinks = sink.combinedSinks;
+		return changed;
+	}
+	
 }
@@ -30,4 +30,15 @@ public class SinkInput extends AbstractAudioDeviceConfig {
 		this.sink = sink;
 	}
 
+	@Override
+	public boolean update(AbstractAudioDeviceConfig item) {
+		boolean changed = super.update(item);
+		Sink newSink = ((SinkInput) item).sink;
+		if (sink != newSink) {
+			sink = newSink;
+			changed = true;
+		}
+		return changed;
+	}
+
 }
@@ -30,5 +30,12 @@ public class Source extends AbstractAudioDeviceConfig {
 	public void setMonitorOf(Sink sink) {
 		this.monitorOf = sink;
 	}
+
+	@Override
+	public boolean update(AbstractAudioDeviceConfig item) {
+		boolean changed = super.update(item);
+		monitorOf = ((Source) item).monitorOf;
+		return changed;
+	}
 	
 }
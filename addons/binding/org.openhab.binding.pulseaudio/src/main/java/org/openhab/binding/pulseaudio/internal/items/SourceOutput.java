@@ -30,4 +30,15 @@ public class SourceOutput extends AbstractAudioDeviceConfig {
 		this.source = source;
 	}
 
+	@Override
+	public boolean update(AbstractAudioDeviceConfig item) {
+		boolean changed = super.update(item);
+		Source newSource = ((SourceOutput) item).source;
+		if (source != newSource) {
+			source = newSource;
+			changed = true;
+		}
+		return changed;
+	}
+
 }
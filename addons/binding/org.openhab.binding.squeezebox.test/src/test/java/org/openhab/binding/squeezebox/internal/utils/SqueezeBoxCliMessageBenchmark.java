@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.squeezebox.internal.utils;
+
+import java.util.List;
+
+/**
+ * Replays the recorded CLI traffic of {@link SqueezeBoxCliMessageTest}, once
+ * with split and URLDecoder as the server handler did before, and once with
+ * the {@link SqueezeBoxCliMessage} tokenizer, and prints the time per
+ * message. It is not run with the tests, run its main method to compare both.
+ *
+ * @author agent - Initial contribution
+ */
+public class SqueezeBoxCliMessageBenchmark {
+
+	private static final int ROUNDS = 2000;
+
+	public static void main(String[] args) throws Exception {
+		List<String> traffic = SqueezeBoxCliMessageTest.readTraffic();
+
+		// warm up
+		runLegacy(traffic, ROUNDS / 10);
+		runTokenizer(traffic, ROUNDS / 10);
+
+		long start = System.nanoTime();
+		int legacy = runLegacy(traffic, ROUNDS);
+		long legacyTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		int tokenizer = runTokenizer(traffic, ROUNDS);
+		long tokenizerTime = System.nanoTime() - start;
+
+		int messages = traffic.size() * ROUNDS;
+		System.out.println(String.format(
+				"SqueezeBox CLI: %d messages, split/URLDecoder %d ns per message, tokenizer %d ns per message",
+				messages, legacyTime / messages, tokenizerTime / messages));
+		System.out.println(String.format("%d and %d status messages", legacy, tokenizer));
+	}
+
+	private static int runLegacy(List<String> traffic, int rounds) throws Exception {
+		int statuses = 0;
+		for (int r = 0; r < rounds; r++) {
+			for (String line : traffic) {
+				if (SqueezeBoxCliMessageTest.parseStatusLegacy(line) != null) {
+					statuses++;
+				}
+			}
+		}
+		return statuses;
+	}
+
+	private static int runTokenizer(List<String> traffic, int rounds) {
+		int statuses = 0;
+		for (int r = 0; r < rounds; r++) {
+			for (String line : traffic) {
+				if (SqueezeBoxCliMessageTest.parseStatus(new SqueezeBoxCliMessage(line)) != null) {
+					statuses++;
+				}
+			}
+		}
+		return statuses;
+	}
+}
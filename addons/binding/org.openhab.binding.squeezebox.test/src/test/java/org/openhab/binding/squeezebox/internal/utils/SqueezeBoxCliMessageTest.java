@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.squeezebox.internal.utils;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link SqueezeBoxCliMessage}. The recorded CLI traffic is
+ * from a server with 12 subscribed players.
+ * 
+ * @author agent - Initial contribution
+ *
+ */
+public class SqueezeBoxCliMessageTest {
+
+	@Test
+	public void testTokens() {
+		SqueezeBoxCliMessage message = new SqueezeBoxCliMessage(
+				"00%3A04%3A20%3A2b%3A00%3A00 status  - 1 mixer%20volume%3A30 title%3AF%C3%BCr%20Elise");
+
+		assertThat(message.size(), is(6));
+		assertThat(message.get(0), is("00:04:20:2b:00:00"));
+		assertThat(message.getRaw(0), is("00%3A04%3A20%3A2b%3A00%3A00"));
+		assertThat(message.equals(1, "status"), is(true));
+		assertThat(message.equals(1, "statu"), is(false));
+		assertThat(message.hasTag(4, "mixer%20volume"), is(true));
+		assertThat(message.hasTag(4, "mixer"), is(false));
+		assertThat(message.getTag(4), is("mixer volume"));
+		assertThat(message.getIntValue(4), is(30));
+		assertThat(message.getValue(5), is("Für Elise"));
+		assertThat(message.getValue(2), is(nullValue()));
+	}
+
+	@Test
+	public void testDecodeLikeUrlDecoder() throws Exception {
+		for (String line : readTraffic()) {
+			SqueezeBoxCliMessage message = new SqueezeBoxCliMessage(line);
+			String[] parts = line.split("\\s");
+			assertThat(message.size(), is(parts.length));
+			for (int i = 0; i < parts.length; i++) {
+				assertThat(message.get(i), is(URLDecoder.decode(parts[i], "UTF-8")));
+			}
+		}
+		assertThat(SqueezeBoxCliMessage.decode("a+b%2", 0, 5), is("a b%2"));
+		assertThat(SqueezeBoxCliMessage.decode("%zz%41", 0, 6), is("%zzA"));
+	}
+
+	@Test
+	public void testRecordedStatusMessages() throws Exception {
+		List<List<Object>> statuses = new ArrayList<List<Object>>();
+		for (String line : readTraffic()) {
+			List<Object> status = parseStatus(new SqueezeBoxCliMessage(line));
+			assertThat(line, status, is(parseStatusLegacy(line)));
+			if (status != null) {
+				statuses.add(status);
+			}
+		}
+
+		assertThat(statuses.size(), is(120));
+		assertThat(statuses.get(0),
+				is(Arrays.<Object> asList("00:04:20:2b:00:00", 30, "Bohemian Rhapsody", "Queen")));
+	}
+
+	/**
+	 * Reads the player, volume, title and artist of a status message the way
+	 * the server handler does, or returns null for other messages
+	 */
+	static List<Object> parseStatus(SqueezeBoxCliMessage message) {
+		if (message.size() < 2 || !message.equals(1, "status")) {
+			return null;
+		}
+		List<Object> values = new ArrayList<Object>();
+		values.add(message.get(0));
+		for (int i = 2; i < message.size(); i++) {
+			if (message.hasTag(i, "mixer%20volume")) {
+				values.add(message.getIntValue(i));
+			} else if (message.hasTag(i, "title")) {
+				values.add(message.getValue(i));
+			} else if (message.hasTag(i, "artist")) {
+				values.add(message.getValue(i));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Reads the same values as {@link #parseStatus(SqueezeBoxCliMessage)},
+	 * the way the server handler did before the tokenizer
+	 */
+	static List<Object> parseStatusLegacy(String line) throws Exception {
+		String[] parts = line.split("\\s");
+		if (parts.length < 2 || !parts[1].equals("status")) {
+			return null;
+		}
+		List<Object> values = new ArrayList<Object>();
+		values.add(URLDecoder.decode(parts[0], "UTF-8"));
+		for (int i = 2; i < parts.length; i++) {
+			String part = parts[i];
+			if (part.startsWith("mixer%20volume%3A")) {
+				values.add((int) Double.parseDouble(part
+						.substring("mixer%20volume%3A".length())));
+			} else if (part.startsWith("title%3A")) {
+				values.add(URLDecoder.decode(
+						part.substring("title%3A".length()), "UTF-8"));
+			} else if (part.startsWith("artist%3A")) {
+				values.add(URLDecoder.decode(
+						part.substring("artist%3A".length()), "UTF-8"));
+			}
+		}
+		return values;
+	}
+
+	static List<String> readTraffic() throws Exception {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				SqueezeBoxCliMessageTest.class.getResourceAsStream("cli-traffic.txt"), "UTF-8"));
+		try {
+			List<String> lines = new ArrayList<String>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+			return lines;
+		} finally {
+			reader.close();
+		}
+	}
+
+}
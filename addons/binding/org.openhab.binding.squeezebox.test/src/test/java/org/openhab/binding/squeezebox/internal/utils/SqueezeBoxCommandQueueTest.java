@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.squeezebox.internal.utils;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link SqueezeBoxCommandQueue}. The writer blocks on its
+ * first batch, so that the following commands pile up in the queue.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class SqueezeBoxCommandQueueTest {
+
+	private final CountDownLatch firstWrite = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final List<List<String>> batches = new ArrayList<List<String>>();
+	private boolean fail;
+
+	private final SqueezeBoxCommandQueue queue = new SqueezeBoxCommandQueue(
+			"test", 5, 3, new SqueezeBoxCommandQueue.CommandWriter() {
+				@Override
+				public void write(List<String> commands) throws IOException {
+					firstWrite.countDown();
+					try {
+						release.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					synchronized (batches) {
+						batches.add(commands);
+						batches.notifyAll();
+					}
+					if (fail) {
+						throw new IOException("broken pipe");
+					}
+				}
+			});
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		queue.stop();
+	}
+
+	@Test
+	public void testBatchingAndCoalescing() throws Exception {
+		queue.start();
+		queue.add("mac1 stop");
+		assertThat(firstWrite.await(5, TimeUnit.SECONDS), is(true));
+
+		queue.add("mac1 mixer volume 10", "mac1 mixer volume");
+		queue.add("mac1 playlist play url");
+		queue.add("mac1 mixer volume 15", "mac1 mixer volume");
+		queue.add("mac2 mixer volume 40", "mac2 mixer volume");
+		queue.add("mac1 mixer volume 20", "mac1 mixer volume");
+		queue.add("mac1 power 1", "mac1 power");
+		assertThat(queue.getQueueDepth(), is(4));
+		assertThat(queue.getCoalescedCount(), is(2L));
+
+		release.countDown();
+		waitForBatches(3);
+
+		assertThat(batches.get(0), is(Arrays.asList("mac1 stop")));
+		// the coalesced volume keeps the position of the first one
+		assertThat(batches.get(1), is(Arrays.asList("mac1 mixer volume 20",
+				"mac1 playlist play url", "mac2 mixer volume 40")));
+		assertThat(batches.get(2), is(Arrays.asList("mac1 power 1")));
+		assertThat(queue.getSentCount(), is(5L));
+		assertThat(queue.getMaxQueueDepth(), is(4));
+	}
+
+	@Test
+	public void testSentCommandIsNotReplaced() throws Exception {
+		queue.start();
+		queue.add("mac1 mixer volume 10", "mac1 mixer volume");
+		assertThat(firstWrite.await(5, TimeUnit.SECONDS), is(true));
+
+		queue.add("mac1 mixer volume 20", "mac1 mixer volume");
+		release.countDown();
+		waitForBatches(2);
+
+		assertThat(batches.get(1), is(Arrays.asList("mac1 mixer volume 20")));
+		assertThat(queue.getCoalescedCount(), is(0L));
+	}
+
+	@Test
+	public void testRejectWhenFull() throws Exception {
+		queue.start();
+		queue.add("first");
+		assertThat(firstWrite.await(5, TimeUnit.SECONDS), is(true));
+
+		assertThat(queue.add("mac1 mixer volume 10", "mac1 mixer volume"),
+				is(true));
+		for (int i = 0; i < 4; i++) {
+			assertThat(queue.add("command " + i), is(true));
+		}
+		assertThat(queue.add("command 4"), is(false));
+		// replacing a queued command needs no space
+		assertThat(queue.add("mac1 mixer volume 20", "mac1 mixer volume"),
+				is(true));
+		assertThat(queue.getRejectedCount(), is(1L));
+		assertThat(queue.getQueueDepth(), is(5));
+	}
+
+	@Test
+	public void testFailedWrite() throws Exception {
+		fail = true;
+		queue.start();
+		queue.add("mac1 stop");
+		release.countDown();
+		waitForBatches(1);
+		queue.add("mac1 play");
+		waitForBatches(2);
+		// the batch is counted after the writer has thrown
+		long deadline = System.currentTimeMillis() + 5000;
+		while (queue.getFailedCount() < 2
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(queue.getFailedCount(), is(2L));
+		assertThat(queue.getSentCount(), is(0L));
+	}
+
+	@Test
+	public void testStoppedQueueRejects() {
+		assertThat(queue.add("mac1 stop"), is(false));
+		queue.start();
+		queue.stop();
+		assertThat(queue.add("mac1 stop"), is(false));
+	}
+
+	private void waitForBatches(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		synchronized (batches) {
+			while (batches.size() < count
+					&& System.currentTimeMillis() < deadline) {
+				batches.wait(100);
+			}
+			assertThat(batches.size(), is(count));
+		}
+	}
+}
@@ -117,12 +117,19 @@ public class SqueezeBoxPlayerHandler extends BaseThingHandler implements
 	protected void bridgeHandlerInitialized(ThingHandler thingHandler, Bridge bridge){
 		if (thingHandler instanceof SqueezeBoxServerHandler) {
 			this.squeezeBoxServerHandler = (SqueezeBoxServerHandler)thingHandler;
+			// the server dispatches the events of our player directly to us
+			squeezeBoxServerHandler.registerPlayerHandler(
+					getConfigAs(SqueezeBoxPlayerConfig.class).mac, this);
 			updateStatus(squeezeBoxServerHandler.getThing().getStatus());
 		}
 	}
 	
 	@Override
 	protected void bridgeHandlerDisposed(ThingHandler thingHandler, Bridge bridge) {
+		if (thingHandler instanceof SqueezeBoxServerHandler) {
+			((SqueezeBoxServerHandler) thingHandler).unregisterPlayerHandler(
+					mac, this);
+		}
 		this.squeezeBoxServerHandler = null;
 		updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.BRIDGE_OFFLINE);
 	}
@@ -137,6 +144,7 @@ public class SqueezeBoxPlayerHandler extends BaseThingHandler implements
 		}
 
 		if (squeezeBoxServerHandler != null) {
+			squeezeBoxServerHandler.unregisterPlayerHandler(mac, this);
 			squeezeBoxServerHandler.removePlayerCache(mac);
 		}
 		logger.debug("Thing {} disposed.", getThing().getUID());
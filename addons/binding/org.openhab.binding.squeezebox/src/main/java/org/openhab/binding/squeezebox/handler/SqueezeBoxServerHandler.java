@@ -11,33 +11,32 @@ package org.openhab.binding.squeezebox.handler;
 import static org.openhab.binding.squeezebox.SqueezeBoxBindingConstants.SQUEEZEBOXSERVER_THING_TYPE;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
-import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.Socket;
-import java.net.URLDecoder;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.ChannelUID;
-import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
-import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.squeezebox.config.SqueezeBoxServerConfig;
+import org.openhab.binding.squeezebox.internal.utils.SqueezeBoxCliMessage;
+import org.openhab.binding.squeezebox.internal.utils.SqueezeBoxCommandQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,13 +61,22 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 	// DECREASE-Event
 	private static final int VOLUME_CHANGE_SIZE = 5;
 	private static final String NEW_LINE = System.getProperty("line.separator");
-
-	private List<SqueezeBoxPlayerEventListener> squeezeBoxPlayerListeners = Collections.synchronizedList(new ArrayList<SqueezeBoxPlayerEventListener>());
-	private Map<String, SqueezeBoxPlayer> players = Collections.synchronizedMap(new HashMap<String, SqueezeBoxPlayer>());
+	
+	// the maximum number of commands waiting to be sent
+	private static final int COMMAND_QUEUE_SIZE = 200;
+	// the maximum number of commands written with one flush
+	private static final int COMMAND_BATCH_SIZE = 50;
+
+	private List<SqueezeBoxPlayerEventListener> squeezeBoxPlayerListeners = new CopyOnWriteArrayList<SqueezeBoxPlayerEventListener>();
+	// the handlers of our player things by their MAC address
+	private ConcurrentMap<String, SqueezeBoxPlayerEventListener> playerHandlers = new ConcurrentHashMap<String, SqueezeBoxPlayerEventListener>();
+	private Map<String, SqueezeBoxPlayer> players = new ConcurrentHashMap<String, SqueezeBoxPlayer>();
 	// client socket and listener thread
 	private Socket clientSocket;
 	private SqueezeServerListener listener;
 	private ScheduledFuture<?> reconnectFuture;
+	// commands are written asynchronously by the queue's thread
+	private SqueezeBoxCommandQueue commandQueue;
 
 	private String host;
 
@@ -82,6 +90,16 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 
 	@Override
 	public void initialize() {
+		commandQueue = new SqueezeBoxCommandQueue("Squeeze Server Sender "
+				+ getThing().getUID(), COMMAND_QUEUE_SIZE, COMMAND_BATCH_SIZE,
+				new SqueezeBoxCommandQueue.CommandWriter() {
+					@Override
+					public void write(List<String> commands)
+							throws IOException {
+						writeCommands(commands);
+					}
+				});
+		commandQueue.start();
 		scheduler.schedule(new Runnable() {
 			
 			@Override
@@ -94,6 +112,11 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 	@Override
 	public void dispose() {
 		cancelReconnect();
+		if (commandQueue != null) {
+			commandQueue.stop();
+			logger.debug("Squeeze Server command queue statistics: {}",
+					commandQueue);
+		}
 		disconnect();
 	};
 
@@ -125,11 +148,11 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 	}
 
 	public void powerOn(String mac) {
-		sendCommand(mac + " power 1");
+		sendCommand(mac + " power 1", mac + " power");
 	}
 
 	public void powerOff(String mac) {
-		sendCommand(mac + " power 0");
+		sendCommand(mac + " power 0", mac + " power");
 	}
 
 	public void syncPlayer(String mac, String player2mac) {
@@ -149,11 +172,11 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 	}
 
 	public void pause(String mac) {
-		sendCommand(mac + " pause 1");
+		sendCommand(mac + " pause 1", mac + " pause");
 	}
 
 	public void unPause(String mac) {
-		sendCommand(mac + " pause 0");
+		sendCommand(mac + " pause 0", mac + " pause");
 	}
 
 	public void stop(String mac) {
@@ -185,15 +208,17 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 	}
 
 	public void setPlayingTime(String mac, int time) {
-		sendCommand(mac + " time " + time);
+		sendCommand(mac + " time " + time, mac + " time");
 	}
 
 	public void setRepeatMode(String mac, int repeatMode) {
-		sendCommand(mac + " playlist repeat " + repeatMode);
+		sendCommand(mac + " playlist repeat " + repeatMode, mac
+				+ " playlist repeat");
 	}
 
 	public void setShuffleMode(String mac, int shuffleMode) {
-		sendCommand(mac + " playlist shuffle " + shuffleMode);
+		sendCommand(mac + " playlist shuffle " + shuffleMode, mac
+				+ " playlist shuffle");
 	}
 
 	public void volumeUp(String mac, int currentVolume) {
@@ -210,7 +235,8 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 		} else if (volume > 100) {
 			volume = 100;
 		}
-		sendCommand(mac + " mixer volume " + String.valueOf(volume));
+		sendCommand(mac + " mixer volume " + String.valueOf(volume), mac
+				+ " mixer volume");
 	}
 
 	public void showString(String mac, String line) {
@@ -260,31 +286,53 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 	/**
 	 * Send a command to the Squeeze Server.
 	 */
-	private synchronized void sendCommand(String command) {
+	private void sendCommand(String command) {
+		sendCommand(command, null);
+	}
+
+	/**
+	 * Queue a command for the Squeeze Server. A command that has not been sent
+	 * yet is replaced by a later one with the same key, e.g. a volume change of
+	 * the same player.
+	 * 
+	 * @param command
+	 * @param key
+	 *            may be null, if the command must not be replaced
+	 */
+	private void sendCommand(String command, String key) {
 		
 		if(getThing().getStatus() != ThingStatus.ONLINE)
 			return;
 		
+		SqueezeBoxCommandQueue queue = commandQueue;
+		if (queue == null || !queue.add(command, key)) {
+			logger.debug("Command not queued for Squeeze Server: {}", command);
+		}
+	}
+
+	/**
+	 * Writes commands to the Squeeze Server with a single flush, called by the
+	 * command queue
+	 */
+	private synchronized void writeCommands(List<String> commands)
+			throws IOException {
 		if (!isConnected()) {
 			logger.debug("No connection to SqueezeServer, will attempt to reconnect now...");
 			connect();
 			if (!isConnected()) {
-				logger.error(
-						"Failed to reconnect to SqueezeServer, unable to send command {}",
-						command);
-				return;
+				throw new IOException(
+						"Failed to reconnect to SqueezeServer");
 			}
 		}
-		logger.debug("Sending command: {}", command);
-		try {
-			BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
-					clientSocket.getOutputStream()));
-			writer.write(command + NEW_LINE);
-			writer.flush();
-		} catch (IOException e) {
-			logger.error("Error while sending command to Squeeze Server ("
-					+ command + ")", e);
+		StringBuilder lines = new StringBuilder();
+		for (String command : commands) {
+			logger.debug("Sending command: {}", command);
+			lines.append(command).append(NEW_LINE);
 		}
+		Writer writer = new OutputStreamWriter(clientSocket.getOutputStream(),
+				"UTF-8");
+		writer.write(lines.toString());
+		writer.flush();
 	}
 
 	/**
@@ -352,7 +400,7 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 			BufferedReader reader = null;
 			try {
 				reader = new BufferedReader(new InputStreamReader(
-						clientSocket.getInputStream()));
+						clientSocket.getInputStream(), "UTF-8"));
 	            updateStatus(ThingStatus.ONLINE);
 				requestPlayers();
 				sendCommand("listen 1");
@@ -364,10 +412,18 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 					if (message.startsWith("listen 1"))
 						continue;
 
-					if (message.startsWith("players 0")) {
-						handlePlayersList(message);
-					} else {
-						handlePlayerUpdate(message);
+					SqueezeBoxCliMessage cliMessage = new SqueezeBoxCliMessage(
+							message);
+					try {
+						if (message.startsWith("players 0")) {
+							handlePlayersList(cliMessage);
+						} else {
+							handlePlayerUpdate(cliMessage);
+						}
+					} catch (RuntimeException e) {
+						// a single malformed message must not stop the listener
+						logger.warn("Failed to handle message '{}': {}",
+								message, e.getMessage());
 					}
 				}
 			} catch (IOException e) {
@@ -389,125 +445,103 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 			logger.debug("Squeeze Server listener exiting.");
 		}
 
-		private String decode(String raw) {
-			try {
-				return URLDecoder.decode(raw, "UTF-8");
-			} catch (UnsupportedEncodingException e) {
-				logger.debug("Failed to decode '" + raw + "'", e);
-				return null;
+		private void handlePlayersList(SqueezeBoxCliMessage message) {
+			// every player starts with its index, followed by its parameters
+			SqueezeBoxPlayer player = null;
+			for (int i = 0; i < message.size(); i++) {
+				if (message.hasTag(i, "playerindex")) {
+					addPlayer(player);
+					player = new SqueezeBoxPlayer();
+				} else if (player == null) {
+					continue;
+				} else if (message.hasTag(i, "playerid")) {
+					player.setMacAddress(message.getValue(i));
+				} else if (message.hasTag(i, "ip")) {
+					player.setIpAddr(message.getValue(i));
+				} else if (message.hasTag(i, "uuid")) {
+					player.setUuid(message.getValue(i));
+				} else if (message.hasTag(i, "name")) {
+					player.setName(message.getValue(i));
+				} else if (message.hasTag(i, "model")) {
+					player.setModel(message.getValue(i));
+				}
 			}
+			addPlayer(player);
 		}
 
-		private void handlePlayersList(String message) {
-			String[] playersList = decode(message).split("playerindex:\\d+\\s");
-			for (String playerParams : playersList) {
-				String[] parameterList = playerParams.split("\\s");
-
-				// parse out the MAC address first
-				String macAddress = null;
-				for (String parameter : parameterList) {
-					if (parameter.contains("playerid")) {
-						macAddress = parameter
-								.substring(parameter.indexOf(":") + 1);
-						break;
-					}
-				}
-
-				// if none found then ignore this set of params
-				if (macAddress == null)
-					continue;
+		private void addPlayer(final SqueezeBoxPlayer player) {
+			// if none found or we already know about it, ignore this player
+			if (player == null || player.getMacAddress() == null
+					|| players.containsKey(player.getMacAddress()))
+				return;
 
-				// if we already know about it, ignore this set of params
-				if (players.containsKey(macAddress))
-					continue;
+			players.put(player.getMacAddress(), player);
 
-				final SqueezeBoxPlayer player = new SqueezeBoxPlayer();
-				player.setMacAddress(macAddress);
-				// populate the player state
-				for (String parameter : parameterList) {
-					if (parameter.contains("ip")) {
-						player.setIpAddr(parameter.substring(parameter
-								.indexOf(":") + 1));
-					} else if (parameter.contains("uuid")) {
-						player.setUuid(parameter.substring(parameter
-								.indexOf(":") + 1));
-					} else if (parameter.contains("name")) {
-						player.setName(parameter.substring(parameter
-								.indexOf(":") + 1));
-					} else if (parameter.contains("model")) {
-						player.setModel(parameter.substring(parameter
-								.indexOf(":") + 1));
-					}
+			updatePlayer(player.getMacAddress(), new PlayerUpdateEvent() {
+				@Override
+				public void updateListener(
+						SqueezeBoxPlayerEventListener listener) {
+					listener.playerAdded(player);
 				}
+			});
 
-				players.put(macAddress, player);
-
-				updatePlayer(new PlayerUpdateEvent() {
-					@Override
-					public void updateListener(
-							SqueezeBoxPlayerEventListener listener) {
-						listener.playerAdded(player);
-					}
-				});
-
-				// tell the server we want to subscribe to player updates
-				sendCommand(player.getMacAddress()
-						+ " status - 1 subscribe:10 tags:yagJlN");
-			}
+			// tell the server we want to subscribe to player updates
+			sendCommand(player.getMacAddress()
+					+ " status - 1 subscribe:10 tags:yagJlN");
 		}
 
-		private void handlePlayerUpdate(String message) {
-			String[] messageParts = message.split("\\s");
-			if (messageParts.length < 2) {
+		private void handlePlayerUpdate(SqueezeBoxCliMessage message) {
+			if (message.size() < 2) {
 				logger.warn("Invalid message - expecting at least 2 parts. Ignoring.");
 				return;
 			}
 
-			final String mac = decode(messageParts[0]);
+			final String mac = message.get(0);
 
 			// get the message type
-			String messageType = messageParts[1];
-
-			if (messageType.equals("status")) {
-				handleStatusMessage(mac, messageParts);
-			} else if (messageType.equals("playlist")) {
-				handlePlaylistMessage(mac, messageParts);
-			} else if (messageType.equals("prefset")) {
-				handlePrefsetMessage(mac, messageParts);
-			} else if (messageType.equals("ir")) {
-				final String ircode = messageParts[2];
-				updatePlayer(new PlayerUpdateEvent() {
+			if (message.equals(1, "status")) {
+				handleStatusMessage(mac, message);
+			} else if (message.equals(1, "playlist")) {
+				handlePlaylistMessage(mac, message);
+			} else if (message.equals(1, "prefset")) {
+				handlePrefsetMessage(mac, message);
+			} else if (message.equals(1, "ir")) {
+				if (message.size() < 3)
+					return;
+				final String ircode = message.getRaw(2);
+				updatePlayer(mac, new PlayerUpdateEvent() {
 					@Override
 					public void updateListener(
 							SqueezeBoxPlayerEventListener listener) {
 						listener.irCodeChangeEvent(mac, ircode);
 					}
 				});
-			} else if (messageType.equals("power")) {
+			} else if (message.equals(1, "power")) {
 				// ignore these for now
 				// player.setPowered(messageParts[1].equals("1"));
-			} else if (messageType.equals("play")
-					|| messageType.equals("pause")
-					|| messageType.equals("stop")) {
+			} else if (message.equals(1, "play")
+					|| message.equals(1, "pause")
+					|| message.equals(1, "stop")) {
 				// ignore these for now
 				// player.setMode(Mode.valueOf(messageType));
-			} else if (messageType.equals("mixer")
-					|| messageType.equals("menustatus")
-					|| messageType.equals("button")) {
+			} else if (message.equals(1, "mixer")
+					|| message.equals(1, "menustatus")
+					|| message.equals(1, "button")) {
 				// ignore these for now
 			} else {
 				logger.debug("Unhandled message type '{}'. Ignoring.",
-						messageType);
+						message.getRaw(1));
 			}
 		}
 
-		private void handleStatusMessage(final String mac, String[] messageParts) {
-			for (String messagePart : messageParts) {
+		private void handleStatusMessage(final String mac,
+				SqueezeBoxCliMessage message) {
+			// only the values of the parameters we are interested in are decoded
+			for (int i = 2; i < message.size(); i++) {
 				// Parameter Power
-				if (messagePart.startsWith("power%3A")) {
-					String value = messagePart.substring("power%3A".length());
-					final boolean power = value.matches("1");
-					updatePlayer(new PlayerUpdateEvent() {
+				if (message.hasTag(i, "power")) {
+					final boolean power = "1".equals(message.getValue(i));
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
@@ -516,24 +550,20 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 					});
 				}
 				// Parameter Volume
-				else if (messagePart.startsWith("mixer%20volume%3A")) {
-					String value = messagePart.substring("mixer%20volume%3A"
-							.length());
-					final int volume = (int) Double.parseDouble(value);
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "mixer%20volume")) {
+					final int volume = message.getIntValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
 							listener.volumeChangeEvent(mac, volume);
-							;
 						}
 					});
 				}
 				// Parameter Mode
-				else if (messagePart.startsWith("mode%3A")) {
-					final String mode = messagePart.substring("mode%3A"
-							.length());
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "mode")) {
+					final String mode = message.getValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
@@ -542,10 +572,9 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 					});
 				}
 				// Parameter Playing Time
-				else if (messagePart.startsWith("time%3A")) {
-					String value = messagePart.substring("time%3A".length());
-					final int time = (int) Double.parseDouble(value);
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "time")) {
+					final int time = message.getIntValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
@@ -554,13 +583,9 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 					});
 				}
 				// Parameter Playing Playlist Index
-				else if (messagePart.startsWith("playlist_cur_index%3A")) {
-					String value = messagePart
-							.substring("playlist_cur_index%3A".length());
-					// player.setCurrentPlaylistIndex((int)
-					// Integer.parseInt(value));
-					final int index = (int) Double.parseDouble(value);
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "playlist_cur_index")) {
+					final int index = message.getIntValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
@@ -569,11 +594,9 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 					});
 				}
 				// Parameter Playlist Number Tracks
-				else if (messagePart.startsWith("playlist_tracks%3A")) {
-					String value = messagePart.substring("playlist_tracks%3A"
-							.length());
-					final int track = (int) Double.parseDouble(value);
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "playlist_tracks")) {
+					final int track = message.getIntValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
@@ -582,11 +605,9 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 					});
 				}
 				// Parameter Playlist Repeat Mode
-				else if (messagePart.startsWith("playlist%20repeat%3A")) {
-					String value = messagePart.substring("playlist%20repeat%3A"
-							.length());
-					final int repeat = (int) Double.parseDouble(value);
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "playlist%20repeat")) {
+					final int repeat = message.getIntValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
@@ -595,11 +616,9 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 					});
 				}
 				// Parameter Playlist Shuffle Mode
-				else if (messagePart.startsWith("playlist%20shuffle%3A")) {
-					String value = messagePart
-							.substring("playlist%20shuffle%3A".length());
-					final int shuffle = (int) Double.parseDouble(value);
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "playlist%20shuffle")) {
+					final int shuffle = message.getIntValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
@@ -608,82 +627,75 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 					});
 				}
 				// Parameter Title
-				else if (messagePart.startsWith("title%3A")) {
-					final String value = messagePart.substring("title%3A"
-							.length());
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "title")) {
+					final String value = message.getValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
-							listener.titleChangeEvent(mac, decode(value));
+							listener.titleChangeEvent(mac, value);
 						}
 					});
 
 				}
 				// Parameter Remote Title (radio)
-				else if (messagePart.startsWith("remote_title%3A")) {
-					final String value = messagePart
-							.substring("remote_title%3A".length());
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "remote_title")) {
+					final String value = message.getValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
-							listener.remoteTitleChangeEvent(mac, decode(value));
+							listener.remoteTitleChangeEvent(mac, value);
 						}
 					});
 				}
 				// Parameter Artist
-				else if (messagePart.startsWith("artist%3A")) {
-					final String value = messagePart.substring("artist%3A"
-							.length());
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "artist")) {
+					final String value = message.getValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
-							listener.artistChangeEvent(mac, decode(value));
+							listener.artistChangeEvent(mac, value);
 						}
 					});
 				}
 				// Parameter Album
-				else if (messagePart.startsWith("album%3A")) {
-					final String value = messagePart.substring("album%3A"
-							.length());
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "album")) {
+					final String value = message.getValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
-							listener.albumChangeEvent(mac, decode(value));
+							listener.albumChangeEvent(mac, value);
 						}
 					});
 				}
 				// Parameter Genre
-				else if (messagePart.startsWith("genre%3A")) {
-					final String value = messagePart.substring("genre%3A"
-							.length());
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "genre")) {
+					final String value = message.getValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
-							listener.genreChangeEvent(mac, decode(value));
+							listener.genreChangeEvent(mac, value);
 						}
 					});
 				}
 				// Parameter Year
-				else if (messagePart.startsWith("year%3A")) {
-					final String value = messagePart.substring("year%3A"
-							.length());
-					updatePlayer(new PlayerUpdateEvent() {
+				else if (message.hasTag(i, "year")) {
+					final String value = message.getValue(i);
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
-							listener.yearChangeEvent(mac, decode(value));
+							listener.yearChangeEvent(mac, value);
 						}
 					});
 				}
 				// Parameter Artwork
-				else if (messagePart.startsWith("artwork_track_id%3A")) {
-					String url = messagePart.substring("artwork_track_id%3A"
-							.length());
+				else if (message.hasTag(i, "artwork_track_id")) {
+					String url = message.getValue(i);
 					// NOTE: what is returned if not an artwork id? i.e. if a
 					// space?
 					if (!url.startsWith(" ")) {
@@ -691,11 +703,11 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 								+ url + "/cover.jpg";
 					}
 					final String value = url;
-					updatePlayer(new PlayerUpdateEvent() {
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
-							listener.coverArtChangeEvent(mac, decode(value));
+							listener.coverArtChangeEvent(mac, value);
 						}
 					});
 				}
@@ -703,18 +715,20 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 		}
 
 		private void handlePlaylistMessage(final String mac,
-				String[] messageParts) {
-			String action = messageParts[2];
+				SqueezeBoxCliMessage message) {
+			if (message.size() < 3)
+				return;
 			String mode = "play";
-			if (action.equals("newsong")) {
+			if (message.equals(2, "newsong")) {
 				mode = "play";
-			} else if (action.equals("pause")) {
-				mode = messageParts[3].equals("0") ? "play" : "pause";
-			} else if (action.equals("stop")) {
+			} else if (message.equals(2, "pause")) {
+				mode = message.size() > 3 && message.equals(3, "0") ? "play"
+						: "pause";
+			} else if (message.equals(2, "stop")) {
 				mode = "stop";
 			}
 			final String value = mode;
-			updatePlayer(new PlayerUpdateEvent() {
+			updatePlayer(mac, new PlayerUpdateEvent() {
 				@Override
 				public void updateListener(
 						SqueezeBoxPlayerEventListener listener) {
@@ -724,32 +738,30 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 		}
 
 		private void handlePrefsetMessage(final String mac,
-				String[] messageParts) {
-			if (messageParts.length < 5)
+				SqueezeBoxCliMessage message) {
+			if (message.size() < 5)
 				return;
 
 			// server prefsets
-			if (messageParts[2].equals("server")) {
-				String function = messageParts[3];
-				String value = messageParts[4];
+			if (message.equals(2, "server")) {
+				String value = message.get(4);
 
-				if (function.equals("power")) {
+				if (message.equals(3, "power")) {
 					final boolean power = value.equals("1");
-					updatePlayer(new PlayerUpdateEvent() {
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
 							listener.powerChangeEvent(mac, power);
 						}
 					});
-				} else if (function.equals("volume")) {
+				} else if (message.equals(3, "volume")) {
 					final int volume = (int) Double.parseDouble(value);
-					updatePlayer(new PlayerUpdateEvent() {
+					updatePlayer(mac, new PlayerUpdateEvent() {
 						@Override
 						public void updateListener(
 								SqueezeBoxPlayerEventListener listener) {
 							listener.volumeChangeEvent(mac, volume);
-							;
 						}
 					});
 				}
@@ -769,29 +781,48 @@ public class SqueezeBoxServerHandler extends BaseBridgeHandler {
 	}
 
 	/**
-	 * Update Listeners and child Squeeze Player Things
+	 * Update Listeners and the child Squeeze Player Thing of the given player
 	 * 
+	 * @param mac
 	 * @param event
 	 */
-	private void updatePlayer(PlayerUpdateEvent event) {
+	private void updatePlayer(String mac, PlayerUpdateEvent event) {
 
 		// update listeners like disco services
 		for (SqueezeBoxPlayerEventListener listener : squeezeBoxPlayerListeners) {
 			event.updateListener(listener);
 		}
-		// update our children
-		Bridge bridge = getThing();
-		
-		if(bridge == null)
-			return;
-		
-		List<Thing> things = bridge.getThings();
-		for (Thing thing : things) {
-			ThingHandler handler = thing.getHandler();
-			if (handler instanceof SqueezeBoxPlayerEventListener
-					&& !squeezeBoxPlayerListeners.contains(handler)) {
-				event.updateListener((SqueezeBoxPlayerEventListener) handler);
-			}
+		// update our child
+		SqueezeBoxPlayerEventListener handler = playerHandlers.get(mac);
+		if (handler != null && !squeezeBoxPlayerListeners.contains(handler)) {
+			event.updateListener(handler);
+		}
+	}
+
+	/**
+	 * Registers the handler of a player thing, which receives the events of
+	 * the player with the given MAC address
+	 * 
+	 * @param mac
+	 * @param handler
+	 */
+	public void registerPlayerHandler(String mac,
+			SqueezeBoxPlayerEventListener handler) {
+		if (mac != null) {
+			playerHandlers.put(mac, handler);
+		}
+	}
+
+	/**
+	 * Removes the handler of a player thing
+	 * 
+	 * @param mac
+	 * @param handler
+	 */
+	public void unregisterPlayerHandler(String mac,
+			SqueezeBoxPlayerEventListener handler) {
+		if (mac != null) {
+			playerHandlers.remove(mac, handler);
 		}
 	}
 
@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.squeezebox.internal.utils;
+
+import java.nio.charset.Charset;
+
+/**
+ * A single line received from the CLI of a Squeeze Server, split into its
+ * space separated tokens in one pass.
+ *
+ * The tokens are URL encoded by the server. They are only referenced by their
+ * position in the line and decoded on demand, so that parameters which are not
+ * used are never copied or decoded. Tagged parameters look like
+ * <code>mixer%20volume%3A50</code> and are matched against their encoded tag
+ * (see {@link #hasTag(int, String)}).
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class SqueezeBoxCliMessage {
+
+	/**
+	 * The encoded separator between tag and value of a parameter
+	 */
+	public static final String TAG_SEPARATOR = "%3A";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final String line;
+
+	private int[] starts = new int[32];
+	private int[] ends = new int[32];
+	private int count;
+
+	/**
+	 * Splits the given line into its tokens
+	 *
+	 * @param line
+	 *            a line received from the server
+	 */
+	public SqueezeBoxCliMessage(String line) {
+		this.line = line;
+		int length = line.length();
+		int i = 0;
+		while (i < length) {
+			while (i < length && line.charAt(i) == ' ') {
+				i++;
+			}
+			if (i == length) {
+				break;
+			}
+			int start = i;
+			while (i < length && line.charAt(i) != ' ') {
+				i++;
+			}
+			if (count == starts.length) {
+				int[] newStarts = new int[count * 2];
+				int[] newEnds = new int[count * 2];
+				System.arraycopy(starts, 0, newStarts, 0, count);
+				System.arraycopy(ends, 0, newEnds, 0, count);
+				starts = newStarts;
+				ends = newEnds;
+			}
+			starts[count] = start;
+			ends[count] = i;
+			count++;
+		}
+	}
+
+	/**
+	 * @return the number of tokens
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return the line this message has been created from
+	 */
+	public String getLine() {
+		return line;
+	}
+
+	/**
+	 * @return the token at the given position as received, i.e. still encoded
+	 */
+	public String getRaw(int index) {
+		return line.substring(starts[index], ends[index]);
+	}
+
+	/**
+	 * @return the decoded token at the given position
+	 */
+	public String get(int index) {
+		return decode(line, starts[index], ends[index]);
+	}
+
+	/**
+	 * Compares the token at the given position with an (encoded) string
+	 * without copying it
+	 */
+	public boolean equals(int index, String encoded) {
+		int start = starts[index];
+		return ends[index] - start == encoded.length()
+				&& line.regionMatches(start, encoded, 0, encoded.length());
+	}
+
+	/**
+	 * Checks, if the token at the given position is a parameter with the given
+	 * tag
+	 *
+	 * @param index
+	 *            the position of the token
+	 * @param encodedTag
+	 *            the encoded tag without the separator, e.g.
+	 *            <code>mixer%20volume</code>
+	 * @return true, if the token starts with the tag followed by the separator
+	 */
+	public boolean hasTag(int index, String encodedTag) {
+		int start = starts[index];
+		int tagLength = encodedTag.length();
+		return ends[index] - start >= tagLength + TAG_SEPARATOR.length()
+				&& line.regionMatches(start, encodedTag, 0, tagLength)
+				&& line.regionMatches(start + tagLength, TAG_SEPARATOR, 0,
+						TAG_SEPARATOR.length());
+	}
+
+	/**
+	 * Returns the decoded tag of a parameter, e.g. <code>mixer volume</code>
+	 *
+	 * @return the tag or null, if the token is no tagged parameter
+	 */
+	public String getTag(int index) {
+		int separator = indexOfSeparator(index);
+		return separator < 0 ? null : decode(line, starts[index], separator);
+	}
+
+	/**
+	 * Returns the decoded value of a tagged parameter, e.g. <code>50</code>
+	 * for <code>mixer%20volume%3A50</code>
+	 *
+	 * @return the value or null, if the token is no tagged parameter
+	 */
+	public String getValue(int index) {
+		int separator = indexOfSeparator(index);
+		return separator < 0 ? null : decode(line,
+				separator + TAG_SEPARATOR.length(), ends[index]);
+	}
+
+	/**
+	 * Returns the value of a tagged parameter as a number. Fractions are cut
+	 * off.
+	 *
+	 * @return the value of the parameter
+	 * @throws NumberFormatException
+	 *             if the value is no number
+	 */
+	public int getIntValue(int index) {
+		String value = getValue(index);
+		if (value == null) {
+			throw new NumberFormatException("no value in "
+					+ getRaw(index));
+		}
+		return (int) Double.parseDouble(value);
+	}
+
+	private int indexOfSeparator(int index) {
+		int last = ends[index] - TAG_SEPARATOR.length();
+		for (int i = starts[index]; i <= last; i++) {
+			if (line.charAt(i) == '%'
+					&& line.regionMatches(i, TAG_SEPARATOR, 0,
+							TAG_SEPARATOR.length())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Decodes a URL encoded part of a string the same way as
+	 * {@link java.net.URLDecoder} does, but returns the part directly, if it
+	 * contains no escapes. Invalid escapes are kept as they are.
+	 *
+	 * @param s
+	 *            the string
+	 * @param start
+	 *            the start of the part
+	 * @param end
+	 *            the end of the part (exclusive)
+	 * @return the decoded part
+	 */
+	public static String decode(String s, int start, int end) {
+		int i = start;
+		while (i < end) {
+			char c = s.charAt(i);
+			if (c == '%' || c == '+') {
+				break;
+			}
+			i++;
+		}
+		if (i == end) {
+			return s.substring(start, end);
+		}
+		StringBuilder result = new StringBuilder(end - start);
+		result.append(s, start, i);
+		byte[] bytes = null;
+		while (i < end) {
+			char c = s.charAt(i);
+			if (c == '+') {
+				result.append(' ');
+				i++;
+			} else if (c == '%' && i + 2 < end && hexValue(s, i + 1) >= 0
+					&& hexValue(s, i + 2) >= 0) {
+				// collect all consecutive escapes, they form one UTF-8 sequence
+				if (bytes == null) {
+					bytes = new byte[(end - i) / 3];
+				}
+				int length = 0;
+				while (i + 2 < end && s.charAt(i) == '%'
+						&& hexValue(s, i + 1) >= 0 && hexValue(s, i + 2) >= 0) {
+					bytes[length++] = (byte) ((hexValue(s, i + 1) << 4) + hexValue(
+							s, i + 2));
+					i += 3;
+				}
+				result.append(new String(bytes, 0, length, UTF_8));
+			} else {
+				result.append(c);
+				i++;
+			}
+		}
+		return result.toString();
+	}
+
+	private static int hexValue(String s, int index) {
+		return Character.digit(s.charAt(index), 16);
+	}
+
+	@Override
+	public String toString() {
+		return line;
+	}
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.squeezebox.internal.utils;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded queue of CLI commands for a Squeeze Server, which are written by a
+ * dedicated thread, so that callers never wait for the socket.
+ *
+ * All commands queued while a write is in progress are written together with a
+ * single flush. A command may carry a key (e.g. player and property), in which
+ * case it replaces a command with the same key which has not been sent yet,
+ * keeping its position in the queue. If the queue is full, new commands are
+ * rejected.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class SqueezeBoxCommandQueue {
+	private static Logger logger = LoggerFactory
+			.getLogger(SqueezeBoxCommandQueue.class);
+
+	/**
+	 * Writes a batch of commands to the server
+	 */
+	public interface CommandWriter {
+		/**
+		 * @param commands
+		 *            the commands to write, each without a line separator
+		 * @throws IOException
+		 *             if the commands could not be written
+		 */
+		void write(List<String> commands) throws IOException;
+	}
+
+	private static class QueuedCommand {
+		final String key;
+		String command;
+
+		QueuedCommand(String key, String command) {
+			this.key = key;
+			this.command = command;
+		}
+	}
+
+	private final String name;
+	private final int capacity;
+	private final int maxBatchSize;
+	private final CommandWriter writer;
+
+	private final ArrayDeque<QueuedCommand> queue = new ArrayDeque<QueuedCommand>();
+	private final Map<String, QueuedCommand> pending = new HashMap<String, QueuedCommand>();
+
+	private final AtomicLong sentCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong batchCount = new AtomicLong();
+	private volatile int maxQueueDepth = 0;
+	private volatile long maxWriteTime = 0;
+
+	private Thread worker;
+	private volatile boolean running;
+
+	/**
+	 * @param name
+	 *            a name for the writer thread
+	 * @param capacity
+	 *            the maximum number of queued commands
+	 * @param maxBatchSize
+	 *            the maximum number of commands written with one flush
+	 * @param writer
+	 *            writes the commands to the server
+	 */
+	public SqueezeBoxCommandQueue(String name, int capacity, int maxBatchSize,
+			CommandWriter writer) {
+		this.name = name;
+		this.capacity = capacity;
+		this.maxBatchSize = maxBatchSize;
+		this.writer = writer;
+	}
+
+	public synchronized void start() {
+		if (worker == null) {
+			running = true;
+			worker = new Thread(name) {
+				@Override
+				public void run() {
+					processQueue();
+				}
+			};
+			worker.setDaemon(true);
+			worker.start();
+		}
+	}
+
+	/**
+	 * Stops the writer thread, commands which have not been sent yet are
+	 * discarded
+	 */
+	public void stop() {
+		Thread thread;
+		synchronized (this) {
+			thread = worker;
+			worker = null;
+			running = false;
+			queue.clear();
+			pending.clear();
+			notifyAll();
+		}
+		if (thread != null && thread != Thread.currentThread()) {
+			try {
+				thread.join(TimeUnit.SECONDS.toMillis(5));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Queues a command, which can not be superseded by later commands
+	 *
+	 * @return false, if the command has been rejected
+	 */
+	public boolean add(String command) {
+		return add(command, null);
+	}
+
+	/**
+	 * Queues a command
+	 *
+	 * @param command
+	 *            the command line without a line separator
+	 * @param key
+	 *            commands with the same key replace each other as long as they
+	 *            have not been sent, may be null
+	 * @return false, if the command has been rejected because the queue is
+	 *         full or stopped
+	 */
+	public synchronized boolean add(String command, String key) {
+		if (!running) {
+			return false;
+		}
+		if (key != null) {
+			QueuedCommand queued = pending.get(key);
+			if (queued != null) {
+				queued.command = command;
+				coalescedCount.incrementAndGet();
+				return true;
+			}
+		}
+		if (queue.size() >= capacity) {
+			rejectedCount.incrementAndGet();
+			logger.warn(
+					"Command queue of {} is full, dropping command: {}",
+					name, command);
+			return false;
+		}
+		QueuedCommand queued = new QueuedCommand(key, command);
+		queue.add(queued);
+		if (key != null) {
+			pending.put(key, queued);
+		}
+		if (queue.size() > maxQueueDepth) {
+			maxQueueDepth = queue.size();
+		}
+		notifyAll();
+		return true;
+	}
+
+	private void processQueue() {
+		while (true) {
+			List<String> batch = nextBatch();
+			if (batch == null) {
+				return;
+			}
+			long start = System.nanoTime();
+			try {
+				writer.write(batch);
+				sentCount.addAndGet(batch.size());
+			} catch (IOException | RuntimeException e) {
+				failedCount.addAndGet(batch.size());
+				logger.error("Error while sending commands to Squeeze Server "
+						+ batch, e);
+			}
+			long duration = System.nanoTime() - start;
+			batchCount.incrementAndGet();
+			if (duration > maxWriteTime) {
+				maxWriteTime = duration;
+			}
+		}
+	}
+
+	/**
+	 * Waits for commands and takes all queued ones up to the maximum batch size
+	 *
+	 * @return the commands or null, if the queue has been stopped
+	 */
+	private synchronized List<String> nextBatch() {
+		try {
+			while (running && queue.isEmpty()) {
+				wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		if (!running) {
+			return null;
+		}
+		List<String> batch = new ArrayList<String>(Math.min(queue.size(),
+				maxBatchSize));
+		while (!queue.isEmpty() && batch.size() < maxBatchSize) {
+			QueuedCommand queued = queue.poll();
+			if (queued.key != null) {
+				pending.remove(queued.key);
+			}
+			batch.add(queued.command);
+		}
+		return batch;
+	}
+
+	public synchronized int getQueueDepth() {
+		return queue.size();
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	public long getSentCount() {
+		return sentCount.get();
+	}
+
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	/**
+	 * @return the average number of commands written with one flush
+	 */
+	public double getAverageBatchSize() {
+		long batches = batchCount.get();
+		return batches > 0 ? (double) (sentCount.get() + failedCount.get())
+				/ batches : 0;
+	}
+
+	/**
+	 * @return the longest time in milliseconds a batch took to be written
+	 */
+	public long getMaxWriteTime() {
+		return TimeUnit.NANOSECONDS.toMillis(maxWriteTime);
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("queue depth %d (max %d), sent %d, coalesced %d, rejected %d, failed %d, avg batch size %.1f, max write time %d ms",
+						getQueueDepth(), getMaxQueueDepth(), getSentCount(),
+						getCoalescedCount(), getRejectedCount(),
+						getFailedCount(), getAverageBatchSize(),
+						getMaxWriteTime());
+	}
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+import org.openhab.binding.tesla.TeslaBindingConstants.EventKeys;
+import org.openhab.binding.tesla.internal.TeslaChannelSelectorProxy.TeslaChannelSelector;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Replays the {@link TeslaTraffic} like the handler does, once as before,
+ * with a scan of the selectors for every field, a copy of the properties for
+ * every property and a new parser for every response, and once with the
+ * {@link TeslaEventDecoder}, and prints the time per event and response. It
+ * is not run with the tests, run its main method to compare both.
+ *
+ * The properties are copied like the thing handler does in editProperties()
+ * and updateProperties(), the channel updates are counted.
+ *
+ * @author agent - Initial contribution
+ */
+public class TeslaEventBenchmark {
+
+	private static final int ROUNDS = 20000;
+
+	private static Map<String, String> thingProperties = new HashMap<>();
+	private static int updates;
+
+	public static void main(String[] args) {
+		// warm up
+		runScan(ROUNDS / 10);
+		runDecoder(ROUNDS / 10);
+
+		updates = 0;
+		long start = System.nanoTime();
+		runScan(ROUNDS);
+		long scanTime = System.nanoTime() - start;
+		int scanUpdates = updates;
+
+		updates = 0;
+		start = System.nanoTime();
+		runDecoder(ROUNDS);
+		long decoderTime = System.nanoTime() - start;
+		int decoderUpdates = updates;
+
+		int messages = ROUNDS
+				* (TeslaTraffic.STREAM_LINES.length + TeslaTraffic.RESPONSES.length);
+		System.out.printf("Scan:    %d updates, %.1f ns per message%n",
+				scanUpdates, (double) scanTime / messages);
+		System.out.printf("Decoder: %d updates, %.1f ns per message%n",
+				decoderUpdates, (double) decoderTime / messages);
+	}
+
+	private static Map<String, String> editProperties() {
+		return new HashMap<>(thingProperties);
+	}
+
+	private static void updateProperties(Map<String, String> properties) {
+		thingProperties = new HashMap<>(properties);
+	}
+
+	private static void updateState(String channelID, State state) {
+		updates++;
+	}
+
+	private static void runScan(int rounds) {
+		TeslaChannelSelectorProxy proxy = new TeslaChannelSelectorProxy();
+		for (int round = 0; round < rounds; round++) {
+			for (String line : TeslaTraffic.STREAM_LINES) {
+				String vals[] = line.split(",");
+				for (int i = 0; i < EventKeys.values().length; i++) {
+					try {
+						TeslaChannelSelector selector = TeslaTraffic
+								.getValueSelectorFromRESTIDByScan((EventKeys
+										.values()[i]).toString());
+						if (!selector.isProperty()) {
+							State newState = proxy.getState(vals[i], selector,
+									editProperties());
+							if (newState != null && !vals[i].equals("")) {
+								updateState(selector.getChannelID(), newState);
+							} else {
+								updateState(selector.getChannelID(),
+										UnDefType.UNDEF);
+							}
+						} else {
+							Map<String, String> properties = editProperties();
+							properties.put(selector.getChannelID(), (selector
+									.getState(vals[i])).toString());
+							updateProperties(properties);
+						}
+					} catch (Exception e) {
+					}
+				}
+			}
+			for (String response : TeslaTraffic.RESPONSES) {
+				JsonParser parser = new JsonParser();
+				JsonObject jsonObject = parser.parse(response)
+						.getAsJsonObject();
+				for (Map.Entry<String, JsonElement> entry : jsonObject
+						.entrySet()) {
+					try {
+						TeslaChannelSelector selector = TeslaTraffic
+								.getValueSelectorFromRESTIDByScan(entry
+										.getKey());
+						if (!selector.isProperty()) {
+							if (!entry.getValue().isJsonNull()) {
+								updateState(selector.getChannelID(),
+										proxy.getState(entry.getValue()
+												.getAsString(), selector,
+												editProperties()));
+							} else {
+								updateState(selector.getChannelID(),
+										UnDefType.UNDEF);
+							}
+						} else {
+							if (!entry.getValue().isJsonNull()) {
+								Map<String, String> properties = editProperties();
+								properties.put(selector.getChannelID(), entry
+										.getValue().getAsString());
+								updateProperties(properties);
+							}
+						}
+					} catch (Exception e) {
+					}
+				}
+			}
+		}
+	}
+
+	private static void runDecoder(int rounds) {
+		TeslaEventDecoder decoder = new TeslaEventDecoder(
+				new TeslaChannelSelectorProxy());
+		JsonParser parser = new JsonParser();
+		for (int round = 0; round < rounds; round++) {
+			for (String line : TeslaTraffic.STREAM_LINES) {
+				Map<String, String> properties = editProperties();
+				Map<String, State> states = new LinkedHashMap<>();
+				if (decoder.decodeEvent(TeslaEventDecoder.splitEvent(line),
+						properties, states)) {
+					updateProperties(properties);
+				}
+				for (Map.Entry<String, State> entry : states.entrySet()) {
+					updateState(entry.getKey(), entry.getValue());
+				}
+			}
+			for (String response : TeslaTraffic.RESPONSES) {
+				Map<String, String> properties = editProperties();
+				Map<String, State> states = new LinkedHashMap<>();
+				if (decoder.decodeResponse(parser.parse(response)
+						.getAsJsonObject(), properties, states)) {
+					updateProperties(properties);
+				}
+				for (Map.Entry<String, State> entry : states.entrySet()) {
+					updateState(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.PointType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+import org.junit.Test;
+import org.openhab.binding.tesla.internal.TeslaChannelSelectorProxy.TeslaChannelSelector;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Tests cases for {@link TeslaEventDecoder}.
+ *
+ * @author agent - Initial contribution
+ */
+public class TeslaEventDecoderTest {
+
+	private TeslaEventDecoder decoder = new TeslaEventDecoder(
+			new TeslaChannelSelectorProxy());
+	private Map<String, String> properties = new HashMap<>();
+	private Map<String, State> states = new LinkedHashMap<>();
+
+	private static JsonObject parse(String json) {
+		return new JsonParser().parse(json).getAsJsonObject();
+	}
+
+	@Test
+	public void testSelectorLookupMatchesScan() {
+		for (TeslaChannelSelector selector : TeslaChannelSelector.values()) {
+			if (selector.toString() != null) {
+				assertThat(TeslaChannelSelector
+						.getValueSelectorFromRESTID(selector.toString()),
+						is(TeslaTraffic.getValueSelectorFromRESTIDByScan(selector
+								.toString())));
+			}
+		}
+		// where several selectors share a channel, the first one is found
+		assertThat(
+				TeslaChannelSelector.getValueSelectorFromChannelID("location"),
+				is(TeslaChannelSelector.ELEVATION));
+		try {
+			TeslaChannelSelector.getValueSelectorFromRESTID("car_type");
+			fail("car_type is not mapped");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testEventWhileDriving() {
+		String[] values = TeslaEventDecoder
+				.splitEvent("1452365110124,10547.4,50,77,115,274,51.048183,4.384011,50,D,199,162,274");
+
+		assertThat(decoder.decodeEvent(values, properties, states), is(false));
+		assertThat((DecimalType) states.get("speed"),
+				is(DecimalType.valueOf("50")));
+		assertThat((StringType) states.get("shiftstate"), is(new StringType(
+				"D")));
+		// elevation, latitude and longitude make a single update of the
+		// location
+		assertThat((PointType) states.get("location"), is(new PointType(
+				new StringType("51.048183"), new StringType("4.384011"),
+				new StringType("115"))));
+		assertThat(properties.isEmpty(), is(true));
+	}
+
+	@Test
+	public void testEmptyFieldsAreUndefined() {
+		String[] values = TeslaEventDecoder
+				.splitEvent("1452365119124,10547.5,,74,119,271,51.046660,4.384174,0,,193,156,271");
+
+		decoder.decodeEvent(values, properties, states);
+		assertThat((UnDefType) states.get("speed"), is(UnDefType.UNDEF));
+		assertThat((UnDefType) states.get("shiftstate"), is(UnDefType.UNDEF));
+		assertThat((DecimalType) states.get("power"),
+				is(DecimalType.valueOf("0")));
+	}
+
+	@Test
+	public void testPropertiesAreOnlyChangedOnce() {
+		assertThat(decoder.decodeResponse(parse(TeslaTraffic.VEHICLE_STATE),
+				properties, states), is(true));
+		assertThat(properties.get("version"), is("2.9.154"));
+		assertThat(properties.get("name"), is("Nikola"));
+		assertThat((DecimalType) states.get("odometer"),
+				is(DecimalType.valueOf("10549.75")));
+
+		assertThat(decoder.decodeResponse(parse(TeslaTraffic.VEHICLE_STATE),
+				properties, states), is(false));
+	}
+
+	@Test
+	public void testResponseUsesTheProperties() {
+		decoder.decodeResponse(parse(TeslaTraffic.GUI_SETTINGS), properties,
+				states);
+		decoder.decodeResponse(parse(TeslaTraffic.CHARGE_STATE), properties,
+				states);
+
+		assertThat(properties.get("distanceunits"), is("km/hr"));
+		assertThat(((DecimalType) states.get("batteryrange")).doubleValue(),
+				is(182.34 * 1.609344));
+		assertThat((UnDefType) states.get("scheduledchargingstart"),
+				is(UnDefType.UNDEF));
+	}
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal;
+
+import org.openhab.binding.tesla.internal.TeslaChannelSelectorProxy.TeslaChannelSelector;
+
+/**
+ * Data recorded from a Model S: the lines of the streaming API during a short
+ * drive, with the car parked before and after, and the responses of the REST
+ * API to the vehicle data requests, as they are passed to the handler.
+ *
+ * @author agent - Initial contribution
+ */
+public class TeslaTraffic {
+
+	/**
+	 * The event lines, the fields are in the order of EventKeys.
+	 */
+	public static final String[] STREAM_LINES = {
+			"1452365100124,10547.3,,78,112,271,51.049521,4.384251,0,,201,164,271",
+			"1452365100874,10547.3,,78,112,271,51.049521,4.384251,0,,201,164,271",
+			"1452365100874,10547.3,,78,112,271,51.049521,4.384251,0,,201,164,271",
+			"1452365101624,10547.3,,78,112,271,51.049521,4.384251,0,,201,164,271",
+			"1452365102374,10547.3,,78,112,271,51.049521,4.384251,0,,201,164,271",
+			"1452365103124,10547.3,8,78,113,271,51.049431,4.384249,-5,D,201,164,271",
+			"1452365103624,10547.3,11,78,113,272,51.049341,4.384244,14,D,201,164,272",
+			"1452365104124,10547.3,14,78,113,274,51.049251,4.384235,17,D,201,164,274",
+			"1452365104624,10547.3,17,78,113,276,51.049162,4.384222,20,D,201,164,276",
+			"1452365105124,10547.3,20,78,113,278,51.049073,4.384203,6,D,201,164,278",
+			"1452365105624,10547.3,23,78,114,279,51.048984,4.384183,25,D,201,164,279",
+			"1452365106124,10547.3,26,78,114,280,51.048895,4.384161,28,D,201,164,280",
+			"1452365106624,10547.3,29,77,114,280,51.048806,4.384138,31,D,199,162,280",
+			"1452365107124,10547.3,32,77,114,280,51.048718,4.384115,16,D,199,162,280",
+			"1452365107624,10547.3,35,77,114,280,51.048629,4.384093,36,D,199,162,280",
+			"1452365108124,10547.3,38,77,115,280,51.048541,4.384070,39,D,199,162,280",
+			"1452365108624,10547.3,41,77,115,279,51.048452,4.384050,41,D,199,162,279",
+			"1452365109124,10547.3,44,77,115,277,51.048362,4.384034,27,D,199,162,277",
+			"1452365109624,10547.4,47,77,115,276,51.048273,4.384020,47,D,199,162,276",
+			"1452365110124,10547.4,50,77,115,274,51.048183,4.384011,50,D,199,162,274",
+			"1452365110624,10547.4,53,76,116,272,51.048093,4.384007,52,D,197,160,272",
+			"1452365111124,10547.4,56,76,116,271,51.048003,4.384005,38,D,197,160,271",
+			"1452365111624,10547.4,59,76,116,269,51.047913,4.384007,58,D,197,160,269",
+			"1452365112124,10547.4,62,76,116,267,51.047823,4.384014,60,D,197,160,267",
+			"1452365112624,10547.4,62,76,116,265,51.047734,4.384025,60,D,197,160,265",
+			"1452365113124,10547.4,62,76,117,264,51.047644,4.384039,43,D,197,160,264",
+			"1452365113624,10547.4,62,76,117,263,51.047555,4.384054,60,D,197,160,263",
+			"1452365114124,10547.4,62,76,117,262,51.047466,4.384073,60,D,197,160,262",
+			"1452365114624,10547.4,62,75,117,262,51.047377,4.384091,60,D,195,158,262",
+			"1452365115124,10547.4,62,75,117,262,51.047287,4.384109,43,D,195,158,262",
+			"1452365115624,10547.5,62,75,118,262,51.047198,4.384127,60,D,195,158,262",
+			"1452365116124,10547.5,50,75,118,263,51.047109,4.384143,50,D,195,158,263",
+			"1452365116624,10547.5,38,75,118,264,51.047019,4.384156,39,D,195,158,264",
+			"1452365117124,10547.5,26,75,118,265,51.046930,4.384168,11,D,195,158,265",
+			"1452365117624,10547.5,14,75,118,267,51.046840,4.384174,17,D,195,158,267",
+			"1452365118124,10547.5,2,75,119,269,51.046750,4.384177,6,D,195,158,269",
+			"1452365118624,10547.5,0,74,119,271,51.046660,4.384174,5,P,193,156,271",
+			"1452365119124,10547.5,,74,119,271,51.046660,4.384174,0,,193,156,271",
+			"1452365119874,10547.5,,74,119,271,51.046660,4.384174,0,,193,156,271",
+			"1452365120624,10547.5,,74,119,271,51.046660,4.384174,0,,193,156,271" };
+
+	public static final String CHARGE_STATE =
+			"{\"charging_state\":\"Charging\",\"charge_limit_soc\":90,\"charge_limit_soc_std\":90," +
+			"\"charge_limit_soc_min\":50,\"charge_limit_soc_max\":100,\"charge_to_max_range\":false," +
+			"\"battery_heater_on\":false,\"not_enough_power_to_heat\":false," +
+			"\"max_range_charge_counter\":0,\"fast_charger_present\":false," +
+			"\"fast_charger_type\":\"<invalid>\",\"battery_range\":182.34,\"est_battery_range\":147.21," +
+			"\"ideal_battery_range\":213.96,\"battery_level\":71,\"usable_battery_level\":71," +
+			"\"battery_current\":-0.4,\"charge_energy_added\":6.25,\"charge_miles_added_rated\":20.5," +
+			"\"charge_miles_added_ideal\":24.0,\"charger_voltage\":229,\"charger_pilot_current\":16," +
+			"\"charger_actual_current\":16,\"charger_power\":11,\"time_to_full_charge\":1.83," +
+			"\"trip_charging\":false,\"charge_rate\":22.1,\"charge_port_door_open\":true," +
+			"\"motorized_charge_port\":true,\"scheduled_charging_start_time\":null," +
+			"\"scheduled_charging_pending\":false,\"user_charge_enable_request\":null," +
+			"\"charge_enable_request\":true,\"eu_vehicle\":true,\"charger_phases\":3}";
+
+	public static final String CLIMATE_STATE =
+			"{\"inside_temp\":19.4,\"outside_temp\":7.5,\"driver_temp_setting\":21.0," +
+			"\"passenger_temp_setting\":21.0,\"is_auto_conditioning_on\":false," +
+			"\"is_front_defroster_on\":null,\"is_rear_defroster_on\":false,\"fan_status\":0," +
+			"\"seat_heater_left\":0,\"seat_heater_right\":0,\"seat_heater_rear_left\":0," +
+			"\"seat_heater_rear_right\":0,\"seat_heater_rear_center\":0," +
+			"\"seat_heater_rear_right_back\":0,\"seat_heater_rear_left_back\":0," +
+			"\"smart_preconditioning\":false}";
+
+	public static final String DRIVE_STATE =
+			"{\"shift_state\":null,\"speed\":null,\"latitude\":51.050302,\"longitude\":4.382914," +
+			"\"heading\":268,\"gps_as_of\":1452366001}";
+
+	public static final String VEHICLE_STATE =
+			"{\"api_version\":3,\"calendar_supported\":true,\"car_type\":\"s\"," +
+			"\"car_version\":\"2.9.154\",\"center_display_state\":0,\"dark_rims\":false,\"df\":0," +
+			"\"dr\":0,\"exterior_color\":\"Black\",\"ft\":0,\"has_spoiler\":false,\"locked\":true," +
+			"\"notifications_supported\":true,\"odometer\":10549.75,\"parsed_calendar_supported\":true," +
+			"\"perf_config\":\"P2\",\"pf\":0,\"pr\":0,\"rear_seat_heaters\":1,\"remote_start\":false," +
+			"\"remote_start_supported\":true,\"rhd\":false,\"roof_color\":\"None\",\"rt\":0," +
+			"\"seat_type\":1,\"sun_roof_installed\":1,\"sun_roof_percent_open\":0," +
+			"\"sun_roof_state\":\"unknown\",\"third_row_seats\":\"None\",\"valet_mode\":false," +
+			"\"vehicle_name\":\"Nikola\",\"wheel_type\":\"Base19\"}";
+
+	public static final String GUI_SETTINGS =
+			"{\"gui_distance_units\":\"km/hr\",\"gui_temperature_units\":\"C\"," +
+			"\"gui_charge_rate_units\":\"km/hr\",\"gui_24_hour_time\":true," +
+			"\"gui_range_display\":\"Rated\"}";
+
+	public static final String[] RESPONSES = { CHARGE_STATE, CLIMATE_STATE,
+			DRIVE_STATE, VEHICLE_STATE, GUI_SETTINGS };
+
+	/**
+	 * The lookup of a selector by its REST id as it was done before, by a scan
+	 * of all selectors.
+	 */
+	public static TeslaChannelSelector getValueSelectorFromRESTIDByScan(
+			String valueSelectorText) throws IllegalArgumentException {
+
+		for (TeslaChannelSelector c : TeslaChannelSelector.values()) {
+			if (c.toString() != null && c.toString().equals(valueSelectorText)) {
+				return c;
+			}
+		}
+
+		throw new IllegalArgumentException("Not valid value selector");
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal.throttler;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link QueueChannelThrottler}.
+ *
+ * @author agent - Initial contribution
+ */
+public class QueueChannelThrottlerTest {
+
+	private static final String DATA = "data";
+	private static final String COMMAND = "command";
+
+	private ScheduledExecutorService scheduler = Executors
+			.newScheduledThreadPool(2);
+
+	private final List<String> calls = new ArrayList<String>();
+	private final List<Long> callTimes = new ArrayList<Long>();
+
+	private Runnable call(final String name) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				synchronized (calls) {
+					calls.add(name);
+					callTimes.add(System.currentTimeMillis());
+					calls.notifyAll();
+				}
+			}
+
+			@Override
+			public String toString() {
+				return name;
+			}
+		};
+	}
+
+	private List<String> waitForCalls(int count) throws InterruptedException {
+		synchronized (calls) {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (calls.size() < count
+					&& System.currentTimeMillis() < deadline) {
+				calls.wait(100);
+			}
+			return new ArrayList<String>(calls);
+		}
+	}
+
+	private QueueChannelThrottler newThrottler(Rate rate, int queueLength) {
+		Map<Object, Rate> channels = new HashMap<Object, Rate>();
+		channels.put(DATA, new Rate(100, 1, TimeUnit.SECONDS));
+		channels.put(COMMAND, new Rate(100, 1, TimeUnit.SECONDS));
+		return new QueueChannelThrottler(rate, scheduler, channels,
+				TimeProvider.SYSTEM_PROVIDER, queueLength);
+	}
+
+	@After
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void testRateIsRespected() throws Exception {
+		QueueChannelThrottler throttler = newThrottler(new Rate(3, 300,
+				TimeUnit.MILLISECONDS), 10);
+		for (int i = 0; i < 9; i++) {
+			throttler.submit(DATA, call("data" + i));
+		}
+
+		assertThat(waitForCalls(9).size(), is(9));
+		for (int i = 3; i < 9; i++) {
+			long interval = callTimes.get(i) - callTimes.get(i - 3);
+			assertTrue("interval " + interval, interval >= 290);
+		}
+		assertThat(throttler.getExecutedCalls(), is(9L));
+		assertTrue(throttler.getMaxWaitTime() >= 590);
+	}
+
+	@Test
+	public void testCommandsHavePriority() throws Exception {
+		QueueChannelThrottler throttler = newThrottler(new Rate(1, 100,
+				TimeUnit.MILLISECONDS), 10);
+		throttler.setPriority(COMMAND, 1);
+		throttler.submit(DATA, call("data0"));
+		waitForCalls(1);
+		// the global rate is used up, the calls are queued
+		throttler.submit(DATA, call("data1"));
+		throttler.submit(DATA, call("data2"));
+		throttler.submit(COMMAND, call("command"));
+
+		assertThat(waitForCalls(4),
+				is(Arrays.asList("data0", "command", "data1", "data2")));
+	}
+
+	@Test
+	public void testFullQueueRejectsCalls() throws Exception {
+		QueueChannelThrottler throttler = newThrottler(new Rate(1, 10,
+				TimeUnit.SECONDS), 2);
+		throttler.submit(DATA, call("data0"));
+		waitForCalls(1);
+
+		assertThat(throttler.submit(DATA, call("data1")), is(notNullValue()));
+		assertThat(throttler.submit(COMMAND, call("command")),
+				is(notNullValue()));
+		assertThat(throttler.submit(DATA, call("data2")), is(nullValue()));
+		assertThat(throttler.getRejectedCalls(), is(1L));
+		assertThat(throttler.getPendingCalls(), is(2));
+	}
+
+	@Test
+	public void testCallsAreExecutedOnTheSharedScheduler() throws Exception {
+		QueueChannelThrottler throttler = new QueueChannelThrottler(new Rate(
+				10, 1, TimeUnit.SECONDS));
+		final CountDownLatch executed = new CountDownLatch(1);
+		final String[] threadName = new String[1];
+		throttler.submit(new Runnable() {
+			@Override
+			public void run() {
+				threadName[0] = Thread.currentThread().getName();
+				executed.countDown();
+			}
+		});
+
+		assertTrue(executed.await(5, TimeUnit.SECONDS));
+		assertTrue(threadName[0], threadName[0].startsWith("tesla-throttler-"));
+	}
+}
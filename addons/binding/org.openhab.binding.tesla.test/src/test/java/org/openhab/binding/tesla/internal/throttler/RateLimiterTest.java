@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal.throttler;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link RateLimiter}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RateLimiterTest {
+
+	private static final String CHANNEL = "channel";
+
+	private static RateLimiter newLimiter() {
+		Map<Object, Rate> channels = new HashMap<Object, Rate>();
+		channels.put(CHANNEL, new Rate(2, 1, TimeUnit.SECONDS));
+		return new RateLimiter(new Rate(10, 1, TimeUnit.SECONDS), channels);
+	}
+
+	@Test
+	public void testRatesAreRespected() {
+		RateLimiter limiter = newLimiter();
+		for (int i = 0; i < 10; i++) {
+			assertThat(limiter.reserve(null, 0), is(0L));
+		}
+		// the global rate is used up, the channel rate is not
+		assertThat(limiter.callTime(CHANNEL, 0), is(1001L));
+		assertThat(limiter.callTime(CHANNEL, 1001), is(1001L));
+		assertThat(limiter.reserve(CHANNEL, 1001), is(1001L));
+		assertThat(limiter.reserve(CHANNEL, 1001), is(1001L));
+		// the channel rate is used up
+		assertThat(limiter.callTime(CHANNEL, 1001), is(2002L));
+		assertThat(limiter.callTime(null, 1001), is(1001L));
+	}
+
+	@Test
+	public void testAddedRate() {
+		RateLimiter limiter = newLimiter();
+		limiter.addRate(new Rate(1, 1, TimeUnit.MINUTES));
+		assertThat(limiter.reserve(null, 0), is(0L));
+		assertThat(limiter.callTime(null, 0), is(60001L));
+	}
+
+	@Test
+	public void testConcurrentReservations() throws Exception {
+		final int threads = 8;
+		final int calls = 25;
+		RateLimiter expected = newLimiter();
+		List<Long> expectedTimes = new ArrayList<Long>();
+		for (int i = 0; i < threads * calls; i++) {
+			expectedTimes.add(expected.reserve(CHANNEL, 0));
+		}
+
+		final RateLimiter limiter = newLimiter();
+		final List<Long> times = Collections
+				.synchronizedList(new ArrayList<Long>());
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int i = 0; i < threads; i++) {
+			Thread worker = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < calls; j++) {
+						times.add(limiter.reserve(CHANNEL, 0));
+					}
+				}
+			};
+			workers.add(worker);
+			worker.start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		// every reservation is atomic, so the same times are reserved in any
+		// order
+		Collections.sort(times);
+		assertThat(times, is(expectedTimes));
+		assertThat(limiter.getReservedCalls(), is((long) threads * calls));
+	}
+}
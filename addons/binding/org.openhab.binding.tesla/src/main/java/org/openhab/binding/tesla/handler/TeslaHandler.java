@@ -16,9 +16,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -46,10 +46,11 @@ import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.State;
-import org.eclipse.smarthome.core.types.UnDefType;
+import org.glassfish.jersey.client.ClientProperties;
 import org.openhab.binding.tesla.TeslaBindingConstants.EventKeys;
 import org.openhab.binding.tesla.internal.TeslaChannelSelectorProxy;
 import org.openhab.binding.tesla.internal.TeslaChannelSelectorProxy.TeslaChannelSelector;
+import org.openhab.binding.tesla.internal.TeslaEventDecoder;
 import org.openhab.binding.tesla.internal.protocol.ChargeState;
 import org.openhab.binding.tesla.internal.protocol.ClimateState;
 import org.openhab.binding.tesla.internal.protocol.DriveState;
@@ -75,9 +76,11 @@ import com.google.gson.JsonParser;
  */
 public class TeslaHandler extends BaseThingHandler {
 
+    // Delay before the event stream is established again
     public static final int EVENT_REFRESH_INTERVAL = 200;
     public static final int FAST_STATUS_REFRESH_INTERVAL = 15000;
     public static final int SLOW_STATUS_REFRESH_INTERVAL = 60000;
+    // The event stream is established again when no event has been received for this time
     public static final int MINIMUM_EVENT_INTERVAL = 15000;
 
     private Logger logger = LoggerFactory.getLogger(TeslaHandler.class);
@@ -104,7 +107,7 @@ public class TeslaHandler extends BaseThingHandler {
     protected WebTarget eventTarget;
 
     // Threading and Job related variables
-    protected ScheduledFuture<?> eventJob;
+    protected EventReader eventReader;
     protected ScheduledFuture<?> fastStateJob;
     protected ScheduledFuture<?> slowStateJob;
     protected QueueChannelThrottler stateThrottler;
@@ -116,6 +119,7 @@ public class TeslaHandler extends BaseThingHandler {
 
     protected Gson gson = new Gson();
     protected TeslaChannelSelectorProxy teslaChannelSelectorProxy = new TeslaChannelSelectorProxy();
+    protected TeslaEventDecoder eventDecoder = new TeslaEventDecoder(teslaChannelSelectorProxy);
     private JsonParser parser = new JsonParser();
 
     public TeslaHandler(Thing thing) {
@@ -145,9 +149,9 @@ public class TeslaHandler extends BaseThingHandler {
                             getConfig().get(VIN));
                     updateStatus(ThingStatus.ONLINE);
 
-                    if (eventJob == null || eventJob.isCancelled()) {
-                        eventJob = scheduler.scheduleAtFixedRate(eventRunnable, 0, EVENT_REFRESH_INTERVAL,
-                                TimeUnit.MILLISECONDS);
+                    if (eventReader == null) {
+                        eventReader = new EventReader();
+                        eventReader.start();
                     }
 
                     Map<Object, Rate> channels = new HashMap<Object, Rate>();
@@ -158,6 +162,8 @@ public class TeslaHandler extends BaseThingHandler {
                     Rate secondRate = new Rate(200, 10, TimeUnit.MINUTES);
                     stateThrottler = new QueueChannelThrottler(firstRate, scheduler, channels);
                     stateThrottler.addRate(secondRate);
+                    // commands are executed before the pending state requests
+                    stateThrottler.setPriority(TESLA_COMMAND_THROTTLE, 1);
 
                     if (fastStateJob == null || fastStateJob.isCancelled()) {
                         fastStateJob = scheduler.scheduleWithFixedDelay(fastStateRunnable, 0,
@@ -181,9 +187,9 @@ public class TeslaHandler extends BaseThingHandler {
     @Override
     public void dispose() {
 
-        if (eventJob != null && !eventJob.isCancelled()) {
-            eventJob.cancel(true);
-            eventJob = null;
+        if (eventReader != null) {
+            eventReader.shutdown();
+            eventReader = null;
         }
 
         if (fastStateJob != null && !fastStateJob.isCancelled()) {
@@ -195,6 +201,10 @@ public class TeslaHandler extends BaseThingHandler {
             slowStateJob.cancel(true);
             slowStateJob = null;
         }
+
+        if (stateThrottler != null) {
+            logger.debug("Requests to the vehicle with VIN '{}': {}", getConfig().get(VIN), stateThrottler);
+        }
     }
 
     @Override
@@ -392,8 +402,6 @@ public class TeslaHandler extends BaseThingHandler {
                 }
             }
 
-            JsonParser parser = new JsonParser();
-
             if (response != null && response.getStatus() == 200) {
                 try {
                     JsonObject jsonObject = parser.parse(response.readEntity(String.class)).getAsJsonObject();
@@ -414,7 +422,6 @@ public class TeslaHandler extends BaseThingHandler {
 
     public void parseAndUpdate(String request, String payLoad, String result) {
 
-        JsonParser parser = new JsonParser();
         JsonObject jsonObject = null;
 
         try {
@@ -475,31 +482,12 @@ public class TeslaHandler extends BaseThingHandler {
                     logger.debug("The request ({}) execution was {}, and reported '{}'", new Object[] { request,
                             requestResult ? "successful" : "not successful", jsonObject.get("reason").getAsString() });
                 } else {
-                    Set<Map.Entry<String, JsonElement>> entrySet = jsonObject.entrySet();
-                    for (Map.Entry<String, JsonElement> entry : entrySet) {
-                        try {
-                            TeslaChannelSelector selector = TeslaChannelSelector
-                                    .getValueSelectorFromRESTID(entry.getKey());
-                            if (!selector.isProperty()) {
-                                ChannelUID theChannelUID = new ChannelUID(getThing().getUID(), selector.getChannelID());
-                                if (!entry.getValue().isJsonNull()) {
-                                    updateState(theChannelUID, teslaChannelSelectorProxy
-                                            .getState(entry.getValue().getAsString(), selector, editProperties()));
-                                } else {
-                                    updateState(theChannelUID, UnDefType.UNDEF);
-                                }
-                            } else {
-                                if (!entry.getValue().isJsonNull()) {
-                                    Map<String, String> properties = editProperties();
-                                    properties.put(selector.getChannelID(), entry.getValue().getAsString());
-                                    updateProperties(properties);
-                                }
-                            }
-                        } catch (Exception e) {
-                            logger.debug("Unable to handle the variable/value pair '{}':'{}'", entry.getKey(),
-                                    entry.getValue());
-                        }
+                    Map<String, String> properties = editProperties();
+                    Map<String, State> states = new LinkedHashMap<>();
+                    if (eventDecoder.decodeResponse(jsonObject, properties, states)) {
+                        updateProperties(properties);
                     }
+                    updateChannels(states);
                 }
             }
         } catch (Exception p) {
@@ -508,6 +496,32 @@ public class TeslaHandler extends BaseThingHandler {
 
     }
 
+    /**
+     * Process a line of the streaming API. A line with the same timestamp as the previous one is skipped.
+     *
+     * @param line
+     */
+    protected void processEvent(String line) {
+        lastEventSystemTime = System.currentTimeMillis();
+        logger.debug("Received an event: '{}'", line);
+        String vals[] = TeslaEventDecoder.splitEvent(line);
+        if (!vals[0].equals(lastEventTimeStamp)) {
+            lastEventTimeStamp = vals[0];
+            Map<String, String> properties = editProperties();
+            Map<String, State> states = new LinkedHashMap<>();
+            if (eventDecoder.decodeEvent(vals, properties, states)) {
+                updateProperties(properties);
+            }
+            updateChannels(states);
+        }
+    }
+
+    protected void updateChannels(Map<String, State> states) {
+        for (Map.Entry<String, State> entry : states.entrySet()) {
+            updateState(new ChannelUID(getThing().getUID(), entry.getKey()), entry.getValue());
+        }
+    }
+
     protected boolean isAwake() {
         return (vehicle != null) ? (vehicle.state != "asleep" && vehicle.vehicle_id != null) : false;
     }
@@ -607,8 +621,6 @@ public class TeslaHandler extends BaseThingHandler {
         Response response = vehiclesTarget.request(MediaType.APPLICATION_JSON_TYPE)
                 .header("Authorization", "Bearer " + accessToken).get();
 
-        JsonParser parser = new JsonParser();
-
         JsonObject jsonObject = parser.parse(response.readEntity(String.class)).getAsJsonObject();
         Vehicle[] vehicleArray = gson.fromJson(jsonObject.getAsJsonArray("response"), Vehicle[].class);
 
@@ -676,6 +688,10 @@ public class TeslaHandler extends BaseThingHandler {
         @Override
         public void run() {
 
+            if (stateThrottler != null) {
+                logger.debug("Requests to the vehicle with VIN '{}': {}", getConfig().get(VIN), stateThrottler);
+            }
+
             if (isAwake()) {
                 requestData(TESLA_CHARGE_STATE);
                 requestData(TESLA_CLIMATE_STATE);
@@ -692,18 +708,32 @@ public class TeslaHandler extends BaseThingHandler {
         }
     };
 
-    protected Runnable eventRunnable = new Runnable() {
+    /**
+     * Reads the streaming API of the vehicle. The events are processed as soon as they arrive, the stream is
+     * established again when it ends, or when no event has been received for {@link #MINIMUM_EVENT_INTERVAL}
+     * milliseconds. A dedicated thread is used, it is blocked while waiting for the next event.
+     */
+    protected class EventReader extends Thread {
+
+        public EventReader() {
+            super("ESH-tesla-events-" + getThing().getUID().getId());
+            setDaemon(true);
+        }
+
+        public void shutdown() {
+            interrupt();
+            closeEventStream();
+        }
 
         protected boolean establishEventStream() throws Exception {
             eventClient = ClientBuilder.newClient()
-                    .register(new Authenticator((String) getConfig().get(USERNAME), vehicle.tokens[0]));
+                    .register(new Authenticator((String) getConfig().get(USERNAME), vehicle.tokens[0]))
+                    .property(ClientProperties.READ_TIMEOUT, MINIMUM_EVENT_INTERVAL);
             eventTarget = eventClient.target(TESLA_EVENT_URI).path(vehicle.vehicle_id + "/").queryParam("values",
                     StringUtils.join(EventKeys.values(), ',', 1, EventKeys.values().length));
             eventResponse = eventTarget.request(MediaType.TEXT_PLAIN_TYPE).get();
             if (eventResponse.getStatus() == 200) {
                 InputStream dummy = (InputStream) eventResponse.getEntity();
-                // eventInputStreamReader = new
-                // InputStreamReader(eventResponse.readEntity(InputStream.class));
                 eventInputStreamReader = new InputStreamReader(dummy);
                 eventBufferedReader = new BufferedReader(eventInputStreamReader);
                 return true;
@@ -712,91 +742,67 @@ public class TeslaHandler extends BaseThingHandler {
             }
         }
 
+        protected synchronized void closeEventStream() {
+            eventBufferedReader = null;
+            eventInputStreamReader = null;
+            if (eventResponse != null) {
+                eventResponse.close();
+                eventResponse = null;
+            }
+            if (eventClient != null) {
+                eventClient.close();
+                eventClient = null;
+            }
+        }
+
         @Override
         public void run() {
-            try {
-                if (isAwake()) {
-                    if (eventBufferedReader == null || (!isInMotion()
-                            && (System.currentTimeMillis() - lastEventSystemTime > MINIMUM_EVENT_INTERVAL))) {
+            while (!isInterrupted()) {
+                try {
+                    if (isAwake()) {
                         try {
-                            if (!establishEventStream()) {
+                            if (establishEventStream()) {
+                                String line;
+                                while (!isInterrupted() && (line = eventBufferedReader.readLine()) != null) {
+                                    processEvent(line);
+                                }
+                            } else {
                                 vehicle = queryVehicle();
-                                eventBufferedReader = null;
                             }
+                        } catch (IOException e) {
+                            // we just move on. If we are here, then is most probably due to Premature EOF
+                            // exceptions, or no event has been received for a while
+                            logger.debug("The event stream of the vehicle has ended : {}", e.getMessage());
                         } catch (Exception e) {
-                            logger.error(
-                                    "An exception occurred while establishing the event stream for the vehicle: '{}'",
-                                    e.getMessage());
-                            vehicle = queryVehicle();
-                            eventBufferedReader = null;
-                        }
-                    }
-
-                    try {
-                        if (eventBufferedReader != null) {
-                            String line = null;
-                            try {
-                                line = eventBufferedReader.readLine();
-                            } catch (Exception e) {
-                                // we just move on. If we are here, then is most
-                                // probably due to Premature EOF exceptions
-                            }
-                            if (line != null) {
-                                lastEventSystemTime = System.currentTimeMillis();
-                                logger.debug("Received an event: '{}'", line);
-                                String vals[] = line.split(",");
-                                if (!vals[0].equals(lastEventTimeStamp)) {
-                                    lastEventTimeStamp = vals[0];
-                                    for (int i = 0; i < EventKeys.values().length; i++) {
-                                        try {
-                                            TeslaChannelSelector selector = TeslaChannelSelector
-                                                    .getValueSelectorFromRESTID((EventKeys.values()[i]).toString());
-                                            if (!selector.isProperty()) {
-                                                State newState = teslaChannelSelectorProxy.getState(vals[i], selector,
-                                                        editProperties());
-                                                if (newState != null && !vals[i].equals("")) {
-                                                    updateState(new ChannelUID(getThing().getUID(),
-                                                            selector.getChannelID()), newState);
-                                                } else {
-                                                    updateState(new ChannelUID(getThing().getUID(),
-                                                            selector.getChannelID()), UnDefType.UNDEF);
-
-                                                }
-                                            } else {
-                                                Map<String, String> properties = editProperties();
-                                                properties.put(selector.getChannelID(),
-                                                        (selector.getState(vals[i])).toString());
-                                                updateProperties(properties);
-                                            }
-                                        } catch (Exception e) {
-                                            logger.warn(
-                                                    "An exception occurred while processing an event received from the vehicle; '{}'",
-                                                    e.getMessage());
-                                        }
-                                    }
-                                }
-                            } else {
-                                eventBufferedReader = null;
+                            if (!isInterrupted()) {
+                                logger.error(
+                                        "An exception occurred while establishing the event stream for the vehicle: '{}'",
+                                        e.getMessage());
+                                vehicle = queryVehicle();
                             }
+                        } finally {
+                            closeEventStream();
                         }
-                    } catch (Exception e) {
-                        logger.error("An exception occurred while reading event inputs from vehicle '{}' : {}",
-                                vehicle.vin, e.getMessage());
-                        eventBufferedReader = null;
-                    }
-                } else {
-                    if (vehicle != null) {
-                        // wake up the vehicle until streaming token <> 0
-                        sendCommand(TESLA_COMMAND_WAKE_UP);
                     } else {
-                        vehicle = queryVehicle();
+                        if (vehicle != null) {
+                            // wake up the vehicle until streaming token <> 0
+                            sendCommand(TESLA_COMMAND_WAKE_UP);
+                        } else {
+                            vehicle = queryVehicle();
+                        }
                     }
+                } catch (Exception t) {
+                    logger.error("An exception ocurred in the event thread: '{}'", t.getMessage());
+                }
+
+                try {
+                    Thread.sleep(EVENT_REFRESH_INTERVAL);
+                } catch (InterruptedException e) {
+                    return;
                 }
-            } catch (Exception t) {
-                logger.error("An exception ocurred in the event thread: '{}'", t.getMessage());
             }
         }
-    };
+    }
 
     protected class Request implements Runnable {
 
@@ -12,6 +12,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.smarthome.core.library.types.DateTimeType;
@@ -1055,10 +1056,9 @@ public class TeslaChannelSelectorProxy {
 		public static TeslaChannelSelector getValueSelectorFromChannelID(
 				String valueSelectorText) throws IllegalArgumentException {
 
-			for (TeslaChannelSelector c : TeslaChannelSelector.values()) {
-				if (c.channelID.equals(valueSelectorText)) {
-					return c;
-				}
+			TeslaChannelSelector c = CHANNEL_IDS.get(valueSelectorText);
+			if (c != null) {
+				return c;
 			}
 
 			throw new IllegalArgumentException("Not valid value selector");
@@ -1067,14 +1067,30 @@ public class TeslaChannelSelectorProxy {
 		public static TeslaChannelSelector getValueSelectorFromRESTID(
 				String valueSelectorText) throws IllegalArgumentException {
 
-			for (TeslaChannelSelector c : TeslaChannelSelector.values()) {
-				if (c.RESTID != null && c.RESTID.equals(valueSelectorText)) {
-					return c;
-				}
+			TeslaChannelSelector c = REST_IDS.get(valueSelectorText);
+			if (c != null) {
+				return c;
 			}
 
 			throw new IllegalArgumentException("Not valid value selector");
 		}
+
+		// Lookup tables, every field of every event and REST response is
+		// looked up. Where several selectors share a channel, the first one is
+		// found, as with a scan of values().
+		private static final Map<String, TeslaChannelSelector> REST_IDS = new HashMap<>();
+		private static final Map<String, TeslaChannelSelector> CHANNEL_IDS = new HashMap<>();
+
+		static {
+			for (TeslaChannelSelector c : values()) {
+				if (c.RESTID != null && !REST_IDS.containsKey(c.RESTID)) {
+					REST_IDS.put(c.RESTID, c);
+				}
+				if (!CHANNEL_IDS.containsKey(c.channelID)) {
+					CHANNEL_IDS.put(c.channelID, c);
+				}
+			}
+		}
 	}
 
 	public String latitude = "0";
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal;
+
+import java.util.Map;
+
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+import org.openhab.binding.tesla.TeslaBindingConstants.EventKeys;
+import org.openhab.binding.tesla.internal.TeslaChannelSelectorProxy.TeslaChannelSelector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * The {@link TeslaEventDecoder} class converts the lines of the streaming API
+ * and the responses of the REST API into channel states and thing properties.
+ * The states are collected per channel, so a channel which is fed by several
+ * fields, like the location, is updated once with its final state, and the
+ * properties are changed in a single map, which is only written back when a
+ * value has changed.
+ *
+ * @author agent - Initial contribution
+ */
+public class TeslaEventDecoder {
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(TeslaEventDecoder.class);
+
+	// The selector of each field of an event line, in the order of EventKeys
+	private static final TeslaChannelSelector[] EVENT_SELECTORS = new TeslaChannelSelector[EventKeys
+			.values().length];
+
+	static {
+		for (EventKeys key : EventKeys.values()) {
+			try {
+				EVENT_SELECTORS[key.ordinal()] = TeslaChannelSelector
+						.getValueSelectorFromRESTID(key.toString());
+			} catch (IllegalArgumentException e) {
+				// the field is not mapped to a channel
+			}
+		}
+	}
+
+	private final TeslaChannelSelectorProxy proxy;
+
+	public TeslaEventDecoder(TeslaChannelSelectorProxy proxy) {
+		this.proxy = proxy;
+	}
+
+	/**
+	 * Split a line of the streaming API into its fields, in the order of
+	 * {@link EventKeys}. Empty fields are kept.
+	 */
+	public static String[] splitEvent(String line) {
+		return line.split(",", -1);
+	}
+
+	/**
+	 * Decode the fields of an event.
+	 *
+	 * @param values
+	 *            the fields of the event, see {@link #splitEvent(String)}
+	 * @param properties
+	 *            the properties of the thing, changed in place
+	 * @param states
+	 *            receives the new state of each channel, by channel ID
+	 * @return true if a property has changed
+	 */
+	public boolean decodeEvent(String[] values, Map<String, String> properties,
+			Map<String, State> states) {
+		boolean propertiesChanged = false;
+		int count = Math.min(values.length, EVENT_SELECTORS.length);
+		for (int i = 0; i < count; i++) {
+			TeslaChannelSelector selector = EVENT_SELECTORS[i];
+			if (selector == null) {
+				continue;
+			}
+			try {
+				if (!selector.isProperty()) {
+					State newState = values[i].isEmpty() ? null : proxy
+							.getState(values[i], selector, properties);
+					states.put(selector.getChannelID(),
+							newState != null ? newState : UnDefType.UNDEF);
+				} else if (!values[i].isEmpty()) {
+					propertiesChanged |= setProperty(properties,
+							selector.getChannelID(),
+							selector.getState(values[i]).toString());
+				}
+			} catch (Exception e) {
+				logger.warn(
+						"An exception occurred while processing an event received from the vehicle; '{}'",
+						e.getMessage());
+			}
+		}
+		return propertiesChanged;
+	}
+
+	/**
+	 * Decode the fields of a response of the REST API.
+	 *
+	 * @param jsonObject
+	 *            the response
+	 * @param properties
+	 *            the properties of the thing, changed in place
+	 * @param states
+	 *            receives the new state of each channel, by channel ID
+	 * @return true if a property has changed
+	 */
+	public boolean decodeResponse(JsonObject jsonObject,
+			Map<String, String> properties, Map<String, State> states) {
+		boolean propertiesChanged = false;
+		for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+			try {
+				TeslaChannelSelector selector = TeslaChannelSelector
+						.getValueSelectorFromRESTID(entry.getKey());
+				if (!selector.isProperty()) {
+					State newState = entry.getValue().isJsonNull() ? null
+							: proxy.getState(entry.getValue().getAsString(),
+									selector, properties);
+					states.put(selector.getChannelID(),
+							newState != null ? newState : UnDefType.UNDEF);
+				} else if (!entry.getValue().isJsonNull()) {
+					propertiesChanged |= setProperty(properties,
+							selector.getChannelID(), entry.getValue()
+									.getAsString());
+				}
+			} catch (Exception e) {
+				logger.debug(
+						"Unable to handle the variable/value pair '{}':'{}'",
+						entry.getKey(), entry.getValue());
+			}
+		}
+		return propertiesChanged;
+	}
+
+	private static boolean setProperty(Map<String, String> properties,
+			String name, String value) {
+		return !value.equals(properties.put(name, value));
+	}
+
+}
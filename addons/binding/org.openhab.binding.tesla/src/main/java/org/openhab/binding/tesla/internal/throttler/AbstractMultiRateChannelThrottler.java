@@ -8,9 +8,6 @@
  */
 package org.openhab.binding.tesla.internal.throttler;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -24,48 +21,27 @@ abstract class AbstractMultiRateChannelThrottler implements ChannelThrottler {
 
 	protected final TimeProvider timeProvider;
 	protected final ScheduledExecutorService scheduler;
-	protected final Map<Object, Rate> channels = new HashMap<Object, Rate>();
-	protected final ArrayList<Rate> rates = new ArrayList<Rate>();
+	protected final RateLimiter rateLimiter;
 
 	protected AbstractMultiRateChannelThrottler(Rate rate,
 			ScheduledExecutorService scheduler, Map<Object, Rate> channels,
 			TimeProvider timeProvider) {
-		this.rates.add(rate);
+		this.rateLimiter = new RateLimiter(rate, channels);
 		this.scheduler = scheduler;
-		this.channels.putAll(channels);
 		this.timeProvider = timeProvider;
 	}
 
-	public synchronized void addRate(Rate rate) {
-		this.rates.add(rate);
+	public void addRate(Rate rate) {
+		rateLimiter.addRate(rate);
 	}
 
-	protected synchronized long callTime(Rate channel) {
-		long maxCallTime = 0;
-		long finalCallTime = 0;
-		long now = timeProvider.getCurrentTimeInMillis();
-		Iterator<Rate> iterator = rates.iterator();
-		while (iterator.hasNext()) {
-			Rate someRate = iterator.next();
-			maxCallTime = Math.max(maxCallTime, someRate.callTime(now));
-		}
-
-		if (channel != null) {
-			finalCallTime = Math.max(maxCallTime, channel.callTime(now));
-			channel.addCall(finalCallTime);
-		}
-
-		iterator = rates.iterator();
-		while (iterator.hasNext()) {
-			Rate someRate = iterator.next();
-			someRate.addCall(finalCallTime);
-		}
-
-		return finalCallTime;
+	protected long callTime(Object channelKey) {
+		return rateLimiter.reserve(channelKey,
+				timeProvider.getCurrentTimeInMillis());
 	}
 
 	protected long getThrottleDelay(Object channelKey) {
-		long delay = callTime(channels.get(channelKey))
+		long delay = callTime(channelKey)
 				- timeProvider.getCurrentTimeInMillis();
 		return delay < 0 ? 0 : delay;
 	}
@@ -8,16 +8,18 @@
  */
 package org.openhab.binding.tesla.internal.throttler;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +28,11 @@ import org.slf4j.LoggerFactory;
  * The {@link QueueChannelThrottler} implements a throttler that maintains
  * multiple execution rates, and maintains the order of calls
  * 
+ * The calls are queued per channel. A single dispatcher, which runs on the
+ * scheduler, takes the calls which may be executed now, those of the channel
+ * with the highest priority first, and waits on the scheduler for the next
+ * one. The calls are only accounted in the rates when they are executed.
+ * 
  * @author Karel Goderis - Initial contribution
  */
 public final class QueueChannelThrottler extends
@@ -35,23 +42,77 @@ public final class QueueChannelThrottler extends
 			.getLogger(QueueChannelThrottler.class);
 
 	private final static int MAX_QUEUE_LENGTH = 150;
-	private BlockingQueue<FutureTask<?>> tasks;
-	private final Rate overallRate;
 
-	private final Runnable processQueueTask = new Runnable() {
+	// The states of the dispatcher
+	private final static int IDLE = 0;
+	private final static int RUNNING = 1;
+	private final static int SLEEPING = 2;
+
+	private final Map<Object, ChannelQueue> queues = new HashMap<Object, ChannelQueue>();
+	// The queue of the calls without a channel, or with an unknown channel
+	private final ChannelQueue defaultQueue = new ChannelQueue(null);
+	// The queues by descending priority
+	private final AtomicReference<ChannelQueue[]> orderedQueues = new AtomicReference<ChannelQueue[]>();
+	private final int queueLength;
+	private final AtomicInteger pendingTasks = new AtomicInteger();
+
+	private final AtomicInteger dispatcherState = new AtomicInteger(IDLE);
+	// Incremented on every submit, so the dispatcher does not go to sleep
+	// over a new call
+	private final AtomicLong signals = new AtomicLong();
+
+	private final AtomicLong submittedCalls = new AtomicLong();
+	private final AtomicLong executedCalls = new AtomicLong();
+	private final AtomicLong rejectedCalls = new AtomicLong();
+	private final AtomicLong totalWaitTime = new AtomicLong();
+	private final AtomicLong maxWaitTime = new AtomicLong();
+
+	private static final class ChannelQueue {
+		final Object channelKey;
+		final ConcurrentLinkedQueue<ThrottledTask> tasks = new ConcurrentLinkedQueue<ThrottledTask>();
+		volatile int priority;
+
+		ChannelQueue(Object channelKey) {
+			this.channelKey = channelKey;
+		}
+	}
+
+	private static final Comparator<ChannelQueue> PRIORITY_ORDER = new Comparator<ChannelQueue>() {
+		@Override
+		public int compare(ChannelQueue first, ChannelQueue second) {
+			return Integer.compare(second.priority, first.priority);
+		}
+	};
+
+	private static final class ThrottledTask extends FutureTask<Object> {
+		final long submitTime;
+
+		ThrottledTask(Runnable task, long submitTime) {
+			super(task, null);
+			this.submitTime = submitTime;
+		}
+	}
+
+	private final Runnable dispatchTask = new Runnable() {
 		@Override
 		public void run() {
-			FutureTask<?> task = tasks.poll();
-			if (task != null && !task.isCancelled()) {
-				task.run();
+			dispatch();
+		}
+	};
+
+	private final Runnable wakeUpTask = new Runnable() {
+		@Override
+		public void run() {
+			if (dispatcherState.compareAndSet(SLEEPING, RUNNING)) {
+				dispatch();
 			}
 		}
 	};
 
 	public QueueChannelThrottler(Rate someRate) {
-		this(someRate, (ScheduledThreadPoolExecutor) Executors
-				.newScheduledThreadPool(1), new HashMap<Object, Rate>(),
-				TimeProvider.SYSTEM_PROVIDER, MAX_QUEUE_LENGTH);
+		this(someRate, ThrottlerScheduler.getScheduler(),
+				new HashMap<Object, Rate>(), TimeProvider.SYSTEM_PROVIDER,
+				MAX_QUEUE_LENGTH);
 	}
 
 	public QueueChannelThrottler(Rate someRate,
@@ -68,8 +129,7 @@ public final class QueueChannelThrottler extends
 
 	public QueueChannelThrottler(Rate someRate, Map<Object, Rate> channels,
 			int queueLength) {
-		this(someRate, (ScheduledThreadPoolExecutor) Executors
-				.newScheduledThreadPool(1), channels,
+		this(someRate, ThrottlerScheduler.getScheduler(), channels,
 				TimeProvider.SYSTEM_PROVIDER, queueLength);
 	}
 
@@ -77,9 +137,26 @@ public final class QueueChannelThrottler extends
 			ScheduledExecutorService scheduler, Map<Object, Rate> channels,
 			TimeProvider timeProvider, int queueLength) {
 		super(someRate, scheduler, channels, timeProvider);
-		overallRate = someRate;
-		tasks = new LinkedBlockingQueue<FutureTask<?>>(queueLength);
+		this.queueLength = queueLength;
+		for (Object channelKey : channels.keySet()) {
+			queues.put(channelKey, new ChannelQueue(channelKey));
+		}
+		ChannelQueue[] ordered = queues.values().toArray(
+				new ChannelQueue[queues.size() + 1]);
+		ordered[queues.size()] = defaultQueue;
+		orderedQueues.set(ordered);
+	}
 
+	/**
+	 * Set the priority of a channel. When calls of several channels may be
+	 * executed, the calls of the channel with the highest priority are
+	 * executed first. The default priority is 0.
+	 */
+	public void setPriority(Object channelKey, int priority) {
+		getQueue(channelKey).priority = priority;
+		ChannelQueue[] ordered = orderedQueues.get().clone();
+		Arrays.sort(ordered, PRIORITY_ORDER);
+		orderedQueues.set(ordered);
 	}
 
 	@Override
@@ -87,30 +164,137 @@ public final class QueueChannelThrottler extends
 		return submit(null, task);
 	}
 
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Override
 	public Future<?> submit(Object channelKey, Runnable task) {
-		FutureTask runTask = new FutureTask(task, null);
-		try {
-			if (tasks.offer(runTask, overallRate.timeInMillis(),
-					TimeUnit.MILLISECONDS)) {
-				long throttledTime = channelKey == null ? callTime(null)
-						: callTime(channels.get(channelKey));
-				long now = timeProvider.getCurrentTimeInMillis();
-				scheduler.schedule(processQueueTask, throttledTime < now ? 0
-						: throttledTime - now, TimeUnit.MILLISECONDS);
-				return runTask;
-			} else {
-				logger.warn(
-						"The QueueThrottler can not take the task '{}' at this point in time",
-						runTask.toString());
+		submittedCalls.incrementAndGet();
+		if (pendingTasks.incrementAndGet() > queueLength) {
+			pendingTasks.decrementAndGet();
+			rejectedCalls.incrementAndGet();
+			logger.warn(
+					"The QueueThrottler can not take the task '{}' at this point in time",
+					task.toString());
+			return null;
+		}
+
+		ThrottledTask runTask = new ThrottledTask(task,
+				timeProvider.getCurrentTimeInMillis());
+		getQueue(channelKey).tasks.add(runTask);
+		signals.incrementAndGet();
+		if (dispatcherState.compareAndSet(IDLE, RUNNING)
+				|| dispatcherState.compareAndSet(SLEEPING, RUNNING)) {
+			scheduler.execute(dispatchTask);
+		}
+		return runTask;
+	}
+
+	private ChannelQueue getQueue(Object channelKey) {
+		ChannelQueue queue = channelKey == null ? null : queues.get(channelKey);
+		return queue == null ? defaultQueue : queue;
+	}
+
+	private void dispatch() {
+		while (true) {
+			long signal = signals.get();
+			long now = timeProvider.getCurrentTimeInMillis();
+			long nextCallTime = dispatchTasks(now);
+			int nextState = nextCallTime == Long.MAX_VALUE ? IDLE : SLEEPING;
+			dispatcherState.set(nextState);
+			if (signals.get() != signal
+					&& dispatcherState.compareAndSet(nextState, RUNNING)) {
+				// a call has been submitted in the meantime
+				continue;
+			}
+			if (nextState == SLEEPING) {
+				scheduler.schedule(wakeUpTask, nextCallTime - now,
+						TimeUnit.MILLISECONDS);
 			}
-		} catch (InterruptedException e) {
-			logger.error(
-					"An exception occurred while scheduling a new taks: '{}'",
-					e.getMessage());
+			return;
 		}
+	}
+
+	/**
+	 * Execute the calls which may be executed now.
+	 * 
+	 * @return the time of the next call, Long.MAX_VALUE if there is none
+	 */
+	private long dispatchTasks(long now) {
+		long nextCallTime;
+		boolean dispatched;
+		do {
+			dispatched = false;
+			nextCallTime = Long.MAX_VALUE;
+			for (ChannelQueue queue : orderedQueues.get()) {
+				if (queue.tasks.isEmpty()) {
+					continue;
+				}
+				long callTime = rateLimiter.callTime(queue.channelKey, now);
+				if (callTime > now) {
+					nextCallTime = Math.min(nextCallTime, callTime);
+					continue;
+				}
+				ThrottledTask task = queue.tasks.poll();
+				pendingTasks.decrementAndGet();
+				if (!task.isCancelled()) {
+					rateLimiter.reserve(queue.channelKey, now);
+					taskExecuted(now - task.submitTime);
+					scheduler.execute(task);
+				}
+				// start again with the channel of the highest priority
+				dispatched = true;
+				break;
+			}
+		} while (dispatched);
+		return nextCallTime;
+	}
+
+	private void taskExecuted(long waitTime) {
+		executedCalls.incrementAndGet();
+		totalWaitTime.addAndGet(waitTime);
+		long max;
+		do {
+			max = maxWaitTime.get();
+		} while (waitTime > max && !maxWaitTime.compareAndSet(max, waitTime));
+	}
 
-		return null;
+	public int getPendingCalls() {
+		return pendingTasks.get();
+	}
+
+	public long getSubmittedCalls() {
+		return submittedCalls.get();
+	}
+
+	public long getExecutedCalls() {
+		return executedCalls.get();
+	}
+
+	/**
+	 * Return the number of calls which have not been accepted because the
+	 * queue was full.
+	 */
+	public long getRejectedCalls() {
+		return rejectedCalls.get();
+	}
+
+	/**
+	 * Return the average time in milliseconds between the submission and the
+	 * execution of a call.
+	 */
+	public long getAverageWaitTime() {
+		long executed = executedCalls.get();
+		return executed == 0 ? 0 : totalWaitTime.get() / executed;
+	}
+
+	public long getMaxWaitTime() {
+		return maxWaitTime.get();
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("%d calls submitted, %d executed, %d rejected, %d pending, wait time %d ms average, %d ms max",
+						getSubmittedCalls(), getExecutedCalls(),
+						getRejectedCalls(), getPendingCalls(),
+						getAverageWaitTime(), getMaxWaitTime());
 	}
 }
@@ -8,9 +8,7 @@
  */
 package org.openhab.binding.tesla.internal.throttler;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.ListIterator;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -18,14 +16,18 @@ import java.util.concurrent.TimeUnit;
  * executed in a given time length. If the quota of calls is used, then calls
  * are scheduled for the next block of time
  * 
+ * A Rate does not keep the history of calls itself, the {@link RateLimiter}
+ * keeps an immutable history per rate and replaces it atomically.
+ * 
  * @author Karel Goderis - Initial contribution
  */
 public final class Rate {
 
+	static final long[] NO_CALLS = new long[0];
+
 	private final int numberCalls;
 	private final int timeLength;
 	private final TimeUnit timeUnit;
-	private final LinkedList<Long> callHistory = new LinkedList<Long>();
 
 	public Rate(int numberCalls, int timeLength, TimeUnit timeUnit) {
 		this.numberCalls = numberCalls;
@@ -37,33 +39,39 @@ public final class Rate {
 		return timeUnit.toMillis(timeLength);
 	}
 
-	void addCall(long callTime) {
-		callHistory.addLast(callTime);
+	static long[] addCall(long[] callHistory, long callTime) {
+		long[] newHistory = Arrays.copyOf(callHistory, callHistory.length + 1);
+		newHistory[callHistory.length] = callTime;
+		return newHistory;
 	}
 
-	private void cleanOld(long now) {
-		ListIterator<Long> i = callHistory.listIterator();
+	long[] cleanOld(long[] callHistory, long now) {
 		long threshold = now - timeInMillis();
-		while (i.hasNext()) {
-			if (i.next() <= threshold) {
-				i.remove();
-			} else {
-				break;
-			}
+		int i = 0;
+		while (i < callHistory.length && callHistory[i] <= threshold) {
+			i++;
 		}
+		return i == 0 ? callHistory : Arrays.copyOfRange(callHistory, i,
+				callHistory.length);
 	}
 
-	long callTime(long now) {
-		cleanOld(now);
-		if (callHistory.size() < numberCalls) {
+	/**
+	 * Return the earliest time of the next call.
+	 * 
+	 * @param callHistory
+	 *            the calls of this rate, cleaned up with
+	 *            {@link #cleanOld(long[], long)}
+	 * @param now
+	 */
+	long callTime(long[] callHistory, long now) {
+		if (callHistory.length < numberCalls) {
 			return now;
 		}
-		long lastStart = callHistory.getLast() - timeInMillis();
+		long lastStart = callHistory[callHistory.length - 1] - timeInMillis();
 		long firstPeriodCall = lastStart, call;
 		int count = 0;
-		Iterator<Long> i = callHistory.descendingIterator();
-		while (i.hasNext()) {
-			call = i.next();
+		for (int i = callHistory.length - 1; i >= 0; i--) {
+			call = callHistory[i];
 			if (call < lastStart) {
 				break;
 			} else {
@@ -77,4 +85,10 @@ public final class Rate {
 			return firstPeriodCall + timeInMillis() + 1;
 		}
 	}
+
+	@Override
+	public String toString() {
+		return numberCalls + " calls per " + timeLength + " "
+				+ timeUnit.toString().toLowerCase();
+	}
 }
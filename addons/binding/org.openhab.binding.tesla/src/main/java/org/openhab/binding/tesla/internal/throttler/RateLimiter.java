@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal.throttler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@link RateLimiter} keeps the call history of a set of global rates and
+ * channel rates. A call has to respect all global rates and the rate of its
+ * channel. The histories are immutable and replaced together with a
+ * compare-and-set, so calls can be reserved by several threads without a lock.
+ *
+ * @author agent - Initial contribution
+ */
+final class RateLimiter {
+
+	/**
+	 * The rates and their histories, the channel rates come first.
+	 */
+	private static final class State {
+		final Rate[] rates;
+		final long[][] histories;
+
+		State(Rate[] rates, long[][] histories) {
+			this.rates = rates;
+			this.histories = histories;
+		}
+	}
+
+	private final Map<Object, Integer> channelIndexes = new HashMap<Object, Integer>();
+	private final int channelCount;
+	private final AtomicReference<State> state = new AtomicReference<State>();
+
+	private final AtomicLong reservedCalls = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+
+	RateLimiter(Rate rate, Map<Object, Rate> channels) {
+		// a rate used by several channels is shared by them
+		Map<Rate, Integer> indexes = new IdentityHashMap<Rate, Integer>();
+		Rate[] rates = new Rate[channels.size() + 1];
+		int count = 0;
+		for (Map.Entry<Object, Rate> channel : channels.entrySet()) {
+			Integer index = indexes.get(channel.getValue());
+			if (index == null) {
+				index = count++;
+				indexes.put(channel.getValue(), index);
+				rates[index] = channel.getValue();
+			}
+			channelIndexes.put(channel.getKey(), index);
+		}
+		channelCount = count;
+		rates[count++] = rate;
+		rates = Arrays.copyOf(rates, count);
+
+		long[][] histories = new long[count][];
+		Arrays.fill(histories, Rate.NO_CALLS);
+		state.set(new State(rates, histories));
+	}
+
+	/**
+	 * Add a global rate.
+	 */
+	void addRate(Rate rate) {
+		State current;
+		State next;
+		do {
+			current = state.get();
+			Rate[] rates = Arrays.copyOf(current.rates,
+					current.rates.length + 1);
+			rates[current.rates.length] = rate;
+			long[][] histories = Arrays.copyOf(current.histories,
+					current.histories.length + 1);
+			histories[current.histories.length] = Rate.NO_CALLS;
+			next = new State(rates, histories);
+		} while (!state.compareAndSet(current, next));
+	}
+
+	/**
+	 * Return the earliest time of the next call of the given channel, without
+	 * reserving it.
+	 *
+	 * @param channelKey
+	 *            the channel, or null if the call only has to respect the
+	 *            global rates
+	 * @param now
+	 */
+	long callTime(Object channelKey, long now) {
+		State current = state.get();
+		long callTime = now;
+		int channelIndex = getChannelIndex(channelKey);
+		for (int i = 0; i < current.rates.length; i++) {
+			if (i == channelIndex || i >= channelCount) {
+				Rate rate = current.rates[i];
+				callTime = Math.max(callTime, rate.callTime(
+						rate.cleanOld(current.histories[i], now), now));
+			}
+		}
+		return callTime;
+	}
+
+	/**
+	 * Reserve the next call of the given channel.
+	 *
+	 * @param channelKey
+	 *            the channel, or null if the call only has to respect the
+	 *            global rates
+	 * @param now
+	 * @return the time of the call
+	 */
+	long reserve(Object channelKey, long now) {
+		int channelIndex = getChannelIndex(channelKey);
+		while (true) {
+			State current = state.get();
+			long[][] histories = current.histories.clone();
+			long callTime = now;
+			for (int i = 0; i < histories.length; i++) {
+				if (i == channelIndex || i >= channelCount) {
+					Rate rate = current.rates[i];
+					histories[i] = rate.cleanOld(histories[i], now);
+					callTime = Math.max(callTime,
+							rate.callTime(histories[i], now));
+				}
+			}
+			for (int i = 0; i < histories.length; i++) {
+				if (i == channelIndex || i >= channelCount) {
+					histories[i] = Rate.addCall(histories[i], callTime);
+				}
+			}
+			if (state.compareAndSet(current, new State(current.rates,
+					histories))) {
+				reservedCalls.incrementAndGet();
+				return callTime;
+			}
+			retries.incrementAndGet();
+		}
+	}
+
+	private int getChannelIndex(Object channelKey) {
+		Integer index = channelKey == null ? null : channelIndexes
+				.get(channelKey);
+		return index == null ? -1 : index;
+	}
+
+	long getReservedCalls() {
+		return reservedCalls.get();
+	}
+
+	/**
+	 * Return the number of reservations which had to be repeated because
+	 * another thread reserved a call at the same time.
+	 */
+	long getRetries() {
+		return retries.get();
+	}
+}
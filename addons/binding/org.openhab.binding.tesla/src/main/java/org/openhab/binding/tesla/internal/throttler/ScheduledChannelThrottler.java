@@ -10,7 +10,6 @@ package org.openhab.binding.tesla.internal.throttler;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -25,12 +24,12 @@ import java.util.concurrent.TimeUnit;
 public final class ScheduledChannelThrottler extends AbstractChannelThrottler {
 
 	public ScheduledChannelThrottler(Rate totalRate) {
-		this(totalRate, Executors.newSingleThreadScheduledExecutor(),
+		this(totalRate, ThrottlerScheduler.getScheduler(),
 				new HashMap<Object, Rate>(), TimeProvider.SYSTEM_PROVIDER);
 	}
 
 	public ScheduledChannelThrottler(Rate totalRate, Map<Object, Rate> channels) {
-		this(totalRate, Executors.newSingleThreadScheduledExecutor(), channels,
+		this(totalRate, ThrottlerScheduler.getScheduler(), channels,
 				TimeProvider.SYSTEM_PROVIDER);
 	}
 
@@ -47,8 +46,7 @@ public final class ScheduledChannelThrottler extends AbstractChannelThrottler {
 	}
 
 	public void submitSync(Runnable task) throws InterruptedException {
-		long delay = callTime(null) - timeProvider.getCurrentTimeInMillis();
-		Thread.sleep(getThrottleDelay(delay));
+		Thread.sleep(getThrottleDelay(null));
 		task.run();
 	}
 
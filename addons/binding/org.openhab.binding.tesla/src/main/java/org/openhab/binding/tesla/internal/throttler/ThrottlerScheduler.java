@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal.throttler;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link ThrottlerScheduler} provides the scheduler which is shared by
+ * all throttlers that are not given a scheduler of their own, instead of a
+ * thread pool per throttler
+ *
+ * @author agent - Initial contribution
+ */
+public final class ThrottlerScheduler {
+
+	private static final int POOL_SIZE = 2;
+
+	private static ScheduledExecutorService scheduler;
+
+	private ThrottlerScheduler() {
+	}
+
+	public static synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			scheduler = Executors.newScheduledThreadPool(POOL_SIZE,
+					new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable,
+									"tesla-throttler-"
+											+ count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+		return scheduler;
+	}
+}
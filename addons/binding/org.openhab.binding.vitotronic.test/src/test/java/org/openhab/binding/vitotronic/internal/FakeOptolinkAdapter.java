@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2014 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.vitotronic.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A local fake of the optolink adapter. It accepts one connection, answers
+ * <code>list</code> and <code>get</code> requests with the XML stream of the
+ * adapter and records the requests.
+ *
+ * @author agent - Initial contribution
+ */
+public class FakeOptolinkAdapter {
+
+    private final ServerSocket serverSocket;
+    private final Map<String, String> things = new HashMap<String, String>();
+    private final Map<String, String> values = new HashMap<String, String>();
+    private final List<String> requests = new ArrayList<String>();
+    private final long answerDelay;
+    private Socket socket;
+
+    /**
+     * @param answerDelay the time in milliseconds the adapter needs to answer
+     *            a request
+     */
+    public FakeOptolinkAdapter(long answerDelay) throws IOException {
+        this.answerDelay = answerDelay;
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread("Fake optolink adapter") {
+            @Override
+            public void run() {
+                serve();
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public synchronized void defineThing(String thingType, String thingId) {
+        things.put(thingId, thingType);
+    }
+
+    public synchronized void setValue(String thingId, String channelId, String value) {
+        values.put(thingId + ":" + channelId, value);
+    }
+
+    public synchronized List<String> getRequests() {
+        return new ArrayList<String>(requests);
+    }
+
+    public void close() throws IOException {
+        serverSocket.close();
+        synchronized (this) {
+            if (socket != null) {
+                socket.close();
+            }
+        }
+    }
+
+    private void serve() {
+        try {
+            Socket client = serverSocket.accept();
+            synchronized (this) {
+                socket = client;
+            }
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), "UTF-8"));
+            OutputStream out = client.getOutputStream();
+            write(out, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<optolink>\n");
+            String request;
+            while ((request = in.readLine()) != null) {
+                synchronized (this) {
+                    requests.add(request);
+                }
+                if (answerDelay > 0) {
+                    Thread.sleep(answerDelay);
+                }
+                write(out, answer(request));
+            }
+        } catch (IOException | InterruptedException e) {
+            // closed
+        }
+    }
+
+    private synchronized String answer(String request) {
+        String[] parts = request.split(" ");
+        StringBuilder answer = new StringBuilder();
+        if (parts[0].equals("list")) {
+            answer.append("<define>\n");
+            for (Map.Entry<String, String> thing : things.entrySet()) {
+                answer.append("<thing id=\"").append(thing.getKey()).append("\" type=\"").append(thing.getValue())
+                        .append("\">\n<description>").append(thing.getValue()).append("</description>\n</thing>\n");
+            }
+            answer.append("</define>\n");
+        } else if (parts[0].equals("get") && parts.length == 3) {
+            answer.append("<data>\n<thing id=\"").append(parts[1]).append("\">\n");
+            for (String channelId : parts[2].split(",")) {
+                String value = values.get(parts[1] + ":" + channelId);
+                if (value != null) {
+                    answer.append("<channel id=\"").append(channelId).append("\" value=\"").append(value)
+                            .append("\"/>\n");
+                }
+            }
+            answer.append("</thing>\n</data>\n");
+        }
+        return answer.toString();
+    }
+
+    private void write(OutputStream out, String data) throws IOException {
+        out.write(data.getBytes("UTF-8"));
+        out.flush();
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2014 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.vitotronic.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link VitotronicAdapterConnection} against a local fake of
+ * the optolink adapter.
+ *
+ * @author agent - Initial contribution
+ */
+public class VitotronicAdapterConnectionTest {
+
+    private static final long ANSWER_DELAY = 20;
+
+    private FakeOptolinkAdapter adapter;
+    private VitotronicAdapterConnection connection;
+    private RecordingListener listener = new RecordingListener();
+
+    private static class RecordingListener implements VitotronicAdapterConnection.Listener {
+        boolean connected;
+        boolean disconnected;
+        final List<String> events = new ArrayList<String>();
+
+        @Override
+        public synchronized void connected() {
+            connected = true;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void thingDefined(String thingType, String thingId) {
+            events.add("define " + thingType + " " + thingId);
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void channelValue(String thingId, String channelId, String value) {
+            events.add(thingId + ":" + channelId + "=" + value);
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void disconnected() {
+            disconnected = true;
+            notifyAll();
+        }
+
+        synchronized void waitFor(int eventCount) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (events.size() < eventCount && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+        }
+
+        synchronized void waitForConnection(boolean state) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((state ? !connected : !disconnected) && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        adapter = new FakeOptolinkAdapter(ANSWER_DELAY);
+        adapter.defineThing("heating", "heating");
+        adapter.setValue("heating", "outside_temp", "7.5");
+        adapter.setValue("heating", "boiler_temp", "61.2");
+        adapter.setValue("storagetank", "hotwater_temp", "52.0");
+        connection = new VitotronicAdapterConnection("127.0.0.1", adapter.getPort(), listener);
+        connection.open();
+        listener.waitForConnection(true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+        adapter.close();
+    }
+
+    @Test
+    public void testConnected() {
+        assertThat(listener.connected, is(true));
+        assertThat(connection.isConnected(), is(true));
+    }
+
+    @Test
+    public void testList() throws Exception {
+        connection.send("list");
+        listener.waitFor(1);
+        assertThat(listener.events, is(Arrays.asList("define heating heating")));
+    }
+
+    @Test
+    public void testRequestsAreSentTogether() throws Exception {
+        assertThat(connection.send(Arrays.asList("get heating outside_temp,boiler_temp",
+                "get storagetank hotwater_temp")), is(true));
+        listener.waitFor(3);
+
+        assertThat(listener.events, is(Arrays.asList("heating:outside_temp=7.5", "heating:boiler_temp=61.2",
+                "storagetank:hotwater_temp=52.0")));
+        assertThat(adapter.getRequests(),
+                is(Arrays.asList("get heating outside_temp,boiler_temp", "get storagetank hotwater_temp")));
+    }
+
+    @Test
+    public void testLatency() throws Exception {
+        connection.send(Arrays.asList("get heating outside_temp", "get storagetank hotwater_temp"));
+        listener.waitFor(2);
+
+        assertThat(connection.getRequestCount(), is(2L));
+        assertThat(connection.getAnswerCount(), is(2L));
+        // the adapter answers one request after the other
+        assertTrue("max " + connection.getMaxLatency(), connection.getMaxLatency() >= 2 * ANSWER_DELAY - 1);
+        assertTrue("avg " + connection.getAverageLatency(), connection.getAverageLatency() >= ANSWER_DELAY - 1);
+    }
+
+    @Test
+    public void testDisconnected() throws Exception {
+        adapter.close();
+        listener.waitForConnection(false);
+
+        assertThat(listener.disconnected, is(true));
+        assertThat(connection.isConnected(), is(false));
+        assertThat(connection.send("get heating outside_temp"), is(false));
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2014 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.vitotronic.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.openhab.binding.vitotronic.internal.VitotronicRefreshPlan.Tier;
+
+/**
+ * Tests cases for {@link VitotronicRefreshPlan}.
+ *
+ * @author agent - Initial contribution
+ */
+public class VitotronicRefreshPlanTest {
+
+    private static final List<String> CHANNELS = Arrays.asList("outside_temp", "boiler_temp", "starts");
+
+    @Test
+    public void testTiers() {
+        assertThat(VitotronicRefreshPlan.getTier("outside_temp"), is(Tier.FAST));
+        assertThat(VitotronicRefreshPlan.getTier("circuitpump"), is(Tier.FAST));
+        assertThat(VitotronicRefreshPlan.getTier("starts"), is(Tier.SLOW));
+        assertThat(VitotronicRefreshPlan.getTier("room_temp"), is(Tier.SLOW));
+    }
+
+    @Test
+    public void testSlowChannelsAreRefreshedLess() {
+        VitotronicRefreshPlan plan = new VitotronicRefreshPlan(300, 3600);
+        int fast = 0;
+        int slow = 0;
+        for (int i = 0; i < 24; i++) {
+            plan.nextCycle();
+            for (String channel : plan.getDueChannels("heating", CHANNELS)) {
+                if (channel.equals("starts")) {
+                    slow++;
+                } else {
+                    fast++;
+                }
+            }
+        }
+        assertThat(fast, is(48));
+        assertThat(slow, is(2));
+    }
+
+    @Test
+    public void testNewChannelsAreDue() {
+        VitotronicRefreshPlan plan = new VitotronicRefreshPlan(300, 3600);
+        plan.nextCycle();
+        assertThat(plan.getDueChannels("heating", CHANNELS), is(CHANNELS));
+        plan.nextCycle();
+        assertThat(plan.getDueChannels("heating", Arrays.asList("outside_temp", "starts", "ontime")),
+                is(Arrays.asList("outside_temp", "ontime")));
+    }
+
+    @Test
+    public void testSetChannelIsDueInNextCycle() {
+        VitotronicRefreshPlan plan = new VitotronicRefreshPlan(300, 3600);
+        plan.nextCycle();
+        plan.getDueChannels("heating", Arrays.asList("outside_temp", "room_temp", "starts"));
+        plan.nextCycle();
+        plan.refreshNow("heating", "room_temp");
+        plan.refreshNow("pelletburner", "starts");
+
+        assertThat(plan.getDueChannels("heating", Arrays.asList("outside_temp", "room_temp", "starts")),
+                is(Arrays.asList("outside_temp", "room_temp")));
+        // the channel is back in its tier afterwards
+        plan.nextCycle();
+        assertThat(plan.getDueChannels("heating", Arrays.asList("outside_temp", "room_temp")),
+                is(Arrays.asList("outside_temp")));
+    }
+
+    @Test
+    public void testReset() {
+        VitotronicRefreshPlan plan = new VitotronicRefreshPlan(300, 3600);
+        plan.nextCycle();
+        plan.getDueChannels("heating", CHANNELS);
+        plan.getDueChannels("pelletburner", Arrays.asList("starts"));
+        plan.nextCycle();
+        plan.reset("heating");
+
+        assertThat(plan.getDueChannels("heating", CHANNELS), is(CHANNELS));
+        assertThat(plan.getDueChannels("pelletburner", Arrays.asList("starts")),
+                is(Collections.<String> emptyList()));
+    }
+}
@@ -20,5 +20,6 @@ public class VitotronicBindingConfiguration {
 	public Integer port;
 	public String adapterId;
 	public Integer refreshInterval;
+	public Integer slowRefreshInterval;
 
 }
@@ -28,6 +28,7 @@ public class VitotronicBindingConstants {
       public static final String  PORT = "port";
       public static final String  ADAPTER_ID = "adapterID";
       public static final String  REFRESH_INTERVAL = "refreshInterval";
+      public static final String  SLOW_REFRESH_INTERVAL = "slowRefreshInterval";
       public static final String  DISCOVERY_INTERVAL = "discoveryInterval";
     
 	 // List of main device types 
@@ -15,14 +15,10 @@ package org.openhab.binding.vitotronic.handler;
  */
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.PrintStream;
-import java.net.Socket;
-import java.net.UnknownHostException;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -32,16 +28,11 @@ import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.vitotronic.VitotronicBindingConfiguration;
+import org.openhab.binding.vitotronic.internal.VitotronicAdapterConnection;
+import org.openhab.binding.vitotronic.internal.VitotronicRefreshPlan;
 import org.openhab.binding.vitotronic.internal.discovery.VitotronicDiscoveryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.Attributes;
-import org.xml.sax.ContentHandler;
-import org.xml.sax.InputSource;
-import org.xml.sax.Locator;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.XMLReaderFactory;
 
 public class VitotronicBridgeHandler extends BaseBridgeHandler {
 
@@ -50,10 +41,9 @@ public class VitotronicBridgeHandler extends BaseBridgeHandler {
     private String ipAddress;
     private int port;
     private int refreshInterval = 300;
-    private Socket socket;
-    private PrintStream out;
-    private InputStream inStream;
-    private boolean isConnect = false;
+    private int slowRefreshInterval = 3600;
+    private VitotronicAdapterConnection connection;
+    private VitotronicRefreshPlan refreshPlan;
     private boolean isDiscover = false;
 
     public VitotronicBridgeHandler(Bridge bridge) {
@@ -68,7 +58,7 @@ public class VitotronicBridgeHandler extends BaseBridgeHandler {
     }
 
     public void updateStatus() {
-        if (isConnect) {
+        if (isConnected()) {
             updateStatus(ThingStatus.ONLINE);
         } else {
             updateStatus(ThingStatus.OFFLINE);
@@ -107,7 +97,7 @@ public class VitotronicBridgeHandler extends BaseBridgeHandler {
 
     // Managing ThingHandler
 
-    private Map<String, VitotronicThingHandler> thingHandlerMap = new HashMap<String, VitotronicThingHandler>();
+    private Map<String, VitotronicThingHandler> thingHandlerMap = new ConcurrentHashMap<String, VitotronicThingHandler>();
 
     public void registerVitotronicThingListener(VitotronicThingHandler thingHandler) {
         if (thingHandler == null) {
@@ -118,6 +108,9 @@ public class VitotronicBridgeHandler extends BaseBridgeHandler {
                 thingHandlerMap.put(thingID, thingHandler);
                 logger.trace("register thingHandler for thing: {}", thingID);
                 updateThingHandlerStatus(thingHandler, this.getStatus());
+                if (refreshPlan != null) {
+                    refreshPlan.reset(thingID);
+                }
                 sendSocketData("get " + thingID);
             } else {
                 logger.trace("thingHandler for thing: '{}' allready registerd", thingID);
@@ -132,6 +125,9 @@ public class VitotronicBridgeHandler extends BaseBridgeHandler {
             if (thingHandlerMap.remove(thingID) == null) {
                 logger.trace("thingHandler for thing: {} not registered", thingID);
             } else {
+                if (refreshPlan != null) {
+                    refreshPlan.reset(thingID);
+                }
                 updateThingHandlerStatus(thingHandler, ThingStatus.OFFLINE);
             }
         }
@@ -156,14 +152,14 @@ public class VitotronicBridgeHandler extends BaseBridgeHandler {
         @Override
         public void run() {
             logger.trace("Polling job called");
-            if (!isConnect) {
+            if (!isConnected()) {
                 startSocketReceiver();
                 try {
                     Thread.sleep(5000); // Wait for connection .
                 } catch (InterruptedException e) {
                 }
             }
-            if (isConnect) {
+            if (isConnected()) {
                 scanThings();
                 refreshData();
             }
@@ -180,16 +176,26 @@ public class VitotronicBridgeHandler extends BaseBridgeHandler {
 
     private void refreshData() {
         logger.trace("Job: refresh Data...");
-        String thingId;
-        String channelList;
+        refreshPlan.nextCycle();
+        // all due channels of all things are sent with one write
+        List<String> requests = new ArrayList<String>();
         for (Map.Entry<String, VitotronicThingHandler> entry : thingHandlerMap.entrySet()) {
-            channelList = entry.getValue().getActiveChannelListAsString();
-            thingId = entry.getValue().getThing().getUID().getId();
-            if (isConnect && (channelList.length() > 0)) {
+            String thingId = entry.getValue().getThing().getUID().getId();
+            List<String> channels = refreshPlan.getDueChannels(thingId, entry.getValue().getActiveChannels());
+            if (!channels.isEmpty()) {
                 logger.trace("Get Data for '{}'", thingId);
-                sendSocketData("get " + thingId + " " + channelList);
+                StringBuilder request = new StringBuilder("get ").append(thingId).append(' ');
+                for (int i = 0; i < channels.size(); i++) {
+                    if (i > 0) {
+                        request.append(',');
+                    }
+                    request.append(channels.get(i));
+                }
+                requests.add(request.toString());
             }
-
+        }
+        if (!requests.isEmpty() && connection.send(requests)) {
+            logger.debug("Requested data of {} things from optolink adapter: {}", requests.size(), connection);
         }
     }
 
@@ -210,6 +216,10 @@ public class VitotronicBridgeHandler extends BaseBridgeHandler {
 
     public void updateChannel(String thingId, String channelId, String value) {
         sendSocketData("set " + thingId + ":" + channelId + " " + value);
+        // read the new value back in the next cycle, settings are refreshed rarely otherwise
+        if (refreshPlan != null) {
+            refreshPlan.refreshNow(thingId, channelId);
+        }
     }
 
     // internal Methods
@@ -227,6 +237,10 @@ public class VitotronicBridgeHandler extends BaseBridgeHandler {
         ipAddress = configuration.ipAddress;
         port = configuration.port;
         refreshInterval = configuration.refreshInterval;
+        if (configuration.slowRefreshInterval != null) {
+            slowRefreshInterval = configuration.slowRefreshInterval;
+        }
+        refreshPlan = new VitotronicRefreshPlan(refreshInterval, slowRefreshInterval);
 
         isDiscover = false;
         startAutomaticRefresh();
@@ -240,206 +254,70 @@ public class VitotronicBridgeHandler extends BaseBridgeHandler {
             pollingJob.cancel(true);
             pollingJob = null;
         }
+        if (connection != null) {
+            logger.debug("Closing connection to optolink adapter: {}", connection);
+            connection.close();
+            connection = null;
+        }
         updateStatus(ThingStatus.OFFLINE); // Set all State to offline
     }
 
     // Connection to adapter
 
-    private void openSocket() {
-        logger.trace("Try to open connection to Optolink Adapter {}:{}", ipAddress, port);
-
-        try {
-            socket = new Socket(ipAddress, port);
-            out = new PrintStream(socket.getOutputStream());
-            inStream = socket.getInputStream();
-        } catch (UnknownHostException e) {
-            logger.error("Can't find Host: {}:{}", ipAddress, port);
-        } catch (IOException e) {
-            logger.debug("Error in communication to Host: {}:{}", ipAddress, port);
-            logger.trace("Diagnostic: ", e);
-        }
+    private boolean isConnected() {
+        return connection != null && connection.isConnected();
     }
 
-    Runnable socketReceiverRunnable = new Runnable() {
+    private VitotronicAdapterConnection.Listener adapterListener = new VitotronicAdapterConnection.Listener() {
 
         @Override
-        public void run() {
-            logger.trace("Start Background Thread for recieving data from adapter");
-            try {
-                XMLReader xmlReader = XMLReaderFactory.createXMLReader();
-                xmlReader.setContentHandler(new xmlHandler());
-                logger.trace("Start Parser for optolink adapter");
-                xmlReader.parse(new InputSource(inStream));
-
-            } catch (IOException e) {
-                logger.trace("Connection error from optolink adapter");
-            } catch (SAXException e) {
-                logger.trace("XML Parser Error");
-
-            }
-            updateStatus(ThingStatus.OFFLINE);
-            isConnect = false;
-            try {
-                if (!socket.isClosed())
-                    socket.close();
-            } catch (Exception e) {
-            }
-            logger.trace("Connection to optolink adapter is died ... wait for restart");
-        }
-
-    };
-
-    private void startSocketReceiver() {
-
-        if (!isConnect) {
-
-            openSocket();
-
-            Thread thread = new Thread(socketReceiverRunnable);
-            thread.setName("VitotronicSocketThread");
-            thread.start();
-        }
-
-    }
-
-    private void sendSocketData(String message) {
-
-        try {
-            logger.trace("Send Message {}", message);
-            if (isConnect)
-                out.write((message + "\n").getBytes());
-        } catch (IOException e) {
-            logger.error("Error in sending data to optolink addapter");
-            logger.trace("Diagnostic: ", e);
-        }
-
-    }
-
-    // Handles all data what received from optolink adapter
-
-    public class xmlHandler implements ContentHandler {
-
-        boolean isData;
-        boolean isDefine;
-        boolean isThing;
-        boolean isChannel;
-        boolean isDescription;
-        String thingID;
-        String thingType;
-        String channelID;
-        String description;
-        VitotronicThingHandler thingHandler;
-        Set<String> channels = new HashSet<String>();
-
-        @Override
-        public void startElement(String uri, String localName, String pName, Attributes attr) throws SAXException {
-            try {
-
-                // logger.trace("StartElement: {}", localName);
-                switch (localName) {
-                    case "optolink":
-                        isConnect = true;
-                        updateStatus(ThingStatus.ONLINE);
-                        break;
-                    case "data":
-                        isDefine = false;
-                        break;
-                    case "define":
-                        isDefine = true;
-                        break;
-                    case "description":
-                        isDescription = true;
-                        ;
-                        break;
-                    case "thing":
-                        isThing = true;
-                        if (isDefine)
-                            thingType = attr.getValue("type");
-                        thingID = attr.getValue("id");
-                        channels.clear();
-                        thingHandler = thingHandlerMap.get(thingID);
-                        break;
-                    case "channel":
-                        isChannel = true;
-                        channelID = attr.getValue("id");
-                        if (isDefine) {
-                            channels.add(channelID);
-                        } else { // is data
-                            if (thingHandler != null) {
-                                logger.trace("Set Data for channel '{}' value '{}'", channelID, attr.getValue("value"));
-                                thingHandler.setChannelValue(channelID, attr.getValue("value"));
-                            }
-                        }
-                        break;
-                }
-            } catch (Exception e) {
-                logger.error("Error in parsing data");
-                logger.trace("Diagnostic: ", e);
-            }
-
+        public void connected() {
+            updateStatus(ThingStatus.ONLINE);
         }
 
         @Override
-        public void characters(char[] ch, int start, int length) throws SAXException {
-            if (isDescription) {
-                description = new String(ch, start, length);
-            }
+        public void thingDefined(String thingType, String thingId) {
+            createThing(thingType, thingId);
         }
 
         @Override
-        public void endElement(String uri, String localName, String qName) throws SAXException {
-            // logger.trace("StartElement: {}", localName);
-            switch (localName) {
-                case "description":
-                    isDescription = false;
-                    ;
-                    break;
-                case "thing":
-                    if (isDefine)
-                        createThing(thingType, thingID);
-                    isThing = false;
-                    thingHandler = null;
-                    break;
-                case "channel":
-                    isChannel = false;
-                    break;
+        public void channelValue(String thingId, String channelId, String value) {
+            VitotronicThingHandler thingHandler = thingHandlerMap.get(thingId);
+            if (thingHandler != null) {
+                logger.trace("Set Data for channel '{}' value '{}'", channelId, value);
+                thingHandler.setChannelValue(channelId, value);
             }
-
-        }
-
-        // Unused function of xmlReader
-        @Override
-        public void endDocument() throws SAXException {
-        }
-
-        @Override
-        public void ignorableWhitespace(char[] arg0, int arg1, int arg2) throws SAXException {
-        }
-
-        @Override
-        public void processingInstruction(String arg0, String arg1) throws SAXException {
         }
 
         @Override
-        public void setDocumentLocator(Locator arg0) {
+        public void disconnected() {
+            updateStatus(ThingStatus.OFFLINE);
+            // request all channels after a reconnect
+            refreshPlan.reset();
         }
+    };
 
-        @Override
-        public void skippedEntity(String arg0) throws SAXException {
-        }
+    private synchronized void startSocketReceiver() {
 
-        @Override
-        public void startDocument() throws SAXException {
+        if (!isConnected()) {
+            if (connection != null) {
+                connection.close();
+            }
+            connection = new VitotronicAdapterConnection(ipAddress, port, adapterListener);
+            try {
+                connection.open();
+            } catch (IOException e) {
+                logger.debug("Error in communication to Host: {}:{}", ipAddress, port);
+                logger.trace("Diagnostic: ", e);
+            }
         }
 
-        @Override
-        public void startPrefixMapping(String arg0, String arg1) throws SAXException {
-        }
+    }
 
-        @Override
-        public void endPrefixMapping(String prefix) throws SAXException {
+    private void sendSocketData(String message) {
+        if (isConnected()) {
+            connection.send(message);
         }
-
     }
 
 }
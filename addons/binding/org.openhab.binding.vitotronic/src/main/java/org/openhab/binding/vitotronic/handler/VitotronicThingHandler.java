@@ -7,6 +7,11 @@
  */
 package org.openhab.binding.vitotronic.handler;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.smarthome.core.library.types.DateTimeType;
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.OnOffType;
@@ -34,6 +39,9 @@ public class VitotronicThingHandler extends BaseThingHandler {
 
     VitotronicBridgeHandler bridgeHandler;
 
+    // last value received for each channel
+    private Map<String, String> channelValues = new ConcurrentHashMap<String, String>();
+
     public VitotronicThingHandler(Thing thing) {
         super(thing);
     }
@@ -41,6 +49,7 @@ public class VitotronicThingHandler extends BaseThingHandler {
     @Override
     public void initialize() {
         bridgeHandler = getBridgeHandler();
+        channelValues.clear();
         logger.debug("Thing Handler for {} started", getThing().getUID().getId());
         registerVitotronicThingListener(bridgeHandler);
     }
@@ -58,6 +67,12 @@ public class VitotronicThingHandler extends BaseThingHandler {
 
     }
 
+    @Override
+    public void channelLinked(ChannelUID channelUID) {
+        // the new item needs the value, even if it has not changed
+        channelValues.remove(channelUID.getId());
+    }
+
     public void updateStatus(ThingStatus status) {
         super.updateStatus(status);
     }
@@ -133,6 +148,9 @@ public class VitotronicThingHandler extends BaseThingHandler {
             logger.trace("Cannel '{}:{}' not implemented", getThing().getUID().getId(), channelId);
             return;
         }
+        if (value == null || value.equals(channelValues.put(channelId, value))) {
+            return;
+        }
 
         logger.trace("Set {}:{}:{} = {}", getThing().getUID().getId(), channelId, channel.getAcceptedItemType(), value);
         switch (channel.getAcceptedItemType()) {
@@ -154,14 +172,11 @@ public class VitotronicThingHandler extends BaseThingHandler {
         }
     }
 
-    public String getActiveChannelListAsString() {
-        String channelList = "";
+    public List<String> getActiveChannels() {
+        List<String> channelList = new ArrayList<String>();
         for (Channel channel : getThing().getChannels()) {
             if (channel.isLinked()) {
-                if (channelList.length() > 0)
-                    channelList = channelList + "," + channel.getUID().getId();
-                else
-                    channelList = channel.getUID().getId();
+                channelList.add(channel.getUID().getId());
             }
         }
         return channelList;
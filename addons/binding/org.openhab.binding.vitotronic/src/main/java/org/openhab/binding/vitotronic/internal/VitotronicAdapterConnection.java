@@ -0,0 +1,311 @@
+/**
+ * Copyright (c) 2014 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.vitotronic.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * The {@link VitotronicAdapterConnection} class handles the socket connection
+ * to the optolink adapter. Requests are written to the socket, the answers of
+ * the adapter are one XML stream which is parsed by a background thread and
+ * passed to a {@link Listener}.
+ *
+ * The connection measures the round trip time of each <code>get</code>
+ * request until the adapter answers with the data of the thing.
+ *
+ * @author agent - Initial contribution
+ */
+public class VitotronicAdapterConnection {
+
+    /**
+     * Receives the data of the optolink adapter
+     */
+    public interface Listener {
+
+        /**
+         * The adapter has sent its greeting, the connection is ready.
+         */
+        void connected();
+
+        /**
+         * The adapter defines a thing in the answer to a <code>list</code>
+         * request.
+         */
+        void thingDefined(String thingType, String thingId);
+
+        /**
+         * The adapter sends the value of a channel.
+         */
+        void channelValue(String thingId, String channelId, String value);
+
+        /**
+         * The connection has been closed or lost.
+         */
+        void disconnected();
+    }
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
+
+    static {
+        PARSER_FACTORY.setNamespaceAware(true);
+    }
+
+    private Logger logger = LoggerFactory.getLogger(VitotronicAdapterConnection.class);
+
+    private final String ipAddress;
+    private final int port;
+    private final Listener listener;
+
+    private Socket socket;
+    private OutputStream out;
+    private volatile boolean isConnect = false;
+
+    // time the pending get requests have been sent, by thing
+    private final Map<String, Long> pendingRequests = new ConcurrentHashMap<String, Long>();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong answerCount = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    public VitotronicAdapterConnection(String ipAddress, int port, Listener listener) {
+        this.ipAddress = ipAddress;
+        this.port = port;
+        this.listener = listener;
+    }
+
+    /**
+     * Opens the connection and starts the receiver thread. The connection is
+     * ready when {@link Listener#connected()} has been called.
+     *
+     * @throws IOException if the adapter could not be reached
+     */
+    public synchronized void open() throws IOException {
+        logger.trace("Try to open connection to Optolink Adapter {}:{}", ipAddress, port);
+        final Socket newSocket = new Socket(ipAddress, port);
+        final XMLReader xmlReader;
+        try {
+            xmlReader = PARSER_FACTORY.newSAXParser().getXMLReader();
+        } catch (ParserConfigurationException | SAXException e) {
+            newSocket.close();
+            throw new IOException("No XML parser available", e);
+        }
+        XmlHandler xmlHandler = new XmlHandler();
+        xmlReader.setContentHandler(xmlHandler);
+        // a lost connection ends the stream in the middle of the document, it's logged below
+        xmlReader.setErrorHandler(xmlHandler);
+        final InputStream inStream = newSocket.getInputStream();
+        socket = newSocket;
+        out = newSocket.getOutputStream();
+        pendingRequests.clear();
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                logger.trace("Start Background Thread for recieving data from adapter");
+                try {
+                    xmlReader.parse(new InputSource(inStream));
+                } catch (IOException e) {
+                    logger.trace("Connection error from optolink adapter");
+                } catch (SAXException e) {
+                    logger.trace("XML Parser Error");
+                }
+                isConnect = false;
+                try {
+                    newSocket.close();
+                } catch (IOException e) {
+                }
+                logger.trace("Connection to optolink adapter is died ... wait for restart");
+                listener.disconnected();
+            }
+        });
+        thread.setName("VitotronicSocketThread");
+        thread.start();
+    }
+
+    public boolean isConnected() {
+        return isConnect;
+    }
+
+    /**
+     * Sends one message to the adapter.
+     *
+     * @return false, if the message could not be sent
+     */
+    public boolean send(String message) {
+        return send(Collections.singletonList(message));
+    }
+
+    /**
+     * Sends messages to the adapter, all with one write.
+     *
+     * @return false, if the messages could not be sent
+     */
+    public synchronized boolean send(List<String> messages) {
+        if (!isConnect || messages.isEmpty()) {
+            return false;
+        }
+        StringBuilder data = new StringBuilder();
+        long now = System.nanoTime();
+        for (String message : messages) {
+            logger.trace("Send Message {}", message);
+            data.append(message).append('\n');
+            if (message.startsWith("get ")) {
+                int end = message.indexOf(' ', 4);
+                String thingId = end > 0 ? message.substring(4, end) : message.substring(4);
+                // an unanswered request is measured from the time it has been sent first
+                if (!pendingRequests.containsKey(thingId)) {
+                    pendingRequests.put(thingId, now);
+                }
+                requestCount.incrementAndGet();
+            }
+        }
+        try {
+            out.write(data.toString().getBytes(CHARSET));
+            out.flush();
+            return true;
+        } catch (IOException e) {
+            logger.error("Error in sending data to optolink addapter");
+            logger.trace("Diagnostic: ", e);
+            return false;
+        }
+    }
+
+    public synchronized void close() {
+        isConnect = false;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+            }
+            socket = null;
+        }
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getAnswerCount() {
+        return answerCount.get();
+    }
+
+    /**
+     * @return the average time in milliseconds between a <code>get</code>
+     *         request and the answer of the adapter
+     */
+    public double getAverageLatency() {
+        long answers = answerCount.get();
+        return answers == 0 ? 0 : totalLatency.get() / 1e6 / answers;
+    }
+
+    /**
+     * @return the longest time in milliseconds between a <code>get</code>
+     *         request and the answer of the adapter
+     */
+    public double getMaxLatency() {
+        return maxLatency.get() / 1e6;
+    }
+
+    private void answerReceived(String thingId) {
+        Long requestTime = pendingRequests.remove(thingId);
+        if (requestTime == null) {
+            return;
+        }
+        long latency = System.nanoTime() - requestTime;
+        answerCount.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        long max = maxLatency.get();
+        while (latency > max && !maxLatency.compareAndSet(max, latency)) {
+            max = maxLatency.get();
+        }
+        logger.trace("Answer for '{}' received after {} ms", thingId, TimeUnit.NANOSECONDS.toMillis(latency));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d requests, %d answers, latency avg %.1f ms, max %.1f ms", requestCount.get(),
+                answerCount.get(), getAverageLatency(), getMaxLatency());
+    }
+
+    // Handles all data what received from optolink adapter
+
+    private class XmlHandler extends DefaultHandler {
+
+        boolean isDefine;
+        String thingID;
+        String thingType;
+
+        @Override
+        public void startElement(String uri, String localName, String pName, Attributes attr) throws SAXException {
+            try {
+                switch (localName) {
+                    case "optolink":
+                        isConnect = true;
+                        listener.connected();
+                        break;
+                    case "data":
+                        isDefine = false;
+                        break;
+                    case "define":
+                        isDefine = true;
+                        break;
+                    case "thing":
+                        thingID = attr.getValue("id");
+                        if (isDefine) {
+                            thingType = attr.getValue("type");
+                        } else {
+                            answerReceived(thingID);
+                        }
+                        break;
+                    case "channel":
+                        if (!isDefine && thingID != null) {
+                            listener.channelValue(thingID, attr.getValue("id"), attr.getValue("value"));
+                        }
+                        break;
+                }
+            } catch (Exception e) {
+                logger.error("Error in parsing data");
+                logger.trace("Diagnostic: ", e);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if ("thing".equals(localName)) {
+                if (isDefine) {
+                    listener.thingDefined(thingType, thingID);
+                }
+                thingID = null;
+            }
+        }
+    }
+}
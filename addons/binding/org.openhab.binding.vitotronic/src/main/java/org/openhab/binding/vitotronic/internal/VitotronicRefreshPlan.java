@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2014 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.vitotronic.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The {@link VitotronicRefreshPlan} class decides which channels are requested
+ * from the optolink adapter in a refresh cycle. Temperatures and states change
+ * often and are refreshed in every cycle, counters and settings only change
+ * slowly and are refreshed every few cycles. A setting which has been changed
+ * through the binding is refreshed in the next cycle.
+ *
+ * @author agent - Initial contribution
+ */
+public class VitotronicRefreshPlan {
+
+    public enum Tier {
+        FAST,
+        SLOW
+    }
+
+    /**
+     * Counters, system time and settings, which are rarely changed on the
+     * heating system itself
+     */
+    private static final Set<String> SLOW_CHANNELS = ImmutableSet.of("systemtime", "starts", "ontime",
+            "ontimelevel1", "ontimelevel2", "consumedpellets", "consumedoil", "producedheat", "operationmode",
+            "party_temp", "save_temp", "room_temp", "gradient", "niveau");
+
+    private final int slowCycles;
+    private long cycle = 0;
+
+    // next cycle of each "thing:channel"
+    private final Map<String, Long> nextCycles = new HashMap<String, Long>();
+
+    /**
+     * @param refreshInterval the time between two cycles in seconds
+     * @param slowRefreshInterval the time between two refreshes of the slow
+     *            channels in seconds
+     */
+    public VitotronicRefreshPlan(int refreshInterval, int slowRefreshInterval) {
+        slowCycles = Math.max(1, Math.round((float) slowRefreshInterval / refreshInterval));
+    }
+
+    public static Tier getTier(String channelId) {
+        return SLOW_CHANNELS.contains(channelId) ? Tier.SLOW : Tier.FAST;
+    }
+
+    /**
+     * Starts the next refresh cycle.
+     */
+    public synchronized void nextCycle() {
+        cycle++;
+    }
+
+    /**
+     * Selects the channels of a thing which are due in the current cycle.
+     * Channels which have not been refreshed yet are always due.
+     *
+     * @param thingId the id of the thing
+     * @param channelIds the linked channels of the thing
+     * @return the due channels
+     */
+    public synchronized List<String> getDueChannels(String thingId, List<String> channelIds) {
+        List<String> dueChannels = new ArrayList<String>(channelIds.size());
+        for (String channelId : channelIds) {
+            String key = thingId + ":" + channelId;
+            Long nextCycle = nextCycles.get(key);
+            if (nextCycle == null || nextCycle <= cycle) {
+                dueChannels.add(channelId);
+                nextCycles.put(key, cycle + (getTier(channelId) == Tier.SLOW ? slowCycles : 1));
+            }
+        }
+        return dueChannels;
+    }
+
+    /**
+     * Makes a channel due in the next cycle, e.g. after it has been set.
+     *
+     * @param thingId the id of the thing
+     * @param channelId the id of the channel
+     */
+    public synchronized void refreshNow(String thingId, String channelId) {
+        nextCycles.remove(thingId + ":" + channelId);
+    }
+
+    /**
+     * Forgets the channels of a thing, they are due in the next cycle again.
+     */
+    public synchronized void reset(String thingId) {
+        String prefix = thingId + ":";
+        for (Iterator<String> it = nextCycles.keySet().iterator(); it.hasNext();) {
+            if (it.next().startsWith(prefix)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Forgets all channels, e.g. after the connection has been lost.
+     */
+    public synchronized void reset() {
+        nextCycles.clear();
+    }
+}
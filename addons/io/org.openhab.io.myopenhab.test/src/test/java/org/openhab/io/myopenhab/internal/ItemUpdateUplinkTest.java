@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.openhab.io.myopenhab.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link ItemUpdateUplink}. The interval is long enough that the scheduler does not send
+ * anything while a test runs, the tests send the waiting updates themselves.
+ *
+ * @author agent - Initial contribution
+ */
+public class ItemUpdateUplinkTest {
+
+    private static final long UPDATE_INTERVAL = 5000;
+
+    /**
+     * Records the messages instead of sending them
+     */
+    private static class RecordingClient extends MyOpenHABClient {
+        final List<Map<String, String>> messages = new ArrayList<Map<String, String>>();
+
+        RecordingClient() {
+            super("uuid", "secret");
+        }
+
+        @Override
+        public void sendItemUpdate(String itemName, String itemState) {
+            Map<String, String> message = new LinkedHashMap<String, String>();
+            message.put(itemName, itemState);
+            messages.add(message);
+        }
+
+        @Override
+        public void sendItemUpdates(Map<String, String> itemUpdates) {
+            messages.add(new LinkedHashMap<String, String>(itemUpdates));
+        }
+
+        /**
+         * Returns the items of the messages, one list per message
+         */
+        List<List<String>> items() {
+            List<List<String>> items = new ArrayList<List<String>>();
+            for (Map<String, String> message : messages) {
+                items.add(new ArrayList<String>(message.keySet()));
+            }
+            return items;
+        }
+    }
+
+    private final RecordingClient client = new RecordingClient();
+    private ItemUpdateUplink uplink;
+
+    @After
+    public void tearDown() {
+        if (uplink != null) {
+            uplink.shutdown();
+        }
+    }
+
+    @Test
+    public void testUpdatesAreCoalesced() {
+        uplink = new ItemUpdateUplink(client, UPDATE_INTERVAL, 20, false);
+        uplink.update("a", "1");
+        uplink.update("b", "1");
+        uplink.update("a", "2");
+        uplink.update("a", "3");
+        uplink.flush();
+
+        // the latest state of a is sent in the place of its first update
+        assertThat(client.items(), is(Arrays.asList(Arrays.asList("a"), Arrays.asList("b"))));
+        assertThat(client.messages.get(0).get("a"), is("3"));
+        assertThat(uplink.getStatistics(), is("2 sent in 2 messages, 2 coalesced, 0 dropped"));
+    }
+
+    @Test
+    public void testFrequentUpdateIsNotHeldBack() {
+        // 1 message per second, 5 per interval
+        uplink = new ItemUpdateUplink(client, UPDATE_INTERVAL, 1, false);
+        for (String item : Arrays.asList("a", "b", "c", "d", "e", "f", "g")) {
+            uplink.update(item, "1");
+        }
+        uplink.flush();
+        // f is waiting longest, updating it again does not move it behind g
+        uplink.update("f", "2");
+        uplink.update("h", "1");
+        uplink.flush();
+        assertThat(client.items().subList(5, 8),
+                is(Arrays.asList(Arrays.asList("f"), Arrays.asList("g"), Arrays.asList("h"))));
+        assertThat(client.messages.get(5).get("f"), is("2"));
+    }
+
+    @Test
+    public void testMessagesPerIntervalAreLimited() {
+        // 1 message per second, 5 per interval
+        uplink = new ItemUpdateUplink(client, UPDATE_INTERVAL, 1, false);
+        for (int i = 0; i < 8; i++) {
+            uplink.update("item" + i, "ON");
+        }
+        uplink.flush();
+        assertThat(client.messages.size(), is(5));
+        uplink.flush();
+        assertThat(client.messages.size(), is(8));
+        uplink.flush();
+        assertThat(client.messages.size(), is(8));
+    }
+
+    @Test
+    public void testOldestUpdatesAreDropped() {
+        // 10 seconds of 1 message per second may be waiting
+        uplink = new ItemUpdateUplink(client, UPDATE_INTERVAL, 1, false);
+        for (int i = 0; i < 12; i++) {
+            uplink.update("item" + i, "ON");
+        }
+        uplink.flush();
+        uplink.flush();
+        assertThat(client.messages.size(), is(10));
+        assertThat(client.items().get(0), is(Arrays.asList("item2")));
+        assertThat(uplink.getStatistics(), is("10 sent in 10 messages, 0 coalesced, 2 dropped"));
+    }
+
+    @Test
+    public void testBatchUpdates() {
+        uplink = new ItemUpdateUplink(client, UPDATE_INTERVAL, 1, true);
+        for (int i = 0; i < 120; i++) {
+            uplink.update("item" + i, "ON");
+        }
+        uplink.flush();
+        assertThat(client.messages.size(), is(3));
+        assertThat(client.messages.get(0).size(), is(50));
+        assertThat(client.messages.get(1).size(), is(50));
+        assertThat(client.messages.get(2).size(), is(20));
+        assertThat(uplink.getStatistics(), is("120 sent in 3 messages, 0 coalesced, 0 dropped"));
+    }
+
+    @Test
+    public void testNoIntervalSendsRightAway() {
+        uplink = new ItemUpdateUplink(client, 0, 20, true);
+        uplink.update("a", "1");
+        uplink.update("a", "2");
+        assertThat(client.messages.size(), is(2));
+        assertThat(client.messages.get(1).get("a"), is("2"));
+    }
+}
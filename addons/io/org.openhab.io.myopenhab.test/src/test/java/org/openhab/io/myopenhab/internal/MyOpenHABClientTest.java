@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.openhab.io.myopenhab.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for the proxying of requests by {@link MyOpenHABClient}. The requests are sent to a local HTTP
+ * server, the events for my.openHAB are recorded.
+ *
+ * @author agent - Initial contribution
+ */
+public class MyOpenHABClientTest {
+
+    private static final int RESPONSE_SIZE = 1024 * 1024;
+
+    /**
+     * Records the events instead of sending them
+     */
+    private static class RecordingClient extends MyOpenHABClient {
+        final List<String> events = new ArrayList<String>();
+        final AtomicLong contentBytes = new AtomicLong();
+
+        RecordingClient() {
+            super("uuid", "secret");
+        }
+
+        @Override
+        protected void emit(String event, JSONObject data) {
+            if ("responseContentBinary".equals(event)) {
+                try {
+                    contentBytes.addAndGet(((byte[]) data.get("body")).length);
+                } catch (JSONException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            synchronized (this) {
+                events.add(event + " " + data.optInt("id"));
+                notifyAll();
+            }
+        }
+
+        synchronized boolean hasEvent(String event) {
+            return events.contains(event);
+        }
+
+        synchronized boolean waitForEvent(String event) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!events.contains(event) && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            return events.contains(event);
+        }
+    }
+
+    /**
+     * A local HTTP server, which answers each request with {@link #RESPONSE_SIZE} bytes or keeps it waiting
+     */
+    private static class TestServer extends Thread {
+        final ServerSocket serverSocket;
+        final boolean answer;
+        final List<Socket> sockets = new ArrayList<Socket>();
+
+        TestServer(boolean answer) throws IOException {
+            super("my.openHAB test server");
+            this.answer = answer;
+            serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+            setDaemon(true);
+            start();
+        }
+
+        String getBaseUrl() {
+            return "http://127.0.0.1:" + serverSocket.getLocalPort();
+        }
+
+        @Override
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket socket = serverSocket.accept();
+                    synchronized (sockets) {
+                        sockets.add(socket);
+                    }
+                    if (answer) {
+                        new Thread("my.openHAB test response") {
+                            @Override
+                            public void run() {
+                                respond(socket);
+                            }
+                        }.start();
+                    }
+                } catch (IOException e) {
+                    // the server has been closed
+                }
+            }
+        }
+
+        private void respond(Socket socket) {
+            try {
+                // a GET request ends with an empty line
+                InputStream in = socket.getInputStream();
+                int b;
+                int lineLength = 0;
+                while ((b = in.read()) >= 0) {
+                    if (b == '\n') {
+                        if (lineLength == 0) {
+                            break;
+                        }
+                        lineLength = 0;
+                    } else if (b != '\r') {
+                        lineLength++;
+                    }
+                }
+                OutputStream out = socket.getOutputStream();
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/octet-stream\r\nContent-Length: "
+                        + RESPONSE_SIZE + "\r\n\r\n").getBytes("US-ASCII"));
+                out.write(new byte[RESPONSE_SIZE]);
+                out.flush();
+            } catch (IOException e) {
+                // the client has gone
+            }
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            synchronized (sockets) {
+                for (Socket socket : sockets) {
+                    socket.close();
+                }
+            }
+        }
+    }
+
+    private RecordingClient client;
+    private TestServer server;
+
+    @Before
+    public void setUp() {
+        client = new RecordingClient();
+        // starts the HTTP client
+        client.onConnect();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.onDisconnect();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private void request(int id) throws JSONException {
+        JSONObject request = new JSONObject();
+        request.put("id", id);
+        request.put("path", "/rest/items");
+        request.put("method", "GET");
+        request.put("body", "");
+        request.put("headers", new JSONObject());
+        request.put("query", new JSONObject());
+        client.onEvent("request", request);
+    }
+
+    @Test
+    public void testRequestsAreRejectedWhenTooManyAreRunning() throws Exception {
+        server = new TestServer(false);
+        client.setOHBaseUrl(server.getBaseUrl());
+        for (int id = 1; id <= MyOpenHABClient.MAX_RUNNING_REQUESTS; id++) {
+            request(id);
+        }
+        int rejectedId = MyOpenHABClient.MAX_RUNNING_REQUESTS + 1;
+        request(rejectedId);
+        assertTrue(client.hasEvent("responseError " + rejectedId));
+        assertThat(client.getStatistics(), containsString("100 running, 1 rejected"));
+
+        // a cancelled request makes room for the next one
+        JSONObject cancel = new JSONObject();
+        cancel.put("id", 1);
+        client.onEvent("cancel", cancel);
+        int acceptedId = rejectedId + 1;
+        request(acceptedId);
+        assertFalse(client.hasEvent("responseError " + acceptedId));
+        assertThat(client.getStatistics(), containsString("101 proxied"));
+    }
+
+    @Test
+    public void testResponseIsSuspendedUntilDataIsWritten() throws Exception {
+        server = new TestServer(true);
+        client.setOHBaseUrl(server.getBaseUrl());
+        request(1);
+        assertTrue(client.waitForEvent("responseHeader 1"));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (client.contentBytes.get() < MyOpenHABClient.RESPONSE_WINDOW_SIZE
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(client.contentBytes.get() >= MyOpenHABClient.RESPONSE_WINDOW_SIZE);
+        // nothing more is read until the transport has written the data
+        long windowBytes = client.contentBytes.get();
+        Thread.sleep(200);
+        assertThat(client.contentBytes.get(), is(windowBytes));
+        assertFalse(client.hasEvent("responseFinished 1"));
+
+        deadline = System.currentTimeMillis() + 5000;
+        while (!client.hasEvent("responseFinished 1") && System.currentTimeMillis() < deadline) {
+            client.onDrain();
+            Thread.sleep(10);
+        }
+        assertTrue(client.hasEvent("responseFinished 1"));
+        assertThat(client.contentBytes.get(), is((long) RESPONSE_SIZE));
+        assertThat(client.getStatistics(), containsString("0 failed, " + RESPONSE_SIZE + " bytes sent"));
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.openhab.io.myopenhab.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class collects the item updates which are sent to my.openHAB. Updates are held back for the
+ * configured interval and only the latest state of an item is sent, either in one message per item or
+ * in batch messages. The number of messages sent per second is limited, when more updates are waiting
+ * than can be sent the oldest are dropped.
+ *
+ * @author agent - Initial contribution
+ */
+
+public class ItemUpdateUplink {
+
+    private Logger logger = LoggerFactory.getLogger(ItemUpdateUplink.class);
+
+    /*
+     * This constant defines the maximum number of items sent in one batch message
+     */
+    private static final int MAX_BATCH_SIZE = 50;
+
+    /*
+     * This constant defines how many seconds of messages may be waiting before the oldest updates are dropped
+     */
+    private static final int MAX_PENDING_SECONDS = 10;
+
+    private final MyOpenHABClient client;
+    private final long updateInterval;
+    private final boolean batchUpdates;
+    private final int maxMessagesPerInterval;
+    private final int maxPendingUpdates;
+
+    /*
+     * The latest state of the items waiting to be sent, the item updated first comes first
+     */
+    private final LinkedHashMap<String, String> pendingUpdates = new LinkedHashMap<String, String>();
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong sentUpdates = new AtomicLong();
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong coalescedUpdates = new AtomicLong();
+    private final AtomicLong droppedUpdates = new AtomicLong();
+
+    /**
+     * @param client the {@link MyOpenHABClient} which sends the updates
+     * @param updateInterval the interval in milliseconds in which updates are collected, 0 to send every
+     *            update right away
+     * @param maxMessagesPerSecond the maximum number of messages sent per second
+     * @param batchUpdates true to send the updates of several items in one message
+     */
+    public ItemUpdateUplink(MyOpenHABClient client, long updateInterval, int maxMessagesPerSecond,
+            boolean batchUpdates) {
+        this.client = client;
+        this.updateInterval = updateInterval;
+        this.batchUpdates = batchUpdates;
+        this.maxMessagesPerInterval = (int) Math.max(1, maxMessagesPerSecond * updateInterval / 1000);
+        int itemsPerMessage = batchUpdates ? MAX_BATCH_SIZE : 1;
+        this.maxPendingUpdates = Math.max(1, maxMessagesPerSecond * MAX_PENDING_SECONDS) * itemsPerMessage;
+        if (updateInterval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "myopenhab-itemupdates");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flush();
+                    } catch (Exception e) {
+                        logger.error("Error while sending item updates to my.openHAB", e);
+                    }
+                }
+            }, updateInterval, updateInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Adds the update of an item. An update of the same item which has not been sent yet is replaced and the
+     * new state is sent in its place.
+     *
+     * @param itemName the name of the item
+     * @param itemState the new state of the item
+     */
+    public void update(String itemName, String itemState) {
+        if (scheduler == null) {
+            client.sendItemUpdate(itemName, itemState);
+            sentUpdates.incrementAndGet();
+            sentMessages.incrementAndGet();
+            return;
+        }
+        synchronized (pendingUpdates) {
+            // the item keeps its place, so an item which is updated often is not held back by the others
+            if (pendingUpdates.containsKey(itemName)) {
+                coalescedUpdates.incrementAndGet();
+            } else if (pendingUpdates.size() >= maxPendingUpdates) {
+                Iterator<String> oldest = pendingUpdates.keySet().iterator();
+                logger.debug("Too many item updates waiting, dropping update of item '{}'", oldest.next());
+                oldest.remove();
+                droppedUpdates.incrementAndGet();
+            }
+            pendingUpdates.put(itemName, itemState);
+        }
+    }
+
+    /**
+     * Sends the waiting updates, as many as the message limit allows. The others are sent in the next interval.
+     */
+    void flush() {
+        int itemsPerMessage = batchUpdates ? MAX_BATCH_SIZE : 1;
+        for (int i = 0; i < maxMessagesPerInterval; i++) {
+            Map<String, String> updates = new LinkedHashMap<String, String>();
+            synchronized (pendingUpdates) {
+                Iterator<Map.Entry<String, String>> iterator = pendingUpdates.entrySet().iterator();
+                while (iterator.hasNext() && updates.size() < itemsPerMessage) {
+                    Map.Entry<String, String> update = iterator.next();
+                    updates.put(update.getKey(), update.getValue());
+                    iterator.remove();
+                }
+            }
+            if (updates.isEmpty()) {
+                return;
+            }
+            if (batchUpdates) {
+                client.sendItemUpdates(updates);
+            } else {
+                Map.Entry<String, String> update = updates.entrySet().iterator().next();
+                client.sendItemUpdate(update.getKey(), update.getValue());
+            }
+            sentUpdates.addAndGet(updates.size());
+            sentMessages.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops sending updates, waiting updates are discarded
+     */
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        synchronized (pendingUpdates) {
+            pendingUpdates.clear();
+        }
+        logger.debug("Item updates: {}", getStatistics());
+    }
+
+    /**
+     * Returns the statistics of the item updates sent to my.openHAB
+     */
+    public String getStatistics() {
+        return String.format("%d sent in %d messages, %d coalesced, %d dropped", sentUpdates.get(),
+                sentMessages.get(), coalescedUpdates.get(), droppedUpdates.get());
+    }
+}
@@ -15,16 +15,20 @@ import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Request.FailureListener;
 import org.eclipse.jetty.client.api.Response;
-import org.eclipse.jetty.client.api.Response.ContentListener;
+import org.eclipse.jetty.client.api.Response.AsyncContentListener;
 import org.eclipse.jetty.client.api.Response.HeadersListener;
 import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.util.BytesContentProvider;
@@ -32,7 +36,9 @@ import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.URIUtil;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.openhab.core.OpenHAB;
@@ -74,6 +80,18 @@ public class MyOpenHABClient {
      */
     private static final int HTTP_CLIENT_TIMEOUT = 30000;
 
+    /*
+     * This constant defines the maximum number of requests from my.openHAB which are proxied at the same time,
+     * further requests are answered with an error until running requests have finished
+     */
+    static final int MAX_RUNNING_REQUESTS = 100;
+
+    /*
+     * This constant defines how many bytes of a response are sent to my.openHAB before the sent data has to be
+     * written to the connection, reading the rest of the response from openHAB is suspended until then
+     */
+    static final int RESPONSE_WINDOW_SIZE = 256 * 1024;
+
     /*
      * This variable holds base URL for my.openHAB cloud connections, has a default
      * value but can be changed
@@ -92,17 +110,34 @@ public class MyOpenHABClient {
     /*
      * This variable holds local openHAB's base URL for connecting to local openHAB instance
      */
-    private String localBaseUrl = "http://localhost:"
-            + Integer.parseInt(System.getProperty("org.osgi.service.http.port"));
+    private String localBaseUrl = "http://localhost:" + Integer.getInteger("org.osgi.service.http.port", 8080);
 
     /*
      * This variable holds instance of Jetty HTTP client to make requests to local openHAB
      */
     private HttpClient jettyClient;
     /*
-     * This hashmap holds HTTP requests to local openHAB which are currently running
+     * This map holds HTTP requests to local openHAB which are currently running
+     */
+    private final ConcurrentMap<Integer, Request> runningRequests = new ConcurrentHashMap<Integer, Request>();
+    /*
+     * This counter is incremented whenever the Socket.IO transport has written all data sent to my.openHAB
      */
-    private HashMap<Integer, Request> runningRequests;
+    private final AtomicLong transportDrains = new AtomicLong();
+    /*
+     * This queue holds the callbacks of responses which wait for the data sent to my.openHAB to be written
+     */
+    private final Queue<Callback> suspendedResponses = new ConcurrentLinkedQueue<Callback>();
+    /*
+     * Statistics of the proxied requests
+     */
+    private final AtomicLong proxiedRequests = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong suspensions = new AtomicLong();
+    private final AtomicLong totalFirstByteTime = new AtomicLong();
+    private final AtomicLong totalResponseTime = new AtomicLong();
     /*
      * This variable indicates if connection to my.openHAB cloud is currently in an established state
      */
@@ -132,7 +167,6 @@ public class MyOpenHABClient {
     public MyOpenHABClient(String uuid, String secret) {
         this.uuid = uuid;
         this.secret = secret;
-        runningRequests = new HashMap<Integer, Request>();
         jettyClient = new HttpClient();
         jettyClient.setMaxConnectionsPerDestination(HTTP_CLIENT_MAX_CONNECTIONS_PER_DEST);
         jettyClient.setConnectTimeout(HTTP_CLIENT_TIMEOUT);
@@ -165,6 +199,13 @@ public class MyOpenHABClient {
                         headers.put("myohversion", Arrays.asList(MyOpenHABService.myohVersion));
                     }
                 });
+                transport.on(Transport.EVENT_DRAIN, new Emitter.Listener() {
+                    @Override
+                    public void call(Object... args) {
+                        logger.trace("Transport.EVENT_DRAIN");
+                        onDrain();
+                    }
+                });
             }
         });
         socket.on(Socket.EVENT_CONNECT, new Emitter.Listener() {
@@ -239,9 +280,33 @@ public class MyOpenHABClient {
             }
         }
         // And clean up the list of running requests
-        if (runningRequests != null) {
-            runningRequests.clear();
+        runningRequests.clear();
+        Callback callback;
+        while ((callback = suspendedResponses.poll()) != null) {
+            callback.failed(new IOException("Disconnected from my.openHAB"));
         }
+        logger.debug("Proxied requests: {}", getStatistics());
+    }
+
+    /**
+     * Callback method for the Socket.IO transport which is called when all data sent has been written to the
+     * connection. The responses which are waiting for it may continue.
+     */
+
+    void onDrain() {
+        transportDrains.incrementAndGet();
+        Callback callback;
+        while ((callback = suspendedResponses.poll()) != null) {
+            callback.succeeded();
+        }
+    }
+
+    /**
+     * Sends an event to my.openHAB
+     */
+
+    protected void emit(String event, JSONObject data) {
+        socket.emit(event, data);
     }
 
     /**
@@ -274,6 +339,12 @@ public class MyOpenHABClient {
             // Get myOH unique request Id
             int requestId = data.getInt("id");
             logger.debug("Got request {}", requestId);
+            if (runningRequests.size() >= MAX_RUNNING_REQUESTS) {
+                logger.debug("Rejecting request {}, {} requests are running", requestId, runningRequests.size());
+                rejectedRequests.incrementAndGet();
+                sendResponseError(requestId, "openHAB is busy, too many requests");
+                return;
+            }
             // Get request path
             String requestPath = data.getString("path");
             // Get request method
@@ -322,10 +393,13 @@ public class MyOpenHABClient {
                 return;
             }
             ResponseListener listener = new ResponseListener(requestId);
-            request.onResponseHeaders(listener).onResponseContent(listener).onRequestFailure(listener).send(listener);
-            // If successfully submitted request to http client, add it to the list of currently
-            // running requests to be able to cancel it if needed
+            // Add the request to the list of currently running requests to be able to cancel it if needed,
+            // before it is sent, as it may complete right away
             runningRequests.put(requestId, request);
+            proxiedRequests.incrementAndGet();
+            // the listener gets the headers and the content as response listener of send(), registering it for
+            // them as well would pass each content chunk to it twice
+            request.onRequestFailure(listener).send(listener);
         } catch (JSONException e) {
             logger.error(e.getMessage());
         } catch (IOException e) {
@@ -359,10 +433,9 @@ public class MyOpenHABClient {
             int requestId = data.getInt("id");
             logger.debug("Received cancel for request {}", requestId);
             // Find and abort running request
-            if (runningRequests.containsKey(requestId)) {
-                Request request = runningRequests.get(requestId);
+            Request request = runningRequests.remove(requestId);
+            if (request != null) {
                 request.abort(new InterruptedException());
-                runningRequests.remove(requestId);
             }
         } catch (JSONException e) {
             logger.error(e.getMessage());
@@ -397,7 +470,7 @@ public class MyOpenHABClient {
                 notificationMessage.put("message", message);
                 notificationMessage.put("icon", icon);
                 notificationMessage.put("severity", severity);
-                socket.emit("notification", notificationMessage);
+                emit("notification", notificationMessage);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
             }
@@ -422,7 +495,7 @@ public class MyOpenHABClient {
                 notificationMessage.put("message", message);
                 notificationMessage.put("icon", icon);
                 notificationMessage.put("severity", severity);
-                socket.emit("lognotification", notificationMessage);
+                emit("lognotification", notificationMessage);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
             }
@@ -447,7 +520,7 @@ public class MyOpenHABClient {
                 notificationMessage.put("message", message);
                 notificationMessage.put("icon", icon);
                 notificationMessage.put("severity", severity);
-                socket.emit("broadcastnotification", notificationMessage);
+                emit("broadcastnotification", notificationMessage);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
             }
@@ -470,7 +543,7 @@ public class MyOpenHABClient {
             try {
                 smsMessage.put("phone", phone);
                 smsMessage.put("message", message);
-                socket.emit("sms", smsMessage);
+                emit("sms", smsMessage);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
             }
@@ -494,7 +567,7 @@ public class MyOpenHABClient {
             try {
                 itemUpdateMessage.put("itemName", itemName);
                 itemUpdateMessage.put("itemStatus", itemState);
-                socket.emit("itemupdate", itemUpdateMessage);
+                emit("itemupdate", itemUpdateMessage);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
             }
@@ -503,6 +576,58 @@ public class MyOpenHABClient {
         }
     }
 
+    /**
+     * This method sends the updates of several items to my.openHAB in one message
+     *
+     * @param itemUpdates the {@link Map} containing the new state of each item by item name
+     */
+    public void sendItemUpdates(Map<String, String> itemUpdates) {
+        if (isConnected()) {
+            logger.debug("Sending updates for {} items", itemUpdates.size());
+            JSONArray items = new JSONArray();
+            try {
+                for (Map.Entry<String, String> itemUpdate : itemUpdates.entrySet()) {
+                    JSONObject itemUpdateMessage = new JSONObject();
+                    itemUpdateMessage.put("itemName", itemUpdate.getKey());
+                    itemUpdateMessage.put("itemStatus", itemUpdate.getValue());
+                    items.put(itemUpdateMessage);
+                }
+                JSONObject itemUpdatesMessage = new JSONObject();
+                itemUpdatesMessage.put("items", items);
+                emit("itemupdates", itemUpdatesMessage);
+            } catch (JSONException e) {
+                logger.error(e.getMessage());
+            }
+        } else {
+            logger.debug("No connection, Item updates are not sent");
+        }
+    }
+
+    private void sendResponseError(int requestId, String statusText) {
+        JSONObject responseJson = new JSONObject();
+        try {
+            responseJson.put("id", requestId);
+            responseJson.put("responseStatusText", statusText);
+            emit("responseError", responseJson);
+        } catch (JSONException e) {
+            logger.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the statistics of the requests proxied for my.openHAB
+     */
+
+    public String getStatistics() {
+        long finished = proxiedRequests.get() - runningRequests.size();
+        return String.format(
+                "%d proxied, %d running, %d rejected, %d failed, %d bytes sent, %d suspensions, "
+                        + "average time to first byte %d ms, average response time %d ms",
+                proxiedRequests.get(), runningRequests.size(), rejectedRequests.get(), failedRequests.get(),
+                responseBytes.get(), suspensions.get(), finished > 0 ? totalFirstByteTime.get() / finished : 0,
+                finished > 0 ? totalResponseTime.get() / finished : 0);
+    }
+
     /**
      * Returns true if my.openHAB connection is active
      */
@@ -517,6 +642,7 @@ public class MyOpenHABClient {
 
     public void shutdown() {
         logger.info("Shutting down my.openHAB service connection");
+        logger.debug("Proxied requests: {}", getStatistics());
         try {
             jettyClient.stop();
         } catch (Exception e) {
@@ -563,13 +689,24 @@ public class MyOpenHABClient {
      * An internal class which extends ContentExchange and forwards response
      * headers and data back to my.openHAB
      *
+     * The response data is sent as binary attachment of the Socket.IO event.
+     * Reading the response is suspended after RESPONSE_WINDOW_SIZE bytes until
+     * the Socket.IO transport has written the data, so a large response is not
+     * read into memory at once when the connection to my.openHAB is slower
+     * than the local one.
+     *
      */
 
     private class ResponseListener
-            implements Response.CompleteListener, HeadersListener, ContentListener, FailureListener {
+            implements Response.CompleteListener, HeadersListener, AsyncContentListener, FailureListener {
 
         private int mRequestId;
         private boolean mHeadersSent = false;
+        private final long mStartTime = System.nanoTime();
+        private volatile long mFirstByteTime;
+        // the bytes sent since the transport has written the data the last time
+        private long mWindowDrains = -1;
+        private int mWindowBytes;
 
         public ResponseListener(int requestId) {
             mRequestId = requestId;
@@ -591,7 +728,12 @@ public class MyOpenHABClient {
         public void onComplete(Result result) {
             // Remove this request from list of running requests
             runningRequests.remove(mRequestId);
+            long now = System.nanoTime();
+            long firstByteTime = mFirstByteTime > 0 ? mFirstByteTime : now;
+            totalFirstByteTime.addAndGet((firstByteTime - mStartTime) / 1000000);
+            totalResponseTime.addAndGet((now - mStartTime) / 1000000);
             if (result.isFailed()) {
+                failedRequests.incrementAndGet();
                 logger.warn("Jetty request {} failed: {}", mRequestId, result.getFailure().getMessage());
                 logger.warn(result.getRequestFailure().getMessage());
                 logger.warn(result.getResponseFailure().getMessage());
@@ -599,7 +741,7 @@ public class MyOpenHABClient {
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
-                socket.emit("responseFinished", responseJson);
+                emit("responseFinished", responseJson);
                 logger.debug("Finished responding to request {}", mRequestId);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
@@ -610,28 +752,42 @@ public class MyOpenHABClient {
         @Override
         public void onFailure(Request request, Throwable failure) {
             logger.error(failure.getMessage());
-            JSONObject responseJson = new JSONObject();
-            try {
-                responseJson.put("id", mRequestId);
-                responseJson.put("responseStatusText", "openHAB connection error: " + failure.getMessage());
-                socket.emit("responseError", responseJson);
-            } catch (JSONException e) {
-                logger.error(e.getMessage());
-            }
+            sendResponseError(mRequestId, "openHAB connection error: " + failure.getMessage());
         }
 
         @Override
-        public void onContent(Response response, ByteBuffer content) {
+        public void onContent(Response response, ByteBuffer content, Callback callback) {
             logger.debug("Jetty received response content of size " + String.valueOf(content.remaining()));
+            if (mFirstByteTime == 0) {
+                mFirstByteTime = System.nanoTime();
+            }
+            long drains = transportDrains.get();
+            if (drains != mWindowDrains) {
+                mWindowDrains = drains;
+                mWindowBytes = 0;
+            }
+            mWindowBytes += content.remaining();
+            responseBytes.addAndGet(content.remaining());
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
+                // a byte array is sent as binary attachment by Socket.IO
                 responseJson.put("body", BufferUtil.toArray(content));
-                socket.emit("responseContentBinary", responseJson);
+                emit("responseContentBinary", responseJson);
                 logger.debug("Sent content to request {}", mRequestId);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
             }
+            if (mWindowBytes < RESPONSE_WINDOW_SIZE) {
+                callback.succeeded();
+            } else {
+                suspensions.incrementAndGet();
+                suspendedResponses.add(callback);
+                // the transport may have written the data in the meantime
+                if (transportDrains.get() != drains) {
+                    onDrain();
+                }
+            }
         }
 
         @Override
@@ -645,7 +801,7 @@ public class MyOpenHABClient {
                     responseJson.put("headers", getJSONHeaders(response.getHeaders()));
                     responseJson.put("responseStatusCode", response.getStatus());
                     responseJson.put("responseStatusText", "OK");
-                    socket.emit("responseHeader", responseJson);
+                    emit("responseHeader", responseJson);
                     logger.debug("Sent headers to request {}", mRequestId);
                     logger.debug(responseJson.toString());
                 } catch (JSONException e) {
@@ -62,8 +62,12 @@ public class MyOpenHABService implements PersistenceService, ActionService, MyOp
 
     private static final String SECRET_FILE_NAME = "myopenhab" + File.separator + "secret";
 
+    private static final long DEFAULT_UPDATE_INTERVAL = 500;
+    private static final int DEFAULT_MAX_MESSAGES_PER_SECOND = 20;
+
     public static String myohVersion = null;
     private MyOpenHABClient myOHClient;
+    private ItemUpdateUplink itemUpdateUplink;
     private boolean persistenceEnabled = false;
     protected ItemRegistry itemRegistry = null;
     protected EventPublisher eventPublisher = null;
@@ -129,23 +133,50 @@ public class MyOpenHABService implements PersistenceService, ActionService, MyOp
 
     protected void deactivate() {
         logger.debug("my.openHAB service deactivated");
-        myOHClient.shutdown();
+        if (itemUpdateUplink != null) {
+            itemUpdateUplink.shutdown();
+        }
+        if (myOHClient != null) {
+            myOHClient.shutdown();
+        }
     }
 
     protected void modified(Map<String, ?> config) {
+        long updateInterval = DEFAULT_UPDATE_INTERVAL;
+        int maxMessagesPerSecond = DEFAULT_MAX_MESSAGES_PER_SECOND;
+        boolean batchUpdates = false;
         if (config != null) {
             persistenceEnabled = "persistence".equals(config.get("mode"));
+            updateInterval = getConfigValue(config, "updateInterval", updateInterval);
+            maxMessagesPerSecond = (int) getConfigValue(config, "maxMessagesPerSecond", maxMessagesPerSecond);
+            batchUpdates = "true".equals(String.valueOf(config.get("batchUpdates")));
         } else {
             logger.debug("config is null");
         }
+        if (itemUpdateUplink != null) {
+            itemUpdateUplink.shutdown();
+        }
         logger.debug("UUID = " + InstanceUUID.get() + ", secret = " + getSecret());
         myOHClient = new MyOpenHABClient(InstanceUUID.get(), getSecret());
         myOHClient.setOpenHABVersion(OpenHAB.getVersion());
         myOHClient.connect();
         myOHClient.setListener(this);
+        itemUpdateUplink = new ItemUpdateUplink(myOHClient, updateInterval, maxMessagesPerSecond, batchUpdates);
         MyOpenHABAction.myOpenHABService = this;
     }
 
+    private long getConfigValue(Map<String, ?> config, String key, long defaultValue) {
+        Object value = config.get(key);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value '{}' for '{}', using {}", value, key, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     @Override
     public String getActionClassName() {
         return MyOpenHABAction.class.getCanonicalName();
@@ -255,13 +286,13 @@ public class MyOpenHABService implements PersistenceService, ActionService, MyOp
     @Override
     public void store(Item item) {
         persistenceEnabled = true;
-        myOHClient.sendItemUpdate(item.getName(), item.getState().toString());
+        itemUpdateUplink.update(item.getName(), item.getState().toString());
     }
 
     @Override
     public void store(Item item, String alias) {
         persistenceEnabled = true;
-        myOHClient.sendItemUpdate(item.getName(), item.getState().toString());
+        itemUpdateUplink.update(item.getName(), item.getState().toString());
     }
 
     @Override
@@ -299,7 +330,7 @@ public class MyOpenHABService implements PersistenceService, ActionService, MyOp
     public void receive(Event event) {
         if (!persistenceEnabled) {
             ItemStateEvent ise = (ItemStateEvent) event;
-            myOHClient.sendItemUpdate(ise.getItemName(), ise.getItemState().toString());
+            itemUpdateUplink.update(ise.getItemName(), ise.getItemState().toString());
         }
     }
 }
@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.persistence.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openhab.core.items.Item;
+import org.openhab.core.library.items.StringItem;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.persistence.PersistenceService;
+import org.openhab.core.persistence.internal.PersistenceWriteBehindQueue.OverflowPolicy;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class PersistenceWriteBehindQueueTest {
+
+	/**
+	 * Records the stored items, the first store blocks until it is released
+	 */
+	private static class RecordingService implements PersistenceService {
+		final List<String> stored = new ArrayList<String>();
+		final CountDownLatch storing = new CountDownLatch(1);
+		final CountDownLatch released = new CountDownLatch(1);
+
+		@Override
+		public String getName() {
+			return "recording";
+		}
+
+		@Override
+		public void store(Item item) {
+			store(item, null);
+		}
+
+		@Override
+		public void store(Item item, String alias) {
+			storing.countDown();
+			try {
+				released.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			synchronized (stored) {
+				stored.add(alias != null ? item.getName() + "@" + alias + "=" + item.getState() : item.getName()
+						+ "=" + item.getState());
+			}
+		}
+
+		List<String> getStored() {
+			synchronized (stored) {
+				return new ArrayList<String>(stored);
+			}
+		}
+	}
+
+	private RecordingService service = new RecordingService();
+	private PersistenceWriteBehindQueue queue;
+
+	@After
+	public void tearDown() {
+		service.released.countDown();
+		if (queue != null) {
+			queue.stop();
+		}
+	}
+
+	@Test
+	public void testRepeatedValuesAreCoalesced() {
+		service.released.countDown();
+		queue = new PersistenceWriteBehindQueue(service, 10, 10000, 10, OverflowPolicy.BLOCK);
+		queue.start();
+
+		StringItem item = item("a", "1");
+		queue.add(item, null);
+		queue.add(item, null);
+		queue.add(item("a", "1"), null);
+		// a different alias is a different request
+		queue.add(item, "alias");
+		queue.add(item("a", "2"), null);
+		assertEquals(3, queue.getQueueDepth());
+		assertEquals(2, queue.getCoalescedCount());
+
+		queue.stop();
+		assertEquals(Arrays.asList("a=1", "a@alias=1", "a=2"), service.getStored());
+		assertEquals(3, queue.getStoredCount());
+	}
+
+	@Test
+	public void testValueIsNotCoalescedAfterItWasWritten() throws Exception {
+		queue = new PersistenceWriteBehindQueue(service, 10, 0, 10, OverflowPolicy.BLOCK);
+		queue.start();
+
+		queue.add(item("a", "1"), null);
+		assertTrue(service.storing.await(10, TimeUnit.SECONDS));
+		queue.add(item("a", "1"), null);
+		assertEquals(0, queue.getCoalescedCount());
+
+		service.released.countDown();
+		queue.stop();
+		assertEquals(Arrays.asList("a=1", "a=1"), service.getStored());
+	}
+
+	@Test
+	public void testStopWritesQueuedRequests() {
+		service.released.countDown();
+		queue = new PersistenceWriteBehindQueue(service, 10, 10000, 2, OverflowPolicy.BLOCK);
+		queue.start();
+
+		for (int i = 0; i < 5; i++) {
+			queue.add(item("item" + i, "on"), null);
+		}
+		queue.stop();
+		assertEquals(Arrays.asList("item0=on", "item1=on", "item2=on", "item3=on", "item4=on"), service.getStored());
+		assertEquals(0, queue.getQueueDepth());
+		assertTrue("batches are limited to 2 requests", queue.getAverageBatchSize() <= 2);
+
+		// once stopped, requests are stored directly
+		queue.add(item("item5", "on"), null);
+		assertEquals("item5=on", service.getStored().get(5));
+	}
+
+	@Test
+	public void testDropNewest() throws Exception {
+		queue = blockedQueue(OverflowPolicy.DROP_NEWEST);
+
+		queue.add(item("b", "1"), null);
+		queue.add(item("c", "1"), null);
+		queue.add(item("d", "1"), null);
+		assertEquals(2, queue.getQueueDepth());
+		assertEquals(1, queue.getDroppedCount());
+
+		service.released.countDown();
+		queue.stop();
+		assertEquals(Arrays.asList("a=1", "b=1", "c=1"), service.getStored());
+	}
+
+	@Test
+	public void testDropOldest() throws Exception {
+		queue = blockedQueue(OverflowPolicy.DROP_OLDEST);
+
+		queue.add(item("b", "1"), null);
+		queue.add(item("c", "1"), null);
+		queue.add(item("d", "1"), null);
+		assertEquals(2, queue.getQueueDepth());
+		assertEquals(1, queue.getDroppedCount());
+
+		// the dropped request is not pending anymore, so a repeated value is queued again
+		queue.add(item("b", "1"), null);
+		assertEquals(0, queue.getCoalescedCount());
+		assertEquals(2, queue.getDroppedCount());
+
+		service.released.countDown();
+		queue.stop();
+		assertEquals(Arrays.asList("a=1", "d=1", "b=1"), service.getStored());
+	}
+
+	@Test
+	public void testBlockWaitsForSpace() throws Exception {
+		queue = blockedQueue(OverflowPolicy.BLOCK);
+
+		queue.add(item("b", "1"), null);
+		queue.add(item("c", "1"), null);
+		Thread caller = new Thread() {
+			@Override
+			public void run() {
+				queue.add(item("d", "1"), null);
+			}
+		};
+		caller.start();
+		caller.join(200);
+		assertTrue("the caller should wait for space in the queue", caller.isAlive());
+
+		service.released.countDown();
+		caller.join(10000);
+		assertFalse(caller.isAlive());
+		queue.stop();
+		assertEquals(Arrays.asList("a=1", "b=1", "c=1", "d=1"), service.getStored());
+		assertEquals(0, queue.getDroppedCount());
+		assertEquals(2, queue.getMaxQueueDepth());
+	}
+
+	/**
+	 * Creates a queue with a capacity of 2, whose worker is blocked storing item a
+	 */
+	private PersistenceWriteBehindQueue blockedQueue(OverflowPolicy overflowPolicy) throws InterruptedException {
+		PersistenceWriteBehindQueue queue = new PersistenceWriteBehindQueue(service, 2, 0, 10, overflowPolicy);
+		queue.start();
+		queue.add(item("a", "1"), null);
+		assertTrue(service.storing.await(10, TimeUnit.SECONDS));
+		return queue;
+	}
+
+	private static StringItem item(String name, String state) {
+		StringItem item = new StringItem(name);
+		item.setState(new StringType(state));
+		return item;
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.types;
+
+import java.util.List;
+
+import org.openhab.core.library.items.ColorItem;
+
+/**
+ * Parses the typical commands of {@link TypeParserTest} as commands of a color
+ * item and prints the time per command. It is not run with the tests, run its
+ * main method to measure the {@link TypeParser}.
+ *
+ * @author agent - Initial contribution
+ */
+public class TypeParserBenchmark {
+
+	private static final int ITERATIONS = 1000000;
+
+	public static void main(String[] args) {
+		List<Class<? extends Command>> types = new ColorItem("color").getAcceptedCommandTypes();
+		String[] commands = TypeParserTest.TYPICAL_COMMANDS;
+
+		// warm up
+		for (int i = 0; i < ITERATIONS / 10; i++) {
+			TypeParser.parseCommand(types, commands[i % commands.length]);
+		}
+
+		int parsed = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			if (TypeParser.parseCommand(types, commands[i % commands.length]) != null) {
+				parsed++;
+			}
+		}
+		long duration = System.nanoTime() - start;
+		System.out.printf("TypeParser: %d of %d commands parsed, %.1f ns per command%n", parsed, ITERATIONS,
+				(double) duration / ITERATIONS);
+	}
+
+}
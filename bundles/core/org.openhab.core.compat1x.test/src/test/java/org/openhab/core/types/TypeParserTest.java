@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.types;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.openhab.core.library.items.ColorItem;
+import org.openhab.core.library.items.DimmerItem;
+import org.openhab.core.library.items.LocationItem;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.RollershutterItem;
+import org.openhab.core.library.items.StringItem;
+import org.openhab.core.library.items.SwitchItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.IncreaseDecreaseType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.PointType;
+import org.openhab.core.library.types.StopMoveType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.types.UpDownType;
+
+/**
+ * Tests cases for {@link TypeParser}.
+ *
+ * @author agent - Initial contribution
+ */
+public class TypeParserTest {
+
+	static final String[] TYPICAL_COMMANDS = { "ON", "OFF", "INCREASE", "DECREASE", "UP", "DOWN", "STOP",
+			"MOVE", "0", "42", "100", "21.5", "-3.25", "1e3", "120,100,50", "52.52,13.41", "hello" };
+
+	@Test
+	public void testCommands() {
+		List<Class<? extends Command>> switchTypes = new SwitchItem("switch").getAcceptedCommandTypes();
+		assertEquals(OnOffType.ON, TypeParser.parseCommand(switchTypes, "ON"));
+		assertEquals(OnOffType.OFF, TypeParser.parseCommand(switchTypes, "OFF"));
+		assertNull(TypeParser.parseCommand(switchTypes, "on"));
+		assertNull(TypeParser.parseCommand(switchTypes, null));
+
+		List<Class<? extends Command>> dimmerTypes = new DimmerItem("dimmer").getAcceptedCommandTypes();
+		assertEquals(IncreaseDecreaseType.INCREASE, TypeParser.parseCommand(dimmerTypes, "INCREASE"));
+		assertEquals(new PercentType(42), TypeParser.parseCommand(dimmerTypes, "42"));
+		assertNull(TypeParser.parseCommand(dimmerTypes, "142"));
+		assertNull(TypeParser.parseCommand(dimmerTypes, "4x2"));
+
+		List<Class<? extends Command>> rollershutterTypes = new RollershutterItem("rs").getAcceptedCommandTypes();
+		assertEquals(UpDownType.DOWN, TypeParser.parseCommand(rollershutterTypes, "DOWN"));
+		assertEquals(StopMoveType.STOP, TypeParser.parseCommand(rollershutterTypes, "STOP"));
+
+		List<Class<? extends Command>> numberTypes = new NumberItem("number").getAcceptedCommandTypes();
+		assertEquals(new DecimalType("-3.25"), TypeParser.parseCommand(numberTypes, "-3.25"));
+		assertEquals(new DecimalType("1e3"), TypeParser.parseCommand(numberTypes, "1e3"));
+		assertNull(TypeParser.parseCommand(numberTypes, "."));
+		assertNull(TypeParser.parseCommand(numberTypes, "1e"));
+		assertNull(TypeParser.parseCommand(numberTypes, ""));
+
+		List<Class<? extends Command>> colorTypes = new ColorItem("color").getAcceptedCommandTypes();
+		assertEquals(new HSBType("120,100,50"), TypeParser.parseCommand(colorTypes, "120,100,50"));
+		assertNull(TypeParser.parseCommand(colorTypes, "120,100"));
+		assertNull(TypeParser.parseCommand(colorTypes, "120,100,50,"));
+
+		List<Class<? extends Command>> stringTypes = new StringItem("string").getAcceptedCommandTypes();
+		assertEquals(new StringType("ON"), TypeParser.parseCommand(stringTypes, "ON"));
+	}
+
+	@Test
+	public void testStates() {
+		List<Class<? extends State>> locationTypes = new LocationItem("location").getAcceptedDataTypes();
+		State state = TypeParser.parseState(locationTypes, "52.52,13.41,34");
+		assertTrue(state instanceof PointType);
+		assertEquals(new DecimalType("34"), ((PointType) state).getAltitude());
+
+		List<Class<? extends State>> switchTypes = new SwitchItem("switch").getAcceptedDataTypes();
+		assertEquals(UnDefType.UNDEF, TypeParser.parseState(switchTypes, "UNDEF"));
+		assertEquals(OnOffType.ON, TypeParser.parseState(switchTypes, "ON"));
+	}
+
+	@Test
+	public void testTypicalColorCommands() {
+		List<Class<? extends Command>> types = new ColorItem("color").getAcceptedCommandTypes();
+		Command[] expected = { OnOffType.ON, OnOffType.OFF, IncreaseDecreaseType.INCREASE, IncreaseDecreaseType.DECREASE,
+				null, null, null, null, new PercentType(0), new PercentType(42), new PercentType(100),
+				new PercentType("21.5"), null, null, new HSBType("120,100,50"), null, null };
+		for (int i = 0; i < TYPICAL_COMMANDS.length; i++) {
+			assertEquals(TYPICAL_COMMANDS[i], expected[i], TypeParser.parseCommand(types, TYPICAL_COMMANDS[i]));
+		}
+	}
+
+}
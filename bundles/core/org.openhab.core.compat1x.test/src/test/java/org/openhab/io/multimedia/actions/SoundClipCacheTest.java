@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.multimedia.actions;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.multimedia.actions.SoundClipCache.DecodedSound;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class SoundClipCacheTest {
+
+	private static final AudioFormat FORMAT = new AudioFormat(8000, 16, 1, true, false);
+
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = File.createTempFile("sounds", "");
+		dir.delete();
+		dir.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+
+	@Test
+	public void testCachedSoundIsReused() throws Exception {
+		File file = writeWave("a.wav", 1000);
+		SoundClipCache cache = new SoundClipCache(10000);
+
+		DecodedSound sound = cache.get(file);
+		assertEquals(2000, sound.data.length);
+		assertEquals(FORMAT.getSampleRate(), sound.format.getSampleRate(), 0);
+		assertSame(sound, cache.get(file));
+	}
+
+	@Test
+	public void testModifiedSoundIsDecodedAgain() throws Exception {
+		File file = writeWave("a.wav", 1000);
+		SoundClipCache cache = new SoundClipCache(10000);
+		DecodedSound sound = cache.get(file);
+
+		writeWave("a.wav", 2000);
+		DecodedSound modified = cache.get(file);
+		assertNotSame(sound, modified);
+		assertEquals(4000, modified.data.length);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedSoundIsEvicted() throws Exception {
+		File a = writeWave("a.wav", 1000);
+		File b = writeWave("b.wav", 1000);
+		File c = writeWave("c.wav", 1000);
+		SoundClipCache cache = new SoundClipCache(5000);
+
+		DecodedSound soundA = cache.get(a);
+		DecodedSound soundB = cache.get(b);
+		assertSame(soundA, cache.get(a));
+		// b is the least recently used sound now
+		cache.get(c);
+		assertSame(soundA, cache.get(a));
+		assertNotSame(soundB, cache.get(b));
+	}
+
+	@Test
+	public void testSmallerMaxSizeEvictsSounds() throws Exception {
+		File a = writeWave("a.wav", 1000);
+		SoundClipCache cache = new SoundClipCache(5000);
+		DecodedSound sound = cache.get(a);
+
+		cache.setMaxSize(1000);
+		assertEquals(1000, cache.getMaxSize());
+		// the sound does not fit anymore, so it is not decoded
+		assertNull(cache.get(a));
+
+		cache.setMaxSize(5000);
+		assertNotSame(sound, cache.get(a));
+	}
+
+	@Test
+	public void testSoundLargerThanCacheIsNotDecoded() throws Exception {
+		File file = writeWave("large.wav", 10000);
+		SoundClipCache cache = new SoundClipCache(10000);
+
+		assertEquals(20000, SoundClipCache.estimateSize(file));
+		assertNull(cache.get(file));
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		File file = writeWave("a.wav", 1000);
+		SoundClipCache cache = new SoundClipCache(10000);
+		DecodedSound sound = cache.get(file);
+
+		cache.clear();
+		assertNotSame(sound, cache.get(file));
+	}
+
+	private File writeWave(String name, int frames) throws IOException {
+		File file = new File(dir, name);
+		byte[] data = new byte[frames * FORMAT.getFrameSize()];
+		AudioInputStream ais = new AudioInputStream(new ByteArrayInputStream(data), FORMAT, frames);
+		AudioSystem.write(ais, AudioFileFormat.Type.WAVE, file);
+		// the cache compares the modification time, which has a resolution of a second on some file systems
+		file.setLastModified(file.lastModified() + frames);
+		return file;
+	}
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.model.item.binding;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.core.binding.BindingChangeListener;
+import org.openhab.core.binding.BindingConfig;
+import org.openhab.core.binding.BindingProvider;
+import org.openhab.core.items.Item;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.SwitchItem;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class AbstractGenericBindingProviderTest {
+
+	private static final String CONTEXT = "test.items";
+
+	private static class TestBindingConfig implements BindingConfig {
+		final Item item;
+		final String address;
+
+		TestBindingConfig(Item item, String address) {
+			this.item = item;
+			this.address = address;
+		}
+	}
+
+	/**
+	 * Keeps its own map of the items by address, like many bindings do, and an index by address
+	 */
+	private static class TestBindingProvider extends AbstractGenericBindingProvider {
+		final Map<String, Item> itemsByAddress = new ConcurrentHashMap<String, Item>();
+		final List<String> removedItems = new ArrayList<String>();
+
+		TestBindingProvider() {
+			addIndex("address", new IndexKeyProvider() {
+				@Override
+				public Object getIndexKey(BindingConfig config) {
+					return ((TestBindingConfig) config).address;
+				}
+			});
+		}
+
+		@Override
+		public String getBindingType() {
+			return "test";
+		}
+
+		@Override
+		public void validateItemType(Item item, String bindingConfig) throws BindingConfigParseException {
+		}
+
+		@Override
+		public void processBindingConfiguration(String context, Item item, String bindingConfig)
+				throws BindingConfigParseException {
+			super.processBindingConfiguration(context, item, bindingConfig);
+			itemsByAddress.put(bindingConfig, item);
+			addBindingConfig(item, new TestBindingConfig(item, bindingConfig));
+		}
+
+		@Override
+		public void removeConfigurations(String context) {
+			Set<Item> items = contextMap.get(context);
+			if (items != null) {
+				for (Item item : items) {
+					TestBindingConfig config = (TestBindingConfig) bindingConfigs.get(item.getName());
+					if (config != null) {
+						itemsByAddress.remove(config.address);
+					}
+					removedItems.add(item.getName());
+				}
+			}
+			super.removeConfigurations(context);
+		}
+
+		TestBindingConfig getConfig(String itemName) {
+			return (TestBindingConfig) bindingConfigs.get(itemName);
+		}
+
+		Set<String> getItemNamesForAddress(String address) {
+			return getItemNamesForIndexKey("address", address);
+		}
+	}
+
+	/**
+	 * Stores its configs into bindingConfigs itself instead of through addBindingConfig, like some bindings do
+	 */
+	private static class DirectBindingProvider extends AbstractGenericBindingProvider {
+
+		@Override
+		public String getBindingType() {
+			return "direct";
+		}
+
+		@Override
+		public void validateItemType(Item item, String bindingConfig) throws BindingConfigParseException {
+		}
+
+		@Override
+		public void processBindingConfiguration(String context, Item item, String bindingConfig)
+				throws BindingConfigParseException {
+			super.processBindingConfiguration(context, item, bindingConfig);
+			bindingConfigs.put(item.getName(), new TestBindingConfig(item, bindingConfig));
+		}
+	}
+
+	private TestBindingProvider provider;
+	private final List<String> notifiedItems = new ArrayList<String>();
+
+	@Before
+	public void setUp() throws BindingConfigParseException {
+		provider = new TestBindingProvider();
+		provider.addBindingChangeListener(new BindingChangeListener() {
+			@Override
+			public void bindingChanged(BindingProvider provider, String itemName) {
+				notifiedItems.add(itemName);
+			}
+
+			@Override
+			public void allBindingsChanged(BindingProvider provider) {
+			}
+		});
+		reload(new SwitchItem("light"), "1", new NumberItem("temperature"), "2");
+		notifiedItems.clear();
+		provider.removedItems.clear();
+	}
+
+	@Test
+	public void testUnchangedItemIsRebound() throws BindingConfigParseException {
+		SwitchItem light = new SwitchItem("light");
+		reload(light, "1", new NumberItem("temperature"), "2");
+
+		assertEquals(Collections.emptyList(), notifiedItems);
+		assertEquals(Collections.emptyList(), provider.removedItems);
+		// the config refers to the item of the reload, not to the previous one
+		assertSame(light, provider.getConfig("light").item);
+		assertSame(light, provider.itemsByAddress.get("1"));
+		assertEquals(Collections.singleton("light"), provider.getItemNamesForAddress("1"));
+	}
+
+	@Test
+	public void testAddedItemIsNotified() throws BindingConfigParseException {
+		reload(new SwitchItem("light"), "1", new NumberItem("temperature"), "2", new SwitchItem("fan"), "3");
+
+		assertEquals(Arrays.asList("fan"), notifiedItems);
+		assertEquals(Collections.emptyList(), provider.removedItems);
+		assertTrue(provider.providesBindingFor("fan"));
+		assertEquals(Collections.singleton("fan"), provider.getItemNamesForAddress("3"));
+	}
+
+	@Test
+	public void testChangedItemIsRemovedAndAddedAgain() throws BindingConfigParseException {
+		reload(new SwitchItem("light"), "4", new NumberItem("temperature"), "2");
+
+		assertEquals(Arrays.asList("light"), provider.removedItems);
+		assertEquals(Arrays.asList("light", "light"), notifiedItems);
+		assertEquals("4", provider.getConfig("light").address);
+		// the state of the subclass has been cleaned up by removeConfigurations
+		assertNull(provider.itemsByAddress.get("1"));
+		assertEquals(Collections.emptySet(), provider.getItemNamesForAddress("1"));
+		assertEquals(Collections.singleton("light"), provider.getItemNamesForAddress("4"));
+		assertTrue(provider.providesBindingFor("temperature"));
+	}
+
+	@Test
+	public void testChangedItemTypeIsRemovedAndAddedAgain() throws BindingConfigParseException {
+		NumberItem light = new NumberItem("light");
+		reload(light, "1", new NumberItem("temperature"), "2");
+
+		assertEquals(Arrays.asList("light"), provider.removedItems);
+		assertSame(light, provider.getConfig("light").item);
+	}
+
+	@Test
+	public void testRemovedItemIsRemoved() throws BindingConfigParseException {
+		reload(new NumberItem("temperature"), "2");
+
+		assertEquals(Arrays.asList("light"), provider.removedItems);
+		assertEquals(Arrays.asList("light"), notifiedItems);
+		assertFalse(provider.providesBindingFor("light"));
+		assertNull(provider.itemsByAddress.get("1"));
+		assertEquals(Collections.emptySet(), provider.getItemNamesForAddress("1"));
+		assertEquals(Arrays.asList("temperature"), new ArrayList<String>(provider.getItemNames()));
+
+		// the item is not known anymore, so adding it again is an addition
+		notifiedItems.clear();
+		reload(new NumberItem("temperature"), "2", new SwitchItem("light"), "1");
+		assertEquals(Arrays.asList("light"), notifiedItems);
+	}
+
+	@Test
+	public void testRemoveConfigurations() throws BindingConfigParseException {
+		provider.removeConfigurations(CONTEXT);
+
+		assertEquals(2, provider.removedItems.size());
+		assertFalse(provider.providesBinding());
+		assertTrue(provider.itemsByAddress.isEmpty());
+
+		// nothing is left of the removed context, so a reload adds every item
+		reload(new SwitchItem("light"), "1");
+		assertEquals(3, notifiedItems.size());
+		assertEquals(new HashSet<String>(Arrays.asList("light", "temperature")),
+				new HashSet<String>(notifiedItems.subList(0, 2)));
+		assertEquals("light", notifiedItems.get(2));
+	}
+
+	@Test
+	public void testConfigStoredDirectlyIsKept() throws BindingConfigParseException {
+		DirectBindingProvider directProvider = new DirectBindingProvider();
+		for (int i = 0; i < 2; i++) {
+			directProvider.startConfigurationUpdate(CONTEXT);
+			directProvider.processBindingConfiguration(CONTEXT, new SwitchItem("light"), "1");
+			directProvider.stopConfigurationUpdate(CONTEXT);
+		}
+		assertTrue(directProvider.providesBindingFor("light"));
+
+		directProvider.startConfigurationUpdate(CONTEXT);
+		directProvider.stopConfigurationUpdate(CONTEXT);
+		assertFalse(directProvider.providesBindingFor("light"));
+	}
+
+	/**
+	 * Reloads the context with the given items and binding config strings
+	 */
+	private void reload(Object... itemsAndConfigs) throws BindingConfigParseException {
+		provider.startConfigurationUpdate(CONTEXT);
+		for (int i = 0; i < itemsAndConfigs.length; i += 2) {
+			provider.processBindingConfiguration(CONTEXT, (Item) itemsAndConfigs[i], (String) itemsAndConfigs[i + 1]);
+		}
+		provider.stopConfigurationUpdate(CONTEXT);
+	}
+}
@@ -10,6 +10,7 @@ package org.openhab.core.binding.internal;
 
 import org.eclipse.smarthome.model.item.BindingConfigParseException;
 import org.eclipse.smarthome.model.item.BindingConfigReader;
+import org.openhab.model.item.binding.AbstractGenericBindingProvider;
 
 /**
  * This class serves as a mapping from the "old" org.openhab namespace to the new org.eclipse.smarthome
@@ -77,11 +78,19 @@ public class BindingConfigReaderDelegate implements BindingConfigReader {
 
     @Override
     public void startConfigurationUpdate(String context) {
-        reader.removeConfigurations(context);        
+        if (reader instanceof AbstractGenericBindingProvider) {
+            // the generic provider keeps the old configurations and only notifies about real changes
+            ((AbstractGenericBindingProvider) reader).startConfigurationUpdate(context);
+        } else {
+            reader.removeConfigurations(context);
+        }
     }
 
     @Override
     public void stopConfigurationUpdate(String context) {
+        if (reader instanceof AbstractGenericBindingProvider) {
+            ((AbstractGenericBindingProvider) reader).stopConfigurationUpdate(context);
+        }
     }
 
 }
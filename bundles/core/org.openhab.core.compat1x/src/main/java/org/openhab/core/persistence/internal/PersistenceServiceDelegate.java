@@ -18,16 +18,42 @@ import org.openhab.core.compat1x.internal.ItemMapper;
  * namespace for the persistence service. It wraps an instance with the old interface
  * into a class with the new interface. 
  * 
+ * <p>If a {@link PersistenceWriteBehindQueue} is set, the items are mapped on the calling thread
+ * (so that their current state is captured), but stored asynchronously by the queue.</p>
+ * 
  * @author Kai Kreuzer - Initial contribution and API
  */
 public class PersistenceServiceDelegate implements PersistenceService {
 
 	protected org.openhab.core.persistence.PersistenceService service;
 
+	private volatile PersistenceWriteBehindQueue writeBehindQueue;
+
 	public PersistenceServiceDelegate(org.openhab.core.persistence.PersistenceService service) {
 		this.service = service;
 	}
 
+	/**
+	 * Sets the queue to use for asynchronous stores. The previously set queue is stopped
+	 * after all of its pending requests have been written.
+	 * 
+	 * @param writeBehindQueue the queue to use or <code>null</code> to store synchronously
+	 */
+	public void setWriteBehindQueue(PersistenceWriteBehindQueue writeBehindQueue) {
+		PersistenceWriteBehindQueue oldQueue = this.writeBehindQueue;
+		if(writeBehindQueue!=null) {
+			writeBehindQueue.start();
+		}
+		this.writeBehindQueue = writeBehindQueue;
+		if(oldQueue!=null) {
+			oldQueue.stop();
+		}
+	}
+
+	public PersistenceWriteBehindQueue getWriteBehindQueue() {
+		return writeBehindQueue;
+	}
+
 	@Override
 	public String getName() {
 		return service.getName();
@@ -37,7 +63,12 @@ public class PersistenceServiceDelegate implements PersistenceService {
 	public void store(Item item) {
 		org.openhab.core.items.Item ohItem = ItemMapper.mapToOpenHABItem(item);
 		if(ohItem!=null) {
-			service.store(ohItem);
+			PersistenceWriteBehindQueue queue = writeBehindQueue;
+			if(queue!=null) {
+				queue.add(ohItem, null);
+			} else {
+				service.store(ohItem);
+			}
 		}
 	}
 
@@ -45,7 +76,12 @@ public class PersistenceServiceDelegate implements PersistenceService {
 	public void store(Item item, String alias) {
 		org.openhab.core.items.Item ohItem = ItemMapper.mapToOpenHABItem(item);
 		if(ohItem!=null) {
-			service.store(ohItem, alias);
+			PersistenceWriteBehindQueue queue = writeBehindQueue;
+			if(queue!=null) {
+				queue.add(ohItem, alias);
+			} else {
+				service.store(ohItem, alias);
+			}
 		}
 	}
 
@@ -16,37 +16,121 @@ import java.util.Map;
 import java.util.Set;
 
 import org.openhab.core.persistence.PersistenceService;
+import org.openhab.core.persistence.internal.PersistenceWriteBehindQueue.OverflowPolicy;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This class listens for services that implement the old persistence service interface and registers
  * an according service for each under the new interface.
  * 
+ * <p>Optionally, the delegates can store asynchronously through a {@link PersistenceWriteBehindQueue}
+ * per service, which is configured through the following properties:
+ * <ul>
+ * <li><code>writeBehind</code>: <code>true</code> to enable the asynchronous mode</li>
+ * <li><code>queueSize</code>: the maximum number of queued store requests per service</li>
+ * <li><code>batchWindow</code>: the time in milliseconds to collect store requests for a batch</li>
+ * <li><code>batchSize</code>: the maximum number of store requests per batch</li>
+ * <li><code>overflowPolicy</code>: <code>block</code>, <code>drop_oldest</code> or <code>drop_newest</code></li>
+ * </ul>
+ * </p>
+ * 
  * @author Kai Kreuzer - Initial contribution and API
  */
 public class PersistenceServiceFactory {
 
+	private static final Logger logger = LoggerFactory.getLogger(PersistenceServiceFactory.class);
+
+	private static final int DEFAULT_QUEUE_SIZE = 1000;
+	private static final long DEFAULT_BATCH_WINDOW = 100;
+	private static final int DEFAULT_BATCH_SIZE = 100;
+
 	private Map<String, ServiceRegistration<org.eclipse.smarthome.core.persistence.PersistenceService>> delegates = new HashMap<>();
+	private Map<String, PersistenceServiceDelegate> delegateServices = new HashMap<>();
 	private BundleContext context;
 	
 	private Set<PersistenceService> persistenceServices = new HashSet<>();
+
+	private boolean writeBehind = false;
+	private int queueSize = DEFAULT_QUEUE_SIZE;
+	private long batchWindow = DEFAULT_BATCH_WINDOW;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
 	
-	public void activate(BundleContext context) {
+	public void activate(BundleContext context, Map<String, Object> config) {
 		this.context = context;
+		applyConfig(config);
 		for(PersistenceService service : persistenceServices) {
 			registerDelegateService(service);
 		}
 	}
+
+	public void modified(Map<String, Object> config) {
+		applyConfig(config);
+		for(PersistenceServiceDelegate delegate : delegateServices.values()) {
+			delegate.setWriteBehindQueue(createWriteBehindQueue(delegate.service));
+		}
+	}
 	
 	public void deactivate() {
 		for(ServiceRegistration<org.eclipse.smarthome.core.persistence.PersistenceService> serviceReg : delegates.values()) {
 			serviceReg.unregister();
 		}
+		for(PersistenceServiceDelegate delegate : delegateServices.values()) {
+			logStatistics(delegate);
+			delegate.setWriteBehindQueue(null);
+		}
 		delegates.clear();
+		delegateServices.clear();
 		this.context = null;
 	}
 
+	private void applyConfig(Map<String, Object> config) {
+		writeBehind = false;
+		queueSize = DEFAULT_QUEUE_SIZE;
+		batchWindow = DEFAULT_BATCH_WINDOW;
+		batchSize = DEFAULT_BATCH_SIZE;
+		overflowPolicy = OverflowPolicy.BLOCK;
+		if(config==null) {
+			return;
+		}
+		try {
+			if(config.get("writeBehind")!=null) {
+				writeBehind = Boolean.parseBoolean(config.get("writeBehind").toString());
+			}
+			if(config.get("queueSize")!=null) {
+				queueSize = Math.max(1, Integer.parseInt(config.get("queueSize").toString()));
+			}
+			if(config.get("batchWindow")!=null) {
+				batchWindow = Math.max(0, Long.parseLong(config.get("batchWindow").toString()));
+			}
+			if(config.get("batchSize")!=null) {
+				batchSize = Math.max(1, Integer.parseInt(config.get("batchSize").toString()));
+			}
+			if(config.get("overflowPolicy")!=null) {
+				overflowPolicy = OverflowPolicy.valueOf(config.get("overflowPolicy").toString().toUpperCase());
+			}
+		} catch (IllegalArgumentException e) {
+			logger.warn("Invalid configuration for the persistence write-behind mode: {}", e.getMessage());
+		}
+	}
+
+	private PersistenceWriteBehindQueue createWriteBehindQueue(PersistenceService service) {
+		if(!writeBehind) {
+			return null;
+		}
+		return new PersistenceWriteBehindQueue(service, queueSize, batchWindow, batchSize, overflowPolicy);
+	}
+
+	private void logStatistics(PersistenceServiceDelegate delegate) {
+		PersistenceWriteBehindQueue queue = delegate.getWriteBehindQueue();
+		if(queue!=null) {
+			logger.debug("Write-behind statistics of persistence service '{}': {}", delegate.getName(), queue);
+		}
+	}
+
 	public void addPersistenceService(PersistenceService service) {
 		if(context!=null) {
 			registerDelegateService(service);			
@@ -67,10 +151,12 @@ public class PersistenceServiceFactory {
 					(persistenceService instanceof org.openhab.core.persistence.QueryablePersistenceService) ?
 					new QueryablePersistenceServiceDelegate(persistenceService) 
 				:	new PersistenceServiceDelegate(persistenceService);
+			((PersistenceServiceDelegate) service).setWriteBehindQueue(createWriteBehindQueue(persistenceService));
 			Dictionary<String, Object> props = new Hashtable<String, Object>();
 			ServiceRegistration<org.eclipse.smarthome.core.persistence.PersistenceService> serviceReg = 
 					context.registerService(org.eclipse.smarthome.core.persistence.PersistenceService.class, service, props);
 			delegates.put(persistenceService.getName(), serviceReg);
+			delegateServices.put(persistenceService.getName(), (PersistenceServiceDelegate) service);
 		}
 	}
 
@@ -80,6 +166,11 @@ public class PersistenceServiceFactory {
 					delegates.get(service.getName());
 			delegates.remove(service.getName());
 			serviceReg.unregister();
+			PersistenceServiceDelegate delegate = delegateServices.remove(service.getName());
+			if(delegate!=null) {
+				logStatistics(delegate);
+				delegate.setWriteBehindQueue(null);
+			}
 		}
 	}
 }
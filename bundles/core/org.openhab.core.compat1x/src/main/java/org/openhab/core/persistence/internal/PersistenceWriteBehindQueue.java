@@ -0,0 +1,313 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.persistence.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openhab.core.items.Item;
+import org.openhab.core.persistence.PersistenceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class decouples the callers of a 1.x persistence service from its (potentially slow) store
+ * operation. Store requests are put into a bounded queue and written by a dedicated thread in batches.
+ * A request that repeats the pending value of the same item (and alias) within the batch window is
+ * coalesced with the pending one.
+ *
+ * @author agent - Initial contribution
+ */
+public class PersistenceWriteBehindQueue {
+
+	/**
+	 * Defines what happens to a store request, if the queue is full.
+	 */
+	public enum OverflowPolicy {
+		/** the caller waits until there is space in the queue */
+		BLOCK,
+		/** the oldest queued request is dropped */
+		DROP_OLDEST,
+		/** the new request is dropped */
+		DROP_NEWEST
+	}
+
+	private static final Logger logger = LoggerFactory.getLogger(PersistenceWriteBehindQueue.class);
+
+	private static class StoreRequest {
+		final String key;
+		final Item item;
+		final String alias;
+
+		StoreRequest(Item item, String alias) {
+			this.key = alias != null ? item.getName() + "@" + alias : item.getName();
+			this.item = item;
+			this.alias = alias;
+		}
+	}
+
+	private final PersistenceService service;
+	private final int capacity;
+	private final long batchWindow;
+	private final int maxBatchSize;
+	private final OverflowPolicy overflowPolicy;
+
+	private final ArrayDeque<StoreRequest> queue = new ArrayDeque<StoreRequest>();
+	private final Map<String, StoreRequest> lastQueued = new HashMap<String, StoreRequest>();
+
+	private final AtomicLong storedCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong batchCount = new AtomicLong();
+	private final AtomicLong storeTime = new AtomicLong();
+	private volatile long maxStoreTime = 0;
+	private volatile int maxQueueDepth = 0;
+	private volatile int lastBatchSize = 0;
+
+	private Thread worker;
+	private volatile boolean running;
+
+	/**
+	 * @param service the 1.x persistence service to write to
+	 * @param capacity the maximum number of queued store requests
+	 * @param batchWindow the time in milliseconds to wait for further requests before writing a batch
+	 * @param maxBatchSize the maximum number of store requests written in one batch
+	 * @param overflowPolicy what to do, if the queue is full
+	 */
+	public PersistenceWriteBehindQueue(PersistenceService service, int capacity, long batchWindow, int maxBatchSize,
+			OverflowPolicy overflowPolicy) {
+		this.service = service;
+		this.capacity = capacity;
+		this.batchWindow = batchWindow;
+		this.maxBatchSize = maxBatchSize;
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public synchronized void start() {
+		if (worker == null) {
+			running = true;
+			worker = new Thread("openHAB-persistence-" + service.getName()) {
+				@Override
+				public void run() {
+					processQueue();
+				}
+			};
+			worker.setDaemon(true);
+			worker.start();
+		}
+	}
+
+	/**
+	 * Stops the worker thread after all queued requests have been written.
+	 */
+	public void stop() {
+		Thread thread;
+		synchronized (this) {
+			thread = worker;
+			worker = null;
+			running = false;
+			notifyAll();
+		}
+		if (thread != null) {
+			try {
+				thread.join(TimeUnit.SECONDS.toMillis(10));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Queues a store request for the given item.
+	 *
+	 * @param item the item, which must already hold the state to persist
+	 * @param alias the alias to store the item under, may be <code>null</code>
+	 */
+	public void add(Item item, String alias) {
+		if (!enqueue(item, alias)) {
+			// the queue has been stopped meanwhile, so we store directly
+			if (alias != null) {
+				service.store(item, alias);
+			} else {
+				service.store(item);
+			}
+		}
+	}
+
+	private synchronized boolean enqueue(Item item, String alias) {
+		if (!running) {
+			return false;
+		}
+		StoreRequest request = new StoreRequest(item, alias);
+		StoreRequest pending = lastQueued.get(request.key);
+		if (pending != null && pending.item.getState() != null && pending.item.getState().equals(item.getState())) {
+			coalescedCount.incrementAndGet();
+			return true;
+		}
+		while (queue.size() >= capacity) {
+			if (!running) {
+				return false;
+			} else if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+				droppedCount.incrementAndGet();
+				return true;
+			} else if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+				StoreRequest dropped = queue.poll();
+				if (lastQueued.get(dropped.key) == dropped) {
+					lastQueued.remove(dropped.key);
+				}
+				droppedCount.incrementAndGet();
+			} else {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					droppedCount.incrementAndGet();
+					return true;
+				}
+			}
+		}
+		queue.add(request);
+		lastQueued.put(request.key, request);
+		if (queue.size() > maxQueueDepth) {
+			maxQueueDepth = queue.size();
+		}
+		notifyAll();
+		return true;
+	}
+
+	private void processQueue() {
+		while (true) {
+			List<StoreRequest> batch = nextBatch();
+			if (batch == null) {
+				return;
+			}
+			long start = System.nanoTime();
+			for (StoreRequest request : batch) {
+				try {
+					if (request.alias != null) {
+						service.store(request.item, request.alias);
+					} else {
+						service.store(request.item);
+					}
+				} catch (RuntimeException e) {
+					logger.error("Persistence service '{}' failed to store item '{}'",
+							new Object[] { service.getName(), request.item.getName(), e });
+				}
+			}
+			long duration = System.nanoTime() - start;
+			storedCount.addAndGet(batch.size());
+			batchCount.incrementAndGet();
+			storeTime.addAndGet(duration);
+			if (duration > maxStoreTime) {
+				maxStoreTime = duration;
+			}
+			lastBatchSize = batch.size();
+			logger.trace("Persistence service '{}' stored {} items in {} ms, {} requests queued",
+					new Object[] { service.getName(), batch.size(), TimeUnit.NANOSECONDS.toMillis(duration),
+							getQueueDepth() });
+		}
+	}
+
+	/**
+	 * Waits for the next batch of requests. After the first request has arrived, further requests are
+	 * collected until the batch window has passed or the maximum batch size is reached.
+	 *
+	 * @return the requests to write or <code>null</code>, if the queue has been stopped and is empty
+	 */
+	private synchronized List<StoreRequest> nextBatch() {
+		try {
+			while (queue.isEmpty()) {
+				if (!running) {
+					return null;
+				}
+				wait();
+			}
+			long deadline = System.currentTimeMillis() + batchWindow;
+			long remaining = batchWindow;
+			while (running && queue.size() < maxBatchSize && remaining > 0) {
+				wait(remaining);
+				remaining = deadline - System.currentTimeMillis();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+		List<StoreRequest> batch = new ArrayList<StoreRequest>(Math.min(queue.size(), maxBatchSize));
+		while (!queue.isEmpty() && batch.size() < maxBatchSize) {
+			StoreRequest request = queue.poll();
+			if (lastQueued.get(request.key) == request) {
+				lastQueued.remove(request.key);
+			}
+			batch.add(request);
+		}
+		// wake up callers blocked on a full queue
+		notifyAll();
+		return batch;
+	}
+
+	public synchronized int getQueueDepth() {
+		return queue.size();
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	public int getLastBatchSize() {
+		return lastBatchSize;
+	}
+
+	public long getStoredCount() {
+		return storedCount.get();
+	}
+
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * @return the average number of requests written per batch
+	 */
+	public double getAverageBatchSize() {
+		long batches = batchCount.get();
+		return batches > 0 ? (double) storedCount.get() / batches : 0;
+	}
+
+	/**
+	 * @return the average time in milliseconds it took the persistence service to store a single item
+	 */
+	public double getAverageStoreLatency() {
+		long stored = storedCount.get();
+		return stored > 0 ? (double) TimeUnit.NANOSECONDS.toMicros(storeTime.get()) / stored / 1000 : 0;
+	}
+
+	/**
+	 * @return the maximum time in milliseconds it took the persistence service to store a batch
+	 */
+	public long getMaxBatchLatency() {
+		return TimeUnit.NANOSECONDS.toMillis(maxStoreTime);
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"queue depth %d (max %d), stored %d, coalesced %d, dropped %d, batch size %d (avg %.1f), store latency %.2f ms (max batch %d ms)",
+				getQueueDepth(), getMaxQueueDepth(), getStoredCount(), getCoalescedCount(), getDroppedCount(),
+				getLastBatchSize(), getAverageBatchSize(), getAverageStoreLatency(), getMaxBatchLatency());
+	}
+}
@@ -10,17 +10,98 @@ package org.openhab.core.types;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.PointType;
+import org.openhab.core.library.types.StringType;
 
 /**
  * This is a helper class that helps parsing a string into an openHAB type (state or command).
- * 
+ *
+ * <p>For the types of the core library a direct parser is registered, which checks cheaply
+ * whether the string can be accepted at all before creating the type instance. Only types
+ * without a registered parser are resolved through their static <code>valueOf(String)</code>
+ * method by reflection.</p>
+ *
  * @author Kai Kreuzer
  * @since 0.1.0
  *
  */
 public class TypeParser {
 
+	/**
+	 * A parser which creates an instance of a specific type from a string.
+	 */
+	public interface ValueParser {
+
+		/**
+		 * Parses the given string.
+		 *
+		 * @param s the string to parse, never <code>null</code>
+		 * @return the parsed type or <code>null</code>, if the string is not accepted
+		 */
+		Type parse(String s);
+	}
+
+	private static final Map<Class<? extends Type>, ValueParser> parsers = new ConcurrentHashMap<Class<? extends Type>, ValueParser>();
+
+	static {
+		parsers.put(StringType.class, new ValueParser() {
+			public Type parse(String s) {
+				return new StringType(s);
+			}
+		});
+		parsers.put(DecimalType.class, new ValueParser() {
+			public Type parse(String s) {
+				return isNumeric(s, 0, s.length()) ? new DecimalType(s) : null;
+			}
+		});
+		parsers.put(PercentType.class, new ValueParser() {
+			public Type parse(String s) {
+				return isNumeric(s, 0, s.length()) ? new PercentType(s) : null;
+			}
+		});
+		parsers.put(HSBType.class, new ValueParser() {
+			public Type parse(String s) {
+				return isNumericList(s, 3, 3) ? new HSBType(s) : null;
+			}
+		});
+		parsers.put(PointType.class, new ValueParser() {
+			public Type parse(String s) {
+				return isNumericList(s, 2, 3) ? new PointType(s) : null;
+			}
+		});
+		parsers.put(DateTimeType.class, new ValueParser() {
+			public Type parse(String s) {
+				if(s.length() < 19 || s.charAt(4) != '-' || s.charAt(10) != 'T') return null;
+				try {
+					return new DateTimeType(s);
+				} catch (IllegalArgumentException e) {
+					return null;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Registers a parser for the given type, which replaces the reflective lookup
+	 * of its <code>valueOf(String)</code> method.
+	 *
+	 * @param type the type the parser creates
+	 * @param parser the parser to use for this type
+	 */
+	public static void registerParser(Class<? extends Type> type, ValueParser parser) {
+		parsers.put(type, parser);
+	}
+
 	/**
 	 * <p>Determines a state from a string. Possible state types are passed as a parameter.
 	 * Note that the order matters here; the first type that accepts the string as a valid
@@ -28,21 +109,16 @@ public class TypeParser {
 	 * <p>Example: The type list is OnOffType.class,StringType.class. The string "ON" is now
 	 * accepted by the OnOffType and thus OnOffType.ON will be returned (and not a StringType
 	 * with value "ON").</p>
-	 *  
-	 * @param types possible types of the state to consider 
+	 *
+	 * @param types possible types of the state to consider
 	 * @param s the string to parse
 	 * @return the corresponding State instance or <code>null</code>
 	 */
 	public static State parseState(List<Class<? extends State>> types, String s) {
-		for(Class<? extends Type> type : types) {
-			try {									
-				Method valueOf = type.getMethod("valueOf", String.class);
-				State state = (State) valueOf.invoke(type, s);
-				if(state!=null) return state;
-			} catch (NoSuchMethodException e) {
-			} catch (IllegalArgumentException e) {
-			} catch (IllegalAccessException e) {
-			} catch (InvocationTargetException e) {
+		if(s!=null) {
+			for(Class<? extends State> type : types) {
+				Type value = parseType(type, s);
+				if(value instanceof State) return (State) value;
 			}
 		}
 		return null;
@@ -55,25 +131,117 @@ public class TypeParser {
 	 * <p>Example: The type list is OnOffType.class,StringType.class. The string "ON" is now
 	 * accepted by the OnOffType and thus OnOffType.ON will be returned (and not a StringType
 	 * with value "ON").</p>
-	 *  
-	 * @param types possible types of the command to consider 
+	 *
+	 * @param types possible types of the command to consider
 	 * @param s the string to parse
 	 * @return the corresponding Command instance or <code>null</code>
 	 */
 	public static Command parseCommand(List<Class<? extends Command>> types, String s) {
 		if(s!=null) {
 			for(Class<? extends Command> type : types) {
-				try {									
-					Method valueOf = type.getMethod("valueOf", String.class);
-					Command value = (Command) valueOf.invoke(type, s);
-					if(value!=null) return value;
-				} catch (NoSuchMethodException e) {
-				} catch (IllegalArgumentException e) {
-				} catch (IllegalAccessException e) {
-				} catch (InvocationTargetException e) {
-				}		
+				Type value = parseType(type, s);
+				if(value instanceof Command) return (Command) value;
 			}
 		}
 		return null;
 	}
+
+	private static Type parseType(Class<? extends Type> type, String s) {
+		ValueParser parser = parsers.get(type);
+		if(parser==null) {
+			parser = createParser(type);
+			parsers.put(type, parser);
+		}
+		try {
+			return parser.parse(s);
+		} catch (IllegalArgumentException e) {
+			// the pre-checks do not cover everything, e.g. the value range of a PercentType
+			return null;
+		}
+	}
+
+	private static ValueParser createParser(Class<? extends Type> type) {
+		if(type.isEnum()) {
+			final Map<String, Type> constants = new HashMap<String, Type>();
+			for(Type constant : type.getEnumConstants()) {
+				constants.put(((Enum<?>) constant).name(), constant);
+			}
+			return new ValueParser() {
+				public Type parse(String s) {
+					return constants.get(s);
+				}
+			};
+		}
+		try {
+			final Method valueOf = type.getMethod("valueOf", String.class);
+			if(Modifier.isStatic(valueOf.getModifiers())) {
+				return new ValueParser() {
+					public Type parse(String s) {
+						try {
+							return (Type) valueOf.invoke(null, s);
+						} catch (IllegalAccessException e) {
+						} catch (InvocationTargetException e) {
+						}
+						return null;
+					}
+				};
+			}
+		} catch (NoSuchMethodException e) {
+		}
+		return new ValueParser() {
+			public Type parse(String s) {
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * Checks whether the given string consists of numbers separated by commas.
+	 *
+	 * @param s the string to check
+	 * @param min the minimum number of elements
+	 * @param max the maximum number of elements
+	 * @return <code>true</code>, if the string is a list of numbers of the given size
+	 */
+	private static boolean isNumericList(String s, int min, int max) {
+		int count = 0;
+		int start = 0;
+		while(start <= s.length()) {
+			int end = s.indexOf(',', start);
+			if(end < 0) end = s.length();
+			if(!isNumeric(s, start, end)) return false;
+			count++;
+			start = end + 1;
+		}
+		return count >= min && count <= max;
+	}
+
+	/**
+	 * Checks whether the given part of a string is a decimal number in a syntax which
+	 * is accepted by {@link java.math.BigDecimal#BigDecimal(String)}.
+	 *
+	 * @param s the string to check
+	 * @param start the index of the first character to check
+	 * @param end the index after the last character to check
+	 * @return <code>true</code>, if the characters form a decimal number
+	 */
+	private static boolean isNumeric(String s, int start, int end) {
+		int i = start;
+		if(i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+		int digits = 0;
+		while(i < end && Character.isDigit(s.charAt(i))) { i++; digits++; }
+		if(i < end && s.charAt(i) == '.') {
+			i++;
+			while(i < end && Character.isDigit(s.charAt(i))) { i++; digits++; }
+		}
+		if(digits == 0) return false;
+		if(i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+			i++;
+			if(i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+			int exponentDigits = 0;
+			while(i < end && Character.isDigit(s.charAt(i))) { i++; exponentDigits++; }
+			if(exponentDigits == 0) return false;
+		}
+		return i == end;
+	}
 }
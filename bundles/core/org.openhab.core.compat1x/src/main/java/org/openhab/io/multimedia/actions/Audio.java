@@ -8,9 +8,9 @@
  */
 package org.openhab.io.multimedia.actions;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -19,16 +19,27 @@ import java.net.Socket;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineListener;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.Mixer;
 import javax.sound.sampled.Port;
+import javax.sound.sampled.SourceDataLine;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 import javazoom.jl.decoder.JavaLayerException;
@@ -41,6 +52,7 @@ import org.openhab.core.compat1x.internal.CompatibilityActivator;
 import org.openhab.core.library.types.PercentType;
 import org.openhab.core.scriptengine.action.ActionDoc;
 import org.openhab.core.scriptengine.action.ParamDoc;
+import org.openhab.io.multimedia.actions.SoundClipCache.DecodedSound;
 import org.eclipse.smarthome.io.multimedia.tts.TTSService;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.InvalidSyntaxException;
@@ -62,22 +74,88 @@ public class Audio {
 	
 	private static Socket shoutCastSocket = null;
 
+	/** the number of sounds played at the same time, unless configured otherwise */
+	static final int DEFAULT_MAX_CONCURRENT_SOUNDS = 4;
+
+	/** the number of bytes of decoded sounds kept in memory, unless configured otherwise */
+	static final long DEFAULT_SOUND_CACHE_SIZE = 16 * 1024 * 1024;
+
+	private static final int MAX_QUEUED_SOUNDS = 32;
+
+	private static final SoundClipCache soundCache = new SoundClipCache(DEFAULT_SOUND_CACHE_SIZE);
+
+	private static final ThreadPoolExecutor soundExecutor = new ThreadPoolExecutor(DEFAULT_MAX_CONCURRENT_SOUNDS,
+			DEFAULT_MAX_CONCURRENT_SOUNDS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_QUEUED_SOUNDS),
+			new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "audio-sound-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	static {
+		soundExecutor.allowCoreThreadTimeOut(true);
+	}
+
 	@ActionDoc(text="plays a sound from the sounds folder")
 	static public void playSound(
-			@ParamDoc(name="filename", text="the filename with extension") String filename) {
+			@ParamDoc(name="filename", text="the filename with extension") final String filename) {
+		final long requestTime = System.nanoTime();
 		try {
-			InputStream is = new FileInputStream(RUNTIME_DIR + File.separator + SOUND_DIR + File.separator + filename);
-			if (filename.toLowerCase().endsWith(".mp3")) {
-				Player player = new Player(is);
-				playInThread(player);
-			} else {
-				AudioInputStream ais = AudioSystem.getAudioInputStream(is);
-				Clip clip = AudioSystem.getClip();
-				clip.open(ais);
-				playInThread(clip);
+			soundExecutor.execute(new Runnable() {
+				public void run() {
+					playSound(filename, requestTime);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			logger.warn("Cannot play sound '{}': too many sounds are waiting to be played", filename);
+		}
+	}
+
+	/**
+	 * Configures the sound playback.
+	 * 
+	 * @param maxConcurrentSounds the maximum number of sounds, which are played at the same time
+	 * @param cacheSize the maximum number of bytes of decoded sounds to keep in memory
+	 */
+	static void configureSounds(int maxConcurrentSounds, long cacheSize) {
+		if (maxConcurrentSounds < soundExecutor.getCorePoolSize()) {
+			soundExecutor.setCorePoolSize(maxConcurrentSounds);
+			soundExecutor.setMaximumPoolSize(maxConcurrentSounds);
+		} else {
+			soundExecutor.setMaximumPoolSize(maxConcurrentSounds);
+			soundExecutor.setCorePoolSize(maxConcurrentSounds);
+		}
+		soundCache.setMaxSize(cacheSize);
+	}
+
+	/**
+	 * Drops all decoded sounds from memory.
+	 */
+	static void clearSoundCache() {
+		soundCache.clear();
+	}
+
+	private static void playSound(String filename, long requestTime) {
+		File file = new File(RUNTIME_DIR + File.separator + SOUND_DIR + File.separator + filename);
+		if (!file.isFile()) {
+			logger.error("Cannot play sound '{}': file {} does not exist", filename, file.getPath());
+			return;
+		}
+		try {
+			DecodedSound sound = soundCache.get(file);
+			if (sound == null) {
+				logger.debug("Sound '{}' is too large for the sound cache, streaming it", filename);
+				streamSound(file, filename, requestTime);
+				return;
 			}
-		} catch (FileNotFoundException e) {
-			logger.error("Cannot play sound '{}': {}", new Object[] { filename, e.getMessage() } );
+			Clip clip = AudioSystem.getClip();
+			clip.open(sound.format, sound.data, 0, sound.data.length);
+			playClip(clip, filename, requestTime);
 		} catch (JavaLayerException e) {
 			logger.error("Cannot play sound '{}': {}", new Object[] { filename, e.getMessage() } );
 		} catch (UnsupportedAudioFileException e) {
@@ -86,6 +164,88 @@ public class Audio {
 			logger.error("Cannot play sound '{}': {}", new Object[] { filename, e.getMessage() });
 		} catch (LineUnavailableException e) {
 			logger.error("Cannot play sound '{}': {}", new Object[] { filename, e.getMessage() });
+		} catch (IllegalArgumentException e) {
+			logger.error("Cannot play sound '{}': {}", new Object[] { filename, e.getMessage() });
+		}
+	}
+
+	/**
+	 * Plays a sound file without loading it into memory. Like a clip, it is played on the calling
+	 * thread, which blocks until it has finished.
+	 */
+	private static void streamSound(File file, String filename, long requestTime) throws IOException,
+			UnsupportedAudioFileException, LineUnavailableException, JavaLayerException {
+		InputStream is = new BufferedInputStream(new FileInputStream(file));
+		try {
+			if (file.getName().toLowerCase().endsWith(".mp3")) {
+				Player player = new Player(is);
+				logger.debug("Started playing sound '{}' {} ms after the request", filename,
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestTime));
+				try {
+					player.play();
+				} finally {
+					player.close();
+				}
+				return;
+			}
+			AudioInputStream ais = AudioSystem.getAudioInputStream(is);
+			AudioFormat format = ais.getFormat();
+			if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED
+					&& format.getEncoding() != AudioFormat.Encoding.PCM_UNSIGNED) {
+				AudioFormat pcmFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+						format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+				ais = AudioSystem.getAudioInputStream(pcmFormat, ais);
+				format = pcmFormat;
+			}
+			SourceDataLine line = AudioSystem.getSourceDataLine(format);
+			line.open(format);
+			try {
+				line.start();
+				logger.debug("Started playing sound '{}' {} ms after the request", filename,
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestTime));
+				byte[] buffer = new byte[line.getBufferSize()];
+				int read;
+				while ((read = ais.read(buffer)) != -1 && !Thread.currentThread().isInterrupted()) {
+					line.write(buffer, 0, read);
+				}
+				line.drain();
+			} finally {
+				line.close();
+			}
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Plays the clip on the calling thread and blocks until it has finished, so that the
+	 * size of the sound executor limits the number of concurrently playing sounds.
+	 */
+	private static void playClip(final Clip clip, final String filename, final long requestTime) {
+		final CountDownLatch finished = new CountDownLatch(1);
+		clip.addLineListener(new LineListener() {
+			public void update(LineEvent event) {
+				if (event.getType() == LineEvent.Type.START) {
+					logger.debug("Started playing sound '{}' {} ms after the request", filename,
+							TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestTime));
+				} else if (event.getType() == LineEvent.Type.STOP) {
+					finished.countDown();
+				}
+			}
+		});
+		try {
+			clip.start();
+			// a STOP event might get lost, if the line is drained before the listener is invoked
+			while (!finished.await(1, TimeUnit.SECONDS)) {
+				if (!clip.isActive()) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			clip.stop();
+			Thread.currentThread().interrupt();
+		} finally {
+			clip.close();
 		}
 	}
 
@@ -341,23 +501,6 @@ public class Audio {
 		}
 	}
 
-	private static void playInThread(final Clip clip) {
-		// run in new thread
-		new Thread() {
-			public void run() {
-				try {
-					clip.start();
-					while (clip.isActive()) {
-						sleep(1000L);
-					}
-					clip.close();
-				} catch (Exception e) {
-					throw new RuntimeException(e.getMessage());
-				}
-			}
-		}.start();
-	}
-
 	static private void playInThread(final Player player) {
 		// run in new thread
 		new Thread() {
@@ -8,10 +8,42 @@
  */
 package org.openhab.io.multimedia.actions;
 
+import java.util.Map;
+
 import org.openhab.core.scriptengine.action.ActionService;
 
 public class AudioActionService implements ActionService {
 
+	/** the maximum number of sounds that are played at the same time */
+	private static final String CONFIG_MAX_CONCURRENT_SOUNDS = "maxConcurrentSounds";
+
+	/** the maximum size of decoded sounds that are kept in memory, in KB */
+	private static final String CONFIG_SOUND_CACHE_SIZE = "soundCacheSize";
+
+	protected void activate(Map<String, ?> config) {
+		modified(config);
+	}
+
+	protected void modified(Map<String, ?> config) {
+		int maxConcurrentSounds = Audio.DEFAULT_MAX_CONCURRENT_SOUNDS;
+		long soundCacheSize = Audio.DEFAULT_SOUND_CACHE_SIZE / 1024;
+		if (config != null) {
+			Object value = config.get(CONFIG_MAX_CONCURRENT_SOUNDS);
+			if (value != null) {
+				maxConcurrentSounds = Math.max(1, Integer.parseInt(value.toString()));
+			}
+			value = config.get(CONFIG_SOUND_CACHE_SIZE);
+			if (value != null) {
+				soundCacheSize = Math.max(0, Long.parseLong(value.toString()));
+			}
+		}
+		Audio.configureSounds(maxConcurrentSounds, soundCacheSize * 1024);
+	}
+
+	protected void deactivate() {
+		Audio.clearSoundCache();
+	}
+
 	@Override
 	public String getActionClassName() {
 		return Audio.class.getCanonicalName();
@@ -23,4 +55,3 @@ public class AudioActionService implements ActionService {
 	}
 
 }
- 
\ No newline at end of file
@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.multimedia.actions;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.JavaLayerException;
+import javazoom.jl.decoder.SampleBuffer;
+
+/**
+ * A bounded cache of sound files, which are decoded to PCM data, so that a {@link javax.sound.sampled.Clip}
+ * can be opened directly from memory. An entry is decoded again as soon as the file on disk has been
+ * modified. The least recently used entries are evicted when the total size of all cached sounds
+ * exceeds the configured maximum. Sounds which would not fit into the cache at all are not decoded,
+ * they have to be streamed from the file instead.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class SoundClipCache {
+
+	/**
+	 * A sound file decoded to PCM data.
+	 */
+	static class DecodedSound {
+		final AudioFormat format;
+		final byte[] data;
+		final long lastModified;
+		final long fileLength;
+
+		DecodedSound(AudioFormat format, byte[] data, long lastModified, long fileLength) {
+			this.format = format;
+			this.data = data;
+			this.lastModified = lastModified;
+			this.fileLength = fileLength;
+		}
+
+		boolean isCurrent(File file) {
+			return lastModified == file.lastModified() && fileLength == file.length();
+		}
+	}
+
+	private final Map<String, DecodedSound> sounds = new LinkedHashMap<String, DecodedSound>(16, 0.75f, true);
+
+	private long maxSize;
+
+	private long size = 0;
+
+	/**
+	 * @param maxSize the maximum number of bytes of PCM data to keep in memory
+	 */
+	SoundClipCache(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the decoded sound of the given file, which is either taken from the cache or
+	 * decoded and added to the cache.
+	 *
+	 * @param file the sound file
+	 * @return the decoded sound, or null if the decoded sound would be larger than the cache
+	 * @throws IOException if the file cannot be read
+	 * @throws UnsupportedAudioFileException if the format of the file is not supported
+	 * @throws JavaLayerException if an mp3 file cannot be decoded
+	 */
+	DecodedSound get(File file) throws IOException, UnsupportedAudioFileException, JavaLayerException {
+		String key = file.getAbsolutePath();
+		synchronized (this) {
+			DecodedSound sound = sounds.get(key);
+			if (sound != null) {
+				if (sound.isCurrent(file)) {
+					return sound;
+				}
+				remove(key);
+			}
+		}
+		// check the size before decoding, a long sound would need a lot of memory
+		if (estimateSize(file) > getMaxSize()) {
+			return null;
+		}
+		// decode outside of the lock, so that other cached sounds can still be played meanwhile
+		DecodedSound sound = decode(file);
+		synchronized (this) {
+			if (sound.data.length <= maxSize) {
+				DecodedSound old = sounds.put(key, sound);
+				if (old != null) {
+					size -= old.data.length;
+				}
+				size += sound.data.length;
+				evict();
+			}
+		}
+		return sound;
+	}
+
+	/**
+	 * Changes the maximum size of the cache and evicts entries, if necessary.
+	 *
+	 * @param maxSize the maximum number of bytes of PCM data to keep in memory
+	 */
+	synchronized void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	synchronized long getMaxSize() {
+		return maxSize;
+	}
+
+	synchronized void clear() {
+		sounds.clear();
+		size = 0;
+	}
+
+	private void remove(String key) {
+		DecodedSound old = sounds.remove(key);
+		if (old != null) {
+			size -= old.data.length;
+		}
+	}
+
+	private void evict() {
+		Iterator<DecodedSound> it = sounds.values().iterator();
+		while (size > maxSize && it.hasNext()) {
+			size -= it.next().data.length;
+			it.remove();
+		}
+	}
+
+	/**
+	 * Estimates the number of bytes of PCM data of a sound file from its header, without decoding it.
+	 *
+	 * @param file the sound file
+	 * @return the estimated size of the decoded sound in bytes
+	 * @throws IOException if the file cannot be read
+	 * @throws UnsupportedAudioFileException if the format of the file is not supported
+	 * @throws JavaLayerException if the header of an mp3 file cannot be read
+	 */
+	static long estimateSize(File file) throws IOException, UnsupportedAudioFileException, JavaLayerException {
+		if (file.getName().toLowerCase().endsWith(".mp3")) {
+			return estimateMp3Size(file);
+		}
+		AudioFileFormat fileFormat = AudioSystem.getAudioFileFormat(file);
+		AudioFormat format = fileFormat.getFormat();
+		long frameLength = fileFormat.getFrameLength();
+		if (frameLength == AudioSystem.NOT_SPECIFIED) {
+			// the length is not known without decoding, so the sound is streamed
+			return Long.MAX_VALUE;
+		}
+		if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED
+				&& format.getEncoding() != AudioFormat.Encoding.PCM_UNSIGNED) {
+			// decoded to 16 bit samples
+			return frameLength * format.getChannels() * 2;
+		}
+		return frameLength * format.getFrameSize();
+	}
+
+	private static long estimateMp3Size(File file) throws IOException, JavaLayerException {
+		InputStream is = new BufferedInputStream(new FileInputStream(file));
+		Bitstream bitstream = new Bitstream(is);
+		try {
+			Header header = bitstream.readFrame();
+			if (header == null) {
+				return 0;
+			}
+			int channels = header.mode() == Header.SINGLE_CHANNEL ? 1 : 2;
+			double seconds = header.total_ms((int) Math.min(file.length(), Integer.MAX_VALUE)) / 1000.0;
+			// 16 bit samples
+			return (long) (seconds * header.frequency()) * channels * 2;
+		} finally {
+			bitstream.close();
+			is.close();
+		}
+	}
+
+	private static DecodedSound decode(File file) throws IOException, UnsupportedAudioFileException,
+			JavaLayerException {
+		long lastModified = file.lastModified();
+		long fileLength = file.length();
+		InputStream is = new BufferedInputStream(new FileInputStream(file));
+		try {
+			if (file.getName().toLowerCase().endsWith(".mp3")) {
+				return decodeMp3(is, lastModified, fileLength);
+			} else {
+				return decodeSampled(is, lastModified, fileLength);
+			}
+		} finally {
+			is.close();
+		}
+	}
+
+	private static DecodedSound decodeSampled(InputStream is, long lastModified, long fileLength)
+			throws IOException, UnsupportedAudioFileException {
+		AudioInputStream ais = AudioSystem.getAudioInputStream(is);
+		AudioFormat format = ais.getFormat();
+		if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED
+				&& format.getEncoding() != AudioFormat.Encoding.PCM_UNSIGNED) {
+			AudioFormat pcmFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+					format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+			ais = AudioSystem.getAudioInputStream(pcmFormat, ais);
+			format = pcmFormat;
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = ais.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return new DecodedSound(format, out.toByteArray(), lastModified, fileLength);
+	}
+
+	private static DecodedSound decodeMp3(InputStream is, long lastModified, long fileLength)
+			throws JavaLayerException {
+		Bitstream bitstream = new Bitstream(is);
+		Decoder decoder = new Decoder();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			Header header;
+			while ((header = bitstream.readFrame()) != null) {
+				SampleBuffer samples = (SampleBuffer) decoder.decodeFrame(header, bitstream);
+				short[] buffer = samples.getBuffer();
+				int length = samples.getBufferLength();
+				for (int i = 0; i < length; i++) {
+					// 16 bit signed little endian
+					out.write(buffer[i] & 0xff);
+					out.write((buffer[i] >> 8) & 0xff);
+				}
+				bitstream.closeFrame();
+			}
+		} finally {
+			bitstream.close();
+		}
+		int channels = decoder.getOutputChannels();
+		AudioFormat format = new AudioFormat(decoder.getOutputFrequency(), 16, channels, true, false);
+		return new DecodedSound(format, out.toByteArray(), lastModified, fileLength);
+	}
+}
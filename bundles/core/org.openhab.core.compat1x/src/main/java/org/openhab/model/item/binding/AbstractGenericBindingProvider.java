@@ -10,12 +10,15 @@ package org.openhab.model.item.binding;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 
 import org.openhab.core.binding.BindingChangeListener;
 import org.openhab.core.binding.BindingConfig;
@@ -31,6 +34,16 @@ import org.slf4j.LoggerFactory;
  * <p>This class takes care of tracking all changes in the binding config strings and makes sure that all
  * listeners are correctly notified of any change.<p>
  * 
+ * <p>If a context is reloaded through {@link #startConfigurationUpdate(String)} and
+ * {@link #stopConfigurationUpdate(String)}, only the items whose binding config string has actually
+ * changed are notified to the listeners; the {@link BindingConfig}s of unchanged items are replaced
+ * silently. Changed and removed items are passed to {@link #removeConfigurations(String)} as the
+ * only items of their context, so that subclasses can clean up their state as on a full reload.</p>
+ * 
+ * <p>Subclasses can register secondary indexes over their binding configs through
+ * {@link #addIndex(String, IndexKeyProvider)}, e.g. to look up items by a device address without
+ * scanning all configs.</p>
+ * 
  * @author Kai Kreuzer
  * @since 0.6.0
  *
@@ -49,7 +62,29 @@ public abstract class AbstractGenericBindingProvider implements BindingConfigRea
 	 * structure: context -> Set of Items
 	 */ 
 	protected Map<String, Set<Item>> contextMap = new ConcurrentHashMap<String, Set<Item>>();
-	
+
+	/** maps itemNames to the item type and binding config string they have been processed with */
+	private Map<String, String> rawConfigs = new ConcurrentHashMap<String, String>();
+
+	/** maps itemNames to the context they are currently processed in */
+	private Map<String, String> itemContexts = new ConcurrentHashMap<String, String>();
+
+	/** the contexts which are currently reloaded */
+	private Map<String, ContextUpdate> contextUpdates = new ConcurrentHashMap<String, ContextUpdate>();
+
+	private Map<String, Index> indexes = new ConcurrentHashMap<String, Index>();
+
+	/**
+	 * Provides the key under which a binding config is registered in a secondary index.
+	 */
+	protected interface IndexKeyProvider {
+
+		/**
+		 * @param config the binding config to index
+		 * @return the index key of the config or <code>null</code>, if it should not be indexed
+		 */
+		Object getIndexKey(BindingConfig config);
+	}
 
 	public AbstractGenericBindingProvider() {
 		super();
@@ -73,13 +108,28 @@ public abstract class AbstractGenericBindingProvider implements BindingConfigRea
 	 * {@inheritDoc}
 	 */
 	public void processBindingConfiguration(String context, Item item, String bindingConfig) throws BindingConfigParseException {
+		String rawConfig = item.getClass().getName() + ":" + bindingConfig;
+		ContextUpdate update = contextUpdates.get(context);
+		if(update!=null) {
+			// the item is kept, even if a subclass stores its config without addBindingConfig
+			update.processedItems.add(item.getName());
+			Item previousItem = update.previousItems.get(item.getName());
+			if(previousItem!=null && !rawConfig.equals(update.previousConfigs.get(item.getName()))
+					&& bindingConfigs.containsKey(item.getName())) {
+				// the configuration has changed, so the old one is removed before the new one is processed
+				removeItemConfigurations(context, Collections.singleton(previousItem));
+			}
+		}
+
 		Set<Item> items = contextMap.get(context);
 		if (items==null) {
-			items = new HashSet<Item>();
+			items = Collections.newSetFromMap(new ConcurrentHashMap<Item, Boolean>());
 			contextMap.put(context, items);
 		}
 			
 		items.add(item);
+		itemContexts.put(item.getName(), context);
+		rawConfigs.put(item.getName(), rawConfig);
 	}
 
 	/**
@@ -90,27 +140,161 @@ public abstract class AbstractGenericBindingProvider implements BindingConfigRea
 		if(items!=null) {
 			for(Item item : items) {
 				// we remove all binding configurations for all items
-				bindingConfigs.remove(item.getName());
-				notifyListeners(item);
+				removeBindingConfig(item.getName());
+				if(context.equals(itemContexts.get(item.getName()))) {
+					rawConfigs.remove(item.getName());
+					itemContexts.remove(item.getName());
+				}
+				notifyListeners(item.getName());
 			}
 			contextMap.remove(context);
 		}
 	}
+
+	/**
+	 * Removes the configurations of some items of a context through {@link #removeConfigurations(String)},
+	 * which only sees the given items as the content of the context meanwhile. The other items of the
+	 * context are kept.
+	 */
+	private void removeItemConfigurations(String context, Collection<Item> removedItems) {
+		Set<Item> remainingItems = contextMap.remove(context);
+		Set<Item> items = Collections.newSetFromMap(new ConcurrentHashMap<Item, Boolean>());
+		items.addAll(removedItems);
+		contextMap.put(context, items);
+		try {
+			removeConfigurations(context);
+		} finally {
+			contextMap.remove(context);
+			if(remainingItems!=null) {
+				contextMap.put(context, remainingItems);
+			}
+		}
+	}
+
+	/**
+	 * Starts reloading the binding configurations of the given context. In contrast to
+	 * {@link #removeConfigurations(String)}, the current configurations are kept until
+	 * {@link #stopConfigurationUpdate(String)} is called, so that listeners are only notified
+	 * about items whose configuration has changed or which have been removed.
+	 * 
+	 * @param context the context which is reloaded
+	 */
+	public void startConfigurationUpdate(String context) {
+		ContextUpdate update = new ContextUpdate();
+		Set<Item> items = contextMap.remove(context);
+		if(items!=null) {
+			for(Item item : items) {
+				update.previousItems.put(item.getName(), item);
+				update.previousConfigs.put(item.getName(), rawConfigs.get(item.getName()));
+			}
+		}
+		contextUpdates.put(context, update);
+	}
+
+	/**
+	 * Finishes reloading the binding configurations of the given context. All items of the context
+	 * which have not been processed again since {@link #startConfigurationUpdate(String)} are removed.
+	 * 
+	 * @param context the context which has been reloaded
+	 */
+	public void stopConfigurationUpdate(String context) {
+		ContextUpdate update = contextUpdates.remove(context);
+		if(update==null) {
+			return;
+		}
+		List<Item> removedItems = new ArrayList<Item>();
+		for(Item item : update.previousItems.values()) {
+			if(!update.processedItems.contains(item.getName()) && context.equals(itemContexts.get(item.getName()))) {
+				removedItems.add(item);
+			}
+		}
+		if(!removedItems.isEmpty()) {
+			removeItemConfigurations(context, removedItems);
+		}
+		logger.debug("Reloaded {} binding configurations of '{}' in {} ms: {} added, {} changed, {} unchanged, {} removed",
+				new Object[] { getClass().getSimpleName(), context, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - update.startTime),
+					update.added, update.changed, update.unchanged, removedItems.size() });
+	}
 	
 	protected void addBindingConfig(Item item, BindingConfig config) {
-		bindingConfigs.put(item.getName(), config);
-		notifyListeners(item);
+		String itemName = item.getName();
+		String context = itemContexts.get(itemName);
+		ContextUpdate update = context!=null ? contextUpdates.get(context) : null;
+		if(update!=null) {
+			if(update.previousConfigs.containsKey(itemName)) {
+				String previousConfig = update.previousConfigs.get(itemName);
+				if(previousConfig!=null && previousConfig.equals(rawConfigs.get(itemName)) && bindingConfigs.containsKey(itemName)) {
+					// nothing has changed, so we do not bother the listeners, but the new config refers to the new item
+					update.unchanged++;
+					BindingConfig oldConfig = bindingConfigs.put(itemName, config);
+					updateIndexes(itemName, oldConfig, config);
+					return;
+				}
+				update.changed++;
+			} else {
+				update.added++;
+			}
+		}
+		BindingConfig oldConfig = bindingConfigs.put(itemName, config);
+		updateIndexes(itemName, oldConfig, config);
+		notifyListeners(itemName);
 	}
 
-	private void notifyListeners(Item item) {
+	private void removeBindingConfig(String itemName) {
+		BindingConfig oldConfig = bindingConfigs.remove(itemName);
+		updateIndexes(itemName, oldConfig, null);
+	}
+
+	private void notifyListeners(String itemName) {
 		for (BindingChangeListener listener : listeners) {
             try {
-                listener.bindingChanged(this, item.getName());
+                listener.bindingChanged(this, itemName);
             } catch (Exception e) {
                 logger.error("Binding " + listener.getClass().getName() + " threw an exception: ", e);
             }
 		}
 	}
+
+	/**
+	 * Registers a secondary index over the binding configs. All configs which are already
+	 * known are added to the new index.
+	 * 
+	 * @param indexName the name of the index
+	 * @param keyProvider provides the index key of a binding config
+	 */
+	protected void addIndex(String indexName, IndexKeyProvider keyProvider) {
+		Index index = new Index(keyProvider);
+		for(Map.Entry<String, BindingConfig> entry : bindingConfigs.entrySet()) {
+			index.add(entry.getKey(), entry.getValue());
+		}
+		indexes.put(indexName, index);
+	}
+
+	/**
+	 * Looks up the items whose binding config has the given key in a secondary index.
+	 * 
+	 * @param indexName the name of the index
+	 * @param key the index key
+	 * @return the names of all matching items, never <code>null</code>
+	 */
+	protected Set<String> getItemNamesForIndexKey(String indexName, Object key) {
+		Index index = indexes.get(indexName);
+		if(index==null) {
+			throw new IllegalArgumentException("No index '" + indexName + "' has been registered");
+		}
+		return index.get(key);
+	}
+
+	private void updateIndexes(String itemName, BindingConfig oldConfig, BindingConfig newConfig) {
+		for(Index index : indexes.values()) {
+			if(oldConfig!=null) {
+				index.remove(itemName, oldConfig);
+			}
+			if(newConfig!=null) {
+				index.add(itemName, newConfig);
+			}
+		}
+	}
 	
 	/**
 	 * @{inheritDoc}
@@ -133,4 +317,62 @@ public abstract class AbstractGenericBindingProvider implements BindingConfigRea
 		return new ArrayList<String>(bindingConfigs.keySet());
 	}	
 
+	/**
+	 * Keeps track of a reload of a context.
+	 */
+	private static class ContextUpdate {
+		final long startTime = System.nanoTime();
+		/** maps the itemNames of the context to their items before the reload */
+		final Map<String, Item> previousItems = new HashMap<String, Item>();
+		/** maps the itemNames of the context to their binding config strings before the reload */
+		final Map<String, String> previousConfigs = new HashMap<String, String>();
+		/** the itemNames which have been processed again during the reload */
+		final Set<String> processedItems = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		int added;
+		int changed;
+		int unchanged;
+	}
+
+	/**
+	 * A secondary index, which maps index keys to the names of the items.
+	 */
+	private static class Index {
+		private final IndexKeyProvider keyProvider;
+		private final Map<Object, Set<String>> itemNames = new ConcurrentHashMap<Object, Set<String>>();
+
+		Index(IndexKeyProvider keyProvider) {
+			this.keyProvider = keyProvider;
+		}
+
+		synchronized void add(String itemName, BindingConfig config) {
+			Object key = keyProvider.getIndexKey(config);
+			if(key!=null) {
+				Set<String> names = itemNames.get(key);
+				if(names==null) {
+					names = new CopyOnWriteArraySet<String>();
+					itemNames.put(key, names);
+				}
+				names.add(itemName);
+			}
+		}
+
+		synchronized void remove(String itemName, BindingConfig config) {
+			Object key = keyProvider.getIndexKey(config);
+			if(key!=null) {
+				Set<String> names = itemNames.get(key);
+				if(names!=null) {
+					names.remove(itemName);
+					if(names.isEmpty()) {
+						itemNames.remove(key);
+					}
+				}
+			}
+		}
+
+		Set<String> get(Object key) {
+			Set<String> names = itemNames.get(key);
+			return names!=null ? Collections.unmodifiableSet(names) : Collections.<String>emptySet();
+		}
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.rest.docs.swagger;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import org.junit.Test;
+import org.openhab.io.rest.docs.swagger.model.SwaggerResources;
+
+/**
+ * Tests cases for the caching of the generated documents by {@link SwaggerServlet}.
+ *
+ * @author agent - Initial contribution
+ */
+public class SwaggerServletTest {
+
+    @Path("items")
+    public static class ItemResource {
+        @GET
+        public String getItems() {
+            return "";
+        }
+    }
+
+    @Path("things")
+    public static class ThingResource {
+        @GET
+        public String getThings() {
+            return "";
+        }
+    }
+
+    /**
+     * Counts the generated resource listings and may run a job while one is generated
+     */
+    private static class TestServlet extends SwaggerServlet {
+        int generated;
+        Runnable duringGeneration;
+
+        @Override
+        protected SwaggerResources createResourceListingFor(String baseURL, String rootPath,
+                Map<String, Class<?>> services) {
+            generated++;
+            if (duringGeneration != null) {
+                Runnable job = duringGeneration;
+                duringGeneration = null;
+                job.run();
+            }
+            return super.createResourceListingFor(baseURL, rootPath, services);
+        }
+    }
+
+    /**
+     * Records what the servlet writes
+     */
+    private static class RecordedResponse {
+        int status = HttpServletResponse.SC_OK;
+        final Map<String, String> headers = new HashMap<String, String>();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        String getBody() throws IOException {
+            InputStream in = new ByteArrayInputStream(body.toByteArray());
+            if ("gzip".equals(headers.get("Content-Encoding"))) {
+                in = new GZIPInputStream(in);
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = in.read(buffer)) >= 0) {
+                content.write(buffer, 0, length);
+            }
+            return new String(content.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private final TestServlet servlet = new TestServlet();
+
+    /**
+     * Requests the resource listing with the given request headers
+     */
+    private RecordedResponse get(String... headerNamesAndValues) throws Exception {
+        final Map<String, String> requestHeaders = new HashMap<String, String>();
+        for (int i = 0; i < headerNamesAndValues.length; i += 2) {
+            requestHeaders.put(headerNamesAndValues[i], headerNamesAndValues[i + 1]);
+        }
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "getHeader":
+                                return requestHeaders.get(args[0]);
+                            case "getPathInfo":
+                                return "/";
+                            case "getServletPath":
+                                return "/restdocs";
+                            case "getServerName":
+                                return "localhost";
+                            case "getServerPort":
+                                return 8080;
+                            case "isSecure":
+                                return false;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+
+        final RecordedResponse recorded = new RecordedResponse();
+        final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                recorded.body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "setHeader":
+                                recorded.headers.put((String) args[0], (String) args[1]);
+                                return null;
+                            case "setStatus":
+                                recorded.status = (Integer) args[0];
+                                return null;
+                            case "setContentType":
+                            case "setContentLength":
+                                return null;
+                            case "getOutputStream":
+                                return out;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+
+        servlet.doGet(request, response);
+        return recorded;
+    }
+
+    @Test
+    public void testDocumentIsCachedUntilServicesChange() throws Exception {
+        servlet.addService(new ItemResource());
+        String listing = get().getBody();
+        assertThat(listing, containsString("/items"));
+        assertThat(get().getBody(), is(listing));
+        assertThat(servlet.generated, is(1));
+
+        ThingResource thingResource = new ThingResource();
+        servlet.addService(thingResource);
+        assertThat(get().getBody(), containsString("/things"));
+        assertThat(servlet.generated, is(2));
+
+        // a known service does not change the document
+        servlet.addService(thingResource);
+        get();
+        assertThat(servlet.generated, is(2));
+
+        servlet.removeService(thingResource);
+        assertThat(get().getBody(), is(listing));
+        assertThat(servlet.generated, is(3));
+    }
+
+    @Test
+    public void testDocumentOfChangedServicesIsNotCached() throws Exception {
+        servlet.addService(new ItemResource());
+        servlet.duringGeneration = new Runnable() {
+            @Override
+            public void run() {
+                servlet.addService(new ThingResource());
+            }
+        };
+        // the outdated document is served to this request, but not to the next one
+        assertThat(get().getBody(), not(containsString("/things")));
+        assertThat(get().getBody(), containsString("/things"));
+        assertThat(servlet.generated, is(2));
+        get();
+        assertThat(servlet.generated, is(2));
+    }
+
+    @Test
+    public void testUnchangedDocumentIsNotSentAgain() throws Exception {
+        servlet.addService(new ItemResource());
+        RecordedResponse response = get();
+        String etag = response.headers.get("ETag");
+        assertThat(etag, is(notNullValue()));
+
+        response = get("If-None-Match", etag);
+        assertThat(response.status, is(HttpServletResponse.SC_NOT_MODIFIED));
+        assertThat(response.body.size(), is(0));
+        assertThat(get("If-None-Match", "\"other\", W/" + etag).status, is(HttpServletResponse.SC_NOT_MODIFIED));
+        assertThat(get("If-None-Match", "*").status, is(HttpServletResponse.SC_NOT_MODIFIED));
+        assertThat(get("If-None-Match", "\"other\"").status, is(HttpServletResponse.SC_OK));
+
+        servlet.addService(new ThingResource());
+        response = get("If-None-Match", etag);
+        assertThat(response.status, is(HttpServletResponse.SC_OK));
+        assertThat(response.headers.get("ETag"), is(not(etag)));
+    }
+
+    @Test
+    public void testCompressedDocumentHasItsOwnETag() throws Exception {
+        servlet.addService(new ItemResource());
+        RecordedResponse plain = get();
+        RecordedResponse compressed = get("Accept-Encoding", "gzip, deflate");
+        assertThat(compressed.headers.get("Content-Encoding"), is("gzip"));
+        assertThat(compressed.getBody(), is(plain.getBody()));
+        String etag = plain.headers.get("ETag");
+        String gzipEtag = compressed.headers.get("ETag");
+        assertThat(gzipEtag, is(not(etag)));
+
+        assertThat(get("Accept-Encoding", "gzip", "If-None-Match", etag).status, is(HttpServletResponse.SC_OK));
+        assertThat(get("Accept-Encoding", "gzip", "If-None-Match", gzipEtag).status,
+                is(HttpServletResponse.SC_NOT_MODIFIED));
+        assertThat(get("If-None-Match", gzipEtag).status, is(HttpServletResponse.SC_OK));
+    }
+}
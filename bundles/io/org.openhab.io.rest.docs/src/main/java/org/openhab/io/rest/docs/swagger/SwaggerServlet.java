@@ -26,9 +26,13 @@ import static org.openhab.io.rest.docs.swagger.SwaggerUtil.documentOperations;
 import static org.openhab.io.rest.docs.swagger.SwaggerUtil.getDescription;
 import static org.openhab.io.rest.docs.swagger.SwaggerUtil.getPath;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -39,7 +43,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -80,6 +87,36 @@ public class SwaggerServlet extends HttpServlet implements ManagedService {
 
     private static final JaxRsMethodComparator COMPARATOR = new JaxRsMethodComparator();
 
+    private static final Gson GSON = new Gson();
+
+    // the documents depend on the base URL of the request, limit the number of cached ones
+    private static final int MAX_CACHED_DOCUMENTS = 100;
+
+    /**
+     * A generated JSON document, with its compressed form and the ETags of both.
+     */
+    private static class Document {
+        final byte[] json;
+        final byte[] gzip;
+        final String etag;
+        final String gzipEtag;
+
+        Document(byte[] json, byte[] gzip, String etag) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+            // the compressed representation has different bytes, so it needs an ETag of its own
+            this.gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+    }
+
+    /**
+     * The generated documents by base URL, servlet path and request path. They are removed whenever a REST
+     * service comes or goes or the endpoint changes.
+     */
+    private final Map<String, Document> m_documents = new ConcurrentHashMap<String, Document>();
+    private final AtomicLong m_generation = new AtomicLong();
+
     private final CopyOnWriteArrayList<Object> m_restServices = new CopyOnWriteArrayList<Object>();
 
     private String m_restEndpoint = DEFAULT_ENDPOINT;
@@ -91,12 +128,16 @@ public class SwaggerServlet extends HttpServlet implements ManagedService {
 
         // Check whether it is a "real" JAX-RS component, and whether we should generate documentation for it...
         if (clazz.isAnnotationPresent(Path.class) && !clazz.isAnnotationPresent(NoDocumentation.class)) {
-            m_restServices.addIfAbsent(service);
+            if (m_restServices.addIfAbsent(service)) {
+                invalidateDocuments();
+            }
         }
     }
 
     public void removeService(Object service) {
-        m_restServices.remove(service);
+        if (m_restServices.remove(service)) {
+            invalidateDocuments();
+        }
     }
 
     protected void setHttpService(HttpService httpService) {
@@ -131,6 +172,7 @@ public class SwaggerServlet extends HttpServlet implements ManagedService {
                 throw new ConfigurationException(ENDPOINT_KEY, "has to be a non-null string.");
             }
         }
+        invalidateDocuments();
     }
 
     protected SwaggerAPI createDocumentationFor(String baseURL, Class<?> clazz) {
@@ -181,23 +223,66 @@ public class SwaggerServlet extends HttpServlet implements ManagedService {
         String baseURL = getBaseURL(req);
         String requestPath = getPath(req.getPathInfo());
 
+        String key = baseURL + " " + req.getServletPath() + " " + requestPath;
+        Document document = m_documents.get(key);
+        if (document == null) {
+            long generation = m_generation.get();
+            long start = System.nanoTime();
+            document = createDocument(baseURL, req.getServletPath(), requestPath);
+            logger.debug("Generated REST documentation of '{}' in {} ms", requestPath,
+                    (System.nanoTime() - start) / 1000000);
+            if (m_documents.size() >= MAX_CACHED_DOCUMENTS) {
+                m_documents.clear();
+            }
+            m_documents.put(key, document);
+            if (m_generation.get() != generation) {
+                // a service has come or gone while the document was generated
+                m_documents.remove(key);
+            }
+        }
+
+        writeDocument(req, resp, document);
+    }
+
+    private void invalidateDocuments() {
+        m_generation.incrementAndGet();
+        m_documents.clear();
+    }
+
+    private Document createDocument(String baseURL, String servletPath, String requestPath) throws IOException {
+        Object object;
         SortedMap<String, Class<?>> services = getServices();
         if ("".equals(requestPath) || "/".equals(requestPath)) {
-            SwaggerResources resources = createResourceListingFor(baseURL, req.getServletPath(), services);
-
-            writeAsJSON(resp, resources);
+            object = createResourceListingFor(baseURL, servletPath, services);
         } else {
             Class<?> serviceType = services.get(requestPath);
             if (serviceType != null) {
-                SwaggerAPI apiDocs = createDocumentationFor(baseURL, serviceType);
-
-                writeAsJSON(resp, apiDocs);
+                object = createDocumentationFor(baseURL, serviceType);
             } else {
                 // Swagger-UI b0rks when returning anything other than a valid JSON response,
                 // so in case we didn't write anything, simply return an empty JSON string...
-                writeAsJSON(resp, "");
+                object = "";
             }
         }
+
+        byte[] json = GSON.toJson(object).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(json);
+        }
+        return new Document(json, gzip.toByteArray(), createETag(json));
+    }
+
+    private String createETag(byte[] json) {
+        try {
+            StringBuilder etag = new StringBuilder("\"");
+            for (byte b : MessageDigest.getInstance("MD5").digest(json)) {
+                etag.append(String.format("%02x", b));
+            }
+            return etag.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            return "\"" + Integer.toHexString(Arrays.hashCode(json)) + "\"";
+        }
     }
 
     private String getBaseURL(HttpServletRequest request) {
@@ -226,16 +311,52 @@ public class SwaggerServlet extends HttpServlet implements ManagedService {
         return result;
     }
 
-    private void writeAsJSON(HttpServletResponse resp, Object object) throws IOException {
-        Gson gson = new Gson();
-        resp.setContentType(MediaType.APPLICATION_JSON);
-        PrintWriter writer = resp.getWriter();
+    private void writeDocument(HttpServletRequest req, HttpServletResponse resp, Document document)
+            throws IOException {
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? document.gzipEtag : document.etag;
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Vary", "Accept-Encoding");
+        if (matches(req.getHeader("If-None-Match"), etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        resp.setContentType(MediaType.APPLICATION_JSON + ";charset=UTF-8");
+        byte[] content = document.json;
+        if (gzip) {
+            resp.setHeader("Content-Encoding", "gzip");
+            content = document.gzip;
+        }
+        resp.setContentLength(content.length);
+        OutputStream out = resp.getOutputStream();
         try {
-            writer.append(gson.toJson(object));
+            out.write(content);
         } finally {
-            writer.flush();
-            writer.close();
+            out.flush();
+            out.close();
+        }
+    }
+
+    /**
+     * Checks whether an If-None-Match header matches the ETag of the document, i.e. whether it is "*" or one
+     * of its ETags is the given one. Weak ETags match as well.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
         }
+        return false;
     }
 
     private static class JaxRsMethodComparator implements Comparator<Method> {
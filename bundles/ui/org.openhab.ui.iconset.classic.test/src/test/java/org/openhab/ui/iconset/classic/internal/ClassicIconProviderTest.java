@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.iconset.classic.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Tests cases for {@link ClassicIconProvider}. The icons are served from a temporary directory instead of the
+ * bundle, the entries which are read from it are recorded.
+ *
+ * @author agent - Initial contribution
+ */
+public class ClassicIconProviderTest {
+
+    private static final int ICON_SIZE = 100;
+
+    /**
+     * An icon provider with room for two icons
+     */
+    private class TestProvider extends ClassicIconProvider {
+        TestProvider() {
+            super(2 * ICON_SIZE + ICON_SIZE / 2);
+            context = createContext();
+        }
+    }
+
+    private File iconsDir;
+    private final List<String> loadedIcons = new ArrayList<String>();
+    private int listings;
+    private TestProvider provider;
+
+    @Before
+    public void setUp() throws IOException {
+        iconsDir = File.createTempFile("icons", "");
+        iconsDir.delete();
+        iconsDir.mkdir();
+        for (String name : new String[] { "a.png", "b.png", "c.png" }) {
+            writeIcon(name, (byte) name.charAt(0));
+        }
+        provider = new TestProvider();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : iconsDir.listFiles()) {
+            file.delete();
+        }
+        iconsDir.delete();
+    }
+
+    private void writeIcon(String name, byte content) throws IOException {
+        byte[] icon = new byte[ICON_SIZE];
+        icon[0] = content;
+        try (FileOutputStream out = new FileOutputStream(new File(iconsDir, name))) {
+            out.write(icon);
+        }
+    }
+
+    private BundleContext createContext() {
+        final Bundle bundle = (Bundle) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { Bundle.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws IOException {
+                        switch (method.getName()) {
+                            case "findEntries":
+                                listings++;
+                                List<URL> entries = new ArrayList<URL>();
+                                for (File file : iconsDir.listFiles()) {
+                                    entries.add(file.toURI().toURL());
+                                }
+                                return Collections.enumeration(entries);
+                            case "getEntry":
+                                String path = (String) args[0];
+                                String name = path.substring(path.lastIndexOf('/') + 1);
+                                loadedIcons.add(name);
+                                File file = new File(iconsDir, name);
+                                return file.exists() ? file.toURI().toURL() : null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+        return (BundleContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { BundleContext.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("getBundle".equals(method.getName())) {
+                            return bundle;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private int read(String name) throws IOException {
+        try (InputStream in = provider.getResource(ClassicIconProvider.ICONSET_ID, name)) {
+            return in.read();
+        }
+    }
+
+    @Test
+    public void testResourcesAreLookedUpInTheIconNames() {
+        assertTrue(provider.hasResource(ClassicIconProvider.ICONSET_ID, "a.png"));
+        assertTrue(provider.hasResource(ClassicIconProvider.ICONSET_ID, "c.png"));
+        assertFalse(provider.hasResource(ClassicIconProvider.ICONSET_ID, "d.png"));
+        assertFalse(provider.hasResource("other", "a.png"));
+        assertThat(provider.getResource(ClassicIconProvider.ICONSET_ID, "d.png"), is(nullValue()));
+
+        // the names are listed once, no icon is read for the lookups
+        assertThat(listings, is(1));
+        assertTrue(loadedIcons.isEmpty());
+    }
+
+    @Test
+    public void testLeastRecentlyServedIconsAreEvicted() throws IOException {
+        assertThat(read("a.png"), is((int) 'a'));
+        assertThat(read("b.png"), is((int) 'b'));
+        assertThat(read("a.png"), is((int) 'a'));
+        assertThat(loadedIcons, is(Arrays.asList("a.png", "b.png")));
+
+        // there is no room for a third icon, b has been served least recently
+        assertThat(read("c.png"), is((int) 'c'));
+        assertThat(read("a.png"), is((int) 'a'));
+        assertThat(read("c.png"), is((int) 'c'));
+        assertThat(loadedIcons.size(), is(3));
+        assertThat(read("b.png"), is((int) 'b'));
+        assertThat(loadedIcons.size(), is(4));
+        assertThat(loadedIcons.get(3), is("b.png"));
+    }
+
+    @Test
+    public void testETagChangesWithTheContent() throws IOException {
+        String etag = provider.getETag(ClassicIconProvider.ICONSET_ID, "a.png");
+        assertThat(etag, is(notNullValue()));
+        assertThat(provider.getETag(ClassicIconProvider.ICONSET_ID, "a.png"), is(etag));
+        assertThat(provider.getETag(ClassicIconProvider.ICONSET_ID, "b.png"), is(not(etag)));
+        assertThat(provider.getETag(ClassicIconProvider.ICONSET_ID, "d.png"), is(nullValue()));
+
+        // a new provider reads the changed icon
+        writeIcon("a.png", (byte) 'z');
+        provider = new TestProvider();
+        assertThat(provider.getETag(ClassicIconProvider.ICONSET_ID, "a.png"), is(not(etag)));
+    }
+}
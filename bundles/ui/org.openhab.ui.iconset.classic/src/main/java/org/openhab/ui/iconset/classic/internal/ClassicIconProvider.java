@@ -7,17 +7,24 @@
  */
 package org.openhab.ui.iconset.classic.internal;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Set;
+import java.util.zip.CRC32;
 
 import org.eclipse.smarthome.ui.icon.AbstractResourceIconProvider;
 import org.eclipse.smarthome.ui.icon.IconProvider;
 import org.eclipse.smarthome.ui.icon.IconSet;
+import org.osgi.framework.Bundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +32,10 @@ import org.slf4j.LoggerFactory;
  * This icon provider provides the classic icons (dating from openHAB 1). They are packaged
  * within this bundle and served from there.
  *
+ * The names of the icons are read once, so looking up the state variants of an icon does not
+ * access the bundle, and the content of the icons which have been served recently is kept in
+ * memory, together with an ETag for conditional requests.
+ *
  * @author Kai Kreuzer - Initial contribution
  */
 public class ClassicIconProvider extends AbstractResourceIconProvider implements IconProvider {
@@ -33,6 +44,40 @@ public class ClassicIconProvider extends AbstractResourceIconProvider implements
 
     static String ICONSET_ID = "classic";
 
+    private static final String ICONS_PATH = "icons";
+
+    // the default maximum size of the icons kept in memory, in bytes
+    private static final int MAX_CACHE_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * The content of an icon and its ETag.
+     */
+    private static class Icon {
+        final byte[] content;
+        final String etag;
+
+        Icon(byte[] content, String etag) {
+            this.content = content;
+            this.etag = etag;
+        }
+    }
+
+    // the names of all icons of the bundle, read on first use
+    private volatile Set<String> resourceNames;
+
+    // the recently served icons by name, the least recently served comes first
+    private final LinkedHashMap<String, Icon> icons = new LinkedHashMap<String, Icon>(64, 0.75f, true);
+    private int cacheSize = 0;
+    private final int maxCacheSize;
+
+    public ClassicIconProvider() {
+        this(MAX_CACHE_SIZE);
+    }
+
+    ClassicIconProvider(int maxCacheSize) {
+        this.maxCacheSize = maxCacheSize;
+    }
+
     @Override
     public Set<IconSet> getIconSets(Locale locale) {
         return Collections.emptySet();
@@ -40,27 +85,94 @@ public class ClassicIconProvider extends AbstractResourceIconProvider implements
 
     @Override
     protected InputStream getResource(String iconSetId, String resourceName) {
-        if (ICONSET_ID.equals(iconSetId)) {
-            URL iconResource = context.getBundle().getEntry("icons" + File.separator + resourceName);
-            try {
-                return iconResource.openStream();
-            } catch (IOException e) {
-                logger.error("Failed to read icon '{}': {}", resourceName, e.getMessage());
-                return null;
+        Icon icon = getIcon(iconSetId, resourceName);
+        return icon != null ? new ByteArrayInputStream(icon.content) : null;
+    }
+
+    @Override
+    protected boolean hasResource(String iconSetId, String resourceName) {
+        return ICONSET_ID.equals(iconSetId) && getResourceNames().contains(resourceName);
+    }
+
+    /**
+     * Returns an ETag for an icon, which stays the same as long as the icon does not change
+     *
+     * @param iconSetId the id of the icon set
+     * @param resourceName the name of the icon resource, including state and format
+     * @return the ETag or null if there is no such icon
+     */
+    public String getETag(String iconSetId, String resourceName) {
+        Icon icon = getIcon(iconSetId, resourceName);
+        return icon != null ? icon.etag : null;
+    }
+
+    private Icon getIcon(String iconSetId, String resourceName) {
+        if (!hasResource(iconSetId, resourceName)) {
+            return null;
+        }
+        synchronized (icons) {
+            Icon icon = icons.get(resourceName);
+            if (icon != null) {
+                return icon;
             }
-        } else {
+        }
+
+        Icon icon = loadIcon(resourceName);
+        if (icon != null) {
+            synchronized (icons) {
+                Icon previous = icons.put(resourceName, icon);
+                cacheSize += icon.content.length - (previous != null ? previous.content.length : 0);
+                // remove the least recently served icons
+                Iterator<Icon> it = icons.values().iterator();
+                while (cacheSize > maxCacheSize && it.hasNext()) {
+                    cacheSize -= it.next().content.length;
+                    it.remove();
+                }
+            }
+        }
+        return icon;
+    }
+
+    private Icon loadIcon(String resourceName) {
+        URL iconResource = context.getBundle().getEntry(ICONS_PATH + "/" + resourceName);
+        if (iconResource == null) {
+            return null;
+        }
+        try (InputStream in = iconResource.openStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, count);
+            }
+            byte[] content = out.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(content.length)
+                    + "\"";
+            return new Icon(content, etag);
+        } catch (IOException e) {
+            logger.error("Failed to read icon '{}': {}", resourceName, e.getMessage());
             return null;
         }
     }
 
-    @Override
-    protected boolean hasResource(String iconSetId, String resourceName) {
-        if (ICONSET_ID.equals(iconSetId)) {
-            URL iconResource = context.getBundle().getEntry("icons" + File.separator + resourceName);
-            return iconResource != null;
-        } else {
-            return false;
+    private Set<String> getResourceNames() {
+        Set<String> names = resourceNames;
+        if (names == null) {
+            names = new HashSet<String>();
+            Bundle bundle = context.getBundle();
+            Enumeration<URL> entries = bundle.findEntries(ICONS_PATH, "*", false);
+            while (entries != null && entries.hasMoreElements()) {
+                String path = entries.nextElement().getPath();
+                if (!path.endsWith("/")) {
+                    names.add(path.substring(path.lastIndexOf('/') + 1));
+                }
+            }
+            logger.debug("Found {} classic icons", names.size());
+            resourceNames = names;
         }
+        return names;
     }
 
     @Override